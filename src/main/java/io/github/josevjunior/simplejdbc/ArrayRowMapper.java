@@ -18,4 +18,16 @@ public class ArrayRowMapper implements RowMapper<Object[]>{
         return result;        
     }
     
+    @Override
+    public Object[] map(ResultSet resultSet, ResultShape shape) throws SQLException {
+        int columnCount = shape.getColumnCount();
+        Object[] result = new Object[columnCount];
+        
+        for (int i = 0; i < columnCount; i++) {
+            result[i] = resultSet.getObject(i+1);
+        }
+        
+        return result;
+    }
+    
 }
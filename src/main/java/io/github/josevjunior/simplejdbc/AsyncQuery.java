@@ -0,0 +1,105 @@
+package io.github.josevjunior.simplejdbc;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import javax.sql.DataSource;
+
+/**
+ * The asynchronous version of {@link Query}. The parameters are kept until a
+ * execution method is called, then the query is created and executed at the
+ * executor with a new connection. The same AsyncQuery can be executed many times
+ * <br>
+ * The returned futures complete exceptionally with a {@link io.github.josevjunior.simplejdbc.JdbcException}
+ * if the execution fails
+ * 
+ * @param <T> The type of the query result
+ */
+public class AsyncQuery<T> {
+
+    private final DataSource dataSource;
+    private final Executor executor;
+    private final Function<QueryCreator, Query<T>> factory;
+    private final List<Consumer<Query<T>>> parameters;
+
+    AsyncQuery(DataSource dataSource, Executor executor, Function<QueryCreator, Query<T>> factory) {
+        this.dataSource = dataSource;
+        this.executor = executor;
+        this.factory = factory;
+        this.parameters = new ArrayList<>();
+    }
+
+    /**
+     * Set the parameter value
+     * @param name The parameter name
+     * @param value The parameter value
+     * @return The query itself
+     */
+    public AsyncQuery<T> setParameter(String name, Object value) {
+        parameters.add(q -> q.setParameter(name, value));
+        return this;
+    }
+
+    /**
+     * Set the parameter value
+     * @param i The parameter index
+     * @param value The parameter value
+     * @return The query itself
+     */
+    public AsyncQuery<T> setParameter(int i, Object value) {
+        parameters.add(q -> q.setParameter(i, value));
+        return this;
+    }
+
+    /**
+     * Define the max time of each execution, see {@link Query#timeout(long, java.util.concurrent.TimeUnit)}
+     * @param timeout The timeout or zero for no timeout
+     * @param unit The time unit
+     * @return The query itself
+     */
+    public AsyncQuery<T> timeout(long timeout, TimeUnit unit) {
+        parameters.add(q -> q.timeout(timeout, unit));
+        return this;
+    }
+
+    /**
+     * Execute the query asynchronously, see {@link Query#getResultList()}
+     * @return The future list
+     */
+    public CompletableFuture<List<T>> getResultList() {
+        return execute(Query::getResultList);
+    }
+
+    /**
+     * Execute the query asynchronously, see {@link Query#getFirstResult()}
+     * @return The future first result
+     */
+    public CompletableFuture<Optional<T>> getFirstResult() {
+        return execute(Query::getFirstResult);
+    }
+
+    /**
+     * Execute the update asynchronously, see {@link Query#executeUpdate()}
+     * @return The future updated rows count
+     */
+    public CompletableFuture<Integer> executeUpdate() {
+        return execute(Query::executeUpdate);
+    }
+
+    private <R> CompletableFuture<R> execute(Function<Query<T>, R> operation) {
+        List<Consumer<Query<T>>> boundParameters = new ArrayList<>(parameters);
+        return CompletableFuture.supplyAsync(() -> {
+            try(QueryCreator queryCreator = new QueryCreator(dataSource)) {
+                Query<T> query = factory.apply(queryCreator);
+                boundParameters.forEach(p -> p.accept(query));
+                return operation.apply(query);
+            }
+        }, executor);
+    }
+
+}
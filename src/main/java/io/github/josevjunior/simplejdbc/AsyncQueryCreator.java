@@ -0,0 +1,120 @@
+package io.github.josevjunior.simplejdbc;
+
+import java.lang.reflect.Method;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.sql.DataSource;
+
+/**
+ * Creates queries executed asynchronously. Each execution runs at the
+ * {@link java.util.concurrent.Executor} with its own {@link QueryCreator},
+ * that obtains a connection from the {@link javax.sql.DataSource} and closes
+ * it at the end. So independent queries can run at the same time
+ * <br>
+ * e.g:
+ * <pre>{@code
+    AsyncQueryCreator async = new AsyncQueryCreator(dataSource);
+    CompletableFuture<List<Employee>> employees = async.create("SELECT * FROM EMPLOYEE", Employee.class).getResultList();
+    CompletableFuture<Optional<Long>> count = async.create("SELECT COUNT(*) FROM DEPARTMENT", Long.class).getFirstResult();
+    CompletableFuture.allOf(employees, count).join();
+   }</pre>
+ *
+ * The executions only block the executor threads, so a virtual thread per
+ * task executor can be used on the JDKs that support it. See {@link #defaultExecutor()}
+ */
+public class AsyncQueryCreator implements AutoCloseable {
+
+    private final DataSource dataSource;
+    private final Executor executor;
+    private final ExecutorService ownedExecutor;
+
+    /**
+     * Create using the {@link #defaultExecutor()}, which is shutdown by {@link #close()}
+     * @param dataSource The datasource
+     */
+    public AsyncQueryCreator(DataSource dataSource) {
+        this(dataSource, defaultExecutor(), true);
+    }
+
+    /**
+     * Create using a executor managed by the caller
+     * @param dataSource The datasource
+     * @param executor The executor
+     */
+    public AsyncQueryCreator(DataSource dataSource, Executor executor) {
+        this(dataSource, executor, false);
+    }
+
+    private AsyncQueryCreator(DataSource dataSource, Executor executor, boolean owned) {
+        this.dataSource = Objects.requireNonNull(dataSource, "DataSource should not be null!");
+        this.executor = Objects.requireNonNull(executor, "Executor should not be null!");
+        this.ownedExecutor = owned ? (ExecutorService) executor : null;
+    }
+
+    /**
+     * Create a executor that runs each task in a new virtual thread when the
+     * running JDK supports it ({@code Executors.newVirtualThreadPerTaskExecutor()}).
+     * Otherwise, a cached pool of daemon platform threads is used
+     * @return A executor service
+     */
+    public static ExecutorService defaultExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        }catch (ReflectiveOperationException | RuntimeException e) {
+            AtomicInteger count = new AtomicInteger();
+            ThreadFactory threadFactory = r -> {
+                Thread thread = new Thread(r, "simplejdbc-async-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            };
+            return Executors.newCachedThreadPool(threadFactory);
+        }
+    }
+
+    /**
+     * Create a {@link AsyncQuery} with the given sql and associated it with the {@link io.github.josevjunior.simplejdbc.RowMapper}
+     * @param sql The database sql
+     * @param rowMapper The mapper
+     * @return A AsyncQuery object
+     */
+    public <T> AsyncQuery<T> create(String sql, RowMapper<T> rowMapper) {
+        return new AsyncQuery<>(dataSource, executor, qc -> qc.create(sql, rowMapper));
+    }
+
+    /**
+     * Create a {@link AsyncQuery} with the given sql. The mapper is discovered
+     * as in {@link QueryCreator#create(java.lang.String, java.lang.Class)}
+     * @param sql The database sql
+     * @param resultClass The result type
+     * @return A AsyncQuery object
+     */
+    public <T> AsyncQuery<T> create(String sql, Class<T> resultClass) {
+        return new AsyncQuery<>(dataSource, executor, qc -> qc.create(sql, resultClass));
+    }
+
+    /**
+     * Create a {@link AsyncQuery} with the given sql and the {@link io.github.josevjunior.simplejdbc.ArrayRowMapper}
+     * as row mapper
+     * @param sql The database sql
+     * @return A AsyncQuery object
+     */
+    public AsyncQuery<Object[]> create(String sql) {
+        return new AsyncQuery<>(dataSource, executor, qc -> qc.create(sql));
+    }
+
+    /**
+     * Shutdown the executor if it was created by this object
+     */
+    @Override
+    public void close() {
+        if(ownedExecutor != null) {
+            ownedExecutor.shutdown();
+        }
+    }
+
+}
@@ -1,37 +1,189 @@
-
 package io.github.josevjunior.simplejdbc;
 
+import java.beans.IntrospectionException;
+import java.beans.Introspector;
+import java.beans.PropertyDescriptor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
 import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
-import org.apache.commons.dbutils.BasicRowProcessor;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.ServiceLoader;
+import org.apache.commons.dbutils.ColumnHandler;
 import org.apache.commons.dbutils.GenerousBeanProcessor;
-import org.apache.commons.dbutils.RowProcessor;
+import org.apache.commons.dbutils.PropertyHandler;
 
 /**
- * A basic bean mapper which uses the {@link org.apache.commons.dbutils.BasicRowProcessor} as
- * the mapper engine
- * @param <T> 
+ * A basic bean mapper which matches the columns to the bean properties like the
+ * {@link org.apache.commons.dbutils.GenerousBeanProcessor}: case and underscore
+ * insensitive, with the dbutils column and property handlers converting the values.
+ * <br>
+ * The columns are matched once per {@link ResultShape} and reused for the next
+ * rows of the same shape. The mapper keeps the last shape only, so a mapper
+ * shared by queries with different columns matches them again on each switch
+ * @param <T>
  */
 public class BasicBeanMapper<T> implements RowMapper<T>{
-    
-    private final RowProcessor processor;
+
+    private static final List<ColumnHandler> COLUMN_HANDLERS = load(ColumnHandler.class);
+    private static final List<PropertyHandler> PROPERTY_HANDLERS = load(PropertyHandler.class);
+    private static final Map<Class<?>, Object> PRIMITIVE_DEFAULTS = new HashMap<>();
+
+    static {
+        PRIMITIVE_DEFAULTS.put(Integer.TYPE, 0);
+        PRIMITIVE_DEFAULTS.put(Short.TYPE, (short) 0);
+        PRIMITIVE_DEFAULTS.put(Byte.TYPE, (byte) 0);
+        PRIMITIVE_DEFAULTS.put(Float.TYPE, 0f);
+        PRIMITIVE_DEFAULTS.put(Double.TYPE, 0d);
+        PRIMITIVE_DEFAULTS.put(Long.TYPE, 0L);
+        PRIMITIVE_DEFAULTS.put(Boolean.TYPE, Boolean.FALSE);
+        PRIMITIVE_DEFAULTS.put(Character.TYPE, (char) 0);
+    }
+
     private final Class<T> resultType;
+    private final PropertyDescriptor[] properties;
+    private volatile Mapping mapping;
 
     public BasicBeanMapper(Class<T> resultType) {
-        this.processor = new BasicRowProcessor(new GenerousBeanProcessor());
         this.resultType = resultType;
+        try {
+            this.properties = Introspector.getBeanInfo(resultType).getPropertyDescriptors();
+        } catch (IntrospectionException e) {
+            throw new JdbcException("Can't introspect " + resultType.getName(), e);
+        }
+    }
+
+    @Override
+    public T map(ResultSet resultSet, ResultSetMetaData mtdt) throws SQLException {
+        return map(resultSet, mtdt instanceof ResultShape ? (ResultShape) mtdt : ResultShape.of(mtdt));
     }
 
     @Override
-    public T map(ResultSet resultSet, ResultSetMetaData mtdt) {
+    public T map(ResultSet resultSet, ResultShape shape) throws SQLException {
+        Mapping current = mapping;
+        if(current == null || current.shape != shape) {
+            current = new Mapping(shape, properties);
+            mapping = current;
+        }
+
+        T bean = newInstance();
+        for (int i = 1; i < current.setters.length; i++) {
+            Method setter = current.setters[i];
+            if(setter == null) {
+                continue;
+            }
+
+            Class<?> type = current.types[i];
+            Object value = column(resultSet, i, type);
+            if(value == null && type.isPrimitive()) {
+                value = PRIMITIVE_DEFAULTS.get(type);
+            }
+            set(bean, setter, value);
+        }
+        return bean;
+    }
+
+    private T newInstance() {
+        try {
+            return resultType.getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new JdbcException("Can't create an instance of " + resultType.getName(), e);
+        }
+    }
+
+    private static Object column(ResultSet resultSet, int index, Class<?> type) throws SQLException {
+        Object value = resultSet.getObject(index);
+        if(!type.isPrimitive() && value == null) {
+            return null;
+        }
+
+        for (ColumnHandler handler : COLUMN_HANDLERS) {
+            if(handler.match(type)) {
+                return handler.apply(resultSet, index);
+            }
+        }
+        return value;
+    }
+
+    private static void set(Object bean, Method setter, Object value) {
+        Class<?> type = setter.getParameterTypes()[0];
+        for (PropertyHandler handler : PROPERTY_HANDLERS) {
+            if(handler.match(type, value)) {
+                value = handler.apply(type, value);
+                break;
+            }
+        }
+
         try {
-            return this.processor.toBean(resultSet, resultType);
-        }catch (SQLException e) {
-            throw new JdbcException(e);
+            setter.invoke(bean, value);
+        } catch (IllegalArgumentException e) {
+            throw new JdbcException("Cannot set " + setter.getName() + ": incompatible types, cannot convert "
+                    + (value == null ? "null" : value.getClass().getName()) + " to " + type.getName(), e);
+        } catch (IllegalAccessException | InvocationTargetException e) {
+            throw new JdbcException("Cannot set " + setter.getName() + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * The dbutils processors iterate shared service loaders, which is not
+     * safe when many threads map rows at once. The handlers are loaded once here
+     */
+    private static <H> List<H> load(Class<H> handlerType) {
+        List<H> handlers = new ArrayList<>();
+        for (H handler : ServiceLoader.load(handlerType)) {
+            handlers.add(handler);
         }
+        return Collections.unmodifiableList(handlers);
+    }
+
+    Class<T> getResultType() {
+        return resultType;
     }
-    
-    
-    
+
+    /**
+     * The setter and the property type of each column of a shape, indexed from 1
+     */
+    private static final class Mapping {
+
+        final ResultShape shape;
+        final Method[] setters;
+        final Class<?>[] types;
+
+        Mapping(ResultShape shape, PropertyDescriptor[] properties) throws SQLException {
+            this.shape = shape;
+            int[] columnToProperty = ColumnMatcher.INSTANCE.match(shape, properties);
+            this.setters = new Method[columnToProperty.length];
+            this.types = new Class<?>[columnToProperty.length];
+            for (int i = 1; i < columnToProperty.length; i++) {
+                if(columnToProperty[i] == ColumnMatcher.NOT_FOUND) {
+                    continue;
+                }
+
+                PropertyDescriptor property = properties[columnToProperty[i]];
+                Method setter = property.getWriteMethod();
+                if(setter != null && setter.getParameterTypes().length == 1 && property.getPropertyType() != null) {
+                    setters[i] = setter;
+                    types[i] = property.getPropertyType();
+                }
+            }
+        }
+
+    }
+
+    private static final class ColumnMatcher extends GenerousBeanProcessor {
+
+        static final ColumnMatcher INSTANCE = new ColumnMatcher();
+        static final int NOT_FOUND = PROPERTY_NOT_FOUND;
+
+        int[] match(ResultSetMetaData metaData, PropertyDescriptor[] properties) throws SQLException {
+            return mapColumnsToProperties(metaData, properties);
+        }
+
+    }
+
 }
@@ -0,0 +1,470 @@
+package io.github.josevjunior.simplejdbc;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Loads a delimited file into a table. The file is parsed by a {@link io.github.josevjunior.simplejdbc.CsvTokenizer}
+ * at the caller thread and the rows are handed through a bounded queue to a
+ * writer thread that executes the inserts as jdbc batches
+ * <br>
+ * The field values are converted to the column types read from the table
+ * metadata. Empty fields are inserted as null
+ * <br>
+ * e.g:
+ * <pre>{@code
+    CsvBulkLoader.LoadStats stats = qc.csvLoader("EMPLOYEE")
+        .columns("ID", "NAME", "SALARY")
+        .skipHeader(true)
+        .commitEvery(10000)
+        .load(Paths.get("employees.csv"));
+   }</pre>
+ *
+ * The {@link io.github.josevjunior.simplejdbc.QueryCreator} connection is used
+ * by the writer thread while {@link #load(java.nio.file.Path)} is running, so
+ * it must not be used by other threads meanwhile
+ */
+public class CsvBulkLoader {
+
+    private static final List<Object[]> END_OF_FILE = Collections.emptyList();
+
+    private final QueryCreator queryCreator;
+    private final String tableName;
+    private String[] columns;
+    private Charset charset = StandardCharsets.UTF_8;
+    private char delimiter = ',';
+    private char quote = '"';
+    private boolean skipHeader;
+    private int batchSize = 1000;
+    private int commitEvery;
+    private int queueCapacity = 16;
+    private long progressEvery;
+    private Consumer<LoadStats> progressListener;
+
+    public CsvBulkLoader(QueryCreator queryCreator, String tableName) {
+        this.queryCreator = queryCreator;
+        this.tableName = tableName;
+    }
+
+    /**
+     * Define the table columns in the same order of the file fields. If not
+     * defined, all the table columns are used in the table order
+     * @param columns The column names
+     * @return The loader itself
+     */
+    public CsvBulkLoader columns(String... columns) {
+        this.columns = columns;
+        return this;
+    }
+
+    public CsvBulkLoader charset(Charset charset) {
+        this.charset = charset;
+        return this;
+    }
+
+    public CsvBulkLoader delimiter(char delimiter) {
+        this.delimiter = delimiter;
+        return this;
+    }
+
+    public CsvBulkLoader quote(char quote) {
+        this.quote = quote;
+        return this;
+    }
+
+    /**
+     * Ignore the first record of the file
+     * @param skipHeader If the first record is a header
+     * @return The loader itself
+     */
+    public CsvBulkLoader skipHeader(boolean skipHeader) {
+        this.skipHeader = skipHeader;
+        return this;
+    }
+
+    /**
+     * Define the number of rows sent in each jdbc batch
+     * @param batchSize The rows per batch
+     * @return The loader itself
+     */
+    public CsvBulkLoader batchSize(int batchSize) {
+        if(batchSize < 1) {
+            throw new IllegalArgumentException("The batch size must be greater than zero");
+        }
+        this.batchSize = batchSize;
+        return this;
+    }
+
+    /**
+     * Commit the transaction after at least N rows were inserted. The auto
+     * commit is disabled during the load and restored after it. Values lower
+     * than 1 means the loader does not handle the transaction at all
+     * @param rows The number of rows between commits
+     * @return The loader itself
+     */
+    public CsvBulkLoader commitEvery(int rows) {
+        this.commitEvery = rows;
+        return this;
+    }
+
+    /**
+     * Define how many batches can be waiting for the writer thread. When the
+     * queue is full, the parsing waits for the writer
+     * @param queueCapacity The number of batches
+     * @return The loader itself
+     */
+    public CsvBulkLoader queueCapacity(int queueCapacity) {
+        if(queueCapacity < 1) {
+            throw new IllegalArgumentException("The queue capacity must be greater than zero");
+        }
+        this.queueCapacity = queueCapacity;
+        return this;
+    }
+
+    /**
+     * Register a listener notified by the writer thread after each N inserted rows
+     * @param rows The number of rows between notifications
+     * @param listener The listener
+     * @return The loader itself
+     */
+    public CsvBulkLoader progress(long rows, Consumer<LoadStats> listener) {
+        this.progressEvery = rows;
+        this.progressListener = listener;
+        return this;
+    }
+
+    /**
+     * Load the file into the table
+     * @param file The delimited file
+     * @return The load statistics
+     */
+    public LoadStats load(Path file) {
+
+        Connection connection = queryCreator.getNativeConnection();
+        List<Function<String, Object>> converters = getConverters();
+        String sql = new SQLStatementBuilder().createInsert(tableName, Arrays.asList(columns)).toString();
+
+        Boolean previousAutoCommit = null;
+        boolean completed = false;
+        try {
+            if(commitEvery > 0) {
+                previousAutoCommit = connection.getAutoCommit();
+                connection.setAutoCommit(false);
+            }
+
+            BlockingQueue<List<Object[]>> queue = new ArrayBlockingQueue<>(queueCapacity);
+            Writer writer = new Writer(queue, queryCreator.create(sql), System.nanoTime());
+            Thread writerThread = new Thread(writer, "simplejdbc-csv-writer");
+            writerThread.setDaemon(true);
+            writerThread.start();
+
+            try {
+                read(file, converters, queue, writer);
+            } finally {
+                offer(queue, END_OF_FILE, writer);
+                writerThread.join();
+            }
+
+            if(writer.failure.get() != null) {
+                throw writer.failure.get();
+            }
+
+            if(commitEvery > 0) {
+                queryCreator.commit();
+            }
+            completed = true;
+
+            return writer.stats();
+
+        }catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new JdbcException(e);
+        }catch (SQLException e) {
+            throw new JdbcException(e);
+        } finally {
+            if(previousAutoCommit != null) {
+                try {
+                    if(!completed) {
+                        connection.rollback();
+                    }
+                    connection.setAutoCommit(previousAutoCommit);
+                }catch (SQLException ignored) {}
+            }
+        }
+    }
+
+    private void read(Path file, List<Function<String, Object>> converters, BlockingQueue<List<Object[]>> queue, Writer writer) throws InterruptedException {
+        try(CsvTokenizer tokenizer = new CsvTokenizer(FileChannel.open(file, StandardOpenOption.READ), charset, delimiter, quote)) {
+
+            List<String> fields = new ArrayList<>(converters.size());
+            List<Object[]> batch = new ArrayList<>(batchSize);
+
+            if(skipHeader) {
+                tokenizer.next(fields);
+            }
+
+            long rowNumber = 0;
+            while(tokenizer.next(fields)) {
+                rowNumber++;
+                if(fields.size() != converters.size()) {
+                    throw new JdbcException("Expected " + converters.size() + " fields but found " + fields.size() + " before line " + tokenizer.getLine());
+                }
+
+                Object[] row = new Object[fields.size()];
+                for (int i = 0; i < row.length; i++) {
+                    String value = fields.get(i);
+                    try {
+                        row[i] = value.isEmpty() ? null : converters.get(i).apply(value);
+                    }catch (IllegalArgumentException e) {
+                        throw new JdbcException("Invalid value '" + value + "' at row " + rowNumber + ", column " + (i + 1)
+                                + " (" + columns[i] + "), before line " + tokenizer.getLine(), e);
+                    }
+                }
+                batch.add(row);
+
+                if(batch.size() == batchSize) {
+                    if(!offer(queue, batch, writer)) {
+                        return;
+                    }
+                    batch = new ArrayList<>(batchSize);
+                }
+            }
+
+            if(!batch.isEmpty()) {
+                offer(queue, batch, writer);
+            }
+
+        }catch (IOException e) {
+            throw new JdbcException(e);
+        }
+    }
+
+    private boolean offer(BlockingQueue<List<Object[]>> queue, List<Object[]> batch, Writer writer) throws InterruptedException {
+        while(!queue.offer(batch, 100, TimeUnit.MILLISECONDS)) {
+            if(writer.failure.get() != null) {
+                return false;
+            }
+        }
+        return writer.failure.get() == null;
+    }
+
+    private List<Function<String, Object>> getConverters() {
+        ColumnTypes types = getColumnTypes(columns);
+        if(columns == null) {
+            columns = types.names;
+        }
+
+        List<Function<String, Object>> converters = new ArrayList<>(types.types.length);
+        for (int type : types.types) {
+            converters.add(getConverter(type));
+        }
+        return converters;
+    }
+
+    private ColumnTypes getColumnTypes(String[] columns) {
+        String select = columns == null ? "*" : String.join(", ", columns);
+        Query<Object[]> query = queryCreator.create("SELECT " + select + " FROM " + tableName + " WHERE 1 = 0");
+        try {
+            ResultSetMetaData metaData = query.getNativeStatement().getMetaData();
+            ColumnTypes columnTypes = new ColumnTypes(metaData.getColumnCount());
+            for (int i = 0; i < columnTypes.types.length; i++) {
+                columnTypes.names[i] = metaData.getColumnName(i + 1);
+                columnTypes.types[i] = metaData.getColumnType(i + 1);
+            }
+            return columnTypes;
+        }catch (SQLException e) {
+            throw new JdbcException(e);
+        } finally {
+            query.close();
+        }
+    }
+
+    private static Function<String, Object> getConverter(int type) {
+        switch(type) {
+            case Types.TINYINT:
+            case Types.SMALLINT:
+            case Types.INTEGER:
+                return Integer::valueOf;
+            case Types.BIGINT:
+                return Long::valueOf;
+            case Types.DECIMAL:
+            case Types.NUMERIC:
+                return BigDecimal::new;
+            case Types.REAL:
+                return Float::valueOf;
+            case Types.FLOAT:
+            case Types.DOUBLE:
+                return Double::valueOf;
+            case Types.BIT:
+            case Types.BOOLEAN:
+                return CsvBulkLoader::parseBoolean;
+            case Types.DATE:
+                return Date::valueOf;
+            case Types.TIME:
+                return Time::valueOf;
+            case Types.TIMESTAMP:
+                return Timestamp::valueOf;
+            default:
+                return value -> value;
+        }
+    }
+
+    /**
+     * Accept true/false, t/f, yes/no, y/n and 1/0 in any case. Any other value
+     * is rejected instead of being loaded as false
+     */
+    private static Boolean parseBoolean(String value) {
+        switch(value.toLowerCase(Locale.ROOT)) {
+            case "true":
+            case "t":
+            case "yes":
+            case "y":
+            case "1":
+                return Boolean.TRUE;
+            case "false":
+            case "f":
+            case "no":
+            case "n":
+            case "0":
+                return Boolean.FALSE;
+            default:
+                throw new IllegalArgumentException("Not a boolean: " + value);
+        }
+    }
+
+    private static class ColumnTypes {
+
+        private final String[] names;
+        private final int[] types;
+
+        private ColumnTypes(int count) {
+            this.names = new String[count];
+            this.types = new int[count];
+        }
+    }
+
+    private class Writer implements Runnable {
+
+        private final BlockingQueue<List<Object[]>> queue;
+        private final Query<Object[]> query;
+        private final long startTime;
+        private final AtomicLong rows;
+        private final AtomicReference<RuntimeException> failure;
+
+        private Writer(BlockingQueue<List<Object[]>> queue, Query<Object[]> query, long startTime) {
+            this.queue = queue;
+            this.query = query;
+            this.startTime = startTime;
+            this.rows = new AtomicLong();
+            this.failure = new AtomicReference<>();
+        }
+
+        @Override
+        public void run() {
+            long uncommitted = 0;
+            long nextProgress = progressEvery;
+            try {
+                List<Object[]> batch;
+                while((batch = queue.take()) != END_OF_FILE) {
+                    for (Object[] row : batch) {
+                        for (int i = 0; i < row.length; i++) {
+                            query.setParameter(i + 1, row[i]);
+                        }
+                        query.addBatch();
+                    }
+                    query.executeBatch();
+
+                    long total = rows.addAndGet(batch.size());
+                    uncommitted += batch.size();
+
+                    if(commitEvery > 0 && uncommitted >= commitEvery) {
+                        queryCreator.commit();
+                        uncommitted = 0;
+                    }
+
+                    if(progressListener != null && progressEvery > 0 && total >= nextProgress) {
+                        progressListener.accept(stats());
+                        nextProgress = total + progressEvery;
+                    }
+                }
+            }catch (InterruptedException e) {
+                failure.set(new JdbcException(e));
+            }catch (RuntimeException e) {
+                failure.set(e);
+            } finally {
+                query.close();
+            }
+        }
+
+        private LoadStats stats() {
+            return new LoadStats(rows.get(), System.nanoTime() - startTime);
+        }
+
+    }
+
+    /**
+     * The statistics of a load
+     */
+    public static class LoadStats {
+
+        private final long rows;
+        private final long elapsedNanos;
+
+        public LoadStats(long rows, long elapsedNanos) {
+            this.rows = rows;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        /**
+         * @return The number of inserted rows
+         */
+        public long getRows() {
+            return rows;
+        }
+
+        /**
+         * @return The elapsed time since the load started in nanoseconds
+         */
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+
+        /**
+         * @return The average number of inserted rows per second
+         */
+        public double getRowsPerSecond() {
+            return elapsedNanos == 0 ? 0 : rows * 1_000_000_000.0 / elapsedNanos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d rows in %d ms (%.0f rows/s)", rows, TimeUnit.NANOSECONDS.toMillis(elapsedNanos), getRowsPerSecond());
+        }
+
+    }
+
+}
@@ -0,0 +1,177 @@
+package io.github.josevjunior.simplejdbc;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.util.List;
+
+/**
+ * A streaming delimited text tokenizer. The content is read from a
+ * {@link java.nio.channels.ReadableByteChannel} through fixed size buffers, so
+ * the file is never fully loaded in memory and the lines are never split
+ * through regular expressions
+ * <br>
+ * Quoted fields can contain delimiters, line breaks and escaped quotes
+ * ({@code "a ""quoted"" value"}). Empty lines are ignored
+ */
+public class CsvTokenizer implements AutoCloseable {
+
+    private static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+    private final ReadableByteChannel channel;
+    private final CharsetDecoder decoder;
+    private final ByteBuffer bytes;
+    private final CharBuffer chars;
+    private final StringBuilder field;
+    private final char delimiter;
+    private final char quote;
+    private boolean endOfInput;
+    private boolean flushed;
+    private long line;
+
+    public CsvTokenizer(ReadableByteChannel channel, Charset charset, char delimiter, char quote) {
+        this(channel, charset, delimiter, quote, DEFAULT_BUFFER_SIZE);
+    }
+
+    public CsvTokenizer(ReadableByteChannel channel, Charset charset, char delimiter, char quote, int bufferSize) {
+        this.channel = channel;
+        this.decoder = charset.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPORT)
+                .onUnmappableCharacter(CodingErrorAction.REPORT);
+        this.bytes = ByteBuffer.allocateDirect(bufferSize);
+        this.chars = CharBuffer.allocate(bufferSize);
+        this.chars.flip();
+        this.field = new StringBuilder(128);
+        this.delimiter = delimiter;
+        this.quote = quote;
+        this.line = 1;
+    }
+
+    /**
+     * Read the next record
+     * @param fields The list that will be cleared and filled with the record fields
+     * @return false if there is no more records
+     */
+    public boolean next(List<String> fields) {
+        fields.clear();
+        field.setLength(0);
+
+        boolean inQuotes = false;
+        boolean hasContent = false;
+
+        while(true) {
+            if(!chars.hasRemaining() && !fill()) {
+                if(inQuotes) {
+                    throw new JdbcException("Unterminated quoted field at line " + line);
+                }
+                if(!hasContent) {
+                    return false;
+                }
+                fields.add(field.toString());
+                return true;
+            }
+
+            char c = chars.get();
+
+            if(inQuotes) {
+                if(c == quote) {
+                    if(chars.hasRemaining() || fill()) {
+                        if(chars.get(chars.position()) == quote) {
+                            chars.get();
+                            field.append(quote);
+                            continue;
+                        }
+                    }
+                    inQuotes = false;
+                } else {
+                    if(c == '\n') {
+                        line++;
+                    }
+                    field.append(c);
+                }
+            } else if(c == delimiter) {
+                fields.add(field.toString());
+                field.setLength(0);
+                hasContent = true;
+            } else if(c == quote && field.length() == 0) {
+                inQuotes = true;
+                hasContent = true;
+            } else if(c == '\n') {
+                line++;
+                if(!hasContent) {
+                    continue;
+                }
+                fields.add(field.toString());
+                return true;
+            } else if(c != '\r') {
+                field.append(c);
+                hasContent = true;
+            }
+        }
+    }
+
+    /**
+     * Get the current line number. Useful to report malformed content
+     * @return The line number
+     */
+    public long getLine() {
+        return line;
+    }
+
+    private boolean fill() {
+        if(flushed) {
+            return false;
+        }
+
+        try {
+            chars.clear();
+            while(true) {
+                if(!endOfInput && channel.read(bytes) < 0) {
+                    endOfInput = true;
+                }
+
+                bytes.flip();
+                CoderResult result = decoder.decode(bytes, chars, endOfInput);
+                bytes.compact();
+
+                if(result.isError()) {
+                    result.throwException();
+                }
+
+                if(result.isOverflow()) {
+                    break;
+                }
+
+                if(endOfInput) {
+                    flushed = !decoder.flush(chars).isOverflow();
+                    break;
+                }
+
+                if(chars.position() > 0) {
+                    break;
+                }
+            }
+
+            chars.flip();
+            return chars.hasRemaining();
+        }catch (CharacterCodingException e) {
+            throw new JdbcException("Invalid character at line " + line, e);
+        }catch (IOException e) {
+            throw new JdbcException(e);
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            channel.close();
+        }catch (IOException ignored) {}
+    }
+
+}
@@ -0,0 +1,68 @@
+package io.github.josevjunior.simplejdbc;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A point in time until which a work must be done. A deadline can be shared by
+ * many queries, e.g. all the queries of a request, so each one only gets the
+ * time left by the previous ones
+ * <br>
+ * e.g:
+ * <pre>{@code
+    Deadline deadline = Deadline.after(2, TimeUnit.SECONDS);
+    queryCreator.setDeadline(deadline);
+
+    queryCreator.create("SELECT ...").getResultList(); // Took 1.5 seconds
+    queryCreator.create("SELECT ...").getResultList(); // Is cancelled after 0.5 second
+   }</pre>
+ *
+ * The deadline is based on {@link System#nanoTime()}, so it is not affected by
+ * wall clock changes
+ */
+public final class Deadline {
+
+    private final long deadlineNanos;
+
+    private Deadline(long deadlineNanos) {
+        this.deadlineNanos = deadlineNanos;
+    }
+
+    /**
+     * Create a deadline that expires after the duration from now
+     * @param duration The duration
+     * @param unit The time unit
+     * @return The deadline
+     */
+    public static Deadline after(long duration, TimeUnit unit) {
+        return new Deadline(System.nanoTime() + unit.toNanos(duration));
+    }
+
+    /**
+     * @param unit The time unit
+     * @return The time left until the deadline, zero or negative if it has expired
+     */
+    public long remaining(TimeUnit unit) {
+        return unit.convert(deadlineNanos - System.nanoTime(), TimeUnit.NANOSECONDS);
+    }
+
+    public boolean isExpired() {
+        return deadlineNanos - System.nanoTime() <= 0;
+    }
+
+    /**
+     * @param other Other deadline or null
+     * @return The deadline that expires first
+     */
+    public Deadline earliest(Deadline other) {
+        if(other == null || deadlineNanos - other.deadlineNanos <= 0) {
+            return this;
+        }
+        return other;
+    }
+
+    @Override
+    public String toString() {
+        return "Deadline{remaining=" + remaining(TimeUnit.MILLISECONDS) + "ms}";
+    }
+
+}
@@ -0,0 +1,193 @@
+package io.github.josevjunior.simplejdbc;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+public class DeleteBuilder {
+
+    /**
+     * The default max number of parameters of each delete statement
+     */
+    public static final int DEFAULT_MAX_PARAMETERS = 1000;
+
+    static final String WHERE_PARAM_PREFIX = "V$_";
+    static final String IN_PARAM_PREFIX = "IN$_";
+
+    private final QueryCreator connection;
+    private final String tableName;
+
+    public DeleteBuilder(QueryCreator connection, String tableName) {
+        this.connection = connection;
+        this.tableName = tableName;
+    }
+
+    public String getTableName() {
+        return tableName;
+    }
+
+    public DeleteBuilderCondition where() {
+        return new DeleteBuilderCondition(this);
+    }
+
+    public static class DeleteBuilderCondition {
+
+        private final Map<String, Object> columnsAndValues;
+        private final QueryCreator connection;
+        private final DeleteBuilder deleteBuilder;
+        private String inColumn;
+        private List<Object> inValues;
+        private int maxParameters;
+        private boolean commitEachChunk;
+
+        public DeleteBuilderCondition(DeleteBuilder deleteBuilder) {
+            this.deleteBuilder = deleteBuilder;
+            this.connection = deleteBuilder.connection;
+            this.columnsAndValues = new LinkedHashMap<>();
+            this.maxParameters = DEFAULT_MAX_PARAMETERS;
+        }
+
+        public DeleteBuilderCondition col(String name, Object value) {
+            columnsAndValues.put(name, value);
+            return this;
+        }
+
+        /**
+         * Delete the rows which the column value is one of the values. The
+         * values are split in chunks, each one executed as a {@code IN} list
+         * that respects the {@link #maxParameters(int)} limit
+         * @param name The column name
+         * @param values The column values
+         * @return The condition itself
+         */
+        public DeleteBuilderCondition in(String name, Collection<?> values) {
+            this.inColumn = name;
+            this.inValues = new ArrayList<>(values);
+            return this;
+        }
+
+        /**
+         * Define the max number of parameters of each statement. The default
+         * value is {@link DeleteBuilder#DEFAULT_MAX_PARAMETERS}
+         * @param maxParameters The max number of parameters
+         * @return The condition itself
+         */
+        public DeleteBuilderCondition maxParameters(int maxParameters) {
+            this.maxParameters = maxParameters;
+            return this;
+        }
+
+        /**
+         * Commit the transaction after each chunk, so a large delete does
+         * not hold a single transaction. Ignored if the connection is in auto
+         * commit mode
+         * @param commitEachChunk If each chunk should be commited
+         * @return The condition itself
+         */
+        public DeleteBuilderCondition commitEachChunk(boolean commitEachChunk) {
+            this.commitEachChunk = commitEachChunk;
+            return this;
+        }
+
+        public Map<String, Object> getColumnsAndValues() {
+            return columnsAndValues;
+        }
+
+        public String getInColumn() {
+            return inColumn;
+        }
+
+        public DeleteBuilder getDeleteBuilder() {
+            return deleteBuilder;
+        }
+
+        /**
+         * Execute the delete
+         * @return The deleted rows count
+         */
+        public int execute() {
+
+            if(columnsAndValues.isEmpty() && inColumn == null) {
+                throw new JdbcException("The delete must have a WHERE condition");
+            }
+
+            SQLStatementBuilder stamBuilder = new SQLStatementBuilder();
+
+            if(inColumn == null) {
+                Query<Object[]> query = connection.create(stamBuilder.createDelete(this, 0).toString());
+                bindColumns(query);
+                if(connection.isTrackingWrites()) {
+                    query.writtenRows(Collections.singletonList(columnsAndValues));
+                }
+                return query.executeUpdate();
+            }
+
+            if(inValues.isEmpty()) {
+                return 0;
+            }
+
+            int chunkSize = Math.min(maxParameters - columnsAndValues.size(), inValues.size());
+            if(chunkSize < 1) {
+                throw new JdbcException("The max parameters must be greater than the number of WHERE columns");
+            }
+
+            // The last chunk is filled with repeated values, so every chunk
+            // shares the same statement
+            Query<Object[]> query = connection.create(stamBuilder.createDelete(this, chunkSize).toString());
+            bindColumns(query);
+
+            boolean commit = commitEachChunk && !isAutoCommit();
+            int firstInIndex = columnsAndValues.size() + 1;
+            int deleted = 0;
+
+            for (int offset = 0; offset < inValues.size(); offset += chunkSize) {
+                for (int i = 0; i < chunkSize; i++) {
+                    int valueIndex = Math.min(offset + i, inValues.size() - 1);
+                    query.setParameter(firstInIndex + i, inValues.get(valueIndex));
+                }
+                if(connection.isTrackingWrites()) {
+                    query.writtenRows(rows(offset, Math.min(offset + chunkSize, inValues.size())));
+                }
+
+                deleted += query.executeUpdate();
+
+                if(commit) {
+                    connection.commit();
+                }
+            }
+
+            return deleted;
+        }
+
+        private void bindColumns(Query<Object[]> query) {
+            columnsAndValues.forEach((k, v) -> query.setParameter(WHERE_PARAM_PREFIX + k, v));
+        }
+
+        /**
+         * The key columns of the rows of a chunk, see {@link Query#writtenRows(java.util.List)}
+         */
+        private List<Map<String, Object>> rows(int from, int to) {
+            List<Map<String, Object>> rows = new ArrayList<>(to - from);
+            for (int i = from; i < to; i++) {
+                Map<String, Object> row = new LinkedHashMap<>(columnsAndValues);
+                row.put(inColumn, inValues.get(i));
+                rows.add(row);
+            }
+            return rows;
+        }
+
+        private boolean isAutoCommit() {
+            try {
+                return connection.getNativeConnection().getAutoCommit();
+            }catch (SQLException e) {
+                throw new JdbcException(e);
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,704 @@
+package io.github.josevjunior.simplejdbc;
+
+import java.lang.ref.WeakReference;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToLongFunction;
+import java.util.regex.Pattern;
+
+/**
+ * A cache of the beans of a table keyed by the database and their primary key.
+ * It is used by the queries created with the bean class which select all the
+ * columns by the key, e.g. {@code SELECT * FROM EMPLOYEE WHERE ID = :ID}, through
+ * {@link Query#getFirstResult()}. The table name of the sql must not have a
+ * schema, a schema-qualified select always reads from the database
+ * <br>
+ * As the {@link QueryCache}, a cache shared by the QueryCreators of different
+ * databases keeps the beans of each database apart, see
+ * {@link QueryCreator#getDatabase()}. The writes evict the key in all of them
+ * <br>
+ * e.g:
+ * <pre>{@code
+    EntityCache<Employee> cache = new EntityCache<>(Employee.class, "EMPLOYEE", "ID")
+        .maximumSize(10_000)
+        .expireAfterWrite(5, TimeUnit.MINUTES);
+    queryCreator.setEntityCache(cache);
+
+    Optional<Employee> employee = queryCreator.create("SELECT * FROM EMPLOYEE WHERE ID = :ID", Employee.class)
+        .setParameter("ID", 10)
+        .getFirstResult();
+   }</pre>
+ *
+ * The admission and eviction follow the W-TinyLFU policy: new beans enter a
+ * small LRU window and, when it is full, they only take the place of a bean of
+ * the main space if they were accessed more often, according to a frequency
+ * sketch. So a scan of many keys does not evict the frequently used beans. The
+ * cache is split in lock-striped segments, each one with its own policy
+ * <br>
+ * The updates, inserts and deletes of the statement builders evict the beans of
+ * their keys. The other writes to the table evict all the beans. As the
+ * {@link QueryCache}, the writes of a transaction evict at {@link QueryCreator#commit()}
+ * and the cache is not used inside a transaction
+ * <br>
+ * Writes done outside the library are not seen, neither the replication lag
+ * of a replica read through a {@link RoutingQueryCreator}. The
+ * {@link #expireAfterWrite(long, java.util.concurrent.TimeUnit)} bounds how
+ * long those beans can be stale
+ * <br>
+ * <b>Note: </b> The cached beans are shared, so they should not be changed
+ *
+ * @param <T> The bean type
+ */
+public class EntityCache<T> {
+
+    /**
+     * All the caches, evicted by the writes of any QueryCreator
+     */
+    private static final List<WeakReference<EntityCache<?>>> CACHES = new CopyOnWriteArrayList<>();
+
+    private final Class<T> beanClass;
+    private final String table;
+    private final String keyColumn;
+    private final Pattern lookupPattern;
+    private final Map<String, Boolean> lookupSqls;
+    private final Map<Object, Boolean> databases;
+
+    private ToLongFunction<? super T> weigher;
+    private long maximumWeight;
+    private int stripeCount;
+    private volatile long expireAfterWriteNanos;
+    private volatile Stripe<T>[] stripes;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    /**
+     * @param beanClass The bean class
+     * @param table The table of the beans
+     * @param keyColumn The primary key column
+     */
+    public EntityCache(Class<T> beanClass, String table, String keyColumn) {
+        this.beanClass = Objects.requireNonNull(beanClass, "Bean class should not be null!");
+        this.table = table.toUpperCase();
+        this.keyColumn = keyColumn.toUpperCase();
+        this.lookupPattern = Pattern.compile("^\\s*SELECT\\s+(?:\\w+\\.)?\\*\\s+FROM\\s+" + Pattern.quote(this.table)
+                + "(?:\\s+(?:AS\\s+)?(?!WHERE\\b)\\w+)?\\s+WHERE\\s+(?:\\w+\\.)?" + Pattern.quote(this.keyColumn) + "\\s*=\\s*\\?\\s*;?\\s*$",
+                Pattern.CASE_INSENSITIVE);
+        this.lookupSqls = new ConcurrentHashMap<>();
+        this.databases = new ConcurrentHashMap<>();
+        this.weigher = bean -> 1;
+        this.maximumWeight = 10_000;
+        this.stripeCount = stripeCount(Runtime.getRuntime().availableProcessors() * 2);
+        this.stripes = createStripes();
+        CACHES.add(new WeakReference<>(this));
+    }
+
+    /**
+     * Define the max number of beans. Default 10000. The cached beans are
+     * discarded
+     * @param maximumSize The max number of beans
+     * @return The cache itself
+     */
+    public EntityCache<T> maximumSize(long maximumSize) {
+        return maximumWeight(maximumSize, bean -> 1);
+    }
+
+    /**
+     * Define the max weight of the beans. The cached beans are discarded
+     * @param maximumWeight The max weight
+     * @param weigher The estimated weight of a bean
+     * @return The cache itself
+     */
+    public EntityCache<T> maximumWeight(long maximumWeight, ToLongFunction<? super T> weigher) {
+        this.maximumWeight = maximumWeight;
+        this.weigher = Objects.requireNonNull(weigher, "Weigher should not be null!");
+        this.stripes = createStripes();
+        return this;
+    }
+
+    /**
+     * Define the time a bean is kept after it is read from the database.
+     * Default zero, the beans only leave the cache when evicted or invalidated
+     * @param duration The time or zero to not expire
+     * @param unit The time unit
+     * @return The cache itself
+     */
+    public EntityCache<T> expireAfterWrite(long duration, TimeUnit unit) {
+        this.expireAfterWriteNanos = unit.toNanos(duration);
+        return this;
+    }
+
+    /**
+     * Define the number of segments, rounded up to a power of two. The default
+     * is twice the number of processors. The cached beans are discarded
+     * @param stripes The number of segments
+     * @return The cache itself
+     */
+    public EntityCache<T> stripes(int stripes) {
+        this.stripeCount = stripeCount(stripes);
+        this.stripes = createStripes();
+        return this;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Stripe<T>[] createStripes() {
+        Stripe<T>[] created = (Stripe<T>[]) new Stripe<?>[stripeCount];
+        long stripeWeight = Math.max(1, (maximumWeight + stripeCount - 1) / stripeCount);
+        for (int i = 0; i < created.length; i++) {
+            created[i] = new Stripe<>(this, stripeWeight);
+        }
+        return created;
+    }
+
+    private static int stripeCount(int stripes) {
+        int count = 1;
+        while(count < stripes) {
+            count <<= 1;
+        }
+        return count;
+    }
+
+    public Class<T> getBeanClass() {
+        return beanClass;
+    }
+
+    public String getTable() {
+        return table;
+    }
+
+    public String getKeyColumn() {
+        return keyColumn;
+    }
+
+    /**
+     * Check if the sql selects all the columns of the table, without schema, by the key
+     */
+    boolean isKeyLookup(NamedParameterSQL sql) {
+        String query = sql.getParsedQuery();
+        Boolean lookup = lookupSqls.get(query);
+        if(lookup == null) {
+            lookup = lookupPattern.matcher(query).matches();
+            if(lookupSqls.size() >= 1024) {
+                lookupSqls.clear();
+            }
+            lookupSqls.put(query, lookup);
+        }
+        return lookup;
+    }
+
+    /**
+     * Get a cached bean of the database of a QueryCreator
+     * @param queryCreator The QueryCreator
+     * @param key The key value
+     * @return The bean or null if it is not cached
+     */
+    public T getIfPresent(QueryCreator queryCreator, Object key) {
+        return getIfPresent(queryCreator.getDatabase(), key);
+    }
+
+    /**
+     * @param database The database, see {@link QueryCreator#getDatabase()}
+     */
+    T getIfPresent(Object database, Object key) {
+        Object normalized = normalize(key);
+        int hash = spread(normalized.hashCode());
+        T bean = stripe(hash).get(new Entry(database, normalized), hash);
+        if(bean == null) {
+            misses.increment();
+        } else {
+            hits.increment();
+        }
+        return bean;
+    }
+
+    /**
+     * Get the version of the key segment. It must be taken before the bean is
+     * read and given back to {@link #put(java.lang.Object, java.lang.Object, java.lang.Object, long)}
+     */
+    long stamp(Object key) {
+        return stripe(spread(normalize(key).hashCode())).stamp();
+    }
+
+    /**
+     * Cache a bean read from the database, unless its segment was invalidated
+     * after the stamp
+     */
+    void put(Object database, Object key, T bean, long stamp) {
+        Object normalized = normalize(key);
+        int hash = spread(normalized.hashCode());
+        long expiresAt = expireAfterWriteNanos > 0 ? System.nanoTime() + expireAfterWriteNanos : 0;
+        databases.putIfAbsent(database, Boolean.TRUE);
+        stripe(hash).put(new Entry(database, normalized), hash, bean, weigher.applyAsLong(bean), expiresAt, stamp);
+    }
+
+    /**
+     * Remove the bean of the key, of all the databases
+     * @param key The key value
+     */
+    public void invalidate(Object key) {
+        Object normalized = normalize(key);
+        stripe(spread(normalized.hashCode())).remove(databases.keySet(), normalized);
+        invalidations.increment();
+    }
+
+    /**
+     * Remove all the beans
+     */
+    public void invalidateAll() {
+        for (Stripe<T> stripe : stripes) {
+            stripe.clear();
+        }
+        invalidations.increment();
+    }
+
+    private Stripe<T> stripe(int hash) {
+        Stripe<T>[] current = stripes;
+        return current[(hash >>> 16) & (current.length - 1)];
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    /**
+     * @return The number of beans removed or not admitted because of the max weight
+     */
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    /**
+     * @return The number of invalidations, of a key or of all the beans
+     */
+    public long getInvalidationCount() {
+        return invalidations.sum();
+    }
+
+    /**
+     * @return The hits divided by the requests or 1 if there was no request
+     */
+    public double getHitRate() {
+        long hitCount = hits.sum();
+        long requests = hitCount + misses.sum();
+        return requests == 0 ? 1 : (double) hitCount / requests;
+    }
+
+    /**
+     * @return The number of cached beans
+     */
+    public int size() {
+        int size = 0;
+        for (Stripe<T> stripe : stripes) {
+            size += stripe.size();
+        }
+        return size;
+    }
+
+    /**
+     * @return The weight of the cached beans
+     */
+    public long getWeight() {
+        long weight = 0;
+        for (Stripe<T> stripe : stripes) {
+            weight += stripe.weight();
+        }
+        return weight;
+    }
+
+    /**
+     * @return true if there is a cache whose beans may need to be evicted
+     */
+    static boolean isActive() {
+        return !CACHES.isEmpty();
+    }
+
+    /**
+     * Evict the written rows in all the caches of the table
+     * @param table The upper case table name or null if it is unknown
+     * @param rows The key values of the rows, by column name, or null if they
+     * are unknown
+     */
+    static void written(String table, List<Map<String, Object>> rows) {
+        List<WeakReference<EntityCache<?>>> collected = null;
+        for (WeakReference<EntityCache<?>> reference : CACHES) {
+            EntityCache<?> cache = reference.get();
+            if(cache == null) {
+                if(collected == null) {
+                    collected = new ArrayList<>();
+                }
+                collected.add(reference);
+            } else if(table == null || cache.table.equals(table)) {
+                cache.evict(table == null ? null : rows);
+            }
+        }
+
+        if(collected != null) {
+            CACHES.removeAll(collected);
+        }
+    }
+
+    private void evict(List<Map<String, Object>> rows) {
+        if(rows == null) {
+            invalidateAll();
+            return;
+        }
+
+        List<Object> keys = new ArrayList<>(rows.size());
+        for (Map<String, Object> row : rows) {
+            Object key = keyOf(row);
+            if(key == null) {
+                invalidateAll();
+                return;
+            }
+            keys.add(key);
+        }
+
+        for (Object key : keys) {
+            invalidate(key);
+        }
+    }
+
+    private Object keyOf(Map<String, Object> row) {
+        for (Map.Entry<String, Object> entry : row.entrySet()) {
+            if(entry.getKey().equalsIgnoreCase(keyColumn)) {
+                return entry.getValue();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * The integral numbers are compared as long, so a key set as Integer finds
+     * a bean cached by a Long key
+     */
+    static Object normalize(Object key) {
+        Objects.requireNonNull(key, "Key should not be null!");
+        if(key instanceof Integer || key instanceof Long || key instanceof Short || key instanceof Byte) {
+            return ((Number) key).longValue();
+        }
+        if(key instanceof BigInteger && ((BigInteger) key).bitLength() < 64) {
+            return ((BigInteger) key).longValue();
+        }
+        if(key instanceof BigDecimal) {
+            try {
+                return ((BigDecimal) key).longValueExact();
+            }catch (ArithmeticException e) {
+                return ((BigDecimal) key).stripTrailingZeros();
+            }
+        }
+        return key;
+    }
+
+    private static int spread(int hash) {
+        hash *= 0x9E3779B9;
+        return hash ^ (hash >>> 15);
+    }
+
+    /**
+     * A segment with its own lock and W-TinyLFU policy. The beans are at the
+     * window, at the probation or at the protected queue. The last two are the
+     * main space
+     */
+    private static final class Stripe<T> {
+
+        private static final int WINDOW = 0;
+        private static final int PROBATION = 1;
+        private static final int PROTECTED = 2;
+
+        private final EntityCache<T> cache;
+        private final Map<Object, Node<T>> nodes;
+        private final Node<T>[] queues;
+        private final long[] weights;
+        private final long maximumWeight;
+        private final long windowMaximum;
+        private final long mainMaximum;
+        private final long protectedMaximum;
+        private final FrequencySketch sketch;
+        private long version;
+
+        @SuppressWarnings("unchecked")
+        Stripe(EntityCache<T> cache, long maximumWeight) {
+            this.cache = cache;
+            this.nodes = new HashMap<>();
+            this.queues = (Node<T>[]) new Node<?>[3];
+            for (int i = 0; i < queues.length; i++) {
+                queues[i] = new Node<>(null, 0, null, 0, 0);
+                queues[i].prev = queues[i];
+                queues[i].next = queues[i];
+            }
+            this.weights = new long[3];
+            this.maximumWeight = maximumWeight;
+            this.windowMaximum = Math.max(1, maximumWeight / 100);
+            this.mainMaximum = maximumWeight - windowMaximum;
+            this.protectedMaximum = mainMaximum * 8 / 10;
+            this.sketch = new FrequencySketch(maximumWeight);
+        }
+
+        synchronized T get(Object key, int hash) {
+            sketch.increment(hash);
+            Node<T> node = nodes.get(key);
+            if(node == null) {
+                return null;
+            }
+            if(node.expiresAt != 0 && node.expiresAt - System.nanoTime() <= 0) {
+                nodes.remove(key);
+                unlink(node);
+                return null;
+            }
+
+            if(node.queue == PROBATION) {
+                move(node, PROTECTED);
+                while(weights[PROTECTED] > protectedMaximum) {
+                    move(queues[PROTECTED].next, PROBATION);
+                }
+            } else {
+                move(node, node.queue);
+            }
+            return node.value;
+        }
+
+        synchronized long stamp() {
+            return version;
+        }
+
+        synchronized void put(Object key, int hash, T value, long weight, long expiresAt, long stamp) {
+            if(version != stamp) {
+                return;
+            }
+            if(weight > maximumWeight) {
+                cache.evictions.increment();
+                return;
+            }
+
+            Node<T> node = nodes.remove(key);
+            if(node != null) {
+                unlink(node);
+            }
+
+            node = new Node<>(key, hash, value, weight, expiresAt);
+            nodes.put(key, node);
+            link(node, WINDOW);
+            evict();
+        }
+
+        /**
+         * Move the window overflow to the main space. When the main space is
+         * full, the candidate from the window only enters if it is more
+         * frequent than the victim, the least recently used of the probation
+         */
+        private void evict() {
+            while(weights[WINDOW] > windowMaximum) {
+                Node<T> candidate = queues[WINDOW].next;
+                unlink(candidate);
+
+                if(weights[PROBATION] + weights[PROTECTED] + candidate.weight <= mainMaximum) {
+                    link(candidate, PROBATION);
+                    continue;
+                }
+
+                Node<T> victim = victim();
+                if(victim == null || sketch.frequency(candidate.hash) <= sketch.frequency(victim.hash)) {
+                    nodes.remove(candidate.key);
+                    cache.evictions.increment();
+                    continue;
+                }
+
+                link(candidate, PROBATION);
+                while(weights[PROBATION] + weights[PROTECTED] > mainMaximum) {
+                    victim = victim();
+                    unlink(victim);
+                    nodes.remove(victim.key);
+                    cache.evictions.increment();
+                }
+            }
+        }
+
+        private Node<T> victim() {
+            if(queues[PROBATION].next != queues[PROBATION]) {
+                return queues[PROBATION].next;
+            }
+            if(queues[PROTECTED].next != queues[PROTECTED]) {
+                return queues[PROTECTED].next;
+            }
+            return null;
+        }
+
+        synchronized void remove(Iterable<Object> databases, Object key) {
+            version++;
+            for (Object database : databases) {
+                Node<T> node = nodes.remove(new Entry(database, key));
+                if(node != null) {
+                    unlink(node);
+                }
+            }
+        }
+
+        synchronized void clear() {
+            version++;
+            nodes.clear();
+            for (int i = 0; i < queues.length; i++) {
+                queues[i].prev = queues[i];
+                queues[i].next = queues[i];
+                weights[i] = 0;
+            }
+        }
+
+        synchronized int size() {
+            return nodes.size();
+        }
+
+        synchronized long weight() {
+            return weights[WINDOW] + weights[PROBATION] + weights[PROTECTED];
+        }
+
+        private void move(Node<T> node, int queue) {
+            unlink(node);
+            link(node, queue);
+        }
+
+        private void link(Node<T> node, int queue) {
+            Node<T> head = queues[queue];
+            node.queue = queue;
+            node.prev = head.prev;
+            node.next = head;
+            head.prev.next = node;
+            head.prev = node;
+            weights[queue] += node.weight;
+        }
+
+        private void unlink(Node<T> node) {
+            node.prev.next = node.next;
+            node.next.prev = node.prev;
+            weights[node.queue] -= node.weight;
+        }
+
+    }
+
+    /**
+     * The key of a bean in a database
+     */
+    private static final class Entry {
+
+        final Object database;
+        final Object key;
+
+        Entry(Object database, Object key) {
+            this.database = Objects.requireNonNull(database, "Database should not be null!");
+            this.key = key;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if(this == obj) {
+                return true;
+            }
+            if(!(obj instanceof Entry)) {
+                return false;
+            }
+            Entry other = (Entry) obj;
+            return key.equals(other.key) && database.equals(other.database);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * database.hashCode() + key.hashCode();
+        }
+
+    }
+
+    private static final class Node<T> {
+
+        final Object key;
+        final int hash;
+        final T value;
+        final long weight;
+        final long expiresAt;
+        int queue;
+        Node<T> prev;
+        Node<T> next;
+
+        Node(Object key, int hash, T value, long weight, long expiresAt) {
+            this.key = key;
+            this.hash = hash;
+            this.value = value;
+            this.weight = weight;
+            this.expiresAt = expiresAt;
+        }
+
+    }
+
+    /**
+     * A count-min sketch of 4 bits counters. The counters are halved after a
+     * sample of accesses, so the old frequencies fade
+     */
+    private static final class FrequencySketch {
+
+        private static final long[] SEEDS = { 0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L };
+        private static final long RESET_MASK = 0x7777777777777777L;
+
+        private final long[] table;
+        private final int sampleSize;
+        private int size;
+
+        FrequencySketch(long maximumSize) {
+            int length = (int) Math.min(1 << 20, Math.max(8, maximumSize));
+            this.table = new long[stripeCount(length)];
+            this.sampleSize = 10 * table.length;
+        }
+
+        void increment(int hash) {
+            boolean added = false;
+            for (int i = 0; i < 4; i++) {
+                int index = indexOf(hash, i);
+                int offset = nibble(hash, i);
+                if(((table[index] >>> offset) & 0xfL) != 0xfL) {
+                    table[index] += 1L << offset;
+                    added = true;
+                }
+            }
+
+            if(added && ++size == sampleSize) {
+                for (int i = 0; i < table.length; i++) {
+                    table[i] = (table[i] >>> 1) & RESET_MASK;
+                }
+                size /= 2;
+            }
+        }
+
+        int frequency(int hash) {
+            int frequency = Integer.MAX_VALUE;
+            for (int i = 0; i < 4; i++) {
+                int count = (int) ((table[indexOf(hash, i)] >>> nibble(hash, i)) & 0xfL);
+                frequency = Math.min(frequency, count);
+            }
+            return frequency;
+        }
+
+        private int indexOf(int hash, int i) {
+            long h = (hash + SEEDS[i]) * SEEDS[i];
+            h += h >>> 32;
+            return (int) h & (table.length - 1);
+        }
+
+        private static int nibble(int hash, int i) {
+            return (((hash >>> (i << 3)) & 3) << 2) + (i << 4);
+        }
+
+    }
+
+}
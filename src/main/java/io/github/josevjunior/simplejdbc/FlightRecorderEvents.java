@@ -0,0 +1,116 @@
+package io.github.josevjunior.simplejdbc;
+
+/**
+ * Emits the Java Flight Recorder events of the library: the statement prepare,
+ * execute, fetch, batch and the connection acquire. The events are recorded by
+ * {@code JfrRecorder}, which is compiled for Java 11 into the
+ * {@code META-INF/versions/11} folder of the multi-release jar. On Java 8 it is
+ * not found and the events are not emitted
+ * <br>
+ * Each begin method returns null when no recording is running, and the commit
+ * methods ignore a null event, so the queries only pay a null check
+ */
+final class FlightRecorderEvents {
+
+    private static final Recorder RECORDER = load();
+
+    private FlightRecorderEvents() {
+    }
+
+    private static Recorder load() {
+        try {
+            Class<?> recorderClass = Class.forName(FlightRecorderEvents.class.getPackage().getName() + ".JfrRecorder");
+            return (Recorder) recorderClass.getDeclaredConstructor().newInstance();
+        }catch (ReflectiveOperationException | LinkageError | RuntimeException e) {
+            // Java 8, or a runtime without jdk.jfr
+            return null;
+        }
+    }
+
+    /**
+     * @return If the events can be recorded in this runtime
+     */
+    static boolean isAvailable() {
+        return RECORDER != null;
+    }
+
+    static Object beginPrepare() {
+        return RECORDER != null ? RECORDER.begin(Recorder.PREPARE) : null;
+    }
+
+    static void commitPrepare(Object event, String sql, int parameterCount) {
+        if(event != null) {
+            RECORDER.commitStatement(event, sql, parameterCount, 0);
+        }
+    }
+
+    static Object beginExecute() {
+        return RECORDER != null ? RECORDER.begin(Recorder.EXECUTE) : null;
+    }
+
+    /**
+     * @param rows The updated rows count, or -1 for a select
+     */
+    static void commitExecute(Object event, String sql, int parameterCount, long rows) {
+        if(event != null) {
+            RECORDER.commitStatement(event, sql, parameterCount, rows);
+        }
+    }
+
+    static Object beginFetch() {
+        return RECORDER != null ? RECORDER.begin(Recorder.FETCH) : null;
+    }
+
+    static void commitFetch(Object event, String sql, int parameterCount, long rows) {
+        if(event != null) {
+            RECORDER.commitStatement(event, sql, parameterCount, rows);
+        }
+    }
+
+    static Object beginBatch() {
+        return RECORDER != null ? RECORDER.begin(Recorder.BATCH) : null;
+    }
+
+    static void commitBatch(Object event, String sql, int parameterCount, int batchSize, long rows) {
+        if(event != null) {
+            RECORDER.commitBatch(event, sql, parameterCount, batchSize, rows);
+        }
+    }
+
+    static Object beginConnectionAcquire() {
+        return RECORDER != null ? RECORDER.begin(Recorder.CONNECTION_ACQUIRE) : null;
+    }
+
+    static void commitConnectionAcquire(Object event, String dataSource) {
+        if(event != null) {
+            RECORDER.commitConnectionAcquire(event, dataSource);
+        }
+    }
+
+    /**
+     * Creates and commits the events. Implemented by {@code JfrRecorder}
+     */
+    interface Recorder {
+
+        int PREPARE = 0;
+        int EXECUTE = 1;
+        int FETCH = 2;
+        int BATCH = 3;
+        int CONNECTION_ACQUIRE = 4;
+
+        /**
+         * Begin a event
+         * @param type The event type
+         * @return The event or null if no recording is running
+         */
+        Object begin(int type);
+
+        void commitStatement(Object event, String sql, int parameterCount, long rows);
+
+        void commitBatch(Object event, String sql, int parameterCount, int batchSize, long rows);
+
+        void commitConnectionAcquire(Object event, String dataSource);
+
+    }
+
+}
@@ -1,23 +1,61 @@
-
 package io.github.josevjunior.simplejdbc;
 
+import java.util.ArrayList;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
 public class InsertBuilder {
 
     private final QueryCreator queryCreator;
-    private final Map<String, Object> columnsAndValues;
+    private final List<Map<String, Object>> batchRows;
     private final String tableName;
+    private final Map<String, Object> columnsAndValues;
+    private boolean rowPending;
+    private int batchSize;
 
     public InsertBuilder(QueryCreator queryCreator, String tableName) {
         this.tableName = tableName;
         this.queryCreator = queryCreator;
         this.columnsAndValues = new LinkedHashMap<>();
+        this.batchRows = new ArrayList<>();
     }
-    
+
     public InsertBuilder col(String colName, Object colValue) {
         columnsAndValues.put(colName, colValue);
+        rowPending = true;
+        return this;
+    }
+
+    /**
+     * Finish the current row and start a new one. All rows are sent as a
+     * jdbc batch when the builder is executed, so each row must have the same
+     * columns. The new row starts with the values of the finished one, so only
+     * the columns that change need to be set
+     * @return The builder itself
+     */
+    public InsertBuilder addBatch() {
+        if(columnsAndValues.isEmpty()) {
+            throw new JdbcException("The row must have at least one column");
+        }
+
+        if(!batchRows.isEmpty() && !batchRows.get(0).keySet().equals(columnsAndValues.keySet())) {
+            throw new JdbcException("All batch rows must have the same columns");
+        }
+
+        batchRows.add(new LinkedHashMap<>(columnsAndValues));
+        rowPending = false;
+        return this;
+    }
+
+    /**
+     * Define the max number of rows sent in each jdbc batch. Values lower than
+     * 1 means all rows are sent at once
+     * @param batchSize The max rows per batch
+     * @return The builder itself
+     */
+    public InsertBuilder batchSize(int batchSize) {
+        this.batchSize = batchSize;
         return this;
     }
 
@@ -25,21 +63,118 @@ public class InsertBuilder {
         return tableName;
     }
 
+    /**
+     * @return The columns and values of the current row, or of the last one
+     * added to the batch
+     */
     public Map<String, Object> getColumnsAndValues() {
         return columnsAndValues;
     }
-    
+
     public void execute() {
-        
+        execute(false);
+    }
+
+    /**
+     * Execute the insert of a single row and return the generated key
+     * @return The generated key
+     */
+    public long executeAndGetKey() {
+        long[] keys = execute(true);
+        if(keys.length != 1) {
+            throw new JdbcException("Expected one generated key but " + keys.length + " were returned");
+        }
+
+        return keys[0];
+    }
+
+    /**
+     * Execute the insert and return the generated keys. The keys are ordered as
+     * the rows were added to the builder
+     * @return The generated keys
+     */
+    public long[] executeAndGetKeys() {
+        return execute(true);
+    }
+
+    /**
+     * Insert the batched rows and the current row, if it was not added to the
+     * batch. The batch is cleared after, but the current row is kept, so the
+     * builder of a single row can be executed again
+     */
+    private long[] execute(boolean returnGeneratedKeys) {
+
+        if(rowPending || (batchRows.isEmpty() && !columnsAndValues.isEmpty())) {
+            addBatch();
+        }
+
+        if(batchRows.isEmpty()) {
+            throw new JdbcException("The insert must have at least one column");
+        }
+
         SQLStatementBuilder sqlBuilder = new SQLStatementBuilder();
-        StringBuilder sql = sqlBuilder.createInsert(this);
-        
-        final Query<Object[]> query = queryCreator.create(sql.toString());
-        columnsAndValues.forEach((k, v) -> query.setParameter(k, v));
-        query.executeUpdate();        
-        
-    }
-    
-    
-    
+        StringBuilder sql = sqlBuilder.createInsert(tableName, batchRows.get(0).keySet());
+
+        final Query<Object[]> query = queryCreator.create(sql.toString(), returnGeneratedKeys);
+        try {
+            if(batchRows.size() == 1) {
+                written(query, 0, 1);
+                batchRows.get(0).forEach((k, v) -> query.setParameter(k, v));
+                query.executeUpdate();
+                return returnGeneratedKeys ? query.getGeneratedKeys() : new long[0];
+            }
+
+            long[] keys = new long[returnGeneratedKeys ? batchRows.size() : 0];
+            int chunkSize = batchSize > 0 ? batchSize : batchRows.size();
+            int keyCount = 0;
+            int pending = 0;
+
+            for (int i = 0; i < batchRows.size(); i++) {
+                batchRows.get(i).forEach((k, v) -> query.setParameter(k, v));
+                query.addBatch();
+
+                if(++pending == chunkSize) {
+                    written(query, i + 1 - pending, i + 1);
+                    keyCount = flush(query, keys, keyCount, pending);
+                    pending = 0;
+                }
+            }
+
+            if(pending > 0) {
+                written(query, batchRows.size() - pending, batchRows.size());
+                keyCount = flush(query, keys, keyCount, pending);
+            }
+
+            return keys;
+        } finally {
+            batchRows.clear();
+        }
+
+    }
+
+    /**
+     * Tell the query the rows of the chunk it is about to insert, only when a
+     * cache needs them
+     */
+    private void written(Query<Object[]> query, int from, int to) {
+        if(queryCreator.isTrackingWrites()) {
+            query.writtenRows(new ArrayList<>(batchRows.subList(from, to)));
+        }
+    }
+
+    private int flush(Query<Object[]> query, long[] keys, int keyCount, int rows) {
+        query.executeBatch();
+        if(keys.length == 0) {
+            return keyCount;
+        }
+
+        long[] chunkKeys = query.getGeneratedKeys();
+        if(chunkKeys.length != rows) {
+            throw new JdbcException("The driver returned " + chunkKeys.length + " generated keys for " + rows + " inserted rows");
+        }
+
+        System.arraycopy(chunkKeys, 0, keys, keyCount, rows);
+        return keyCount + rows;
+    }
+
 }
@@ -32,4 +32,20 @@ public class JdbcUtils {
         }catch(SQLException e){}
     }
     
+    public static void rollback(Connection c){
+        try{
+            if(c != null) {
+                c.rollback();
+            }
+        }catch(SQLException e){}
+    }
+    
+    public static void setAutoCommit(Connection c, boolean autoCommit){
+        try{
+            if(c != null) {
+                c.setAutoCommit(autoCommit);
+            }
+        }catch(SQLException e){}
+    }
+    
 }
@@ -0,0 +1,152 @@
+package io.github.josevjunior.simplejdbc;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A lock-free histogram of durations in nanoseconds. The values are counted
+ * in log-scaled buckets: each power of two is split in {@value #SUB_BUCKETS}
+ * buckets of the same width, so a percentile is reported with about 3%
+ * of error whatever the magnitude of the values. Values from 0 up to about
+ * two hours are recorded, the greater ones are counted in the last bucket
+ * <br>
+ * The recording only increments atomic counters, so it can be shared by many
+ * threads
+ */
+public final class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int MAX_EXPONENT = 42;
+    private static final long MAX_VALUE = (1L << (MAX_EXPONENT + 1)) - 1;
+
+    private final AtomicLongArray counts = new AtomicLongArray((MAX_EXPONENT - SUB_BUCKET_BITS + 2) * SUB_BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    /**
+     * Record a duration
+     * @param nanos The duration in nanoseconds. The negative values are recorded as zero
+     */
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+        counts.incrementAndGet(index(Math.min(value, MAX_VALUE)));
+        count.increment();
+        sum.add(value);
+        max.accumulate(value);
+    }
+
+    private static int index(long value) {
+        if(value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int shift = exponent - SUB_BUCKET_BITS;
+        int subBucket = (int) (value >>> shift) - SUB_BUCKETS;
+        return (shift + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    /**
+     * @return The lowest value counted in the bucket
+     */
+    private static long lowestValue(int index) {
+        if(index < SUB_BUCKETS) {
+            return index;
+        }
+        int shift = index / SUB_BUCKETS - 1;
+        return (long) (index % SUB_BUCKETS + SUB_BUCKETS) << shift;
+    }
+
+    /**
+     * @return The width of the values counted in the bucket
+     */
+    private static long width(int index) {
+        return index < SUB_BUCKETS ? 1 : 1L << (index / SUB_BUCKETS - 1);
+    }
+
+    /**
+     * Get the value below which the given percentage of the durations fall
+     * @param percentile The percentile, from 0 to 100, e.g 99.9
+     * @return The duration in nanoseconds or zero if there is no recorded value
+     */
+    public long getValueAtPercentile(double percentile) {
+        long[] snapshot = new long[counts.length()];
+        long total = 0;
+        for (int i = 0; i < snapshot.length; i++) {
+            snapshot[i] = counts.get(i);
+            total += snapshot[i];
+        }
+        if(total == 0) {
+            return 0;
+        }
+        if(percentile >= 100) {
+            return getMax();
+        }
+
+        long rank = Math.max(1, (long) Math.ceil(Math.min(100, Math.max(0, percentile)) / 100 * total));
+        long seen = 0;
+        for (int i = 0; i < snapshot.length; i++) {
+            seen += snapshot[i];
+            if(seen >= rank) {
+                // The middle of the bucket, but never more than the max recorded
+                return Math.min(lowestValue(i) + width(i) / 2, getMax());
+            }
+        }
+        return getMax();
+    }
+
+    /**
+     * Get the value at a percentile in the given unit
+     * @param percentile The percentile, from 0 to 100
+     * @param unit The time unit
+     * @return The duration
+     */
+    public long getValueAtPercentile(double percentile, TimeUnit unit) {
+        return unit.convert(getValueAtPercentile(percentile), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * @return The number of recorded durations
+     */
+    public long getCount() {
+        return count.sum();
+    }
+
+    /**
+     * @return The mean of the recorded durations in nanoseconds
+     */
+    public double getMean() {
+        long n = count.sum();
+        return n == 0 ? 0 : (double) sum.sum() / n;
+    }
+
+    /**
+     * @return The greatest recorded duration in nanoseconds
+     */
+    public long getMax() {
+        return max.get();
+    }
+
+    /**
+     * Clear the recorded durations. The values recorded during the reset may be
+     * partially cleared
+     */
+    public void reset() {
+        for (int i = 0; i < counts.length(); i++) {
+            counts.set(i, 0);
+        }
+        count.reset();
+        sum.reset();
+        max.reset();
+    }
+
+    @Override
+    public String toString() {
+        return "LatencyHistogram{" + "count=" + getCount() + ", p50=" + getValueAtPercentile(50)
+                + ", p99=" + getValueAtPercentile(99) + ", p999=" + getValueAtPercentile(99.9) + ", max=" + getMax() + '}';
+    }
+
+}
@@ -0,0 +1,299 @@
+package io.github.josevjunior.simplejdbc;
+
+import java.lang.ref.PhantomReference;
+import java.lang.ref.ReferenceQueue;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Detects the {@link QueryCreator}s, the queries holding a statement and the
+ * {@link ScrollableResult}s which are garbage collected without being closed.
+ * It is disabled by default. When enabled, a fraction of the resources is
+ * sampled: the stack of their allocation is kept and they are tracked through
+ * phantom references, so a leak is reported with the code that opened it
+ * <br>
+ * e.g:
+ * <pre>{@code
+    LeakDetector.setSampleRate(0.01); // 1% of the resources, low enough for production
+    ...
+    LeakDetector.getOpenCount(LeakDetector.Resource.QUERY_CREATOR); // e.g. for a health endpoint
+   }</pre>
+ *
+ * The leaks are logged as warnings to the {@code io.github.josevjunior.simplejdbc.LeakDetector}
+ * java.util.logging logger, unless other reporter is set. The open counts include all
+ * the resources, but only the sampled ones are reported as leaks
+ */
+public final class LeakDetector {
+
+    private static final Logger LOGGER = Logger.getLogger(LeakDetector.class.getName());
+
+    /**
+     * The tracked resources
+     */
+    public enum Resource {
+        QUERY_CREATOR, QUERY, SCROLLABLE_RESULT
+    }
+
+    private static volatile double sampleRate;
+    private static volatile Consumer<Leak> reporter = LeakDetector::log;
+
+    private static final Map<Resource, LongAdder> OPENED = counters();
+    private static final Map<Resource, LongAdder> CLOSED = counters();
+    private static final Map<Resource, LongAdder> LEAKED = counters();
+
+    private static final ReferenceQueue<Object> COLLECTED = new ReferenceQueue<>();
+    private static final Set<Tracking> TRACKED = ConcurrentHashMap.newKeySet();
+    private static volatile Thread reaper;
+
+    private LeakDetector() {
+    }
+
+    private static Map<Resource, LongAdder> counters() {
+        Map<Resource, LongAdder> counters = new EnumMap<>(Resource.class);
+        for (Resource resource : Resource.values()) {
+            counters.put(resource, new LongAdder());
+        }
+        return counters;
+    }
+
+    /**
+     * Define the fraction of the resources tracked for leaks. The resources
+     * opened before are not affected
+     * @param sampleRate From 0, the default, which disables the detector, to 1
+     * which tracks all the resources
+     */
+    public static void setSampleRate(double sampleRate) {
+        if(sampleRate < 0 || sampleRate > 1) {
+            throw new IllegalArgumentException("The sample rate should be between 0 and 1");
+        }
+        LeakDetector.sampleRate = sampleRate;
+    }
+
+    public static double getSampleRate() {
+        return sampleRate;
+    }
+
+    /**
+     * Define who receives the leaks. It is called by the detector thread
+     * @param reporter The reporter or null to log the leaks
+     */
+    public static void setReporter(Consumer<Leak> reporter) {
+        LeakDetector.reporter = reporter != null ? reporter : LeakDetector::log;
+    }
+
+    /**
+     * @param resource The resource type
+     * @return The number of resources opened and not closed while the detector
+     * was enabled, including the leaked ones
+     */
+    public static long getOpenCount(Resource resource) {
+        return OPENED.get(resource).sum() - CLOSED.get(resource).sum();
+    }
+
+    /**
+     * @param resource The resource type
+     * @return The number of sampled resources collected without being closed
+     */
+    public static long getLeakCount(Resource resource) {
+        return LEAKED.get(resource).sum();
+    }
+
+    /**
+     * @return The open count of each resource type
+     */
+    public static Map<Resource, Long> getOpenCounts() {
+        Map<Resource, Long> counts = new EnumMap<>(Resource.class);
+        for (Resource resource : Resource.values()) {
+            counts.put(resource, getOpenCount(resource));
+        }
+        return Collections.unmodifiableMap(counts);
+    }
+
+    /**
+     * Called when a resource is opened
+     * @param type The resource type
+     * @param resource The resource
+     * @return The handle to be given to {@link #closed(io.github.josevjunior.simplejdbc.LeakDetector.Handle)},
+     * or null if the detector is disabled
+     */
+    static Handle opened(Resource type, Object resource) {
+        double rate = sampleRate;
+        if(rate == 0) {
+            return null;
+        }
+
+        OPENED.get(type).increment();
+        if(rate < 1 && ThreadLocalRandom.current().nextDouble() >= rate) {
+            return new Handle(type, null);
+        }
+        
+        Handle handle = new Handle(type, new Throwable("The " + type + " was opened here"));
+        track(resource, handle);
+        return handle;
+    }
+
+    /**
+     * Called when a closed resource is opened again, e.g. a query which leases
+     * a statement again. The sampling and the stack of the first opening are
+     * kept
+     * @param handle The handle of the resource
+     * @param resource The resource
+     */
+    static void reopened(Handle handle, Object resource) {
+        if(sampleRate == 0 || !handle.closed.compareAndSet(true, false)) {
+            return;
+        }
+
+        OPENED.get(handle.type).increment();
+        if(handle.allocation != null) {
+            track(resource, handle);
+        }
+    }
+
+    private static void track(Object resource, Handle handle) {
+        Tracking tracking = new Tracking(resource, handle);
+        handle.tracking = tracking;
+        TRACKED.add(tracking);
+        startReaper();
+    }
+
+    /**
+     * Called when a resource is closed. It can be called many times. The
+     * resource is no longer tracked
+     * @param handle The handle of the resource or null
+     */
+    static void closed(Handle handle) {
+        if(handle != null && handle.closed.compareAndSet(false, true)) {
+            CLOSED.get(handle.type).increment();
+            Tracking tracking = handle.tracking;
+            if(tracking != null) {
+                handle.tracking = null;
+                TRACKED.remove(tracking);
+                tracking.clear();
+            }
+        }
+    }
+
+    /**
+     * @return The number of resources tracked through phantom references
+     */
+    static int getTrackedCount() {
+        return TRACKED.size();
+    }
+
+    private static void startReaper() {
+        if(reaper != null) {
+            return;
+        }
+        synchronized (LeakDetector.class) {
+            if(reaper == null) {
+                Thread thread = new Thread(LeakDetector::reap, "simplejdbc-leak-detector");
+                thread.setDaemon(true);
+                thread.start();
+                reaper = thread;
+            }
+        }
+    }
+
+    private static void reap() {
+        while(true) {
+            try {
+                Tracking tracking = (Tracking) COLLECTED.remove();
+                if(!TRACKED.remove(tracking)) {
+                    // Closed meanwhile
+                    continue;
+                }
+                Handle handle = tracking.handle;
+                if(!handle.closed.get()) {
+                    // Counted as closed, so the open count does not grow with the leaks
+                    closed(handle);
+                    LEAKED.get(handle.type).increment();
+                    report(new Leak(handle.type, handle.allocation));
+                }
+            }catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    private static void report(Leak leak) {
+        try {
+            reporter.accept(leak);
+        }catch (RuntimeException e) {
+            LOGGER.log(Level.WARNING, "The leak reporter failed", e);
+        }
+    }
+
+    private static void log(Leak leak) {
+        LOGGER.log(Level.WARNING, "A " + leak.getResource() + " was garbage collected without being closed", leak.getAllocation());
+    }
+
+    /**
+     * The state of a opened resource
+     */
+    static final class Handle {
+
+        private final Resource type;
+        private final AtomicBoolean closed = new AtomicBoolean();
+        private final Throwable allocation;
+        private volatile Tracking tracking;
+
+        private Handle(Resource type, Throwable allocation) {
+            this.type = type;
+            this.allocation = allocation;
+        }
+
+    }
+
+    private static final class Tracking extends PhantomReference<Object> {
+
+        private final Handle handle;
+
+        private Tracking(Object resource, Handle handle) {
+            super(resource, COLLECTED);
+            this.handle = handle;
+        }
+
+    }
+
+    /**
+     * A resource collected without being closed
+     */
+    public static final class Leak {
+
+        private final Resource resource;
+        private final Throwable allocation;
+
+        private Leak(Resource resource, Throwable allocation) {
+            this.resource = resource;
+            this.allocation = allocation;
+        }
+
+        public Resource getResource() {
+            return resource;
+        }
+
+        /**
+         * @return A throwable with the stack of the code which opened the resource
+         */
+        public Throwable getAllocation() {
+            return allocation;
+        }
+
+        @Override
+        public String toString() {
+            return "Leak{" + "resource=" + resource + '}';
+        }
+
+    }
+
+}
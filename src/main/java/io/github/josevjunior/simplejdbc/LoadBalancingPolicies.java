@@ -0,0 +1,76 @@
+package io.github.josevjunior.simplejdbc;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * The built-in load balancing policies
+ */
+public final class LoadBalancingPolicies {
+
+    private LoadBalancingPolicies() {
+    }
+
+    /**
+     * @return A policy which chooses each replica in turn
+     */
+    public static LoadBalancingPolicy roundRobin() {
+        AtomicInteger next = new AtomicInteger();
+        return replicas -> Math.floorMod(next.getAndIncrement(), replicas);
+    }
+
+    /**
+     * @return A policy which chooses the replica with less creators using it.
+     * The ties are broken in turn
+     */
+    public static LoadBalancingPolicy leastOutstanding() {
+        return new LeastOutstanding();
+    }
+
+    private static final class LeastOutstanding implements LoadBalancingPolicy {
+
+        private final AtomicInteger next = new AtomicInteger();
+        private volatile AtomicIntegerArray outstanding;
+
+        @Override
+        public int acquire(int replicas) {
+            AtomicIntegerArray counts = counts(replicas);
+            int start = Math.floorMod(next.getAndIncrement(), replicas);
+
+            int chosen = start;
+            for (int i = 1; i < replicas; i++) {
+                int candidate = (start + i) % replicas;
+                if(counts.get(candidate) < counts.get(chosen)) {
+                    chosen = candidate;
+                }
+            }
+
+            counts.incrementAndGet(chosen);
+            return chosen;
+        }
+
+        @Override
+        public void release(int replica) {
+            outstanding.decrementAndGet(replica);
+        }
+
+        private AtomicIntegerArray counts(int replicas) {
+            AtomicIntegerArray counts = outstanding;
+            if(counts == null) {
+                synchronized(this) {
+                    if(outstanding == null) {
+                        outstanding = new AtomicIntegerArray(replicas);
+                    }
+                    counts = outstanding;
+                }
+            }
+
+            if(counts.length() != replicas) {
+                throw new IllegalStateException("The policy was used with " + counts.length() + " replicas and now with " + replicas);
+            }
+            return counts;
+        }
+
+    }
+
+}
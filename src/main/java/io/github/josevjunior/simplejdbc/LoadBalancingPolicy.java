@@ -0,0 +1,24 @@
+package io.github.josevjunior.simplejdbc;
+
+/**
+ * Chooses the replica used by a {@link RoutingQueryCreator}. The same policy
+ * should be shared by all the creators of the application, so it can balance
+ * between them. See {@link LoadBalancingPolicies} for the built-in policies
+ */
+public interface LoadBalancingPolicy {
+
+    /**
+     * Choose a replica
+     * @param replicas The number of replicas
+     * @return The index of the chosen replica
+     */
+    int acquire(int replicas);
+
+    /**
+     * Called when the creator which chose the replica is closed
+     * @param replica The index of the replica
+     */
+    default void release(int replica) {
+    }
+
+}
@@ -27,4 +27,17 @@ public class MapRowMapper implements RowMapper<Map<String, Object>>{
         
     }
     
+    @Override
+    public Map<String, Object> map(ResultSet resultSet, ResultShape shape) throws SQLException {
+        
+        int columnCount = shape.getColumnCount();
+        Map<String, Object> map = new HashMap<>(columnCount * 4 / 3 + 1);
+        for (int i = 0; i < columnCount; i++) {
+            map.put(shape.getColumnName(i+1), resultSet.getObject(i+1));
+        }
+        
+        return map;
+        
+    }
+    
 }
@@ -0,0 +1,94 @@
+package io.github.josevjunior.simplejdbc;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The registry of the default type mappers. It is copy-on-write: each
+ * registration publishes a new immutable snapshot, so the lookups read it
+ * without locks
+ * <br>
+ * A type without a registered mapper gets the mapper of its nearest superclass,
+ * or else of its first interface, searching the interfaces of the type before
+ * the ones of its superclasses. The resolution is cached per concrete class in
+ * the snapshot, so it is done once until the next registration
+ */
+final class MapperRegistry {
+
+    private static final RowMapper<?> NONE = (rs, md) -> null;
+
+    private volatile Snapshot snapshot = new Snapshot(Collections.emptyMap());
+
+    /**
+     * Register a mapper for a type, or remove the type mapper if it is null
+     */
+    synchronized void register(Class<?> type, RowMapper<?> mapper) {
+        Map<Class<?>, RowMapper<?>> registered = new HashMap<>(snapshot.registered);
+        if(mapper == null) {
+            registered.remove(type);
+        } else {
+            registered.put(type, mapper);
+        }
+        snapshot = new Snapshot(registered);
+    }
+
+    /**
+     * @return The mapper registered for the type or for its nearest supertype,
+     * or null if there is none
+     */
+    RowMapper<?> lookup(Class<?> type) {
+        Snapshot current = snapshot;
+        RowMapper<?> mapper = current.resolved.get(type);
+        if(mapper == null) {
+            mapper = current.resolve(type);
+            current.resolved.putIfAbsent(type, mapper);
+        }
+        return mapper == NONE ? null : mapper;
+    }
+
+    private static final class Snapshot {
+
+        private final Map<Class<?>, RowMapper<?>> registered;
+        private final Map<Class<?>, RowMapper<?>> resolved = new ConcurrentHashMap<>();
+
+        private Snapshot(Map<Class<?>, RowMapper<?>> registered) {
+            this.registered = registered;
+        }
+
+        private RowMapper<?> resolve(Class<?> type) {
+            for (Class<?> cls = type; cls != null; cls = cls.getSuperclass()) {
+                RowMapper<?> mapper = registered.get(cls);
+                if(mapper != null) {
+                    return mapper;
+                }
+            }
+
+            Deque<Class<?>> interfaces = new ArrayDeque<>();
+            for (Class<?> cls = type; cls != null; cls = cls.getSuperclass()) {
+                Collections.addAll(interfaces, cls.getInterfaces());
+            }
+
+            Set<Class<?>> visited = new HashSet<>();
+            while(!interfaces.isEmpty()) {
+                Class<?> iface = interfaces.poll();
+                if(!visited.add(iface)) {
+                    continue;
+                }
+                RowMapper<?> mapper = registered.get(iface);
+                if(mapper != null) {
+                    return mapper;
+                }
+                Collections.addAll(interfaces, iface.getInterfaces());
+            }
+            return NONE;
+        }
+
+    }
+
+}
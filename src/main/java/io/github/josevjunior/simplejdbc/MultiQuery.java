@@ -0,0 +1,286 @@
+package io.github.josevjunior.simplejdbc;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A group of independent queries executed in one round-trip. The queries are
+ * joined in a single statement and their result sets are read one after the
+ * other through {@link java.sql.Statement#getMoreResults()}. Each query has its
+ * own parameters and {@link RowMapper}
+ * <br>
+ * e.g:
+ * <pre>{@code
+    MultiQuery multi = queryCreator.multiQuery();
+    MultiQuery.Part<Employee> employees = multi.add("SELECT * FROM EMPLOYEE WHERE DEPT = :DEPT", Employee.class)
+        .setParameter("DEPT", 1);
+    MultiQuery.Part<Long> total = multi.add("SELECT COUNT(*) FROM EMPLOYEE", Long.class);
+
+    MultiQuery.Results results = multi.execute();
+    List<Employee> list = results.get(employees);
+    Long count = results.get(total).get(0);
+   }</pre>
+ *
+ * When the driver does not support multiple result sets
+ * ({@link java.sql.DatabaseMetaData#supportsMultipleResultSets()}) or returns
+ * less result sets than queries, the missing queries are executed one by one
+ * <br>
+ * <b>Note: </b> Some drivers need a connection property to accept many
+ * statements at once, e.g. MySQL {@code allowMultiQueries=true}
+ */
+public class MultiQuery {
+
+    private static final String DELIMITER = ";\n";
+
+    private final QueryCreator queryCreator;
+    private final List<Part<?>> parts;
+    private Boolean combined;
+
+    MultiQuery(QueryCreator queryCreator) {
+        this.queryCreator = queryCreator;
+        this.parts = new ArrayList<>();
+    }
+
+    /**
+     * Add a query to the group. Only queries are accepted, since the result
+     * sets are matched to the parts by their position
+     * @param sql The database sql
+     * @param rowMapper The mapper
+     * @return The query part, used to set its parameters and to get its result
+     * @throws IllegalArgumentException If the sql is not a query
+     */
+    public <T> Part<T> add(String sql, RowMapper<T> rowMapper) {
+        NamedParameterSQL namedParameterSQL = NamedParameterSQL.parse(sql);
+        if(!namedParameterSQL.isSelect()) {
+            throw new IllegalArgumentException("Only queries can be added to a multi query: " + sql);
+        }
+        Part<T> part = new Part<>(this, parts.size(), namedParameterSQL, rowMapper);
+        parts.add(part);
+        return part;
+    }
+
+    /**
+     * Add a query to the group. The mapper is discovered through the resultClass param
+     * @param sql The database sql
+     * @param resultClass The result class
+     * @return The query part, used to set its parameters and to get its result
+     */
+    public <T> Part<T> add(String sql, Class<T> resultClass) {
+        return add(sql, queryCreator.getRowMapperForClass(resultClass));
+    }
+
+    /**
+     * Define if the queries are joined in one statement. By default they are
+     * if the driver supports multiple result sets
+     * @param combined true to join the queries, false to execute them one by one
+     * @return The multi query itself
+     */
+    public MultiQuery combined(boolean combined) {
+        this.combined = combined;
+        return this;
+    }
+
+    /**
+     * Execute the queries
+     * @return The results of each query
+     */
+    public Results execute() {
+        Results results = new Results(this, parts.size());
+        if(parts.isEmpty()) {
+            return results;
+        }
+
+        int next = 0;
+        if(parts.size() > 1 && isCombined()) {
+            next = executeCombined(results);
+        }
+
+        for (int i = next; i < parts.size(); i++) {
+            executeSingle(parts.get(i), results);
+        }
+
+        return results;
+    }
+
+    private boolean isCombined() {
+        if(combined == null) {
+            try {
+                combined = queryCreator.getNativeConnection().getMetaData().supportsMultipleResultSets();
+            }catch (SQLException e) {
+                throw new JdbcException(e);
+            }
+        }
+        return combined;
+    }
+
+    /**
+     * Execute all the queries in one statement
+     * @return The number of queries whose result was read
+     */
+    private int executeCombined(Results results) {
+        List<NamedParameterSQL> sqls = new ArrayList<>(parts.size());
+        parts.forEach(p -> sqls.add(p.sql));
+
+        Query<Object[]> query = queryCreator.create(NamedParameterSQL.join(sqls, DELIMITER), new ArrayRowMapper(), false);
+        int offset = 0;
+        for (Part<?> part : parts) {
+            for (int i = 1; i < part.values.length; i++) {
+                query.setParameter(offset + i, part.values[i]);
+            }
+            offset += part.parameterCount;
+        }
+
+        results.executions++;
+        return query.execute(statement -> {
+            int read = 0;
+            boolean isResultSet = statement.execute();
+            while(read < parts.size()) {
+                if(isResultSet) {
+                    try(ResultSet rs = statement.getResultSet()) {
+                        results.lists[read] = map(rs, parts.get(read).mapper);
+                    }
+                    read++;
+                } else if(statement.getUpdateCount() == -1) {
+                    break;
+                }
+                isResultSet = statement.getMoreResults();
+            }
+            return read;
+        });
+    }
+
+    private void executeSingle(Part<?> part, Results results) {
+        Query<?> query = queryCreator.create(part.sql, part.mapper, false);
+        for (int i = 1; i < part.values.length; i++) {
+            query.setParameter(i, part.values[i]);
+        }
+
+        results.executions++;
+        results.lists[part.index] = query.getResultList();
+    }
+
+    private static <T> List<T> map(ResultSet rs, RowMapper<T> mapper) throws SQLException {
+        List<T> list = new ArrayList<>();
+        ResultShape shape = ResultShape.of(rs.getMetaData());
+        while(rs.next()) {
+            list.add(mapper.map(rs, shape));
+        }
+        return list;
+    }
+
+    /**
+     * A query of the group
+     *
+     * @param <T> The type of the query result
+     */
+    public static final class Part<T> {
+
+        private final MultiQuery multiQuery;
+        private final int index;
+        private final NamedParameterSQL sql;
+        private final RowMapper<T> mapper;
+        private final int parameterCount;
+        private final Object[] values;
+
+        private Part(MultiQuery multiQuery, int index, NamedParameterSQL sql, RowMapper<T> mapper) {
+            this.multiQuery = multiQuery;
+            this.index = index;
+            this.sql = sql;
+            this.mapper = mapper;
+            this.parameterCount = sql.getParameterCount();
+            this.values = new Object[parameterCount + 1];
+        }
+
+        /**
+         * Set the parameter value
+         * @param name The parameter name
+         * @param value The parameter value
+         * @return The part itself
+         */
+        public Part<T> setParameter(String name, Object value) {
+            int[] indexes = sql.getParamIndex(name);
+            if(indexes.length == 0) {
+                throw new JdbcException("Parameter '" + name + "' not found");
+            }
+
+            for (int i : indexes) {
+                values[i] = value;
+            }
+            return this;
+        }
+
+        /**
+         * Set the parameter value
+         * @param i The parameter index in this query
+         * @param value The parameter value
+         * @return The part itself
+         */
+        public Part<T> setParameter(int i, Object value) {
+            if(i < 1 || i > parameterCount) {
+                throw new JdbcException("Parameter index " + i + " out of range");
+            }
+            values[i] = value;
+            return this;
+        }
+
+    }
+
+    /**
+     * The results of the queries of a {@link MultiQuery}
+     */
+    public static final class Results {
+
+        private final MultiQuery multiQuery;
+        private final List<?>[] lists;
+        private int executions;
+
+        private Results(MultiQuery multiQuery, int size) {
+            this.multiQuery = multiQuery;
+            this.lists = new List<?>[size];
+        }
+
+        /**
+         * Get the result of a query
+         * @param part The query part returned by {@link MultiQuery#add(java.lang.String, io.github.josevjunior.simplejdbc.RowMapper)}
+         * @return a not null {@link java.util.List}
+         */
+        @SuppressWarnings("unchecked")
+        public <T> List<T> get(Part<T> part) {
+            if(part.multiQuery != multiQuery) {
+                throw new IllegalArgumentException("The part belongs to other multi query");
+            }
+            return (List<T>) lists[part.index];
+        }
+
+        /**
+         * Get the result of a query by its position
+         * @param index The position of the query, starting at zero
+         * @return a not null {@link java.util.List}
+         */
+        public List<?> get(int index) {
+            return lists[index];
+        }
+
+        public int size() {
+            return lists.length;
+        }
+
+        /**
+         * @return How many statements were executed. One if all the queries
+         * were executed at once
+         */
+        public int getExecutionCount() {
+            return executions;
+        }
+
+        @Override
+        public String toString() {
+            return "Results{" + Arrays.toString(lists) + '}';
+        }
+
+    }
+
+}
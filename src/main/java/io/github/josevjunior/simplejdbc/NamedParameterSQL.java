@@ -5,9 +5,13 @@ import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
 
 public class NamedParameterSQL {
 
+    private static final Pattern WRITE_KEYWORDS = Pattern.compile("\\b(INSERT|UPDATE|DELETE|MERGE|INTO|NEXTVAL|LOCK)\\b");
+
     /**
      * The parsed query string. Ready to be parsed in preparedstatements
      */
@@ -17,6 +21,23 @@ public class NamedParameterSQL {
      * Map that holds the parameter name and the set of index
      */
     private final Map<String, int[]> paramMap;
+    
+    /**
+     * Lazily detected, see {@link #isSelect()}
+     */
+    private Boolean select;
+    
+    /**
+     * Lazily extracted, see {@link #getReadTables()} and {@link #getWrittenTables()}
+     */
+    private Set<String> readTables;
+    private Set<String> writtenTables;
+    private boolean writtenExtracted;
+    
+    /**
+     * Lazily counted, see {@link #getParameterCount()}
+     */
+    private int parameterCount = -1;
 
     private NamedParameterSQL(String parsedQuery, Map<String, int[]> paramMap) {
         this.parsedQuery = parsedQuery;
@@ -36,6 +57,114 @@ public class NamedParameterSQL {
         return arr;
     }
     
+    /**
+     * Check if the sql only reads data. It must start with SELECT or WITH and
+     * can't have a write or lock keyword outside quotes and comments, e.g. 
+     * {@code SELECT ... FOR UPDATE} or {@code SELECT ... INTO}
+     * @return true if the sql is a plain select
+     */
+    public boolean isSelect() {
+        if(select == null) {
+            select = detectSelect(parsedQuery);
+        }
+        return select;
+    }
+    
+    /**
+     * @return The upper case names of the tables after FROM and JOIN
+     */
+    Set<String> getReadTables() {
+        if(readTables == null) {
+            readTables = SQLTables.read(parsedQuery);
+        }
+        return readTables;
+    }
+    
+    /**
+     * @return The upper case name of the table changed by the sql or null if
+     * it is unknown, e.g. a DDL statement
+     */
+    Set<String> getWrittenTables() {
+        if(!writtenExtracted) {
+            writtenTables = SQLTables.written(parsedQuery);
+            writtenExtracted = true;
+        }
+        return writtenTables;
+    }
+    
+    private static boolean detectSelect(String query) {
+        // Keeps only the sql words, without quoted values and comments
+        StringBuilder words = new StringBuilder(query.length());
+        int length = query.length();
+        for (int i = 0; i < length; i++) {
+            char c = query.charAt(i);
+            if(c == '\'' || c == '"') {
+                int end = query.indexOf(c, i + 1);
+                i = end < 0 ? length : end;
+                words.append(' ');
+            } else if(c == '-' && i + 1 < length && query.charAt(i + 1) == '-') {
+                int end = query.indexOf('\n', i);
+                i = end < 0 ? length : end;
+                words.append(' ');
+            } else if(c == '/' && i + 1 < length && query.charAt(i + 1) == '*') {
+                int end = query.indexOf("*/", i + 2);
+                i = end < 0 ? length : end + 1;
+                words.append(' ');
+            } else {
+                words.append(c == '(' ? ' ' : Character.toUpperCase(c));
+            }
+        }
+        
+        String sql = words.toString().trim();
+        if(!sql.startsWith("SELECT") && !sql.startsWith("WITH")) {
+            return false;
+        }
+        
+        return !WRITE_KEYWORDS.matcher(sql).find();
+    }
+    
+    /**
+     * @return The number of parameters of the parsed query
+     */
+    public int getParameterCount() {
+        if(parameterCount >= 0) {
+            return parameterCount;
+        }
+        int count = 0;
+        boolean inSingleQuote = false;
+        boolean inDoubleQuote = false;
+        for (int i = 0; i < parsedQuery.length(); i++) {
+            char c = parsedQuery.charAt(i);
+            if(c == '\'' && !inDoubleQuote) {
+                inSingleQuote = !inSingleQuote;
+            } else if(c == '"' && !inSingleQuote) {
+                inDoubleQuote = !inDoubleQuote;
+            } else if(c == '?' && !inSingleQuote && !inDoubleQuote) {
+                count++;
+            }
+        }
+        parameterCount = count;
+        return count;
+    }
+    
+    /**
+     * Join parsed queries in a single one. The result has only positional
+     * parameters
+     * @param sqls The parsed queries
+     * @param delimiter The statement delimiter
+     * @return The joined query
+     */
+    static NamedParameterSQL join(List<NamedParameterSQL> sqls, String delimiter) {
+        StringBuilder joined = new StringBuilder();
+        for (NamedParameterSQL sql : sqls) {
+            if(joined.length() > 0) {
+                joined.append(delimiter);
+            }
+            joined.append(sql.getParsedQuery());
+        }
+        return new NamedParameterSQL(joined.toString(), new HashMap<>());
+    }
+    
     public static NamedParameterSQL parse(String query) {
         
         Map<String, int[]> paramMap = new HashMap<>();
@@ -0,0 +1,305 @@
+package io.github.josevjunior.simplejdbc;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import javax.sql.DataSource;
+
+/**
+ * Executes a large range query as many sub range queries at the same time, each
+ * one with its own connection. The sql must filter the partition column through
+ * the {@code :LOWER} (inclusive) and {@code :UPPER} (exclusive) parameters
+ * <br>
+ * e.g:
+ * <pre>{@code
+    List<Employee> employees = new PartitionedQuery<>(dataSource,
+            "SELECT * FROM EMPLOYEE WHERE ID >= :LOWER AND ID < :UPPER ORDER BY ID", Employee.class)
+        .boundsQuery("SELECT MIN(ID), MAX(ID) FROM EMPLOYEE")
+        .partitions(8)
+        .getResultList();
+   }</pre>
+ *
+ * The partition column can be a number or a date. The range between the min
+ * and max values (both inclusive) is split in partitions of the same size. The
+ * partitions are split on whole numbers: decimal bounds are rounded down, so the
+ * rows between them still fall in one of the partitions
+ */
+public class PartitionedQuery<T> {
+
+    /**
+     * The parameter name of the partition inclusive lower bound
+     */
+    public static final String LOWER_BOUND_PARAM = "LOWER";
+
+    /**
+     * The parameter name of the partition exclusive upper bound
+     */
+    public static final String UPPER_BOUND_PARAM = "UPPER";
+
+    private final DataSource dataSource;
+    private final Function<QueryCreator, Query<T>> factory;
+    private final List<Consumer<Query<T>>> parameters;
+    private int partitions;
+    private Object min;
+    private Object max;
+    private String boundsQuery;
+    private Executor executor;
+
+    public PartitionedQuery(DataSource dataSource, String sql, RowMapper<T> rowMapper) {
+        this(dataSource, qc -> qc.create(sql, rowMapper));
+    }
+
+    public PartitionedQuery(DataSource dataSource, String sql, Class<T> resultClass) {
+        this(dataSource, qc -> qc.create(sql, resultClass));
+    }
+
+    private PartitionedQuery(DataSource dataSource, Function<QueryCreator, Query<T>> factory) {
+        this.dataSource = Objects.requireNonNull(dataSource, "DataSource should not be null!");
+        this.factory = factory;
+        this.parameters = new ArrayList<>();
+        this.partitions = Runtime.getRuntime().availableProcessors();
+    }
+
+    /**
+     * Define the number of sub range queries. Default the number of processors
+     * @param partitions The number of partitions
+     * @return The query itself
+     */
+    public PartitionedQuery<T> partitions(int partitions) {
+        if(partitions < 1) {
+            throw new IllegalArgumentException("The partitions must be greater than zero");
+        }
+        this.partitions = partitions;
+        return this;
+    }
+
+    /**
+     * Define the partition column min and max values, both inclusive
+     * @param min The min value
+     * @param max The max value
+     * @return The query itself
+     */
+    public PartitionedQuery<T> bounds(Object min, Object max) {
+        this.min = min;
+        this.max = max;
+        return this;
+    }
+
+    /**
+     * Define a query that returns the partition column min and max values as
+     * the first and second columns of one row. e.g: {@code SELECT MIN(ID), MAX(ID) FROM EMPLOYEE}
+     * @param boundsQuery The sql
+     * @return The query itself
+     */
+    public PartitionedQuery<T> boundsQuery(String boundsQuery) {
+        this.boundsQuery = boundsQuery;
+        return this;
+    }
+
+    /**
+     * Define the executor of the sub range queries. If not defined, a
+     * executor with a thread per partition is used for each execution
+     * @param executor The executor
+     * @return The query itself
+     */
+    public PartitionedQuery<T> executor(Executor executor) {
+        this.executor = executor;
+        return this;
+    }
+
+    /**
+     * Set a parameter used by all the partitions
+     * @param name The parameter name
+     * @param value The parameter value
+     * @return The query itself
+     */
+    public PartitionedQuery<T> setParameter(String name, Object value) {
+        parameters.add(q -> q.setParameter(name, value));
+        return this;
+    }
+
+    /**
+     * Execute the partitions and return all the rows. The rows of each
+     * partition come after the rows of the previous one, so if the sql orders
+     * by the partition column the list is ordered too
+     * @return a not null {@link java.util.List}
+     */
+    public List<T> getResultList() {
+        List<T> result = new ArrayList<>();
+        stream().forEachOrdered(result::add);
+        return result;
+    }
+
+    /**
+     * Execute the partitions and return the rows as a {@link java.util.stream.Stream}
+     * in the same order of {@link #getResultList()}. The partitions run at the
+     * same time, the stream only waits for the partition being consumed
+     * @return The stream of rows
+     */
+    public Stream<T> stream() {
+        List<CompletableFuture<List<T>>> futures = submit(Query::getResultList);
+        return futures.stream().flatMap(f -> join(f).stream());
+    }
+
+    /**
+     * Execute the partitions and pass each row to the callback as soon as it
+     * is mapped, without any order. The callback is never called by two
+     * threads at the same time
+     * @param callback The row callback
+     */
+    public void forEach(Consumer<? super T> callback) {
+        Object lock = new Object();
+        List<CompletableFuture<Void>> futures = submit(query -> {
+            ScrollableResult<T> result = query.getScrollableResult();
+            try {
+                while(result.next()) {
+                    T row = result.get();
+                    synchronized(lock) {
+                        callback.accept(row);
+                    }
+                }
+                return null;
+            } finally {
+                close(result);
+            }
+        });
+
+        futures.forEach(PartitionedQuery::join);
+    }
+
+    private <R> List<CompletableFuture<R>> submit(Function<Query<T>, R> operation) {
+        List<Object[]> ranges = split();
+        List<CompletableFuture<R>> futures = new ArrayList<>(ranges.size());
+        if(ranges.isEmpty()) {
+            return futures;
+        }
+
+        ExecutorService ownedExecutor = executor == null ? Executors.newFixedThreadPool(ranges.size()) : null;
+        Executor runner = executor == null ? ownedExecutor : executor;
+
+        for (Object[] range : ranges) {
+            futures.add(CompletableFuture.supplyAsync(() -> {
+                try(QueryCreator queryCreator = new QueryCreator(dataSource)) {
+                    Query<T> query = factory.apply(queryCreator);
+                    parameters.forEach(p -> p.accept(query));
+                    query.setParameter(LOWER_BOUND_PARAM, range[0]);
+                    query.setParameter(UPPER_BOUND_PARAM, range[1]);
+                    return operation.apply(query);
+                }
+            }, runner));
+        }
+
+        if(ownedExecutor != null) {
+            ownedExecutor.shutdown();
+        }
+        return futures;
+    }
+
+    private List<Object[]> split() {
+        Object lower = min;
+        Object upper = max;
+
+        if(lower == null && upper == null && boundsQuery != null) {
+            try(QueryCreator queryCreator = new QueryCreator(dataSource)) {
+                Object[] bounds = queryCreator.create(boundsQuery).getFirstResult().orElse(new Object[2]);
+                lower = bounds[0];
+                upper = bounds[1];
+            }
+        } else if(boundsQuery == null && (lower == null || upper == null)) {
+            throw new JdbcException("The partition bounds must be defined through bounds() or boundsQuery()");
+        }
+
+        List<Object[]> ranges = new ArrayList<>(partitions);
+        if(lower == null || upper == null) {
+            return ranges;
+        }
+
+        long start = toLong(lower);
+        long end = toLong(upper) + 1;
+        long span = end - start;
+        if(span <= 0) {
+            return ranges;
+        }
+
+        long step = (span + partitions - 1) / partitions;
+        for (long from = start; from < end; from += step) {
+            long to = Math.min(end, from + step);
+            ranges.add(new Object[] { fromLong(from, lower), fromLong(to, lower) });
+        }
+        return ranges;
+    }
+
+    private static void close(ScrollableResult<?> result) {
+        try {
+            result.close();
+        }catch (RuntimeException e) {
+            throw e;
+        }catch (Exception e) {
+            throw new JdbcException(e);
+        }
+    }
+
+    /**
+     * The value as a long, rounded down if it has a fraction
+     */
+    private static long toLong(Object value) {
+        try {
+            if(value instanceof BigDecimal) {
+                return ((BigDecimal) value).setScale(0, RoundingMode.FLOOR).longValueExact();
+            }
+            if(value instanceof BigInteger) {
+                return ((BigInteger) value).longValueExact();
+            }
+            if(value instanceof Double || value instanceof Float) {
+                double floor = Math.floor(((Number) value).doubleValue());
+                if(Double.isNaN(floor) || floor < Long.MIN_VALUE || floor >= Long.MAX_VALUE) {
+                    throw new ArithmeticException("Out of the long range");
+                }
+                return (long) floor;
+            }
+        }catch (ArithmeticException e) {
+            throw new JdbcException("The partition bound " + value + " does not fit in a long", e);
+        }
+        if(value instanceof Number) {
+            return ((Number) value).longValue();
+        }
+        if(value instanceof java.util.Date) {
+            return ((java.util.Date) value).getTime();
+        }
+        throw new JdbcException("The partition column must be a number or a date but was " + value.getClass().getName());
+    }
+
+    private static Object fromLong(long value, Object sample) {
+        if(sample instanceof java.sql.Date) {
+            return new java.sql.Date(value);
+        }
+        if(sample instanceof java.util.Date) {
+            return new Timestamp(value);
+        }
+        return value;
+    }
+
+    private static <R> R join(CompletableFuture<R> future) {
+        try {
+            return future.join();
+        }catch (CompletionException e) {
+            if(e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+}
@@ -0,0 +1,597 @@
+package io.github.josevjunior.simplejdbc;
+
+import java.io.PrintWriter;
+import java.lang.ref.WeakReference;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.SQLTimeoutException;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Logger;
+import javax.sql.DataSource;
+
+/**
+ * A lightweight connection pool. The physical connections are obtained from
+ * the target {@link javax.sql.DataSource} and returned to the pool when the
+ * borrowed connection is closed
+ * <br>
+ * A borrow first tries the last connection used by the same thread, then the
+ * shared idle queue. Both paths are lock free. Only when there is no idle
+ * connection and the pool reached the max size the caller waits for a release
+ * <br>
+ * When a connection returns to the pool, its open transaction is rolled back
+ * and the auto commit, read only, transaction isolation, catalog, schema and
+ * holdability changed through the borrowed connection are restored, so the next
+ * borrower gets the connection as it was created. The statements, the result
+ * sets and the driver objects returned by {@code unwrap} belong to the
+ * physical connection: their {@code getConnection()} is not the borrowed
+ * connection, and they should not be closed by the driver classes or used
+ * after the borrowed connection is closed
+ * <br>
+ * e.g:
+ * <pre>{@code
+    PooledDataSource pool = new PooledDataSource(targetDataSource);
+    pool.setMinSize(2);
+    pool.setMaxSize(10);
+    QueryCreator qc = new QueryCreator(pool);
+    ...
+    qc.closeAll(); // The connection returns to the pool
+    ...
+    pool.close();
+   }</pre>
+ */
+public class PooledDataSource implements DataSource, AutoCloseable {
+
+    private static final int IDLE = 0;
+    private static final int IN_USE = 1;
+    private static final int REMOVED = 2;
+
+    private final DataSource target;
+    private final CopyOnWriteArrayList<PooledEntry> entries;
+    private final ConcurrentLinkedQueue<PooledEntry> idle;
+    private final ThreadLocal<WeakReference<PooledEntry>> threadEntry;
+    private final AtomicInteger size;
+    private final AtomicInteger waiters;
+    private final Object waitLock;
+    private final LongAdder waitCount;
+    private final LongAdder waitNanos;
+    private final AtomicLong maxWaitNanos;
+    private final LongAdder timeouts;
+    private final ScheduledExecutorService housekeeper;
+
+    private volatile int minSize = 0;
+    private volatile int maxSize = 10;
+    private volatile long maxWaitMillis = 30_000;
+    private volatile long idleTimeoutMillis = 600_000;
+    private volatile long validationIntervalMillis = 5_000;
+    private volatile int validationTimeoutSeconds = 5;
+    private volatile boolean closed;
+
+    public PooledDataSource(DataSource target) {
+        this.target = Objects.requireNonNull(target, "DataSource should not be null!");
+        this.entries = new CopyOnWriteArrayList<>();
+        this.idle = new ConcurrentLinkedQueue<>();
+        this.threadEntry = new ThreadLocal<>();
+        this.size = new AtomicInteger();
+        this.waiters = new AtomicInteger();
+        this.waitLock = new Object();
+        this.waitCount = new LongAdder();
+        this.waitNanos = new LongAdder();
+        this.maxWaitNanos = new AtomicLong();
+        this.timeouts = new LongAdder();
+        this.housekeeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "simplejdbc-pool-housekeeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.housekeeper.scheduleWithFixedDelay(this::housekeep, 1, 1, TimeUnit.SECONDS);
+    }
+
+    /**
+     * The number of connections kept open even when idle. Default 0
+     */
+    public void setMinSize(int minSize) {
+        this.minSize = minSize;
+    }
+
+    /**
+     * The max number of open connections. Default 10
+     */
+    public void setMaxSize(int maxSize) {
+        if(maxSize < 1) {
+            throw new IllegalArgumentException("The max size must be greater than zero");
+        }
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * How long a borrow waits for a connection before failing. Default 30 seconds
+     */
+    public void setMaxWait(long time, TimeUnit unit) {
+        this.maxWaitMillis = unit.toMillis(time);
+    }
+
+    /**
+     * How long a connection can stay idle before being closed, while the pool
+     * is above the min size. Default 10 minutes
+     */
+    public void setIdleTimeout(long time, TimeUnit unit) {
+        this.idleTimeoutMillis = unit.toMillis(time);
+    }
+
+    /**
+     * A borrowed connection is validated only if it was not validated within
+     * this interval. Default 5 seconds
+     */
+    public void setValidationInterval(long time, TimeUnit unit) {
+        this.validationIntervalMillis = unit.toMillis(time);
+    }
+
+    /**
+     * The timeout passed to {@link java.sql.Connection#isValid(int)}. Default 5 seconds
+     */
+    public void setValidationTimeout(int seconds) {
+        this.validationTimeoutSeconds = seconds;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if(closed) {
+            throw new SQLException("The pool is closed");
+        }
+
+        PooledEntry entry = borrowFromThread();
+        if(entry == null) {
+            entry = borrowFromQueue();
+        }
+        if(entry == null) {
+            entry = borrowNew();
+        }
+        if(entry == null) {
+            entry = borrowWaiting();
+        }
+
+        if(!validate(entry)) {
+            discard(entry);
+            return getConnection();
+        }
+
+        threadEntry.set(entry.self);
+        return entry.open();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        throw new SQLFeatureNotSupportedException("The pool connections are created by the target DataSource");
+    }
+
+    private PooledEntry borrowFromThread() {
+        WeakReference<PooledEntry> reference = threadEntry.get();
+        PooledEntry entry = reference == null ? null : reference.get();
+        if(entry != null && entry.state.compareAndSet(IDLE, IN_USE)) {
+            return entry;
+        }
+        return null;
+    }
+
+    private PooledEntry borrowFromQueue() {
+        PooledEntry entry;
+        while((entry = idle.poll()) != null) {
+            entry.queued.set(false);
+            if(entry.state.compareAndSet(IDLE, IN_USE)) {
+                return entry;
+            }
+        }
+        return null;
+    }
+
+    private PooledEntry borrowNew() throws SQLException {
+        int current;
+        do {
+            current = size.get();
+            if(current >= maxSize) {
+                return null;
+            }
+        } while(!size.compareAndSet(current, current + 1));
+
+        try {
+            PooledEntry entry = new PooledEntry(target.getConnection(), IN_USE);
+            entries.add(entry);
+            return entry;
+        }catch (SQLException | RuntimeException e) {
+            size.decrementAndGet();
+            signal();
+            throw e;
+        }
+    }
+
+    private PooledEntry borrowWaiting() throws SQLException {
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.MILLISECONDS.toNanos(maxWaitMillis);
+
+        try {
+            synchronized(waitLock) {
+                waiters.incrementAndGet();
+                try {
+                    while(true) {
+                        PooledEntry entry = borrowFromQueue();
+                        if(entry == null) {
+                            entry = borrowNew();
+                        }
+                        if(entry != null) {
+                            return entry;
+                        }
+
+                        long remaining = deadline - System.nanoTime();
+                        if(remaining <= 0 || closed) {
+                            timeouts.increment();
+                            throw new SQLTimeoutException("Timeout waiting for a connection after " + maxWaitMillis + " ms");
+                        }
+                        TimeUnit.NANOSECONDS.timedWait(waitLock, remaining);
+                    }
+                } finally {
+                    waiters.decrementAndGet();
+                }
+            }
+        }catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a connection", e);
+        } finally {
+            long waited = System.nanoTime() - start;
+            waitCount.increment();
+            waitNanos.add(waited);
+            maxWaitNanos.accumulateAndGet(waited, Math::max);
+        }
+    }
+
+    private boolean validate(PooledEntry entry) {
+        long now = System.currentTimeMillis();
+        if(now - entry.lastValidated < validationIntervalMillis) {
+            return true;
+        }
+
+        try {
+            if(entry.connection.isValid(validationTimeoutSeconds)) {
+                entry.lastValidated = now;
+                return true;
+            }
+        }catch (SQLException ignored) {}
+
+        return false;
+    }
+
+    private void release(PooledEntry entry) {
+        try {
+            if(entry.connection.getAutoCommit() != entry.defaultAutoCommit) {
+                entry.connection.rollback();
+                entry.connection.setAutoCommit(entry.defaultAutoCommit);
+            } else if(!entry.defaultAutoCommit) {
+                entry.connection.rollback();
+            }
+            if(entry.changed) {
+                entry.restore();
+            }
+            entry.connection.clearWarnings();
+        }catch (SQLException | RuntimeException e) {
+            discard(entry);
+            return;
+        }
+
+        entry.lastUsed = System.currentTimeMillis();
+        entry.state.set(IDLE);
+
+        if(closed) {
+            discard(entry);
+            return;
+        }
+
+        if(entry.queued.compareAndSet(false, true)) {
+            idle.offer(entry);
+        }
+
+        if(waiters.get() > 0) {
+            signal();
+        }
+    }
+
+    private void discard(PooledEntry entry) {
+        entry.state.set(REMOVED);
+        if(entries.remove(entry)) {
+            size.decrementAndGet();
+        }
+        JdbcUtils.close(entry.connection);
+        signal();
+    }
+
+    private void signal() {
+        synchronized(waitLock) {
+            waitLock.notifyAll();
+        }
+    }
+
+    private void housekeep() {
+        long now = System.currentTimeMillis();
+        for (PooledEntry entry : entries) {
+            if(size.get() <= minSize) {
+                break;
+            }
+            if(now - entry.lastUsed > idleTimeoutMillis && entry.state.compareAndSet(IDLE, REMOVED)) {
+                discard(entry);
+            }
+        }
+
+        try {
+            while(!closed && size.get() < minSize) {
+                PooledEntry entry = borrowNew();
+                if(entry == null) {
+                    break;
+                }
+                entry.lastUsed = now;
+                entry.state.set(IDLE);
+                entry.queued.set(true);
+                idle.offer(entry);
+                signal();
+            }
+        }catch (SQLException | RuntimeException ignored) {
+            // Tries again at the next round
+        }
+    }
+
+    /**
+     * Close all the idle connections and stop the pool. The borrowed connections
+     * are closed when returned
+     */
+    @Override
+    public void close() {
+        closed = true;
+        housekeeper.shutdownNow();
+        for (PooledEntry entry : entries) {
+            if(entry.state.compareAndSet(IDLE, REMOVED)) {
+                discard(entry);
+            }
+        }
+        signal();
+    }
+
+    /**
+     * @return The number of open physical connections
+     */
+    public int getSize() {
+        return size.get();
+    }
+
+    /**
+     * @return The number of borrowed connections
+     */
+    public int getActiveCount() {
+        int active = 0;
+        for (PooledEntry entry : entries) {
+            if(entry.state.get() == IN_USE) {
+                active++;
+            }
+        }
+        return active;
+    }
+
+    /**
+     * @return The number of borrows that had to wait for a release
+     */
+    public long getWaitCount() {
+        return waitCount.sum();
+    }
+
+    /**
+     * @return The sum of the time spent by the borrows that had to wait
+     */
+    public long getTotalWaitTime(TimeUnit unit) {
+        return unit.convert(waitNanos.sum(), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * @return The longest time a borrow had to wait
+     */
+    public long getMaxWaitTime(TimeUnit unit) {
+        return unit.convert(maxWaitNanos.get(), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * @return The number of borrows that failed by timeout
+     */
+    public long getTimeoutCount() {
+        return timeouts.sum();
+    }
+
+    @Override
+    public PrintWriter getLogWriter() throws SQLException {
+        return target.getLogWriter();
+    }
+
+    @Override
+    public void setLogWriter(PrintWriter out) throws SQLException {
+        target.setLogWriter(out);
+    }
+
+    @Override
+    public void setLoginTimeout(int seconds) throws SQLException {
+        target.setLoginTimeout(seconds);
+    }
+
+    @Override
+    public int getLoginTimeout() throws SQLException {
+        return target.getLoginTimeout();
+    }
+
+    @Override
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        return target.getParentLogger();
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        if(iface.isInstance(this)) {
+            return iface.cast(this);
+        }
+        return target.unwrap(iface);
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) throws SQLException {
+        return iface.isInstance(this) || target.isWrapperFor(iface);
+    }
+
+    private class PooledEntry {
+
+        private final Connection connection;
+        private final boolean defaultAutoCommit;
+        private final boolean defaultReadOnly;
+        private final int defaultTransactionIsolation;
+        private final int defaultHoldability;
+        private final String defaultCatalog;
+        private final String defaultSchema;
+        private final AtomicInteger state;
+        private final AtomicBoolean queued;
+        private final WeakReference<PooledEntry> self;
+        private volatile long lastUsed;
+        private volatile long lastValidated;
+        
+        /**
+         * If the state of the connection may have been changed by the borrower
+         */
+        private volatile boolean changed;
+
+        private PooledEntry(Connection connection, int state) throws SQLException {
+            this.connection = connection;
+            this.defaultAutoCommit = connection.getAutoCommit();
+            this.defaultReadOnly = connection.isReadOnly();
+            this.defaultTransactionIsolation = connection.getTransactionIsolation();
+            this.defaultHoldability = connection.getHoldability();
+            this.defaultCatalog = connection.getCatalog();
+            this.defaultSchema = schema(connection);
+            this.state = new AtomicInteger(state);
+            this.queued = new AtomicBoolean();
+            this.self = new WeakReference<>(this);
+            this.lastUsed = System.currentTimeMillis();
+            this.lastValidated = this.lastUsed;
+        }
+
+        private Connection open() {
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[] { Connection.class }, new Handle(this));
+        }
+
+        /**
+         * Set back the connection state recorded when it was created
+         */
+        private void restore() throws SQLException {
+            if(connection.isReadOnly() != defaultReadOnly) {
+                connection.setReadOnly(defaultReadOnly);
+            }
+            if(connection.getTransactionIsolation() != defaultTransactionIsolation) {
+                connection.setTransactionIsolation(defaultTransactionIsolation);
+            }
+            if(connection.getHoldability() != defaultHoldability) {
+                connection.setHoldability(defaultHoldability);
+            }
+            if(defaultCatalog != null && !defaultCatalog.equals(connection.getCatalog())) {
+                connection.setCatalog(defaultCatalog);
+            }
+            if(defaultSchema != null && !defaultSchema.equals(schema(connection))) {
+                connection.setSchema(defaultSchema);
+            }
+            changed = false;
+        }
+
+    }
+
+    private static String schema(Connection connection) {
+        try {
+            return connection.getSchema();
+        }catch (SQLException | AbstractMethodError e) {
+            // Drivers before JDBC 4.1
+            return null;
+        }
+    }
+
+    /**
+     * The borrowed connection. Once closed, the physical connection returns to
+     * the pool and the handle can't be used anymore
+     */
+    private class Handle implements InvocationHandler {
+
+        private final AtomicReference<PooledEntry> entry;
+
+        private Handle(PooledEntry entry) {
+            this.entry = new AtomicReference<>(entry);
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch(method.getName()) {
+                case "close":
+                    PooledEntry current = entry.getAndSet(null);
+                    if(current != null) {
+                        release(current);
+                    }
+                    return null;
+                case "isClosed":
+                    return entry.get() == null;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "PooledConnection@" + Integer.toHexString(System.identityHashCode(proxy));
+                default:
+            }
+
+            PooledEntry current = entry.get();
+            if(current == null) {
+                throw new SQLException("The connection is closed");
+            }
+
+            switch(method.getName()) {
+                case "unwrap":
+                    if(((Class<?>) args[0]).isInstance(proxy)) {
+                        return proxy;
+                    }
+                    // The driver connection can change the state without the borrowed one
+                    current.changed = true;
+                    break;
+                case "isWrapperFor":
+                    if(((Class<?>) args[0]).isInstance(proxy)) {
+                        return true;
+                    }
+                    break;
+                case "setReadOnly":
+                case "setTransactionIsolation":
+                case "setHoldability":
+                case "setCatalog":
+                case "setSchema":
+                    current.changed = true;
+                    break;
+                default:
+            }
+
+            try {
+                return method.invoke(current.connection, args);
+            }catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+
+    }
+
+}
@@ -6,36 +6,131 @@ import java.sql.Clob;
 import java.sql.Date;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
-import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
 import java.sql.Time;
 import java.sql.Timestamp;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 
 /**
  * A query object that wraps the jdbc statement execution. Each query handle a 
  * jdbc statement. Every operation at this class can throw a {@link io.github.josevjunior.simplejdbc.JdbcException}
- * and the source can be from a {@link java.sql.SQLException} or a internal exception
+ * and the source can be from a {@link java.sql.SQLException} or a internal exception.
+ * The queries are created through the {@link QueryCreator} create methods
+ * <br>
+ * The statement is leased from the {@link QueryCreator} and given back to it
+ * after the terminal calls ({@link #getResultList()}, {@link #getFirstResult()},
+ * {@link #executeUpdate()}, {@link #executeBatch()}, {@link #getGeneratedKeys()}
+ * and {@link io.github.josevjunior.simplejdbc.ScrollableResult#close()}), so
+ * the creator can reuse it. If the query is executed again a statement is leased
+ * again and the parameters already set are bound to it. When the query was created
+ * to return the generated keys, the statement is only given back after
+ * {@link #getGeneratedKeys()}. The {@link #close()} method gives the statement
+ * back too, and a query which is no longer referenced has its statement closed
+ * by the creator
  * 
  * @param <T> The type of the query that influences {@link Query#getResultList() }, 
  * {@link Query#getFirstResult() } and {@link Query#getScrollableResult() } result
  */
-public class Query<T> {
+public class Query<T> implements AutoCloseable {
+
+    private static final Object NULL_VALUE = new Object();
 
     private final QueryCreator queryCreator;
     private final NamedParameterSQL namedParameterSQL;
-    private final PreparedStatement statement;
+    private final boolean returnGeneratedKeys;
     private final RowMapper<T> mapper;
+    private final QueryCancellation cancellation;
+    private QueryCreator.StatementLease lease;
+    private Object[] boundValues;
+    private boolean batchPending;
+    private int batchSize;
+    private long timeoutNanos;
+    private Deadline deadline;
+    private Deadline runningDeadline;
+    private QueryWatchdog.Watch watch;
+    private boolean driverTimeoutSet;
+    private boolean cached;
+    private List<Map<String, Object>> writtenRows;
+    private long bindNanos;
+    private long executeNanos;
+    private long executionStart;
+    private boolean executing;
+    private Object[] parameterValues;
+    private LeakDetector.Handle leak;
 
-    public Query(NamedParameterSQL sql, PreparedStatement stam, QueryCreator creator, RowMapper<T> mapper) {
-        this.queryCreator = creator;
+    Query(NamedParameterSQL sql, QueryCreator creator, RowMapper<T> mapper, boolean returnGeneratedKeys) {
+        this.queryCreator = Objects.requireNonNull(creator, "QueryCreator should not be null!");
         this.namedParameterSQL = sql;
         this.mapper = mapper;
-        this.statement = stam;
+        this.returnGeneratedKeys = returnGeneratedKeys;
+        this.cancellation = new QueryCancellation();
+        this.timeoutNanos = creator.getQueryTimeout(TimeUnit.NANOSECONDS);
+        statement();
+    }
+
+    /**
+     * Define the max time of each execution, including the mapping of the rows.
+     * The time is set as the driver query timeout and a watchdog cancels the
+     * statement if it is still running when the time is over. The default is
+     * the {@link QueryCreator#setQueryTimeout(long, java.util.concurrent.TimeUnit)} value
+     * @param timeout The timeout or zero for no timeout
+     * @param unit The time unit
+     * @return The query itself
+     */
+    public Query<T> timeout(long timeout, TimeUnit unit) {
+        this.timeoutNanos = unit.toNanos(timeout);
+        return this;
+    }
+
+    /**
+     * Define a deadline for the executions of this query. If the {@link QueryCreator}
+     * or the timeout also define one, the earliest is used
+     * @param deadline The deadline or null for no deadline
+     * @return The query itself
+     */
+    public Query<T> deadline(Deadline deadline) {
+        this.deadline = deadline;
+        return this;
+    }
+
+    /**
+     * Define if the results of {@link #getResultList()} and {@link #getFirstResult()}
+     * are kept at the {@link QueryCreator#getQueryCache()}. The cache is not used
+     * inside a transaction
+     * @param cached true to cache the results
+     * @return The query itself
+     */
+    public Query<T> cached(boolean cached) {
+        this.cached = cached;
+        return this;
+    }
+    
+    /**
+     * Define the key columns of the rows changed by the next executions of this
+     * query, so only their beans are evicted from the {@link EntityCache}. The
+     * statement builders set the rows of each chunk before executing it
+     * @param writtenRows The column values of each row
+     * @return The query itself
+     */
+    Query<T> writtenRows(List<Map<String, Object>> writtenRows) {
+        this.writtenRows = writtenRows;
+        return this;
+    }
+    
+    /**
+     * Get the handle which cancels this query from another thread
+     * @return The cancellation handle
+     */
+    public QueryCancellation getCancellation() {
+        return cancellation;
     }
 
     /**
@@ -67,64 +162,87 @@ public class Query<T> {
     }
 
     private void setParameter(int[] indexes, Object value) {
+        record(indexes, value);
+        if(queryCreator.getQueryListener() == null) {
+            bind(indexes, value);
+            return;
+        }
+        
+        statement();
+        long start = System.nanoTime();
+        bind(indexes, value);
+        bindNanos += System.nanoTime() - start;
+    }
+
+    private void record(int[] indexes, Object value) {
+        for (int index : indexes) {
+            if(boundValues == null || index >= boundValues.length) {
+                boundValues = Arrays.copyOf(boundValues == null ? new Object[0] : boundValues, Math.max(index + 1, 8));
+            }
+            boundValues[index] = value == null ? NULL_VALUE : value;
+        }
+    }
+
+    private void bind(int[] indexes, Object value) {
+        PreparedStatement statement = statement();
         try {
             if (value == null) {
                 for (int index : indexes) {
-                    this.statement.setNull(index, java.sql.Types.NULL);
+                    statement.setNull(index, java.sql.Types.NULL);
                 }
             } else {
                 
                 if(value instanceof Short) {
                     for (int index : indexes) {
-                        this.statement.setShort(index, (short) value);
+                        statement.setShort(index, (short) value);
                     }                    
                 } else if(value instanceof Integer) {
                     for (int index : indexes) {
-                        this.statement.setInt(index, (int) value);
+                        statement.setInt(index, (int) value);
                     }
                 }else if(value instanceof Double) {
                     for (int index : indexes) {
-                        this.statement.setDouble(index, (double) value);
+                        statement.setDouble(index, (double) value);
                     }
                 }else if(value instanceof Float) {
                     for (int index : indexes) {
-                        this.statement.setFloat(index, (float) value);
+                        statement.setFloat(index, (float) value);
                     }
                 }else if(value instanceof BigDecimal) {
                     for (int index : indexes) {
-                        this.statement.setBigDecimal(index, (BigDecimal) value);
+                        statement.setBigDecimal(index, (BigDecimal) value);
                     }
                 }else if(value instanceof String) {
                     for (int index : indexes) {
-                        this.statement.setString(index, (String) value);
+                        statement.setString(index, (String) value);
                     }
                 }else if(value instanceof Clob) {
                     for (int index : indexes) {
-                        this.statement.setClob(index, (Clob) value);
+                        statement.setClob(index, (Clob) value);
                     }
                 }else if(value instanceof Blob) {
                     for (int index : indexes) {
-                        this.statement.setBlob(index, (Blob) value);
+                        statement.setBlob(index, (Blob) value);
                     }                    
                 }else if(value instanceof java.util.Date){
                     for (int index : indexes) {
-                        this.statement.setTimestamp(index, new Timestamp(((java.util.Date)value).getTime()));
+                        statement.setTimestamp(index, new Timestamp(((java.util.Date)value).getTime()));
                     }
                 }else if(value instanceof Timestamp){
                     for (int index : indexes) {
-                        this.statement.setTimestamp(index, (Timestamp) value);
+                        statement.setTimestamp(index, (Timestamp) value);
                     }
                 }else if(value instanceof Date){
                     for (int index : indexes) {
-                        this.statement.setDate(index, (Date) value);
+                        statement.setDate(index, (Date) value);
                     }
                 }else if(value instanceof Time){
                     for (int index : indexes) {
-                        this.statement.setTime(index, (Time) value);
+                        statement.setTime(index, (Time) value);
                     }
                 } else {
                     for (int index : indexes) {
-                        this.statement.setObject(index, value);
+                        statement.setObject(index, value);
                     }
                 }
                 
@@ -138,8 +256,9 @@ public class Query<T> {
      * Clear the setted parameters
      */
     public void clearParameters() {
+        boundValues = null;
         try {
-            this.statement.clearParameters();
+            statement().clearParameters();
         }catch (SQLException e) {
             throw new JdbcException(e);
         }
@@ -151,37 +270,200 @@ public class Query<T> {
      */
     public int executeUpdate() {
         try {
-            boolean isASelect = this.statement.execute();
+            begin();
+            QueryListener listener = queryCreator.getQueryListener();
+            PreparedStatement statement = statement();
+            Object event = FlightRecorderEvents.beginExecute();
+            long start = listener != null ? System.nanoTime() : 0;
+            boolean isASelect = statement.execute();
+            executed(listener, start);
             if(isASelect) {
                 throw new IllegalStateException("The query is not a DML statement");
             }
             
-            return this.statement.getUpdateCount();
+            int count = statement.getUpdateCount();
+            FlightRecorderEvents.commitExecute(event, namedParameterSQL.getParsedQuery(), namedParameterSQL.getParameterCount(), count);
+            updated(listener, count);
+            queryCreator.written(namedParameterSQL, writtenRows);
+            return count;
             
-        }catch (SQLException | IllegalStateException e) {
+        }catch (SQLException e) {
+            throw failure(e);
+        }catch (IllegalStateException e) {
+            throw failed(new JdbcException(e));
+        }catch (RuntimeException e) {
+            throw failed(e);
+        } finally {
+            end();
+            if(!returnGeneratedKeys) {
+                release();
+            }
+        }
+    }
+    
+    /**
+     * Add the current parameters to the statement batch. The parameters must 
+     * be set again before the next call
+     * @return The query itself
+     */
+    public Query<T> addBatch() {
+        try {
+            statement().addBatch();
+            batchPending = true;
+            batchSize++;
+            return this;
+        }catch (SQLException e) {
             throw new JdbcException(e);
         }
     }
     
+    /**
+     * Execute all the parameters sets added through {@link #addBatch()} 
+     * @return The updated rows count of each batch entry
+     */
+    public int[] executeBatch() {
+        try {
+            begin();
+            QueryListener listener = queryCreator.getQueryListener();
+            PreparedStatement statement = statement();
+            Object event = FlightRecorderEvents.beginBatch();
+            long start = listener != null ? System.nanoTime() : 0;
+            int[] counts = statement.executeBatch();
+            executed(listener, start);
+            if(listener != null || event != null) {
+                long total = 0;
+                for (int count : counts) {
+                    total += Math.max(0, count);
+                }
+                FlightRecorderEvents.commitBatch(event, namedParameterSQL.getParsedQuery(), namedParameterSQL.getParameterCount(), batchSize, total);
+                updated(listener, total);
+            }
+            queryCreator.written(namedParameterSQL, writtenRows);
+            return counts;
+        }catch (SQLException e) {
+            throw failure(e);
+        }catch (RuntimeException e) {
+            throw failed(e);
+        } finally {
+            batchPending = false;
+            batchSize = 0;
+            end();
+            if(!returnGeneratedKeys) {
+                release();
+            }
+        }
+    }
+    
+    /**
+     * Get the keys generated by the last {@link #executeUpdate()} or {@link #executeBatch()}
+     * call. The query must be created with the generated keys option, see
+     * {@link QueryCreator#create(java.lang.String, boolean)}
+     * <br>
+     * Only the first generated column is read and it must be convertible to long
+     * @return The generated keys in the same order of the affected rows
+     */
+    public long[] getGeneratedKeys() {
+        ResultSet rs = null;
+        try {
+            rs = statement().getGeneratedKeys();
+            long[] keys = new long[16];
+            int count = 0;
+            while(rs.next()) {
+                if(count == keys.length) {
+                    keys = Arrays.copyOf(keys, count * 2);
+                }
+                keys[count++] = rs.getLong(1);
+            }
+            
+            return Arrays.copyOf(keys, count);
+        }catch (SQLException e) {
+            throw new JdbcException(e);
+        } finally {
+            JdbcUtils.close(rs);
+            release();
+        }
+    }
+    
     /**
      * Execute the query and return the first result as a {@link java.util.Optional}
-     * if the result does not exists the {@link java.util.Optional} will be empty
+     * if the result does not exists the {@link java.util.Optional} will be empty.
+     * When the query selects a bean by its key, the {@link EntityCache} of the
+     * bean class is used, see {@link QueryCreator#setEntityCache(io.github.josevjunior.simplejdbc.EntityCache)}
      * @return The first result as {@link java.util.Optional}
      */
+    @SuppressWarnings("unchecked")
     public Optional<T> getFirstResult() {
         
+        EntityCache<T> entityCache = entityCache();
+        if(entityCache != null) {
+            T bean = entityCache.getIfPresent(queryCreator.getDatabase(), boundValues[1]);
+            if(bean != null) {
+                close();
+                return Optional.of(bean);
+            }
+        }
+        
+        QueryCache cache = entityCache == null ? cache() : null;
+        QueryCoalescer coalescer = coalescer();
+        if(cache == null && coalescer == null) {
+            return executeFirstResult(entityCache, null, null);
+        }
+        
+        QueryCache.Key key = cacheKey(true);
+        if(cache != null) {
+            List<T> cachedList = (List<T>) cache.get(key);
+            if(cachedList != null) {
+                close();
+                return cachedList.isEmpty() ? Optional.empty() : Optional.of(cachedList.get(0));
+            }
+        }
+        
+        if(coalescer == null) {
+            return executeFirstResult(entityCache, cache, key);
+        }
+        
+        Optional<T> result = coalescer.execute(key, effectiveDeadline(), () -> executeFirstResult(entityCache, cache, key));
+        close();
+        return result;
+    }
+    
+    private Optional<T> executeFirstResult(EntityCache<T> entityCache, QueryCache cache, QueryCache.Key key) {
+        
+        long entityStamp = entityCache != null ? entityCache.stamp(boundValues[1]) : 0;
+        long stamp = cache != null ? cache.stamp() : 0;
+        
         ResultSet rs = null;
         try {
-            rs = this.statement.executeQuery();
-            if(rs.next()) {
-                return Optional.of(mapper.map(rs, rs.getMetaData()));
+            begin();
+            QueryListener listener = queryCreator.getQueryListener();
+            PreparedStatement statement = statement();
+            Object event = FlightRecorderEvents.beginExecute();
+            long start = listener != null ? System.nanoTime() : 0;
+            rs = statement.executeQuery();
+            long fetchStart = executed(listener, start);
+            FlightRecorderEvents.commitExecute(event, namedParameterSQL.getParsedQuery(), namedParameterSQL.getParameterCount(), -1);
+            
+            Object fetchEvent = FlightRecorderEvents.beginFetch();
+            Optional<T> result = rs.next() ? Optional.of(mapper.map(rs, shape(rs))) : Optional.empty();
+            FlightRecorderEvents.commitFetch(fetchEvent, namedParameterSQL.getParsedQuery(), namedParameterSQL.getParameterCount(), result.isPresent() ? 1 : 0);
+            fetched(listener, fetchStart, result.isPresent() ? 1 : 0);
+            if(entityCache != null && result.isPresent()) {
+                entityCache.put(queryCreator.getDatabase(), boundValues[1], result.get(), entityStamp);
+            }
+            if(cache != null) {
+                cache.put(key, namedParameterSQL.getReadTables(), stamp, 
+                        result.isPresent() ? Collections.singletonList(result.get()) : Collections.emptyList());
             }
             
-            return Optional.empty();
+            return result;
         }catch (SQLException e) {
-            throw new JdbcException(e);
+            throw failure(e);
+        }catch (RuntimeException e) {
+            throw failed(e);
         } finally {
             JdbcUtils.close(rs);
+            end();
+            release();
         }
     }
     
@@ -190,24 +472,72 @@ public class Query<T> {
      * all the row mapped for the class
      * @return a not null {@link java.util.List}
      */
+    @SuppressWarnings("unchecked")
     public List<T> getResultList() {
         
+        QueryCache cache = cache();
+        QueryCoalescer coalescer = coalescer();
+        if(cache == null && coalescer == null) {
+            return executeResultList(null, null);
+        }
+        
+        QueryCache.Key key = cacheKey(false);
+        if(cache != null) {
+            List<T> cachedList = (List<T>) cache.get(key);
+            if(cachedList != null) {
+                close();
+                return new ArrayList<>(cachedList);
+            }
+        }
+        
+        if(coalescer == null) {
+            return executeResultList(cache, key);
+        }
+        
+        // The shared list is copied, so no caller changes the list of the others
+        List<T> shared = coalescer.execute(key, effectiveDeadline(), () -> executeResultList(cache, key));
+        close();
+        return new ArrayList<>(shared);
+    }
+    
+    private List<T> executeResultList(QueryCache cache, QueryCache.Key key) {
+        
+        long stamp = cache != null ? cache.stamp() : 0;
+        
         List<T> list = new ArrayList<>();
         ResultSet rs = null;
         try {
-            rs = this.statement.executeQuery();
-            ResultSetMetaData metaData = rs.getMetaData();
+            begin();
+            QueryListener listener = queryCreator.getQueryListener();
+            PreparedStatement statement = statement();
+            Object event = FlightRecorderEvents.beginExecute();
+            long start = listener != null ? System.nanoTime() : 0;
+            rs = statement.executeQuery();
+            long fetchStart = executed(listener, start);
+            FlightRecorderEvents.commitExecute(event, namedParameterSQL.getParsedQuery(), namedParameterSQL.getParameterCount(), -1);
             
+            Object fetchEvent = FlightRecorderEvents.beginFetch();
+            ResultShape shape = shape(rs);
             while(rs.next()) {
-                list.add(mapper.map(rs, metaData));
+                checkActive();
+                list.add(mapper.map(rs, shape));
             }
+            FlightRecorderEvents.commitFetch(fetchEvent, namedParameterSQL.getParsedQuery(), namedParameterSQL.getParameterCount(), list.size());
+            fetched(listener, fetchStart, list.size());
             
+            if(cache != null) {
+                cache.put(key, namedParameterSQL.getReadTables(), stamp, new ArrayList<>(list));
+            }
             return list;
             
         }catch (SQLException e) {
-            throw new JdbcException(e);
+            throw failure(e);
+        }catch (RuntimeException e) {
+            throw failed(e);
         } finally {
             JdbcUtils.close(rs);
+            end();
+            release();
         }
     }
     
@@ -216,7 +546,7 @@ public class Query<T> {
      * @return a {@link java.sql.PreparedStatement}
      */
     public PreparedStatement getNativeStatement(){
-        return statement;
+        return lease != null ? lease.statement : statement();
     }
     
     /**
@@ -226,29 +556,486 @@ public class Query<T> {
      */
     public ScrollableResult<T> getScrollableResult() {
         try {
-            ResultSet rs = this.statement.executeQuery();
-            ResultSetMetaData metaData = rs.getMetaData();
+            begin();
+            QueryListener listener = queryCreator.getQueryListener();
+            PreparedStatement statement = statement();
+            Object event = FlightRecorderEvents.beginExecute();
+            long start = listener != null ? System.nanoTime() : 0;
+            ResultSet rs = statement.executeQuery();
+            executed(listener, start);
+            FlightRecorderEvents.commitExecute(event, namedParameterSQL.getParsedQuery(), namedParameterSQL.getParameterCount(), -1);
+            completed(listener, 0, -1);
+            
+            return new ScrollableResultImpl<T>(this, rs, shape(rs), mapper);
+            
+        }catch (SQLException e) {
+            JdbcException failure = failure(e);
+            end();
+            release();
+            throw failure;
+        }catch (RuntimeException e) {
+            failed(e);
+            end();
+            release();
+            throw e;
+        }
+    }
+    
+    
+    /**
+     * Create a Reactive Streams publisher of the query rows. The query is
+     * executed when the subscriber requests the first rows and the rows are 
+     * only read while there is demand. The deadline, the cancellation and the
+     * listener apply as in the other terminal calls, and the statement is given
+     * back when the publisher finishes
+     * <br>
+     * The reactive-streams dependency is optional and must be declared to use
+     * this method
+     * @return a {@link io.github.josevjunior.simplejdbc.QueryPublisher}
+     */
+    public QueryPublisher<T> publisher() {
+        return new QueryPublisher<>(this);
+    }
+    
+    /**
+     * Execute a work with the statement, applying the deadline and giving the
+     * statement back at the end like the other terminal calls
+     * @param work The work
+     * @return The work result
+     */
+    <R> R execute(StatementWork<R> work) {
+        try {
+            begin();
+            QueryListener listener = queryCreator.getQueryListener();
+            PreparedStatement statement = statement();
+            Object event = FlightRecorderEvents.beginExecute();
+            long start = listener != null ? System.nanoTime() : 0;
+            R result = work.execute(statement);
+            executed(listener, start);
+            FlightRecorderEvents.commitExecute(event, namedParameterSQL.getParsedQuery(), namedParameterSQL.getParameterCount(), -1);
+            completed(listener, 0, -1);
+            return result;
+        }catch (SQLException e) {
+            throw failure(e);
+        }catch (RuntimeException e) {
+            throw failed(e);
+        } finally {
+            end();
+            release();
+        }
+    }
+    
+    /**
+     * Give the statement back to the {@link QueryCreator}. The query can still
+     * be used, a statement is leased again when needed
+     */
+    @Override
+    public void close() {
+        end();
+        release();
+    }
+    
+    /**
+     * Tell the listener the execution time
+     * @return The current time, or zero if there is no listener
+     */
+    private long executed(QueryListener listener, long start) {
+        if(listener == null) {
+            return 0;
+        }
+        long now = System.nanoTime();
+        executeNanos = now - start;
+        listener.executed(namedParameterSQL.getParsedQuery(), executeNanos);
+        return now;
+    }
+    
+    private void fetched(QueryListener listener, long start, int rows) {
+        if(listener != null) {
+            long fetchNanos = System.nanoTime() - start;
+            listener.fetched(namedParameterSQL.getParsedQuery(), fetchNanos, rows);
+            completed(listener, fetchNanos, rows);
+        }
+    }
+    
+    private void updated(QueryListener listener, long count) {
+        if(listener != null) {
+            listener.updated(namedParameterSQL.getParsedQuery(), count);
+            completed(listener, 0, count);
+        }
+    }
+    
+    private void completed(QueryListener listener, long fetchNanos, long rows) {
+        if(listener != null) {
+            listener.completed(namedParameterSQL.getParsedQuery(), parameterValues(), executeNanos, fetchNanos, rows);
+        }
+    }
+    
+    /**
+     * @return The parameter values of the last execution, from the index 1 at
+     * the position 0. The array is reused by the next executions
+     */
+    private Object[] parameterValues() {
+        int count = namedParameterSQL.getParameterCount();
+        if(parameterValues == null || parameterValues.length != count) {
+            parameterValues = new Object[count];
+        }
+        for (int i = 0; i < count; i++) {
+            Object value = boundValues != null && i + 1 < boundValues.length ? boundValues[i + 1] : null;
+            parameterValues[i] = value == NULL_VALUE ? null : value;
+        }
+        return parameterValues;
+    }
+    
+    private ResultShape shape(ResultSet rs) throws SQLException {
+        return lease != null ? queryCreator.getResultShape(lease, rs) : ResultShape.of(rs.getMetaData());
+    }
+    
+    /**
+     * @return The cache of the creator if this query can use it
+     */
+    private QueryCache cache() {
+        QueryCache cache = queryCreator.getQueryCache();
+        if(!cached || cache == null || !namedParameterSQL.isSelect() || queryCreator.isInTransaction()) {
+            return null;
+        }
+        return cache;
+    }
+    
+    /**
+     * @return The bean cache of the creator if this query selects a bean by its key
+     */
+    private EntityCache<T> entityCache() {
+        if(!(mapper instanceof BasicBeanMapper)) {
+            return null;
+        }
+        
+        EntityCache<T> cache = queryCreator.getEntityCache(((BasicBeanMapper<T>) mapper).getResultType());
+        if(cache == null || boundValues == null || boundValues.length < 2 || boundValues[1] == null || boundValues[1] == NULL_VALUE
+                || !cache.isKeyLookup(namedParameterSQL) || queryCreator.isInTransaction()) {
+            return null;
+        }
+        return cache;
+    }
+    
+    /**
+     * @return The coalescer of the creator if this query can use it
+     */
+    private QueryCoalescer coalescer() {
+        QueryCoalescer coalescer = queryCreator.getQueryCoalescer();
+        if(coalescer == null || !namedParameterSQL.isSelect() || queryCreator.isInTransaction()) {
+            return null;
+        }
+        return coalescer;
+    }
+    
+    private QueryCache.Key cacheKey(boolean firstResult) {
+        Object resultKey = mapper;
+        if(mapper instanceof BasicBeanMapper) {
+            resultKey = ((BasicBeanMapper<?>) mapper).getResultType();
+        } else if(mapper instanceof ArrayRowMapper || mapper instanceof MapRowMapper) {
+            resultKey = mapper.getClass();
+        }
+        
+        Object[] values = boundValues == null ? new Object[0] : boundValues.clone();
+        return new QueryCache.Key(queryCreator.getDatabase(), namedParameterSQL.getParsedQuery(), resultKey, values, firstResult);
+    }
+    
+    /**
+     * Get the leased statement, leasing one if the query has none. The values
+     * of the parameters already set are bound to a new leased statement
+     */
+    private PreparedStatement statement() {
+        try {
+            if(lease != null && !lease.statement.isClosed()) {
+                return lease.statement;
+            }
             
-            return new ScrollableResultImpl<T>(rs, metaData, mapper);
+            if(lease != null) {
+                queryCreator.release(lease);
+            }
+            QueryListener listener = queryCreator.getQueryListener();
+            Object event = FlightRecorderEvents.beginPrepare();
+            long start = listener != null ? System.nanoTime() : 0;
+            lease = queryCreator.lease(this, namedParameterSQL.getParsedQuery(), returnGeneratedKeys);
+            cancellation.setStatement(lease.statement);
             
+            if(boundValues != null) {
+                for (int i = 0; i < boundValues.length; i++) {
+                    if(boundValues[i] != null) {
+                        bind(new int[] { i }, boundValues[i] == NULL_VALUE ? null : boundValues[i]);
+                    }
+                }
+            }
+            
+            FlightRecorderEvents.commitPrepare(event, namedParameterSQL.getParsedQuery(), namedParameterSQL.getParameterCount());
+            if(listener != null) {
+                listener.prepared(namedParameterSQL.getParsedQuery(), System.nanoTime() - start);
+            }
+            return lease.statement;
         }catch (SQLException e) {
             throw new JdbcException(e);
         }
     }
     
+    /**
+     * Track the query for leaks while it holds a statement. The handle is kept
+     * between the leases, so the query is sampled and its stack taken once
+     * @return The handle of the lease
+     */
+    LeakDetector.Handle leaseOpened() {
+        if(leak == null) {
+            leak = LeakDetector.opened(LeakDetector.Resource.QUERY, this);
+        } else {
+            LeakDetector.reopened(leak, this);
+        }
+        return leak;
+    }
+    
+    private void release() {
+        end();
+        if(lease == null) {
+            return;
+        }
+        
+        PreparedStatement statement = lease.statement;
+        try {
+            if(driverTimeoutSet) {
+                driverTimeoutSet = false;
+                statement.setQueryTimeout(0);
+            }
+            if(batchPending) {
+                batchPending = false;
+                batchSize = 0;
+                statement.clearBatch();
+            }
+        }catch (SQLException e) {
+            JdbcUtils.close(statement);
+        }
+        
+        cancellation.setStatement(null);
+        queryCreator.release(lease);
+        lease = null;
+    }
+    
+    /**
+     * Prepare a execution. The driver timeout and the watchdog are set from
+     * the earliest deadline
+     */
+    private void begin() throws SQLException {
+        end();
+        checkActive();
+        
+        QueryListener listener = queryCreator.getQueryListener();
+        if(listener != null && bindNanos > 0) {
+            listener.bound(namedParameterSQL.getParsedQuery(), bindNanos);
+        }
+        bindNanos = 0;
+        executing = listener != null;
+        executionStart = executing ? System.nanoTime() : 0;
+        
+        Deadline effective = effectiveDeadline();
+        if(effective == null) {
+            if(driverTimeoutSet) {
+                statement().setQueryTimeout(0);
+                driverTimeoutSet = false;
+            }
+            return;
+        }
+        
+        long remaining = effective.remaining(TimeUnit.NANOSECONDS);
+        if(remaining <= 0) {
+            throw new JdbcException("The query deadline has expired");
+        }
+        
+        long seconds = (remaining + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1);
+        statement().setQueryTimeout((int) Math.min(Integer.MAX_VALUE, seconds));
+        driverTimeoutSet = true;
+        runningDeadline = effective;
+        watch = QueryWatchdog.watch(statement(), remaining);
+    }
+    
+    /**
+     * @return The earliest of the query deadline, the creator deadline and the
+     * timeout from now, or null if there is none
+     */
+    private Deadline effectiveDeadline() {
+        Deadline effective = deadline;
+        if(queryCreator.getDeadline() != null) {
+            effective = queryCreator.getDeadline().earliest(effective);
+        }
+        if(timeoutNanos > 0) {
+            effective = Deadline.after(timeoutNanos, TimeUnit.NANOSECONDS).earliest(effective);
+        }
+        return effective;
+    }
+    
+    /**
+     * Finish a execution, stopping its watch. Waits for a cancel of the
+     * watchdog in progress, so it can't reach the statement once it is
+     * released
+     */
+    private void end() {
+        if(watch != null) {
+            watch.stop();
+            watch = null;
+        }
+        runningDeadline = null;
+        executing = false;
+    }
+    
+    /**
+     * Checked at each row boundary
+     */
+    private void checkActive() {
+        if(cancellation.isCancelled()) {
+            throw new JdbcException("The query was cancelled");
+        }
+        if(runningDeadline != null && runningDeadline.isExpired()) {
+            throw new JdbcException("The query deadline has expired");
+        }
+    }
+    
+    private JdbcException failure(SQLException e) {
+        if(cancellation.isCancelled()) {
+            return failed(new JdbcException("The query was cancelled", e));
+        }
+        if(runningDeadline != null && runningDeadline.isExpired()) {
+            return failed(new JdbcException("The query deadline has expired", e));
+        }
+        return failed(new JdbcException(e));
+    }
+    
+    /**
+     * Tell the listener the running execution failed. Only the first failure
+     * of a execution is told
+     * @return The error
+     */
+    private <E extends RuntimeException> E failed(E error) {
+        QueryListener listener = queryCreator.getQueryListener();
+        if(executing && listener != null) {
+            executing = false;
+            listener.failed(namedParameterSQL.getParsedQuery(), parameterValues(), System.nanoTime() - executionStart, error);
+        }
+        return error;
+    }
+    
+    /**
+     * A work done with the query statement, see {@link #execute(io.github.josevjunior.simplejdbc.Query.StatementWork)}
+     */
+    interface StatementWork<R> {
+        
+        R execute(PreparedStatement statement) throws SQLException;
+        
+    }
+    
+    /**
+     * @return The rows of a new execution, read one by one by the {@link QueryPublisher}
+     */
+    Rows rows() {
+        return new Rows();
+    }
+    
+    /**
+     * The rows of a execution read while there is demand. The statement is
+     * leased from {@link #open()} to {@link #close()}
+     */
+    final class Rows {
+        
+        private ResultSet rs;
+        private ResultShape shape;
+        private QueryListener listener;
+        private long fetchStart;
+        private Object fetchEvent;
+        private int count;
+        
+        /**
+         * Execute the query
+         */
+        void open() {
+            try {
+                begin();
+                listener = queryCreator.getQueryListener();
+                PreparedStatement statement = statement();
+                Object event = FlightRecorderEvents.beginExecute();
+                long start = listener != null ? System.nanoTime() : 0;
+                rs = statement.executeQuery();
+                fetchStart = executed(listener, start);
+                FlightRecorderEvents.commitExecute(event, namedParameterSQL.getParsedQuery(), namedParameterSQL.getParameterCount(), -1);
+                fetchEvent = FlightRecorderEvents.beginFetch();
+                shape = shape(rs);
+            }catch (SQLException e) {
+                throw failure(e);
+            }catch (RuntimeException e) {
+                throw failed(e);
+            }
+        }
+        
+        boolean isOpen() {
+            return rs != null;
+        }
+        
+        /**
+         * Move to the next row. When the rows are over, the fetch is told to
+         * the listener
+         * @return false if there is no more rows
+         */
+        boolean next() {
+            try {
+                checkActive();
+                if(!rs.next()) {
+                    FlightRecorderEvents.commitFetch(fetchEvent, namedParameterSQL.getParsedQuery(), namedParameterSQL.getParameterCount(), count);
+                    fetched(listener, fetchStart, count);
+                    return false;
+                }
+                count++;
+                return true;
+            }catch (SQLException e) {
+                throw failure(e);
+            }catch (RuntimeException e) {
+                throw failed(e);
+            }
+        }
+        
+        /**
+         * @return The current row mapped
+         */
+        T get() {
+            try {
+                return mapper.map(rs, shape);
+            }catch (SQLException e) {
+                throw failed(new JdbcException(e));
+            }catch (RuntimeException e) {
+                throw failed(e);
+            }
+        }
+        
+        /**
+         * Close the result set and give the statement back
+         */
+        void close() {
+            JdbcUtils.close(rs);
+            end();
+            release();
+        }
+        
+    }
     
     private static final class ScrollableResultImpl<T>  implements ScrollableResult<T> {
         
+        private final Query<T> query;
         private final ResultSet rs;
-        private final ResultSetMetaData metaData;
+        private final ResultShape shape;
         private final RowMapper<T> mapper;
         private final Map<Integer, T> cachedValues;
+        private final LeakDetector.Handle leak;
 
-        public ScrollableResultImpl(ResultSet rs, ResultSetMetaData metaData, RowMapper<T> mapper) {            
+        public ScrollableResultImpl(Query<T> query, ResultSet rs, ResultShape shape, RowMapper<T> mapper) {            
+            this.query = query;
             this.rs = rs;
-            this.metaData = metaData;
+            this.shape = shape;
             this.mapper = mapper;
             this.cachedValues = new HashMap<>();
+            this.leak = LeakDetector.opened(LeakDetector.Resource.SCROLLABLE_RESULT, this);
         }
         
         @Override
@@ -256,14 +1043,16 @@ public class Query<T> {
             try {
                 T result = cachedValues.get(getRowId());
                 if(result == null) {
-                    result = mapper.map(rs, metaData);
+                    result = mapper.map(rs, shape);
                     cachedValues.put(getRowId(), result);
                 }
                 
                 return result;
                 
             }catch(SQLException e) {
-                throw new JdbcException(e);
+                throw query.failed(new JdbcException(e));
+            }catch(RuntimeException e) {
+                throw query.failed(e);
             }
         }
 
@@ -315,15 +1104,24 @@ public class Query<T> {
         @Override
         public boolean next() {
             try {
+                query.checkActive();
                 return rs.next();
             }catch(SQLException e) {
-                throw new JdbcException(e);
+                throw query.failure(e);
+            }catch(RuntimeException e) {
+                throw query.failed(e);
             }
         }
 
         @Override
         public void close() throws Exception {
-            rs.close();
+            try {
+                rs.close();
+            } finally {
+                LeakDetector.closed(leak);
+                query.end();
+                query.release();
+            }
         }
         
         
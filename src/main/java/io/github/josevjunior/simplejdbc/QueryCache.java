@@ -0,0 +1,403 @@
+package io.github.josevjunior.simplejdbc;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToLongFunction;
+
+/**
+ * A cache of query results, keyed by the database, the sql, the bound parameters
+ * and the result type. Only the queries marked with {@link Query#cached(boolean)} and
+ * created by a {@link QueryCreator} with a cache use it
+ * <br>
+ * e.g:
+ * <pre>{@code
+    QueryCache cache = new QueryCache()
+        .maximumWeight(10_000)
+        .expireAfterWrite(5, TimeUnit.MINUTES);
+
+    queryCreator.setQueryCache(cache);
+    List<Country> countries = queryCreator.create("SELECT * FROM COUNTRY", Country.class)
+        .cached(true)
+        .getResultList();
+   }</pre>
+ *
+ * The entries are invalidated when a query or a statement builder of any
+ * QueryCreator writes to a table the cached query reads from. The tables are
+ * extracted from the sql, so writes done outside the library must be followed
+ * by {@link #invalidate(java.lang.String)}. Writes of a transaction invalidate
+ * at {@link QueryCreator#commit()}
+ * <br>
+ * A result read while a table was being invalidated is not stored, so the cache
+ * never keeps a result older than the last invalidation of its tables
+ * <br>
+ * <b>Note: </b> The cached rows are shared, so they should not be changed
+ */
+public class QueryCache {
+
+    /**
+     * All the caches, invalidated by the writes of any QueryCreator
+     */
+    private static final List<WeakReference<QueryCache>> CACHES = new CopyOnWriteArrayList<>();
+
+    private final Object lock = new Object();
+    private final LinkedHashMap<Key, Entry> entries;
+    private final Map<String, Set<Key>> keysByTable;
+
+    /**
+     * The generation of the last invalidation of each table and of the last
+     * invalidation of all the tables
+     */
+    private final Map<String, Long> tableVersions;
+    private long allVersion;
+    private long generation;
+
+    private long maximumWeight;
+    private ToLongFunction<List<?>> weigher;
+    private long expireAfterWriteNanos;
+    private long weight;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    public QueryCache() {
+        this.entries = new LinkedHashMap<>(16, 0.75f, true);
+        this.keysByTable = new HashMap<>();
+        this.tableVersions = new HashMap<>();
+        this.maximumWeight = 10_000;
+        this.weigher = list -> list.size() + 1;
+        CACHES.add(new WeakReference<>(this));
+    }
+
+    /**
+     * Define the max weight of the cached results. The least recently used
+     * results are evicted when it is exceeded. Default 10000
+     * @param maximumWeight The max weight
+     * @return The cache itself
+     */
+    public QueryCache maximumWeight(long maximumWeight) {
+        synchronized (lock) {
+            this.maximumWeight = maximumWeight;
+            evict();
+        }
+        return this;
+    }
+
+    /**
+     * Define the weight of a result. The default is the number of rows plus one
+     * @param weigher The weigher
+     * @return The cache itself
+     */
+    public QueryCache weigher(ToLongFunction<List<?>> weigher) {
+        this.weigher = Objects.requireNonNull(weigher, "Weigher should not be null!");
+        return this;
+    }
+
+    /**
+     * Define how long a result is kept after it is read from the database
+     * @param duration The duration or zero to keep it until it is evicted or invalidated
+     * @param unit The time unit
+     * @return The cache itself
+     */
+    public QueryCache expireAfterWrite(long duration, TimeUnit unit) {
+        this.expireAfterWriteNanos = unit.toNanos(duration);
+        return this;
+    }
+
+    /**
+     * Remove the results of the queries that read from the table
+     * @param table The table name
+     */
+    public void invalidate(String table) {
+        invalidateTables(new HashSet<>(Arrays.asList(table.toUpperCase())));
+    }
+
+    /**
+     * Remove all the results
+     */
+    public void invalidateAll() {
+        synchronized (lock) {
+            allVersion = ++generation;
+            tableVersions.clear();
+            keysByTable.clear();
+            entries.clear();
+            weight = 0;
+        }
+        invalidations.increment();
+    }
+
+    private void invalidateTables(Set<String> tables) {
+        synchronized (lock) {
+            long version = ++generation;
+            for (String table : tables) {
+                tableVersions.put(table, version);
+                Set<Key> keys = keysByTable.remove(table);
+                if(keys != null) {
+                    for (Key key : keys) {
+                        remove(entries.get(key));
+                    }
+                }
+            }
+        }
+        invalidations.increment();
+    }
+
+    /**
+     * Get a cached result
+     * @return The result or null if it is not cached or it is expired
+     */
+    List<?> get(Key key) {
+        synchronized (lock) {
+            Entry entry = entries.get(key);
+            if(entry != null && entry.expiresAt != 0 && entry.expiresAt - System.nanoTime() <= 0) {
+                remove(entry);
+                entry = null;
+            }
+
+            if(entry == null) {
+                misses.increment();
+                return null;
+            }
+
+            hits.increment();
+            return entry.value;
+        }
+    }
+
+    /**
+     * Get the current generation. It must be taken before the query execution
+     * and given back to {@link #put(io.github.josevjunior.simplejdbc.QueryCache.Key, java.util.Set, long, java.util.List)}
+     */
+    long stamp() {
+        synchronized (lock) {
+            return generation;
+        }
+    }
+
+    /**
+     * Cache a result, unless one of its tables was invalidated after the stamp
+     */
+    void put(Key key, Set<String> tables, long stamp, List<?> value) {
+        long valueWeight = weigher.applyAsLong(value);
+        synchronized (lock) {
+            if(allVersion > stamp || valueWeight > maximumWeight) {
+                return;
+            }
+            for (String table : tables) {
+                Long version = tableVersions.get(table);
+                if(version != null && version > stamp) {
+                    return;
+                }
+            }
+
+            remove(entries.get(key));
+            long expiresAt = expireAfterWriteNanos > 0 ? System.nanoTime() + expireAfterWriteNanos : 0;
+            entries.put(key, new Entry(key, tables, value, valueWeight, expiresAt));
+            weight += valueWeight;
+            for (String table : tables) {
+                keysByTable.computeIfAbsent(table, t -> new HashSet<>()).add(key);
+            }
+            evict();
+        }
+    }
+
+    private void evict() {
+        Iterator<Entry> it = entries.values().iterator();
+        while(weight > maximumWeight && it.hasNext()) {
+            Entry eldest = it.next();
+            it.remove();
+            unindex(eldest);
+            evictions.increment();
+        }
+    }
+
+    private void remove(Entry entry) {
+        if(entry != null) {
+            entries.remove(entry.key);
+            unindex(entry);
+        }
+    }
+
+    private void unindex(Entry entry) {
+        weight -= entry.weight;
+        for (String table : entry.tables) {
+            Set<Key> keys = keysByTable.get(table);
+            if(keys != null) {
+                keys.remove(entry.key);
+                if(keys.isEmpty()) {
+                    keysByTable.remove(table);
+                }
+            }
+        }
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    /**
+     * @return The number of results removed because of the max weight
+     */
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    /**
+     * @return The number of invalidations, each one of one or more tables
+     */
+    public long getInvalidationCount() {
+        return invalidations.sum();
+    }
+
+    /**
+     * @return The hits divided by the requests or 1 if there was no request
+     */
+    public double getHitRate() {
+        long hitCount = hits.sum();
+        long requests = hitCount + misses.sum();
+        return requests == 0 ? 1 : (double) hitCount / requests;
+    }
+
+    /**
+     * @return The number of cached results
+     */
+    public int size() {
+        synchronized (lock) {
+            return entries.size();
+        }
+    }
+
+    /**
+     * @return The weight of the cached results
+     */
+    public long getWeight() {
+        synchronized (lock) {
+            return weight;
+        }
+    }
+
+    /**
+     * @return true if there is a cache whose results may need to be invalidated
+     */
+    static boolean isActive() {
+        return !CACHES.isEmpty();
+    }
+
+    /**
+     * Invalidate the tables in all the caches
+     * @param tables The upper case table names or null to invalidate everything
+     */
+    static void written(Set<String> tables) {
+        List<WeakReference<QueryCache>> collected = null;
+        for (WeakReference<QueryCache> reference : CACHES) {
+            QueryCache cache = reference.get();
+            if(cache == null) {
+                if(collected == null) {
+                    collected = new ArrayList<>();
+                }
+                collected.add(reference);
+            } else if(tables == null) {
+                cache.invalidateAll();
+            } else if(!tables.isEmpty()) {
+                cache.invalidateTables(tables);
+            }
+        }
+
+        if(collected != null) {
+            CACHES.removeAll(collected);
+        }
+    }
+
+    /**
+     * The key of a cached result
+     */
+    static final class Key {
+
+        private final Object database;
+        private final String sql;
+        private final Object resultKey;
+        private final Object[] values;
+        private final boolean firstResult;
+        private final int hash;
+
+        /**
+         * @param database The database, see {@link QueryCreator#getDatabase()}
+         * @param sql The parsed sql
+         * @param resultKey Identifies the mapper results, e.g. the bean class
+         * @param values The bound values by index
+         * @param firstResult If only the first row is read
+         */
+        Key(Object database, String sql, Object resultKey, Object[] values, boolean firstResult) {
+            this.database = database;
+            this.sql = sql;
+            this.resultKey = resultKey;
+            this.values = values;
+            this.firstResult = firstResult;
+            this.hash = Objects.hash(database, sql, resultKey, Arrays.deepHashCode(values), firstResult);
+        }
+
+        String getSql() {
+            return sql;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if(this == obj) {
+                return true;
+            }
+            if(!(obj instanceof Key)) {
+                return false;
+            }
+
+            Key other = (Key) obj;
+            return hash == other.hash
+                    && firstResult == other.firstResult
+                    && sql.equals(other.sql)
+                    && database.equals(other.database)
+                    && resultKey.equals(other.resultKey)
+                    && Arrays.deepEquals(values, other.values);
+        }
+
+    }
+
+    private static final class Entry {
+
+        final Key key;
+        final Set<String> tables;
+        final List<?> value;
+        final long weight;
+        final long expiresAt;
+
+        Entry(Key key, Set<String> tables, List<?> value, long weight, long expiresAt) {
+            this.key = key;
+            this.tables = tables;
+            this.value = value;
+            this.weight = weight;
+            this.expiresAt = expiresAt;
+        }
+
+    }
+
+}
@@ -0,0 +1,50 @@
+package io.github.josevjunior.simplejdbc;
+
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * A handle to cancel a {@link Query} from another thread. The running statement
+ * is cancelled through {@link java.sql.Statement#cancel()} and the mapping
+ * loops stop at the next row, throwing a {@link io.github.josevjunior.simplejdbc.JdbcException}
+ * <br>
+ * The cancellation is definitive, a cancelled query can't be executed again
+ */
+public class QueryCancellation {
+
+    private Statement statement;
+    private volatile boolean cancelled;
+
+    /**
+     * Define the statement leased by the query. Waits for a cancel in progress,
+     * so the statement is not cancelled after it is given back to the creator
+     */
+    synchronized void setStatement(Statement statement) {
+        this.statement = statement;
+    }
+
+    /**
+     * Cancel the query. Does nothing if it was already cancelled
+     */
+    public synchronized void cancel() {
+        if(cancelled) {
+            return;
+        }
+
+        cancelled = true;
+        if(statement == null) {
+            return;
+        }
+
+        try {
+            statement.cancel();
+        }catch (SQLException e) {
+            throw new JdbcException(e);
+        }
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+}
@@ -0,0 +1,159 @@
+package io.github.josevjunior.simplejdbc;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Shares one execution between the concurrent calls of the same query. While a
+ * query with a sql and parameters is running, the other calls of
+ * {@link Query#getResultList()} or {@link Query#getFirstResult()} with the same
+ * database, sql, parameters and result type wait for it and get its result, instead of
+ * running the query again. It avoids the stampede of many threads running the
+ * same query when a cached result expires
+ * <br>
+ * e.g:
+ * <pre>{@code
+    QueryCoalescer coalescer = new QueryCoalescer(); // Shared by the QueryCreators of all threads
+
+    QueryCreator queryCreator = new QueryCreator(dataSource);
+    queryCreator.setQueryCoalescer(coalescer);
+   }</pre>
+ *
+ * Only the selects out of a transaction are coalesced. Each caller gets its own
+ * copy of the result list, but the mapped rows are shared, so they should not
+ * be changed. A caller waits until its own timeout or deadline, and if the
+ * shared execution fails the callers which waited for it fail too
+ */
+public class QueryCoalescer {
+
+    /**
+     * The max number of sqls with their own statistics
+     */
+    private static final int MAX_TRACKED_SQLS = 1024;
+
+    private final Map<QueryCache.Key, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    private final Map<String, Stats> statsBySql = new ConcurrentHashMap<>();
+    private final LongAdder executions = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+
+    /**
+     * Execute the loader, unless there is a execution of the same key in
+     * progress. In that case, wait for its result
+     */
+    @SuppressWarnings("unchecked")
+    <R> R execute(QueryCache.Key key, Deadline deadline, Supplier<R> loader) {
+        CompletableFuture<Object> flight = new CompletableFuture<>();
+        CompletableFuture<Object> running = inFlight.putIfAbsent(key, flight);
+        Stats stats = stats(key.getSql());
+
+        if(running != null) {
+            coalesced.increment();
+            if(stats != null) {
+                stats.coalesced.increment();
+            }
+            return (R) await(running, deadline);
+        }
+
+        executions.increment();
+        if(stats != null) {
+            stats.executions.increment();
+        }
+
+        try {
+            R result = loader.get();
+            flight.complete(result);
+            return result;
+        }catch (RuntimeException | Error e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, flight);
+        }
+    }
+
+    private static Object await(CompletableFuture<Object> running, Deadline deadline) {
+        try {
+            if(deadline == null) {
+                return running.get();
+            }
+            return running.get(Math.max(0, deadline.remaining(TimeUnit.NANOSECONDS)), TimeUnit.NANOSECONDS);
+        }catch (ExecutionException e) {
+            throw new JdbcException("The coalesced query failed", e.getCause());
+        }catch (TimeoutException e) {
+            throw new JdbcException("The query deadline has expired", e);
+        }catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new JdbcException("Interrupted while waiting the coalesced query", e);
+        }
+    }
+
+    private Stats stats(String sql) {
+        Stats stats = statsBySql.get(sql);
+        if(stats == null && statsBySql.size() < MAX_TRACKED_SQLS) {
+            stats = statsBySql.computeIfAbsent(sql, s -> new Stats());
+        }
+        return stats;
+    }
+
+    /**
+     * @return The number of executions done by this coalescer
+     */
+    public long getExecutionCount() {
+        return executions.sum();
+    }
+
+    /**
+     * @return The number of calls that got the result of other call execution
+     */
+    public long getCoalescedCount() {
+        return coalesced.sum();
+    }
+
+    /**
+     * @return The number of queries in progress
+     */
+    public int getInFlightCount() {
+        return inFlight.size();
+    }
+
+    /**
+     * Get the statistics of each sql. Only the first {@value #MAX_TRACKED_SQLS}
+     * sqls are tracked
+     * @return The statistics by the parsed sql
+     */
+    public Map<String, Stats> getStats() {
+        return Collections.unmodifiableMap(new HashMap<>(statsBySql));
+    }
+
+    /**
+     * The executions and the coalesced calls of a sql
+     */
+    public static final class Stats {
+
+        private final LongAdder executions = new LongAdder();
+        private final LongAdder coalesced = new LongAdder();
+
+        public long getExecutionCount() {
+            return executions.sum();
+        }
+
+        public long getCoalescedCount() {
+            return coalesced.sum();
+        }
+
+        @Override
+        public String toString() {
+            return "Stats{" + "executions=" + executions + ", coalesced=" + coalesced + '}';
+        }
+
+    }
+
+}
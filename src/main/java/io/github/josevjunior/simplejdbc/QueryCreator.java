@@ -1,20 +1,31 @@
 package io.github.josevjunior.simplejdbc;
 
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
 import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.sql.Blob;
 import java.sql.Clob;
 import java.sql.Connection;
+import java.sql.DatabaseMetaData;
 import java.sql.Date;
 import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
 import java.sql.Time;
 import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 import javax.sql.DataSource;
 
 /**
@@ -27,6 +38,16 @@ import javax.sql.DataSource;
  * If you create the object through the Datasource constructor, the {@link #closeAll()}
  * call is mandatory, otherwise you only should call the {@link #disposeResources()} 
  * method
+ * <br>
+ * The statements are leased by the queries and given back after their terminal
+ * calls. The ones given back are kept to be reused by the next queries with the
+ * same sql, up to {@link #setStatementCacheSize(int)}. The queries are tracked
+ * through weak references, so the statement of a query which was not closed
+ * is closed after the query is garbage collected
+ * <br>
+ * The transactions should be commited through {@link #commit()}, so the cached
+ * results and beans of the written tables are invalidated, see {@link QueryCache}
+ * and {@link EntityCache}
  */
 public class QueryCreator implements AutoCloseable {
     
@@ -35,31 +56,63 @@ public class QueryCreator implements AutoCloseable {
      */
     public static final RowMapperInjector DEFAULT_ROW_MAPPER_INJECTOR = (cls) -> new BasicBeanMapper<>(cls);
 
-    private static Map<Class, RowMapper<?>> mappers = new HashMap<Class, RowMapper<?>>();
-    private static RowMapperInjector defaultMapperInjector = DEFAULT_ROW_MAPPER_INJECTOR;
+    private static final MapperRegistry mappers = new MapperRegistry();
+    private static volatile RowMapperInjector defaultMapperInjector = DEFAULT_ROW_MAPPER_INJECTOR;
 
     static {
-        mappers.put(Short.class, ColumnValueMappers.SHORT_COLUMN_VALUE_MAPPER);
-        mappers.put(Integer.class, ColumnValueMappers.INTEGER_COLUMN_VALUE_MAPPER);
-        mappers.put(Long.class, ColumnValueMappers.LONG_COLUMN_VALUE_MAPPER);
-        mappers.put(Double.class, ColumnValueMappers.DOUBLE_COLUMN_VALUE_MAPPER);
-        mappers.put(Float.class, ColumnValueMappers.FLOAT_COLUMN_VALUE_MAPPER);
-        mappers.put(String.class, ColumnValueMappers.STRING_COLUMN_VALUE_MAPPER);
-        mappers.put(Character.class, ColumnValueMappers.CHAR_COLUMN_VALUE_MAPPER);
-        mappers.put(BigDecimal.class, ColumnValueMappers.BIGDECIMAL_COLUMN_VALUE_MAPPER);
-        mappers.put(BigInteger.class, ColumnValueMappers.BIGINTEGER_COLUMN_VALUE_MAPPER);
-        mappers.put(Clob.class, ColumnValueMappers.CLOB_COLUMN_VALUE_MAPPER);
-        mappers.put(Blob.class, ColumnValueMappers.BLOB_COLUMN_VALUE_MAPPER);
-        mappers.put(Timestamp.class, ColumnValueMappers.TIMESTAMP_COLUMN_VALUE_MAPPER);
-        mappers.put(Time.class, ColumnValueMappers.TIME_COLUMN_VALUE_MAPPER);
-        mappers.put(Date.class, ColumnValueMappers.DATE_COLUMN_VALUE_MAPPER);
-        mappers.put(java.util.Date.class, ColumnValueMappers.DATE_UTIL_COLUMN_VALUE_MAPPER);
-        mappers.put(Object[].class, new ArrayRowMapper());
-        mappers.put(Map.class, new MapRowMapper());
+        mappers.register(Short.class, ColumnValueMappers.SHORT_COLUMN_VALUE_MAPPER);
+        mappers.register(Integer.class, ColumnValueMappers.INTEGER_COLUMN_VALUE_MAPPER);
+        mappers.register(Long.class, ColumnValueMappers.LONG_COLUMN_VALUE_MAPPER);
+        mappers.register(Double.class, ColumnValueMappers.DOUBLE_COLUMN_VALUE_MAPPER);
+        mappers.register(Float.class, ColumnValueMappers.FLOAT_COLUMN_VALUE_MAPPER);
+        mappers.register(String.class, ColumnValueMappers.STRING_COLUMN_VALUE_MAPPER);
+        mappers.register(Character.class, ColumnValueMappers.CHAR_COLUMN_VALUE_MAPPER);
+        mappers.register(BigDecimal.class, ColumnValueMappers.BIGDECIMAL_COLUMN_VALUE_MAPPER);
+        mappers.register(BigInteger.class, ColumnValueMappers.BIGINTEGER_COLUMN_VALUE_MAPPER);
+        mappers.register(Clob.class, ColumnValueMappers.CLOB_COLUMN_VALUE_MAPPER);
+        mappers.register(Blob.class, ColumnValueMappers.BLOB_COLUMN_VALUE_MAPPER);
+        mappers.register(Timestamp.class, ColumnValueMappers.TIMESTAMP_COLUMN_VALUE_MAPPER);
+        mappers.register(Time.class, ColumnValueMappers.TIME_COLUMN_VALUE_MAPPER);
+        mappers.register(Date.class, ColumnValueMappers.DATE_COLUMN_VALUE_MAPPER);
+        mappers.register(java.util.Date.class, ColumnValueMappers.DATE_UTIL_COLUMN_VALUE_MAPPER);
+        mappers.register(Object[].class, new ArrayRowMapper());
+        mappers.register(Map.class, new MapRowMapper());
     }
 
-    private final Connection connection;
-    private final Set<PreparedStatement> statements;
+    /**
+     * The max number of sqls with a cached result shape
+     */
+    private static final int MAX_RESULT_SHAPES = 256;
+    
+    /**
+     * The max number of upsert sqls cached by table and columns
+     */
+    private static final int MAX_UPSERT_SQLS = 64;
+
+    private final DataSource dataSource;
+    private Connection connection;
+    private final Set<StatementLease> leases;
+    private final ReferenceQueue<Query<?>> collectedQueries;
+    private final Map<List<Object>, PreparedStatement> idleStatements;
+    private final Map<List<Object>, ResultShape> resultShapes;
+    private final Map<List<Object>, String> upsertSqls;
+    private int statementCacheSize;
+    private final LeakDetector.Handle leak;
+    private SQLDialect dialect;
+    private long queryTimeoutNanos;
+    private Deadline deadline;
+    private QueryCache queryCache;
+    private QueryCoalescer queryCoalescer;
+    private QueryListener queryListener;
+    private Object database;
+    private final Map<Class<?>, EntityCache<?>> entityCaches = new HashMap<>();
+    
+    /**
+     * The tables written by the current transaction, invalidated at commit,
+     * with the written rows keys or null if they are unknown
+     */
+    private Map<String, List<Map<String, Object>>> writtenTables;
+    private boolean writtenUnknown;
 
     /**
      * Defines the default mapper that will always be used to a type
@@ -79,26 +132,26 @@ public class QueryCreator implements AutoCloseable {
      * e.g:
      * <br>
      * {@code QueryCreator.setDefaultTypeMapper(Json.class, null);}
-     * 
+     * <br>
+     * The mapper is used by the subtypes of the class too, unless they have
+     * their own mapper. It can be called while other threads create queries
      * 
      * @param clazz The class which will be associated to the mapper
      * @param mapper The mapper
      */
     public static void setDefaultTypeMapper(Class clazz, RowMapper mapper) {
-        if(mapper == null){
-            mappers.remove(clazz);
-            return;
-        }
-        mappers.put(clazz, mapper);
+        mappers.register(clazz, mapper);
     }
 
     /**
-     * Get the registered default mapper for a {@link java.lang.Class}
+     * Get the registered default mapper for a {@link java.lang.Class}. If the
+     * class has no mapper, the mapper of its nearest superclass or interface
+     * is returned
      * @param clazz A class
      * @return The default mapper for the class or null if not exists
      */
     public static RowMapper getDefaultMapper(Class clazz) {
-        return mappers.get(clazz);
+        return mappers.lookup(clazz);
     }
 
     /**
@@ -128,17 +181,59 @@ public class QueryCreator implements AutoCloseable {
     }
 
     public QueryCreator(DataSource dataSource) {
-        try{            
-           this.connection = dataSource.getConnection();
-        }catch (SQLException e){
-            throw new JdbcException(e);
+        this(dataSource, false);
+    }
+    
+    /**
+     * @param dataSource The datasource
+     * @param lazy If the connection is only obtained when it is needed
+     */
+    QueryCreator(DataSource dataSource, boolean lazy) {
+        this.dataSource = dataSource;
+        if(!lazy) {
+            connection();
         }
-        this.statements = new HashSet<>();
+        this.leases = new HashSet<>();
+        this.collectedQueries = new ReferenceQueue<>();
+        this.idleStatements = createIdleStatements();
+        this.resultShapes = createLru(MAX_RESULT_SHAPES);
+        this.upsertSqls = createLru(MAX_UPSERT_SQLS);
+        this.statementCacheSize = 32;
+        this.leak = LeakDetector.opened(LeakDetector.Resource.QUERY_CREATOR, this);
     }
     
     public QueryCreator(Connection connection) {
+        this.dataSource = null;
         this.connection = Objects.requireNonNull(connection, "Connection should not be null!");
-        this.statements = new HashSet<>();
+        this.leases = new HashSet<>();
+        this.collectedQueries = new ReferenceQueue<>();
+        this.idleStatements = createIdleStatements();
+        this.resultShapes = createLru(MAX_RESULT_SHAPES);
+        this.upsertSqls = createLru(MAX_UPSERT_SQLS);
+        this.statementCacheSize = 32;
+        this.leak = LeakDetector.opened(LeakDetector.Resource.QUERY_CREATOR, this);
+    }
+    
+    private Map<List<Object>, PreparedStatement> createIdleStatements() {
+        return new LinkedHashMap<List<Object>, PreparedStatement>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<List<Object>, PreparedStatement> eldest) {
+                if(size() > statementCacheSize) {
+                    JdbcUtils.close(eldest.getValue());
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+    
+    private static <V> Map<List<Object>, V> createLru(int maxSize) {
+        return new LinkedHashMap<List<Object>, V>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<List<Object>, V> eldest) {
+                return size() > maxSize;
+            }
+        };
     }
     
     /**
@@ -148,15 +243,24 @@ public class QueryCreator implements AutoCloseable {
      * @return A Query object
      */
     public <T> Query<T> create(String sql, RowMapper<T> rowMapper) {
-        try {
-            NamedParameterSQL namedParemetSQL = NamedParameterSQL.parse(sql);
-            PreparedStatement stam = getNativeStatement(namedParemetSQL.getParsedQuery());
-            statements.add(stam);
-
-            return new Query<T>(namedParemetSQL, stam, this, rowMapper);
-        } catch (SQLException e) {
-            throw new JdbcException(e);
-        }
+        return create(sql, rowMapper, false);
+    }
+    
+    /**
+     * Create a {@link Query} with the given sql and associated it with the {@link io.github.josevjunior.simplejdbc.RowMapper}.
+     * If returnGeneratedKeys is true, the keys generated by the statement execution
+     * will be available through {@link Query#getGeneratedKeys()}
+     * @param sql The database sql
+     * @param rowMapper The mapper
+     * @param returnGeneratedKeys If the statement must return the generated keys
+     * @return A Query object
+     */
+    public <T> Query<T> create(String sql, RowMapper<T> rowMapper, boolean returnGeneratedKeys) {
+        return create(NamedParameterSQL.parse(sql), rowMapper, returnGeneratedKeys);
+    }
+    
+    <T> Query<T> create(NamedParameterSQL sql, RowMapper<T> rowMapper, boolean returnGeneratedKeys) {
+        return new Query<T>(sql, this, rowMapper, returnGeneratedKeys);
     }
 
     /**
@@ -180,9 +284,21 @@ public class QueryCreator implements AutoCloseable {
     public Query<Object[]> create(String sql) {
         return create(sql, new ArrayRowMapper());
     }
+    
+    /**
+     * Create a {@link Query} with the given sql and the {@link io.github.josevjunior.simplejdbc.ArrayRowMapper}
+     * as row mapper. If returnGeneratedKeys is true, the keys generated by the 
+     * statement execution will be available through {@link Query#getGeneratedKeys()}
+     * @param sql The database sql
+     * @param returnGeneratedKeys If the statement must return the generated keys
+     * @return A Query object
+     */
+    public Query<Object[]> create(String sql, boolean returnGeneratedKeys) {
+        return create(sql, new ArrayRowMapper(), returnGeneratedKeys);
+    }
 
-    private <T> RowMapper<T> getRowMapperForClass(Class<T> clazz) {
-        RowMapper<T> mapper = (RowMapper<T>) mappers.get(clazz);
+    <T> RowMapper<T> getRowMapperForClass(Class<T> clazz) {
+        RowMapper<T> mapper = (RowMapper<T>) mappers.lookup(clazz);
         if (mapper == null) {
             mapper = defaultMapperInjector.inject(clazz);
         }
@@ -190,10 +306,117 @@ public class QueryCreator implements AutoCloseable {
         return mapper;
     }
 
-    private PreparedStatement getNativeStatement(String sql) throws SQLException {
-        return this.connection.prepareStatement(sql);
+    private PreparedStatement getNativeStatement(String sql, boolean returnGeneratedKeys) throws SQLException {
+        if(returnGeneratedKeys) {
+            return connection().prepareStatement(sql, Statement.RETURN_GENERATED_KEYS);
+        }
+        return connection().prepareStatement(sql);
+    }
+    
+    /**
+     * Lease a statement to the query. A idle statement of the same sql is
+     * reused if there is one
+     */
+    StatementLease lease(Query<?> query, String sql, boolean returnGeneratedKeys) throws SQLException {
+        closeCollected();
+        
+        List<Object> key = Arrays.asList(sql, returnGeneratedKeys);
+        PreparedStatement stam = idleStatements.remove(key);
+        if(stam == null) {
+            stam = getNativeStatement(sql, returnGeneratedKeys);
+        }
+        
+        StatementLease lease = new StatementLease(query, collectedQueries, key, stam);
+        leases.add(lease);
+        return lease;
+    }
+    
+    /**
+     * Get the shape of the result of a leased statement. It is read from the
+     * result set metadata only at the first execution of the sql
+     */
+    ResultShape getResultShape(StatementLease lease, ResultSet rs) throws SQLException {
+        ResultShape shape = resultShapes.get(lease.key);
+        if(shape == null) {
+            shape = ResultShape.of(rs.getMetaData());
+            resultShapes.put(lease.key, shape);
+        }
+        return shape;
+    }
+    
+    /**
+     * Take back a leased statement. It is kept to be reused if there is no
+     * other idle statement of the same sql, otherwise it is closed
+     */
+    void release(StatementLease lease) {
+        lease.done();
+        if(!leases.remove(lease)) {
+            return;
+        }
+        
+        PreparedStatement stam = lease.statement;
+        try {
+            if(stam.isClosed()) {
+                return;
+            }
+            
+            if(statementCacheSize > 0 && !idleStatements.containsKey(lease.key)) {
+                stam.clearParameters();
+                idleStatements.put(lease.key, stam);
+                return;
+            }
+        }catch (SQLException ignored) {
+        }
+        
+        JdbcUtils.close(stam);
+    }
+    
+    /**
+     * Close the statements of the queries which were garbage collected without
+     * giving them back
+     */
+    private void closeCollected() {
+        StatementLease lease;
+        while((lease = (StatementLease) collectedQueries.poll()) != null) {
+            if(leases.remove(lease)) {
+                JdbcUtils.close(lease.statement);
+            }
+        }
+    }
+    
+    /**
+     * Define how many idle statements are kept to be reused. Default 32. Zero
+     * closes the statements as soon as they are given back
+     * @param statementCacheSize The max idle statements
+     */
+    public void setStatementCacheSize(int statementCacheSize) {
+        this.statementCacheSize = statementCacheSize;
+        while(idleStatements.size() > statementCacheSize) {
+            Iterator<PreparedStatement> it = idleStatements.values().iterator();
+            JdbcUtils.close(it.next());
+            it.remove();
+        }
+    }
+    
+    /**
+     * Get the number of statements open by this QueryCreator, the leased ones
+     * and the idle ones
+     * @return The open statements count
+     */
+    public int getOpenStatementCount() {
+        closeCollected();
+        return leases.size() + idleStatements.size();
     }
 
+    /**
+     * Inits a group of queries executed in one round-trip when the driver
+     * supports multiple result sets
+     * @return A {@link MultiQuery}
+     */
+    public MultiQuery multiQuery() {
+        return new MultiQuery(this);
+    }
+    
     /**
      * Inits a update statement builder
      * @param table The table which will be updated
@@ -212,15 +435,294 @@ public class QueryCreator implements AutoCloseable {
         return new InsertBuilder(this, table);
     }
     
+    /**
+     * Inits a delete statement builder
+     * @param table The table which the rows will be deleted from
+     * @return A {@link DeleteBuilder}
+     */
+    public DeleteBuilder delete(String table) {
+        return new DeleteBuilder(this, table);
+    }
+    
+    /**
+     * Inits a upsert statement builder. The sql is created by the {@link #getDialect()}
+     * @param table The table which will be inserted to or updated
+     * @return A {@link UpsertBuilder}
+     */
+    public UpsertBuilder upsert(String table) {
+        return new UpsertBuilder(this, table);
+    }
+    
+    /**
+     * Inits a loader that inserts the records of a delimited file
+     * @param table The table which will be inserted to
+     * @return A {@link CsvBulkLoader}
+     */
+    public CsvBulkLoader csvLoader(String table) {
+        return new CsvBulkLoader(this, table);
+    }
+    
+    /**
+     * Get the upsert sql of the table and columns created by the dialect. The
+     * last used sqls are cached
+     */
+    String getUpsertSql(String table, List<String> keyColumns, List<String> valueColumns) {
+        SQLDialect currentDialect = getDialect();
+        List<Object> shape = Arrays.asList(currentDialect, table, keyColumns, valueColumns);
+        String sql = upsertSqls.get(shape);
+        if(sql == null) {
+            sql = currentDialect.createUpsert(table, keyColumns, valueColumns).toString();
+            upsertSqls.put(shape, sql);
+        }
+        return sql;
+    }
+    
+    /**
+     * Get the dialect used by the statement builders. If no dialect was set,
+     * the built-in dialect of the connection database is used
+     * @return The dialect
+     */
+    public SQLDialect getDialect() {
+        if(dialect == null) {
+            dialect = SQLDialects.fromConnection(connection());
+            if(dialect == null) {
+                throw new JdbcException("There is no built-in dialect for the database. Use QueryCreator.setDialect to define one");
+            }
+        }
+        
+        return dialect;
+    }
+    
+    /**
+     * Define the dialect used by the statement builders
+     * @param dialect A dialect or null to use the built-in dialect of the connection database
+     */
+    public void setDialect(SQLDialect dialect) {
+        this.dialect = dialect;
+    }
+    
+    /**
+     * Define the default timeout of the queries created after this call, see
+     * {@link Query#timeout(long, java.util.concurrent.TimeUnit)}
+     * @param timeout The timeout or zero for no timeout
+     * @param unit The time unit
+     */
+    public void setQueryTimeout(long timeout, TimeUnit unit) {
+        this.queryTimeoutNanos = unit.toNanos(timeout);
+    }
+    
+    /**
+     * @param unit The time unit
+     * @return The default timeout of the created queries, zero if there is none
+     */
+    public long getQueryTimeout(TimeUnit unit) {
+        return unit.convert(queryTimeoutNanos, TimeUnit.NANOSECONDS);
+    }
+    
+    /**
+     * Define a deadline for all the executions of the queries created by this
+     * QueryCreator, e.g. the deadline of a request
+     * @param deadline The deadline or null for no deadline
+     */
+    public void setDeadline(Deadline deadline) {
+        this.deadline = deadline;
+    }
+    
+    public Deadline getDeadline() {
+        return deadline;
+    }
+    
+    /**
+     * Define the cache used by the queries marked with {@link Query#cached(boolean)}.
+     * The same cache can be shared by many QueryCreators, even of different
+     * databases, see {@link #getDatabase()}
+     * @param queryCache The cache or null to not cache
+     */
+    public void setQueryCache(QueryCache queryCache) {
+        this.queryCache = queryCache;
+    }
+    
+    public QueryCache getQueryCache() {
+        return queryCache;
+    }
+    
+    /**
+     * Identifies the database in the keys of the {@link QueryCache} and of
+     * the {@link QueryCoalescer}, so the results of a database are not given
+     * to the queries of other. It is the url and the user of the connection,
+     * or the datasource or connection itself if the driver has no url
+     */
+    Object getDatabase() {
+        if(database == null) {
+            try {
+                DatabaseMetaData metaData = connection().getMetaData();
+                String url = metaData.getURL();
+                if(url != null) {
+                    database = Arrays.asList(url, metaData.getUserName());
+                } else {
+                    database = dataSource != null ? dataSource : connection;
+                }
+            }catch (SQLException e) {
+                throw new JdbcException(e);
+            }
+        }
+        return database;
+    }
+    
+    /**
+     * Define the coalescer which shares the executions of the same select
+     * between concurrent calls. It is shared by the QueryCreators of many threads
+     * @param queryCoalescer The coalescer or null to not coalesce
+     */
+    public void setQueryCoalescer(QueryCoalescer queryCoalescer) {
+        this.queryCoalescer = queryCoalescer;
+    }
+    
+    public QueryCoalescer getQueryCoalescer() {
+        return queryCoalescer;
+    }
+    
+    /**
+     * Define the listener of the execution timings of the queries, e.g. a
+     * {@link QueryMetrics}. It is shared by the QueryCreators of many threads
+     * @param queryListener The listener or null to not listen
+     */
+    public void setQueryListener(QueryListener queryListener) {
+        this.queryListener = queryListener;
+    }
+    
+    public QueryListener getQueryListener() {
+        return queryListener;
+    }
+    
+    /**
+     * Define the cache of the beans of a class, used by the queries that select
+     * a bean by its key. The same cache can be shared by many QueryCreators,
+     * even of different databases, see {@link #getDatabase()}
+     * @param entityCache The cache
+     */
+    public void setEntityCache(EntityCache<?> entityCache) {
+        entityCaches.put(entityCache.getBeanClass(), entityCache);
+    }
+    
+    /**
+     * @param beanClass The bean class
+     * @return The bean cache or null if there is none
+     */
+    @SuppressWarnings("unchecked")
+    public <T> EntityCache<T> getEntityCache(Class<T> beanClass) {
+        return entityCaches.isEmpty() ? null : (EntityCache<T>) entityCaches.get(beanClass);
+    }
+    
+    /**
+     * Remove the cache of the beans of a class
+     * @param beanClass The bean class
+     */
+    public void removeEntityCache(Class<?> beanClass) {
+        entityCaches.remove(beanClass);
+    }
+    
+    Map<Class<?>, EntityCache<?>> getEntityCaches() {
+        return entityCaches;
+    }
+    
+    /**
+     * Called after a query changed the database. The cached results and beans
+     * of the written tables are invalidated now or, inside a transaction, at
+     * the commit
+     * @param sql The executed sql
+     * @param rows The key columns of the written rows or null if they are unknown
+     */
+    void written(NamedParameterSQL sql, List<Map<String, Object>> rows) {
+        if(!isTrackingWrites()) {
+            return;
+        }
+        
+        Set<String> tables = sql.getWrittenTables();
+        if(tables == null) {
+            writtenUnknown = true;
+        } else {
+            if(writtenTables == null) {
+                writtenTables = new HashMap<>();
+            }
+            
+            // A insert does not change the beans already cached
+            if(rows == null && SQLTables.isInsert(sql.getParsedQuery())) {
+                rows = new ArrayList<>();
+            }
+            for (String table : tables) {
+                if(!writtenTables.containsKey(table)) {
+                    writtenTables.put(table, rows == null ? null : new ArrayList<>(rows));
+                } else if(rows == null) {
+                    writtenTables.put(table, null);
+                } else if(writtenTables.get(table) != null) {
+                    writtenTables.get(table).addAll(rows);
+                }
+            }
+        }
+        
+        if(!isInTransaction()) {
+            invalidateWritten();
+        }
+    }
+    
+    /**
+     * @return true if there is a cache which needs the written tables and rows,
+     * so the statement builders only collect the rows in that case
+     */
+    boolean isTrackingWrites() {
+        return QueryCache.isActive() || EntityCache.isActive();
+    }
+    
+    /**
+     * @return The rows written to the table by the current transaction, or null
+     * if they are unknown or the table was not written
+     */
+    List<Map<String, Object>> getWrittenRows(String table) {
+        return writtenTables != null ? writtenTables.get(table) : null;
+    }
+    
+    private void invalidateWritten() {
+        if(writtenUnknown) {
+            QueryCache.written(null);
+            EntityCache.written(null, null);
+        } else if(writtenTables != null) {
+            QueryCache.written(writtenTables.keySet());
+            writtenTables.forEach(EntityCache::written);
+        }
+        writtenUnknown = false;
+        writtenTables = null;
+    }
+    
+    /**
+     * @return true if the connection was obtained and it is not in auto commit mode
+     */
+    boolean isInTransaction() {
+        if(!isConnected()) {
+            return false;
+        }
+        
+        try {
+            return !connection.getAutoCommit();
+        }catch (SQLException e) {
+            throw new JdbcException(e);
+        }
+    }
+    
     /**
      * Close all resources obtained by this QueryCreator, and the connection
      */
     public void closeAll(){
         
+        // The connection may commit when closed
+        invalidateWritten();
         disposeResources();
+        LeakDetector.closed(leak);
         
         try{
-            connection.close();
+            if(connection != null) {
+                connection.close();
+            }
         }catch(Exception e){}
     }
     
@@ -228,10 +730,20 @@ public class QueryCreator implements AutoCloseable {
      * Close all resources obtained by this QueryCreator, except the connection
      */
     public void disposeResources(){
-        for (PreparedStatement statement : statements) {
-            try{
-                statement.close();
-            }catch(Exception ignored){}
+        List<StatementLease> leased = new ArrayList<>(leases);
+        leases.clear();
+        for (StatementLease lease : leased) {
+            lease.done();
+            JdbcUtils.close(lease.statement);
+        }
+        
+        for (PreparedStatement statement : idleStatements.values()) {
+            JdbcUtils.close(statement);
+        }
+        idleStatements.clear();
+        resultShapes.clear();
+        
+        while(collectedQueries.poll() != null) {
         }
     }
 
@@ -243,24 +755,85 @@ public class QueryCreator implements AutoCloseable {
      * Get the native {@link java.sql.Connection}
      */
     public Connection getNativeConnection() {
+        return connection();
+    }
+    
+    /**
+     * @return true if the connection was already obtained
+     */
+    boolean isConnected() {
+        return connection != null;
+    }
+    
+    private Connection connection() {
+        if(connection == null) {
+            try {
+                Object event = FlightRecorderEvents.beginConnectionAcquire();
+                connection = dataSource.getConnection();
+                FlightRecorderEvents.commitConnectionAcquire(event, dataSource.getClass().getName());
+            }catch (SQLException e) {
+                throw new JdbcException(e);
+            }
+        }
         return connection;
     }
     
+    /**
+     * Commit the connection and invalidate the cached results of the tables
+     * written by the transaction, see {@link QueryCache}
+     */
     public void commit() {
+        if(connection == null) {
+            return;
+        }
         try{
             connection.commit();
         }catch(SQLException e) {
             throw new JdbcException(e);
+        } finally {
+            invalidateWritten();
         }
         
     }
     
     public void rollback() {
+        if(connection == null) {
+            return;
+        }
         try{
             connection.rollback();
+            writtenUnknown = false;
+            writtenTables = null;
         }catch(SQLException e) {
             throw new JdbcException(e);
         }    
     }
+    
+    /**
+     * A statement leased by a query. The query is weakly referenced, so the
+     * lease is enqueued when the query is garbage collected
+     */
+    static final class StatementLease extends WeakReference<Query<?>> {
+        
+        final List<Object> key;
+        final PreparedStatement statement;
+        final LeakDetector.Handle leak;
+
+        StatementLease(Query<?> query, ReferenceQueue<Query<?>> queue, List<Object> key, PreparedStatement statement) {
+            super(query, queue);
+            this.key = key;
+            this.statement = statement;
+            this.leak = query.leaseOpened();
+        }
+        
+        /**
+         * The statement was given back or closed by the creator
+         */
+        void done() {
+            clear();
+            LeakDetector.closed(leak);
+        }
+        
+    }
 
 }
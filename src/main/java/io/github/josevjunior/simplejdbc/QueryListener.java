@@ -0,0 +1,143 @@
+package io.github.josevjunior.simplejdbc;
+
+/**
+ * Receives the timings of the query executions of a {@link QueryCreator}, see
+ * {@link QueryCreator#setQueryListener(io.github.josevjunior.simplejdbc.QueryListener)}.
+ * The sql is the parsed sql of the query, with the named parameters replaced by
+ * '?', so all the executions of a statement share the same key. See {@link QueryMetrics}
+ * for the built-in listener
+ * <br>
+ * The methods are called by the thread which runs the query, so they should
+ * be fast and must not throw
+ */
+public interface QueryListener {
+
+    /**
+     * Called when a statement is leased to a query, including the binding of
+     * the parameters already set
+     * @param sql The parsed sql
+     * @param nanos The time to lease the statement
+     */
+    default void prepared(String sql, long nanos) {
+    }
+
+    /**
+     * Called before a execution with the time spent binding its parameters
+     * @param sql The parsed sql
+     * @param nanos The time to bind the parameters
+     */
+    default void bound(String sql, long nanos) {
+    }
+
+    /**
+     * Called after the statement execution, before the rows are read
+     * @param sql The parsed sql
+     * @param nanos The time to execute the statement
+     */
+    default void executed(String sql, long nanos) {
+    }
+
+    /**
+     * Called after the rows of a select are read and mapped
+     * @param sql The parsed sql
+     * @param nanos The time to fetch and map the rows
+     * @param rows The number of rows
+     */
+    default void fetched(String sql, long nanos, int rows) {
+    }
+
+    /**
+     * Called after a update or a batch
+     * @param sql The parsed sql
+     * @param count The updated rows count, the sum of the counts for a batch
+     */
+    default void updated(String sql, long count) {
+    }
+
+    /**
+     * Called at the end of each execution with its parameters and timings. For
+     * a batch, the parameters are the ones of the last batch entry
+     * @param sql The parsed sql
+     * @param parameters The parameter values, the first parameter at the position 0.
+     * The array is reused by the query, so it must be copied to be kept
+     * @param executeNanos The time to execute the statement
+     * @param fetchNanos The time to fetch and map the rows, zero for a update
+     * @param rows The rows read, the updated rows count, or -1 if the rows are
+     * read later, e.g. by a {@link ScrollableResult}
+     */
+    default void completed(String sql, Object[] parameters, long executeNanos, long fetchNanos, long rows) {
+    }
+
+    /**
+     * Called when a execution fails, instead of {@link #completed(java.lang.String, java.lang.Object[], long, long, long)},
+     * e.g. a sql error, a timeout or a mapper error. When the rows of a
+     * {@link ScrollableResult} fail, it is called after completed
+     * @param sql The parsed sql
+     * @param parameters The parameter values, the first parameter at the position 0.
+     * The array is reused by the query, so it must be copied to be kept
+     * @param nanos The time from the start of the execution until the failure
+     * @param error The error thrown to the caller
+     */
+    default void failed(String sql, Object[] parameters, long nanos, RuntimeException error) {
+    }
+
+    /**
+     * Combine listeners, which are called in the given order
+     * @param listeners The listeners
+     * @return A listener which calls all the others
+     */
+    static QueryListener of(QueryListener... listeners) {
+        QueryListener[] all = listeners.clone();
+        return new QueryListener() {
+            @Override
+            public void prepared(String sql, long nanos) {
+                for (QueryListener listener : all) {
+                    listener.prepared(sql, nanos);
+                }
+            }
+
+            @Override
+            public void bound(String sql, long nanos) {
+                for (QueryListener listener : all) {
+                    listener.bound(sql, nanos);
+                }
+            }
+
+            @Override
+            public void executed(String sql, long nanos) {
+                for (QueryListener listener : all) {
+                    listener.executed(sql, nanos);
+                }
+            }
+
+            @Override
+            public void fetched(String sql, long nanos, int rows) {
+                for (QueryListener listener : all) {
+                    listener.fetched(sql, nanos, rows);
+                }
+            }
+
+            @Override
+            public void updated(String sql, long count) {
+                for (QueryListener listener : all) {
+                    listener.updated(sql, count);
+                }
+            }
+
+            @Override
+            public void completed(String sql, Object[] parameters, long executeNanos, long fetchNanos, long rows) {
+                for (QueryListener listener : all) {
+                    listener.completed(sql, parameters, executeNanos, fetchNanos, rows);
+                }
+            }
+
+            @Override
+            public void failed(String sql, Object[] parameters, long nanos, RuntimeException error) {
+                for (QueryListener listener : all) {
+                    listener.failed(sql, parameters, nanos, error);
+                }
+            }
+        };
+    }
+
+}
@@ -0,0 +1,208 @@
+package io.github.josevjunior.simplejdbc;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A {@link QueryListener} which keeps a {@link LatencyHistogram} of each phase
+ * of the executions of each sql, and the counts of rows read and updated. The
+ * same instance should be shared by the QueryCreators of all threads
+ * <br>
+ * e.g:
+ * <pre>{@code
+    QueryMetrics metrics = new QueryMetrics();
+
+    QueryCreator queryCreator = new QueryCreator(dataSource);
+    queryCreator.setQueryListener(metrics);
+    ...
+    System.out.println(metrics.dump()); // p50, p99 and p999 of each sql
+   }</pre>
+ */
+public class QueryMetrics implements QueryListener {
+
+    /**
+     * The max number of sqls with their own statistics
+     */
+    private static final int MAX_TRACKED_SQLS = 1024;
+
+    private final Map<String, Statement> statements = new ConcurrentHashMap<>();
+
+    @Override
+    public void prepared(String sql, long nanos) {
+        Statement statement = statement(sql);
+        if(statement != null) {
+            statement.prepare.record(nanos);
+        }
+    }
+
+    @Override
+    public void bound(String sql, long nanos) {
+        Statement statement = statement(sql);
+        if(statement != null) {
+            statement.bind.record(nanos);
+        }
+    }
+
+    @Override
+    public void executed(String sql, long nanos) {
+        Statement statement = statement(sql);
+        if(statement != null) {
+            statement.execute.record(nanos);
+        }
+    }
+
+    @Override
+    public void fetched(String sql, long nanos, int rows) {
+        Statement statement = statement(sql);
+        if(statement != null) {
+            statement.fetch.record(nanos);
+            statement.rows.add(rows);
+        }
+    }
+
+    @Override
+    public void updated(String sql, long count) {
+        Statement statement = statement(sql);
+        if(statement != null) {
+            statement.updates.add(count);
+        }
+    }
+
+    private Statement statement(String sql) {
+        Statement statement = statements.get(sql);
+        if(statement == null && statements.size() < MAX_TRACKED_SQLS) {
+            statement = statements.computeIfAbsent(sql, s -> new Statement());
+        }
+        return statement;
+    }
+
+    /**
+     * Get the statistics of each sql. Only the first {@value #MAX_TRACKED_SQLS}
+     * sqls are tracked
+     * @return The statistics by the parsed sql
+     */
+    public Map<String, Statement> getStatements() {
+        return Collections.unmodifiableMap(new HashMap<>(statements));
+    }
+
+    /**
+     * Get the statistics of a sql
+     * @param sql The parsed sql, with '?' in place of the named parameters
+     * @return The statistics or null if the sql was not executed
+     */
+    public Statement getStatement(String sql) {
+        return statements.get(sql);
+    }
+
+    /**
+     * Clear all the statistics
+     */
+    public void reset() {
+        statements.clear();
+    }
+
+    /**
+     * Describe the executions, the rows and the p50, p99 and p999 of the execute
+     * and fetch times of each sql, in microseconds. The sqls with the greatest
+     * total execute time come first
+     * @return One line for each sql
+     */
+    public String dump() {
+        List<Map.Entry<String, Statement>> entries = new ArrayList<>(statements.entrySet());
+        entries.sort((a, b) -> Double.compare(b.getValue().totalNanos(), a.getValue().totalNanos()));
+
+        StringBuilder sb = new StringBuilder();
+        for (Map.Entry<String, Statement> entry : entries) {
+            Statement statement = entry.getValue();
+            sb.append(entry.getKey()).append(" | executions=").append(statement.getExecutionCount())
+                    .append(" rows=").append(statement.getRowCount())
+                    .append(" updates=").append(statement.getUpdateCount())
+                    .append(" | execute ").append(percentiles(statement.execute))
+                    .append(" | fetch ").append(percentiles(statement.fetch))
+                    .append(System.lineSeparator());
+        }
+        return sb.toString();
+    }
+
+    private static String percentiles(LatencyHistogram histogram) {
+        return "p50=" + histogram.getValueAtPercentile(50, TimeUnit.MICROSECONDS)
+                + "us p99=" + histogram.getValueAtPercentile(99, TimeUnit.MICROSECONDS)
+                + "us p999=" + histogram.getValueAtPercentile(99.9, TimeUnit.MICROSECONDS) + "us";
+    }
+
+    @Override
+    public String toString() {
+        return dump();
+    }
+
+    /**
+     * The statistics of a sql
+     */
+    public static final class Statement {
+
+        private final LatencyHistogram prepare = new LatencyHistogram();
+        private final LatencyHistogram bind = new LatencyHistogram();
+        private final LatencyHistogram execute = new LatencyHistogram();
+        private final LatencyHistogram fetch = new LatencyHistogram();
+        private final LongAdder rows = new LongAdder();
+        private final LongAdder updates = new LongAdder();
+
+        private double totalNanos() {
+            return execute.getMean() * execute.getCount() + fetch.getMean() * fetch.getCount();
+        }
+
+        /**
+         * @return The times to lease the statement
+         */
+        public LatencyHistogram getPrepareTimes() {
+            return prepare;
+        }
+
+        /**
+         * @return The times to bind the parameters of each execution
+         */
+        public LatencyHistogram getBindTimes() {
+            return bind;
+        }
+
+        /**
+         * @return The times of the statement executions
+         */
+        public LatencyHistogram getExecuteTimes() {
+            return execute;
+        }
+
+        /**
+         * @return The times to fetch and map the rows of the selects
+         */
+        public LatencyHistogram getFetchTimes() {
+            return fetch;
+        }
+
+        public long getExecutionCount() {
+            return execute.getCount();
+        }
+
+        public long getRowCount() {
+            return rows.sum();
+        }
+
+        public long getUpdateCount() {
+            return updates.sum();
+        }
+
+        @Override
+        public String toString() {
+            return "Statement{" + "executions=" + getExecutionCount() + ", rows=" + rows + ", updates=" + updates
+                    + ", execute=" + execute + ", fetch=" + fetch + '}';
+        }
+
+    }
+
+}
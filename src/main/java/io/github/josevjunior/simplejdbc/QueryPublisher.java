@@ -0,0 +1,178 @@
+package io.github.josevjunior.simplejdbc;
+
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+/**
+ * A Reactive Streams {@link org.reactivestreams.Publisher} of the query rows.
+ * The query is executed at the first {@code request(n)} and the rows are read
+ * from the {@link java.sql.ResultSet} and mapped only while there is demand,
+ * so a slow subscriber never makes rows pile up in memory
+ * <br>
+ * The rows are emitted at the thread which called {@code request(n)}. The
+ * query runs as its other terminal calls, with its deadline, cancellation and
+ * listener. The result set is closed and the statement is given back to the
+ * {@link QueryCreator} when the rows are over, when the execution fails or when
+ * the subscription is cancelled
+ * <br>
+ * Only one subscription can be active at a time because the rows come from the
+ * single statement of the {@link Query}. The publisher is created by
+ * {@link Query#publisher()}. On JDK 9+ the publisher can be
+ * converted to a {@code java.util.concurrent.Flow.Publisher} through
+ * {@code org.reactivestreams.FlowAdapters.toFlowPublisher}
+ * <br>
+ * <b>Note: </b> The reactive-streams dependency is optional, so it must be
+ * declared by the application that uses this class
+ *
+ * @param <T> The type of the query result
+ */
+public class QueryPublisher<T> implements Publisher<T> {
+
+    private final Query<T> query;
+    private final AtomicBoolean subscribed;
+
+    QueryPublisher(Query<T> query) {
+        this.query = query;
+        this.subscribed = new AtomicBoolean();
+    }
+
+    @Override
+    public void subscribe(Subscriber<? super T> subscriber) {
+        Objects.requireNonNull(subscriber, "Subscriber should not be null!");
+
+        if(!subscribed.compareAndSet(false, true)) {
+            subscriber.onSubscribe(new Subscription() {
+                @Override
+                public void request(long n) {
+                }
+
+                @Override
+                public void cancel() {
+                }
+            });
+            subscriber.onError(new IllegalStateException("The query publisher allows only one subscription"));
+            return;
+        }
+
+        RowSubscription subscription = new RowSubscription(subscriber);
+        subscriber.onSubscribe(subscription);
+    }
+
+    private final class RowSubscription implements Subscription {
+
+        private final Subscriber<? super T> subscriber;
+        private final AtomicLong demand;
+        private final AtomicInteger wip;
+        private volatile boolean cancelled;
+        private volatile Throwable invalidRequest;
+        private boolean done;
+        private Query<T>.Rows rows;
+
+        private RowSubscription(Subscriber<? super T> subscriber) {
+            this.subscriber = subscriber;
+            this.demand = new AtomicLong();
+            this.wip = new AtomicInteger();
+        }
+
+        @Override
+        public void request(long n) {
+            if(n <= 0) {
+                invalidRequest = new IllegalArgumentException("The request must be positive (rule 3.9) but was " + n);
+            } else {
+                demand.accumulateAndGet(n, (current, added) -> {
+                    long sum = current + added;
+                    return sum < 0 ? Long.MAX_VALUE : sum;
+                });
+            }
+            drain();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            drain();
+        }
+
+        /**
+         * Only the thread that increments the wip from zero emits. The others
+         * just register their work, so the signals are serial and a request
+         * made inside onNext does not recurse
+         */
+        private void drain() {
+            if(wip.getAndIncrement() != 0) {
+                return;
+            }
+
+            int missed = 1;
+            do {
+                emit();
+                missed = wip.addAndGet(-missed);
+            } while(missed != 0);
+        }
+
+        private void emit() {
+            if(done) {
+                return;
+            }
+
+            if(cancelled) {
+                release();
+                return;
+            }
+
+            if(invalidRequest != null) {
+                release();
+                subscriber.onError(invalidRequest);
+                return;
+            }
+
+            try {
+                long requested = demand.get();
+                long emitted = 0;
+
+                while(emitted != requested) {
+                    if(cancelled) {
+                        release();
+                        return;
+                    }
+
+                    if(rows == null) {
+                        rows = query.rows();
+                        rows.open();
+                    }
+
+                    if(!rows.next()) {
+                        release();
+                        subscriber.onComplete();
+                        return;
+                    }
+
+                    subscriber.onNext(rows.get());
+                    emitted++;
+
+                    if(emitted == requested) {
+                        requested = demand.addAndGet(-emitted);
+                        emitted = 0;
+                    }
+                }
+            }catch (RuntimeException e) {
+                release();
+                subscriber.onError(e);
+            }
+        }
+
+        private void release() {
+            done = true;
+            if(rows != null) {
+                rows.close();
+            }
+        }
+
+    }
+
+}
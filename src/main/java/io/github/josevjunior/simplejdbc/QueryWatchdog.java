@@ -0,0 +1,89 @@
+package io.github.josevjunior.simplejdbc;
+
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cancels the statements which are still running when their deadline expires.
+ * A single daemon thread watches all the queries. The driver query timeout is
+ * also set, but it has only seconds precision and some drivers ignore it
+ */
+final class QueryWatchdog {
+
+    private static final ScheduledThreadPoolExecutor EXECUTOR;
+
+    static {
+        EXECUTOR = new ScheduledThreadPoolExecutor(1, r -> {
+            Thread thread = new Thread(r, "simplejdbc-query-watchdog");
+            thread.setDaemon(true);
+            return thread;
+        });
+        EXECUTOR.setRemoveOnCancelPolicy(true);
+    }
+
+    private QueryWatchdog() {
+    }
+
+    /**
+     * Cancel the statement after the delay, unless the watch is stopped before
+     * that
+     * @param statement The running statement
+     * @param delayNanos The time left until the deadline
+     * @return The watch
+     */
+    static Watch watch(Statement statement, long delayNanos) {
+        Watch watch = new Watch(statement);
+        watch.future = EXECUTOR.schedule(watch, delayNanos, TimeUnit.NANOSECONDS);
+        return watch;
+    }
+
+    /**
+     * The watch of one execution. The statement is only cancelled while the
+     * watch holds it, so a late run can't cancel the next execution of a
+     * statement given back to the creator
+     */
+    static final class Watch implements Runnable {
+
+        private Statement statement;
+        private ScheduledFuture<?> future;
+
+        private Watch(Statement statement) {
+            this.statement = statement;
+        }
+
+        @Override
+        public synchronized void run() {
+            if(statement == null) {
+                return;
+            }
+            try {
+                statement.cancel();
+            }catch (SQLException ignored) {
+                // The statement may have finished or been closed meanwhile
+            }
+        }
+
+        /**
+         * Stop the watch. If the statement is being cancelled, waits until the
+         * cancel returns
+         */
+        void stop() {
+            future.cancel(false);
+            synchronized(this) {
+                statement = null;
+            }
+        }
+
+    }
+
+    /**
+     * @return The number of queries being watched
+     */
+    static int getWatchedCount() {
+        return EXECUTOR.getQueue().size();
+    }
+
+}
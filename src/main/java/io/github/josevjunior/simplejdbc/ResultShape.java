@@ -0,0 +1,268 @@
+package io.github.josevjunior.simplejdbc;
+
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A immutable copy of the {@link java.sql.ResultSetMetaData} of a query result:
+ * the column count, labels, names and jdbc types, plus a index of the columns by
+ * label. It is read once for each sql of a {@link QueryCreator} and given to the
+ * {@link RowMapper#map(java.sql.ResultSet, io.github.josevjunior.simplejdbc.ResultShape)}
+ * of every row, so the mappers do not call the driver metadata
+ * <br>
+ * As it implements {@link java.sql.ResultSetMetaData}, the mappers which only
+ * implement {@link RowMapper#map(java.sql.ResultSet, java.sql.ResultSetMetaData)}
+ * get the copy too
+ */
+public final class ResultShape implements ResultSetMetaData {
+
+    private final int columnCount;
+    private final String[] labels;
+    private final String[] names;
+    private final int[] types;
+    private final String[] typeNames;
+    private final String[] classNames;
+    private final String[] tableNames;
+    private final String[] schemaNames;
+    private final String[] catalogNames;
+    private final int[] precisions;
+    private final int[] scales;
+    private final int[] displaySizes;
+    private final int[] nullables;
+    private final boolean[][] flags;
+    private final Map<String, Integer> indexByLabel;
+
+    private static final int AUTO_INCREMENT = 0;
+    private static final int CASE_SENSITIVE = 1;
+    private static final int SEARCHABLE = 2;
+    private static final int CURRENCY = 3;
+    private static final int SIGNED = 4;
+    private static final int READ_ONLY = 5;
+    private static final int WRITABLE = 6;
+    private static final int DEFINITELY_WRITABLE = 7;
+
+    private ResultShape(ResultSetMetaData metaData) throws SQLException {
+        this.columnCount = metaData.getColumnCount();
+        this.labels = new String[columnCount];
+        this.names = new String[columnCount];
+        this.types = new int[columnCount];
+        this.typeNames = new String[columnCount];
+        this.classNames = new String[columnCount];
+        this.tableNames = new String[columnCount];
+        this.schemaNames = new String[columnCount];
+        this.catalogNames = new String[columnCount];
+        this.precisions = new int[columnCount];
+        this.scales = new int[columnCount];
+        this.displaySizes = new int[columnCount];
+        this.nullables = new int[columnCount];
+        this.flags = new boolean[columnCount][8];
+        this.indexByLabel = new HashMap<>();
+
+        for (int i = 0; i < columnCount; i++) {
+            int column = i + 1;
+            labels[i] = metaData.getColumnLabel(column);
+            names[i] = metaData.getColumnName(column);
+            types[i] = metaData.getColumnType(column);
+
+            // The other properties are not supported by every driver
+            typeNames[i] = read(metaData::getColumnTypeName, column, null);
+            classNames[i] = read(metaData::getColumnClassName, column, null);
+            tableNames[i] = read(metaData::getTableName, column, "");
+            schemaNames[i] = read(metaData::getSchemaName, column, "");
+            catalogNames[i] = read(metaData::getCatalogName, column, "");
+            precisions[i] = read(metaData::getPrecision, column, 0);
+            scales[i] = read(metaData::getScale, column, 0);
+            displaySizes[i] = read(metaData::getColumnDisplaySize, column, 0);
+            nullables[i] = read(metaData::isNullable, column, columnNullableUnknown);
+            flags[i][AUTO_INCREMENT] = read(metaData::isAutoIncrement, column, false);
+            flags[i][CASE_SENSITIVE] = read(metaData::isCaseSensitive, column, false);
+            flags[i][SEARCHABLE] = read(metaData::isSearchable, column, false);
+            flags[i][CURRENCY] = read(metaData::isCurrency, column, false);
+            flags[i][SIGNED] = read(metaData::isSigned, column, false);
+            flags[i][READ_ONLY] = read(metaData::isReadOnly, column, false);
+            flags[i][WRITABLE] = read(metaData::isWritable, column, false);
+            flags[i][DEFINITELY_WRITABLE] = read(metaData::isDefinitelyWritable, column, false);
+
+            indexByLabel.putIfAbsent(labels[i], column);
+        }
+
+        for (int i = 0; i < columnCount; i++) {
+            indexByLabel.putIfAbsent(labels[i].toUpperCase(), i + 1);
+        }
+    }
+
+    /**
+     * Copy the metadata of a result
+     * @param metaData The result metadata
+     * @return The result shape
+     * @throws SQLException if the columns can't be read
+     */
+    public static ResultShape of(ResultSetMetaData metaData) throws SQLException {
+        if(metaData instanceof ResultShape) {
+            return (ResultShape) metaData;
+        }
+        return new ResultShape(metaData);
+    }
+
+    private interface Property<V> {
+        V get(int column) throws SQLException;
+    }
+
+    private static <V> V read(Property<V> property, int column, V fallback) {
+        try {
+            return property.get(column);
+        }catch (SQLException | RuntimeException e) {
+            return fallback;
+        }
+    }
+
+    /**
+     * Get the index of a column by its label. If there is no column with the
+     * exact label, the label is compared in upper case
+     * @param label The column label
+     * @return The column index, starting at 1, or -1 if there is no column with the label
+     */
+    public int indexOf(String label) {
+        Integer index = indexByLabel.get(label);
+        if(index == null) {
+            index = indexByLabel.get(label.toUpperCase());
+        }
+        return index == null ? -1 : index;
+    }
+
+    /**
+     * @return The column labels in the result order
+     */
+    public List<String> getColumnLabels() {
+        return Collections.unmodifiableList(Arrays.asList(labels));
+    }
+
+    @Override
+    public int getColumnCount() {
+        return columnCount;
+    }
+
+    @Override
+    public String getColumnLabel(int column) {
+        return labels[column - 1];
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return names[column - 1];
+    }
+
+    @Override
+    public int getColumnType(int column) {
+        return types[column - 1];
+    }
+
+    @Override
+    public String getColumnTypeName(int column) {
+        return typeNames[column - 1];
+    }
+
+    @Override
+    public String getColumnClassName(int column) {
+        return classNames[column - 1];
+    }
+
+    @Override
+    public String getTableName(int column) {
+        return tableNames[column - 1];
+    }
+
+    @Override
+    public String getSchemaName(int column) {
+        return schemaNames[column - 1];
+    }
+
+    @Override
+    public String getCatalogName(int column) {
+        return catalogNames[column - 1];
+    }
+
+    @Override
+    public int getPrecision(int column) {
+        return precisions[column - 1];
+    }
+
+    @Override
+    public int getScale(int column) {
+        return scales[column - 1];
+    }
+
+    @Override
+    public int getColumnDisplaySize(int column) {
+        return displaySizes[column - 1];
+    }
+
+    @Override
+    public int isNullable(int column) {
+        return nullables[column - 1];
+    }
+
+    @Override
+    public boolean isAutoIncrement(int column) {
+        return flags[column - 1][AUTO_INCREMENT];
+    }
+
+    @Override
+    public boolean isCaseSensitive(int column) {
+        return flags[column - 1][CASE_SENSITIVE];
+    }
+
+    @Override
+    public boolean isSearchable(int column) {
+        return flags[column - 1][SEARCHABLE];
+    }
+
+    @Override
+    public boolean isCurrency(int column) {
+        return flags[column - 1][CURRENCY];
+    }
+
+    @Override
+    public boolean isSigned(int column) {
+        return flags[column - 1][SIGNED];
+    }
+
+    @Override
+    public boolean isReadOnly(int column) {
+        return flags[column - 1][READ_ONLY];
+    }
+
+    @Override
+    public boolean isWritable(int column) {
+        return flags[column - 1][WRITABLE];
+    }
+
+    @Override
+    public boolean isDefinitelyWritable(int column) {
+        return flags[column - 1][DEFINITELY_WRITABLE];
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        if(iface.isInstance(this)) {
+            return iface.cast(this);
+        }
+        throw new SQLException("The result shape is not a " + iface.getName());
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) {
+        return iface.isInstance(this);
+    }
+
+    @Override
+    public String toString() {
+        return "ResultShape{" + Arrays.toString(labels) + '}';
+    }
+
+}
@@ -0,0 +1,196 @@
+package io.github.josevjunior.simplejdbc;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import javax.sql.DataSource;
+
+/**
+ * A {@link QueryCreator} that sends the reads to replicas and the writes to the
+ * primary database. A query goes to a replica when its sql is a plain select
+ * (see {@link NamedParameterSQL#isSelect()}) or when it is created through
+ * {@link #createReadOnly(java.lang.String, io.github.josevjunior.simplejdbc.RowMapper)}.
+ * Everything else, including the statement builders, goes to the primary
+ * <br>
+ * While the primary connection has a open transaction (auto commit disabled),
+ * all the queries go to the primary, so the transaction reads its own writes
+ * <br>
+ * e.g:
+ * <pre>{@code
+    LoadBalancingPolicy policy = LoadBalancingPolicies.leastOutstanding(); // Shared by the application
+
+    try(RoutingQueryCreator qc = new RoutingQueryCreator(primary, Arrays.asList(replica1, replica2), policy)) {
+        List<Employee> employees = qc.create("SELECT * FROM EMPLOYEE", Employee.class).getResultList(); // A replica
+        qc.update("EMPLOYEE").set("SALARY", 10.0).where().col("ID", 1).execute(); // The primary
+    }
+   }</pre>
+ *
+ * The connections are only obtained when needed. The replica is chosen by the
+ * {@link LoadBalancingPolicy} at the first read and used until the creator is closed
+ */
+public class RoutingQueryCreator extends QueryCreator {
+
+    private final List<DataSource> replicas;
+    private final LoadBalancingPolicy policy;
+    private QueryCreator replica;
+    private int replicaIndex;
+
+    public RoutingQueryCreator(DataSource primary, List<DataSource> replicas, LoadBalancingPolicy policy) {
+        super(Objects.requireNonNull(primary, "Primary DataSource should not be null!"), true);
+        this.replicas = new ArrayList<>(replicas);
+        this.policy = Objects.requireNonNull(policy, "LoadBalancingPolicy should not be null!");
+        this.replicaIndex = -1;
+    }
+
+    @Override
+    public <T> Query<T> create(String sql, RowMapper<T> rowMapper, boolean returnGeneratedKeys) {
+        NamedParameterSQL namedParameterSQL = NamedParameterSQL.parse(sql);
+        if(!returnGeneratedKeys && namedParameterSQL.isSelect()) {
+            return route(namedParameterSQL, rowMapper);
+        }
+        return create(namedParameterSQL, rowMapper, returnGeneratedKeys);
+    }
+
+    /**
+     * Create a {@link Query} that goes to a replica even if its sql is not a
+     * plain select, e.g. the call of a read only procedure
+     * @param sql The database sql
+     * @param rowMapper The mapper
+     * @return A Query object
+     */
+    public <T> Query<T> createReadOnly(String sql, RowMapper<T> rowMapper) {
+        return route(NamedParameterSQL.parse(sql), rowMapper);
+    }
+
+    /**
+     * Create a {@link Query} that goes to a replica even if its sql is not a
+     * plain select. The mapper is discovered through the resultClass param
+     * @param sql The database sql
+     * @param resultClass The result class
+     * @return A Query object
+     */
+    public <T> Query<T> createReadOnly(String sql, Class<T> resultClass) {
+        return createReadOnly(sql, getRowMapperForClass(resultClass));
+    }
+
+    private <T> Query<T> route(NamedParameterSQL sql, RowMapper<T> rowMapper) {
+        if(replicas.isEmpty() || isInTransaction()) {
+            return create(sql, rowMapper, false);
+        }
+        return replica().create(sql, rowMapper, false);
+    }
+
+    private QueryCreator replica() {
+        if(replica == null) {
+            int index = policy.acquire(replicas.size());
+            try {
+                replica = new QueryCreator(replicas.get(index));
+            }catch (RuntimeException e) {
+                policy.release(index);
+                throw e;
+            }
+
+            replicaIndex = index;
+            replica.setQueryTimeout(getQueryTimeout(TimeUnit.NANOSECONDS), TimeUnit.NANOSECONDS);
+            replica.setDeadline(getDeadline());
+            replica.setQueryCache(getQueryCache());
+            replica.setQueryCoalescer(getQueryCoalescer());
+            replica.setQueryListener(getQueryListener());
+            getEntityCaches().values().forEach(replica::setEntityCache);
+        }
+        return replica;
+    }
+
+    /**
+     * @return The index of the replica used by this creator or -1 if there was
+     * no read yet
+     */
+    public int getReplicaIndex() {
+        return replicaIndex;
+    }
+
+    @Override
+    public void setQueryTimeout(long timeout, TimeUnit unit) {
+        super.setQueryTimeout(timeout, unit);
+        if(replica != null) {
+            replica.setQueryTimeout(timeout, unit);
+        }
+    }
+
+    @Override
+    public void setDeadline(Deadline deadline) {
+        super.setDeadline(deadline);
+        if(replica != null) {
+            replica.setDeadline(deadline);
+        }
+    }
+
+    @Override
+    public void setQueryCache(QueryCache queryCache) {
+        super.setQueryCache(queryCache);
+        if(replica != null) {
+            replica.setQueryCache(queryCache);
+        }
+    }
+
+    @Override
+    public void setQueryCoalescer(QueryCoalescer queryCoalescer) {
+        super.setQueryCoalescer(queryCoalescer);
+        if(replica != null) {
+            replica.setQueryCoalescer(queryCoalescer);
+        }
+    }
+
+    @Override
+    public void setQueryListener(QueryListener queryListener) {
+        super.setQueryListener(queryListener);
+        if(replica != null) {
+            replica.setQueryListener(queryListener);
+        }
+    }
+
+    @Override
+    public void setEntityCache(EntityCache<?> entityCache) {
+        super.setEntityCache(entityCache);
+        if(replica != null) {
+            replica.setEntityCache(entityCache);
+        }
+    }
+
+    @Override
+    public void removeEntityCache(Class<?> beanClass) {
+        super.removeEntityCache(beanClass);
+        if(replica != null) {
+            replica.removeEntityCache(beanClass);
+        }
+    }
+
+    @Override
+    public int getOpenStatementCount() {
+        return super.getOpenStatementCount() + (replica != null ? replica.getOpenStatementCount() : 0);
+    }
+
+    @Override
+    public void disposeResources() {
+        super.disposeResources();
+        if(replica != null) {
+            replica.disposeResources();
+        }
+    }
+
+    /**
+     * Close the resources and the connections of the primary and of the replica
+     */
+    @Override
+    public void closeAll() {
+        super.closeAll();
+        if(replica != null) {
+            replica.closeAll();
+            replica = null;
+            policy.release(replicaIndex);
+            replicaIndex = -1;
+        }
+    }
+
+}
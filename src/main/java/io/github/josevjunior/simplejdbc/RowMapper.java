@@ -12,4 +12,18 @@ public interface RowMapper<T> {
     
     public T map(ResultSet resultSet, ResultSetMetaData mtdt) throws SQLException;
     
+    /**
+     * Map the row with the cached shape of the result. The queries always call
+     * this method, which calls {@link #map(java.sql.ResultSet, java.sql.ResultSetMetaData)}
+     * by default. Mappers that read the columns by label should override it and
+     * use {@link ResultShape#indexOf(java.lang.String)}
+     * @param resultSet The result set at the row
+     * @param shape The result shape
+     * @return The mapped row
+     * @throws SQLException if the row can't be read
+     */
+    default T map(ResultSet resultSet, ResultShape shape) throws SQLException {
+        return map(resultSet, (ResultSetMetaData) shape);
+    }
+    
 }
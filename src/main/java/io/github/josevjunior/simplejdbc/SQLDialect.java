@@ -0,0 +1,23 @@
+package io.github.josevjunior.simplejdbc;
+
+import java.util.Collection;
+
+/**
+ * Defines the database specific sql used by the statement builders. The 
+ * generated sql must use named parameters with the same name of the columns
+ * <br>
+ * The built-in implementations are available at {@link io.github.josevjunior.simplejdbc.SQLDialects}
+ */
+public interface SQLDialect {
+    
+    /**
+     * Create a statement that inserts a row or updates it if a row with the 
+     * same key columns values already exists
+     * @param tableName The table name
+     * @param keyColumns The columns used to find the existing row
+     * @param valueColumns The other columns
+     * @return The sql with a named parameter per column
+     */
+    StringBuilder createUpsert(String tableName, Collection<String> keyColumns, Collection<String> valueColumns);
+    
+}
@@ -0,0 +1,100 @@
+package io.github.josevjunior.simplejdbc;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.Iterator;
+
+/**
+ * Holds the built-in {@link io.github.josevjunior.simplejdbc.SQLDialect} implementations
+ */
+public final class SQLDialects {
+    
+    /**
+     * The H2 dialect. Upserts are created as {@code MERGE INTO ... KEY(...) VALUES (...)}
+     */
+    public static final SQLDialect H2 = (tableName, keyColumns, valueColumns) -> {
+        StringBuilder sql = new StringBuilder();
+        sql.append("MERGE INTO ").append(tableName).append(" (");
+        appendColumns(sql, keyColumns, valueColumns, "");
+        sql.append(") KEY(");
+        appendColumns(sql, keyColumns, null, "");
+        sql.append(") VALUES (");
+        appendColumns(sql, keyColumns, valueColumns, ":");
+        sql.append(")");
+        
+        return sql;
+    };
+    
+    /**
+     * The PostgreSQL dialect. Upserts are created as {@code INSERT ... ON CONFLICT (...) DO UPDATE}
+     */
+    public static final SQLDialect POSTGRESQL = (tableName, keyColumns, valueColumns) -> {
+        StringBuilder sql = new StringBuilder();
+        sql.append("INSERT INTO ").append(tableName).append(" (");
+        appendColumns(sql, keyColumns, valueColumns, "");
+        sql.append(") VALUES (");
+        appendColumns(sql, keyColumns, valueColumns, ":");
+        sql.append(") ON CONFLICT (");
+        appendColumns(sql, keyColumns, null, "");
+        sql.append(")");
+        
+        if(valueColumns.isEmpty()) {
+            sql.append(" DO NOTHING");
+            return sql;
+        }
+        
+        sql.append(" DO UPDATE SET ");
+        for (Iterator<String> iterator = valueColumns.iterator(); iterator.hasNext();) {
+            String column = iterator.next();
+            sql.append(column).append(" = EXCLUDED.").append(column);
+            if(iterator.hasNext()) {
+                sql.append(", ");
+            }
+        }
+        
+        return sql;
+    };
+
+    private SQLDialects() {
+    }
+    
+    /**
+     * Find the built-in dialect for the database of the connection
+     * @param connection A connection
+     * @return The dialect or null if there is no built-in dialect for the database
+     */
+    public static SQLDialect fromConnection(Connection connection) {
+        try {
+            String productName = connection.getMetaData().getDatabaseProductName();
+            if("H2".equalsIgnoreCase(productName)) {
+                return H2;
+            }
+            if("PostgreSQL".equalsIgnoreCase(productName)) {
+                return POSTGRESQL;
+            }
+            
+            return null;
+        }catch (SQLException e) {
+            throw new JdbcException(e);
+        }
+    }
+    
+    private static void appendColumns(StringBuilder sql, Collection<String> first, Collection<String> second, String prefix) {
+        boolean firstColumn = true;
+        for (String column : first) {
+            if(!firstColumn) {
+                sql.append(", ");
+            }
+            sql.append(prefix).append(column);
+            firstColumn = false;
+        }
+        
+        if(second != null) {
+            for (String column : second) {
+                sql.append(", ").append(prefix).append(column);
+            }
+        }
+    }
+    
+}
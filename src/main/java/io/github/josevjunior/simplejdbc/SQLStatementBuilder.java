@@ -1,6 +1,7 @@
 
 package io.github.josevjunior.simplejdbc;
 
+import java.util.Collection;
 import java.util.Iterator;
 import java.util.Map;
 
@@ -39,15 +40,18 @@ public class SQLStatementBuilder {
     
     
     public StringBuilder createInsert(InsertBuilder insertBuilder) {
+        return createInsert(insertBuilder.getTableName(), insertBuilder.getColumnsAndValues().keySet());
+    }
+    
+    public StringBuilder createInsert(String tableName, Collection<String> columns) {
 
         StringBuilder sql = new StringBuilder();
         sql.append("INSERT INTO ");
-        sql.append(insertBuilder.getTableName());
+        sql.append(tableName);
         sql.append(" (");
         
-        for (Iterator iterator = insertBuilder.getColumnsAndValues().entrySet().iterator(); iterator.hasNext();) {
-            Map.Entry<String, Object> entry = (Map.Entry<String, Object>) iterator.next();
-            sql.append(entry.getKey());
+        for (Iterator<String> iterator = columns.iterator(); iterator.hasNext();) {
+            sql.append(iterator.next());
             if(iterator.hasNext()) {
                 sql.append(", ");
             }
@@ -55,9 +59,8 @@ public class SQLStatementBuilder {
         
         sql.append(")VALUES (");
         
-        for (Iterator iterator = insertBuilder.getColumnsAndValues().entrySet().iterator(); iterator.hasNext();) {
-            Map.Entry<String, Object> entry = (Map.Entry<String, Object>) iterator.next();
-            sql.append(" :").append(entry.getKey());
+        for (Iterator<String> iterator = columns.iterator(); iterator.hasNext();) {
+            sql.append(" :").append(iterator.next());
             if(iterator.hasNext()) {
                 sql.append(", ");
             }
@@ -69,4 +72,38 @@ public class SQLStatementBuilder {
         
     } 
     
+    public StringBuilder createDelete(DeleteBuilder.DeleteBuilderCondition condition, int inListSize) {
+
+        StringBuilder sql = new StringBuilder();
+        sql.append("DELETE FROM ");
+        sql.append(condition.getDeleteBuilder().getTableName());
+        sql.append(" WHERE ");
+        
+        for (Iterator<String> iterator = condition.getColumnsAndValues().keySet().iterator(); iterator.hasNext();) {
+            String column = iterator.next();
+            sql.append(column).append(" = :").append(DeleteBuilder.WHERE_PARAM_PREFIX).append(column);
+            if(iterator.hasNext()) {
+                sql.append(" AND ");
+            }
+        }
+        
+        if(inListSize > 0) {
+            if(!condition.getColumnsAndValues().isEmpty()) {
+                sql.append(" AND ");
+            }
+            
+            sql.append(condition.getInColumn()).append(" IN (");
+            for (int i = 0; i < inListSize; i++) {
+                if(i > 0) {
+                    sql.append(", ");
+                }
+                sql.append(":").append(DeleteBuilder.IN_PARAM_PREFIX).append(i);
+            }
+            sql.append(")");
+        }
+        
+        return sql;
+        
+    } 
+    
 }
@@ -0,0 +1,167 @@
+package io.github.josevjunior.simplejdbc;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A lightweight extraction of the table names of a sql. It is not a parser, so
+ * it may find names which are not tables (e.g. aliases). The names are upper
+ * case and without schema
+ */
+final class SQLTables {
+
+    private static final Set<String> KEYWORDS = new HashSet<>(Arrays.asList(
+            "SELECT", "WHERE", "GROUP", "ORDER", "HAVING", "LIMIT", "OFFSET", "FETCH", "UNION", "EXCEPT",
+            "INTERSECT", "MINUS", "JOIN", "INNER", "LEFT", "RIGHT", "FULL", "CROSS", "OUTER", "NATURAL",
+            "ON", "USING", "FOR", "WINDOW", "SET", "VALUES", "LATERAL"));
+
+    private SQLTables() {
+    }
+
+    /**
+     * @param sql The sql
+     * @return The tables after FROM and JOIN
+     */
+    static Set<String> read(String sql) {
+        List<String> tokens = tokenize(sql);
+        Set<String> tables = new LinkedHashSet<>();
+
+        for (int i = 0; i < tokens.size(); i++) {
+            String token = tokens.get(i);
+            if(!token.equals("FROM") && !token.equals("JOIN")) {
+                continue;
+            }
+
+            int j = i + 1;
+            while(j < tokens.size() && isName(tokens.get(j))) {
+                tables.add(tableName(tokens.get(j)));
+
+                // Skips the alias. A comma means other table of the FROM list
+                int k = j + 1;
+                if(k < tokens.size() && tokens.get(k).equals("AS")) {
+                    k += 2;
+                } else if(k < tokens.size() && isName(tokens.get(k))) {
+                    k++;
+                }
+
+                if(token.equals("FROM") && k < tokens.size() && tokens.get(k).equals(",")) {
+                    j = k + 1;
+                } else {
+                    break;
+                }
+            }
+        }
+
+        return Collections.unmodifiableSet(tables);
+    }
+
+    /**
+     * @param sql The sql
+     * @return The table changed by a INSERT, UPDATE, DELETE, MERGE, REPLACE or
+     * TRUNCATE statement, or null if it is other kind of statement
+     */
+    static Set<String> written(String sql) {
+        List<String> tokens = tokenize(sql);
+        if(tokens.isEmpty()) {
+            return null;
+        }
+
+        int index;
+        switch(tokens.get(0)) {
+            case "UPDATE":
+                index = 1;
+                break;
+            case "INSERT":
+            case "MERGE":
+            case "REPLACE":
+            case "UPSERT":
+                index = tokens.size() > 1 && tokens.get(1).equals("INTO") ? 2 : 1;
+                break;
+            case "DELETE":
+                index = tokens.size() > 1 && tokens.get(1).equals("FROM") ? 2 : 1;
+                break;
+            case "TRUNCATE":
+                index = tokens.size() > 1 && tokens.get(1).equals("TABLE") ? 2 : 1;
+                break;
+            default:
+                return null;
+        }
+
+        if(index >= tokens.size() || !isName(tokens.get(index))) {
+            return null;
+        }
+        return Collections.singleton(tableName(tokens.get(index)));
+    }
+
+    /**
+     * @param sql The sql
+     * @return true if the sql starts with INSERT
+     */
+    static boolean isInsert(String sql) {
+        List<String> tokens = tokenize(sql);
+        return !tokens.isEmpty() && tokens.get(0).equals("INSERT");
+    }
+
+    /**
+     * Split the sql in upper case words and symbols, without comments and
+     * quoted values. The quoted identifiers are kept as words
+     */
+    private static List<String> tokenize(String sql) {
+        List<String> tokens = new ArrayList<>();
+        StringBuilder word = new StringBuilder();
+        int length = sql.length();
+
+        for (int i = 0; i < length; i++) {
+            char c = sql.charAt(i);
+            if(c == '\'') {
+                int end = sql.indexOf('\'', i + 1);
+                i = end < 0 ? length : end;
+                flush(word, tokens);
+            } else if(c == '"' || c == '`') {
+                int end = sql.indexOf(c, i + 1);
+                word.append(sql.substring(i + 1, end < 0 ? length : end).replace(' ', '_').toUpperCase());
+                i = end < 0 ? length : end;
+            } else if(c == '-' && i + 1 < length && sql.charAt(i + 1) == '-') {
+                int end = sql.indexOf('\n', i);
+                i = end < 0 ? length : end;
+                flush(word, tokens);
+            } else if(c == '/' && i + 1 < length && sql.charAt(i + 1) == '*') {
+                int end = sql.indexOf("*/", i + 2);
+                i = end < 0 ? length : end + 1;
+                flush(word, tokens);
+            } else if(Character.isLetterOrDigit(c) || c == '_' || c == '$' || c == '.') {
+                word.append(Character.toUpperCase(c));
+            } else {
+                flush(word, tokens);
+                if(c == ',' || c == '(' || c == ')') {
+                    tokens.add(String.valueOf(c));
+                }
+            }
+        }
+
+        flush(word, tokens);
+        return tokens;
+    }
+
+    private static void flush(StringBuilder word, List<String> tokens) {
+        if(word.length() > 0) {
+            tokens.add(word.toString());
+            word.setLength(0);
+        }
+    }
+
+    private static boolean isName(String token) {
+        char first = token.charAt(0);
+        return (Character.isLetter(first) || first == '_') && !KEYWORDS.contains(token);
+    }
+
+    private static String tableName(String token) {
+        return token.substring(token.lastIndexOf('.') + 1);
+    }
+
+}
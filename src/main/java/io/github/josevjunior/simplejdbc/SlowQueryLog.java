@@ -0,0 +1,316 @@
+package io.github.josevjunior.simplejdbc;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A {@link QueryListener} which logs the executions slower than a threshold,
+ * with their sql, parameter values, rows and timings. The failed executions,
+ * e.g. the ones stopped by a timeout, are logged by the same rule with their
+ * error. A fraction of the other
+ * executions can also be logged as samples. The entries are queued in a bounded
+ * lock-free ring buffer and written by a daemon thread, so the query thread
+ * never blocks. When the buffer is full the entries are dropped and counted
+ * <br>
+ * e.g:
+ * <pre>{@code
+    SlowQueryLog slowLog = new SlowQueryLog()
+        .threshold(200, TimeUnit.MILLISECONDS)
+        .sampleRate(0.001);
+
+    queryCreator.setQueryListener(QueryListener.of(metrics, slowLog));
+   }</pre>
+ *
+ * The entries are written to the {@code io.github.josevjunior.simplejdbc.SlowQueryLog}
+ * java.util.logging logger by default, the slow ones as warnings and the samples
+ * as info. The log should be closed to stop its thread
+ */
+public class SlowQueryLog implements QueryListener, AutoCloseable {
+
+    private static final Logger LOGGER = Logger.getLogger(SlowQueryLog.class.getName());
+
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+    private final Consumer<Entry> writer;
+    private final AtomicReferenceArray<Entry> slots;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    private final AtomicLong head = new AtomicLong();
+    private final LongAdder written = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final Thread writerThread;
+    private volatile boolean closed;
+    private volatile long thresholdNanos = TimeUnit.SECONDS.toNanos(1);
+    private volatile double sampleRate;
+
+    /**
+     * Create a log which writes to java.util.logging with a buffer of 1024 entries
+     */
+    public SlowQueryLog() {
+        this(1024, SlowQueryLog::log);
+    }
+
+    /**
+     * @param capacity The max number of entries waiting to be written, rounded
+     * up to a power of two
+     * @param writer Writes each entry. It is called by the log thread only
+     */
+    public SlowQueryLog(int capacity, Consumer<Entry> writer) {
+        if(capacity <= 0) {
+            throw new IllegalArgumentException("The capacity should be greater than zero");
+        }
+        int size = Integer.highestOneBit(Math.max(2, capacity) * 2 - 1);
+        this.writer = writer;
+        this.slots = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+        this.writerThread = new Thread(this::writeLoop, "simplejdbc-slow-query-log");
+        this.writerThread.setDaemon(true);
+        this.writerThread.start();
+    }
+
+    /**
+     * Define the time from which the executions are logged. The default is one second
+     * @param threshold The threshold
+     * @param unit The time unit
+     * @return The log itself
+     */
+    public SlowQueryLog threshold(long threshold, TimeUnit unit) {
+        this.thresholdNanos = unit.toNanos(threshold);
+        return this;
+    }
+
+    /**
+     * Define the fraction of the executions below the threshold that are logged
+     * too. The default is zero
+     * @param sampleRate From 0 to 1
+     * @return The log itself
+     */
+    public SlowQueryLog sampleRate(double sampleRate) {
+        if(sampleRate < 0 || sampleRate > 1) {
+            throw new IllegalArgumentException("The sample rate should be between 0 and 1");
+        }
+        this.sampleRate = sampleRate;
+        return this;
+    }
+
+    @Override
+    public void completed(String sql, Object[] parameters, long executeNanos, long fetchNanos, long rows) {
+        log(sql, parameters, executeNanos, fetchNanos, rows, null);
+    }
+
+    /**
+     * The time until the failure is logged as the execute time, with -1 rows
+     */
+    @Override
+    public void failed(String sql, Object[] parameters, long nanos, RuntimeException error) {
+        log(sql, parameters, nanos, 0, -1, error);
+    }
+
+    private void log(String sql, Object[] parameters, long executeNanos, long fetchNanos, long rows, RuntimeException error) {
+        boolean slow = executeNanos + fetchNanos >= thresholdNanos;
+        if(!slow && (sampleRate == 0 || ThreadLocalRandom.current().nextDouble() >= sampleRate)) {
+            return;
+        }
+
+        Entry entry = new Entry(System.currentTimeMillis(), sql, parameters.clone(), executeNanos, fetchNanos, rows, !slow,
+                Thread.currentThread().getName(), error);
+        if(closed || !offer(entry)) {
+            dropped.increment();
+        }
+    }
+
+    /**
+     * Add a entry at the tail of the buffer, unless it is full
+     */
+    private boolean offer(Entry entry) {
+        while(true) {
+            long t = tail.get();
+            if(t - head.get() > mask) {
+                return false;
+            }
+            if(tail.compareAndSet(t, t + 1)) {
+                // The slot was emptied by the writer before the head passed it
+                slots.lazySet((int) t & mask, entry);
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Write the entries in the buffer. Only one thread writes at a time
+     * @return If there was any entry
+     */
+    private synchronized boolean drain() {
+        boolean any = false;
+        while(true) {
+            long h = head.get();
+            int index = (int) h & mask;
+            Entry entry = slots.get(index);
+            if(entry == null) {
+                // Empty, or the entry of a claimed slot is not set yet
+                return any;
+            }
+            slots.lazySet(index, null);
+            head.lazySet(h + 1);
+            any = true;
+            try {
+                writer.accept(entry);
+                written.increment();
+            }catch (RuntimeException e) {
+                dropped.increment();
+            }
+        }
+    }
+
+    private void writeLoop() {
+        while(!closed) {
+            if(!drain()) {
+                LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+            }
+        }
+        drain();
+    }
+
+    /**
+     * Write the entries waiting in the buffer in the calling thread
+     */
+    public void flush() {
+        drain();
+    }
+
+    /**
+     * @return The number of entries written
+     */
+    public long getWrittenCount() {
+        return written.sum();
+    }
+
+    /**
+     * @return The number of entries dropped because the buffer was full or the
+     * writer failed
+     */
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    /**
+     * Stop the log thread after writing the entries in the buffer
+     */
+    @Override
+    public void close() {
+        closed = true;
+        LockSupport.unpark(writerThread);
+        try {
+            writerThread.join(TimeUnit.SECONDS.toMillis(5));
+        }catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void log(Entry entry) {
+        LOGGER.log(entry.isSampled() ? Level.INFO : Level.WARNING, entry.toString());
+    }
+
+    /**
+     * A logged execution
+     */
+    public static final class Entry {
+
+        private final long timestamp;
+        private final String sql;
+        private final List<Object> parameters;
+        private final long executeNanos;
+        private final long fetchNanos;
+        private final long rows;
+        private final boolean sampled;
+        private final String threadName;
+        private final RuntimeException error;
+
+        private Entry(long timestamp, String sql, Object[] parameters, long executeNanos, long fetchNanos, long rows, boolean sampled,
+                String threadName, RuntimeException error) {
+            this.timestamp = timestamp;
+            this.sql = sql;
+            this.parameters = Collections.unmodifiableList(Arrays.asList(parameters));
+            this.executeNanos = executeNanos;
+            this.fetchNanos = fetchNanos;
+            this.rows = rows;
+            this.sampled = sampled;
+            this.threadName = threadName;
+            this.error = error;
+        }
+
+        /**
+         * @return The time of the end of the execution in milliseconds since the epoch
+         */
+        public long getTimestamp() {
+            return timestamp;
+        }
+
+        public String getSql() {
+            return sql;
+        }
+
+        /**
+         * @return The parameter values, the first parameter at the position 0
+         */
+        public List<Object> getParameters() {
+            return parameters;
+        }
+
+        public long getExecuteNanos() {
+            return executeNanos;
+        }
+
+        public long getFetchNanos() {
+            return fetchNanos;
+        }
+
+        public long getTotalNanos() {
+            return executeNanos + fetchNanos;
+        }
+
+        /**
+         * @return The rows read, the updated rows count, or -1 if it is unknown
+         */
+        public long getRows() {
+            return rows;
+        }
+
+        /**
+         * @return true if the execution was below the threshold and logged as a sample
+         */
+        public boolean isSampled() {
+            return sampled;
+        }
+
+        public String getThreadName() {
+            return threadName;
+        }
+
+        /**
+         * @return The error of a failed execution, or null if it completed
+         */
+        public RuntimeException getError() {
+            return error;
+        }
+
+        @Override
+        public String toString() {
+            return (sampled ? "Sampled" : "Slow") + (error != null ? " failed" : "") + " query (" + TimeUnit.NANOSECONDS.toMillis(getTotalNanos()) + " ms, execute "
+                    + TimeUnit.NANOSECONDS.toMicros(executeNanos) + " us, fetch " + TimeUnit.NANOSECONDS.toMicros(fetchNanos) + " us, rows "
+                    + rows + ", thread " + threadName + "): " + sql + " " + parameters + (error != null ? " " + error : "");
+        }
+
+    }
+
+}
@@ -0,0 +1,322 @@
+package io.github.josevjunior.simplejdbc;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransactionRollbackException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+import javax.sql.DataSource;
+
+/**
+ * Executes a callback inside a transaction. The transaction is commited if the
+ * callback returns and rolled back if it throws. When the failure is caused by
+ * a deadlock, a serialization failure or a lock timeout the callback is executed
+ * again after a jittered exponential backoff, until the retry budget is over
+ * <br>
+ * e.g:
+ * <pre>{@code
+    TransactionTemplate tx = new TransactionTemplate()
+        .isolation(Connection.TRANSACTION_SERIALIZABLE)
+        .maxRetries(5);
+
+    Long total = tx.execute(dataSource, qc -> {
+        qc.update("ACCOUNT").set("BALANCE", 10).where().col("ID", 1).execute();
+        return qc.create("SELECT SUM(BALANCE) FROM ACCOUNT", Long.class).getFirstResult().get();
+    });
+   }</pre>
+ *
+ * The template can be shared between threads. The counters are updated by all
+ * the executions
+ */
+public class TransactionTemplate {
+
+    /**
+     * The default retryable failures. The SQLState class 40 (transaction
+     * rollback, which includes deadlocks and serialization failures), the H2
+     * and PostgreSQL lock timeouts and the MySQL deadlock and lock wait timeout
+     * error codes
+     */
+    public static final Predicate<SQLException> DEFAULT_RETRYABLE = e -> {
+        if(e instanceof SQLTransactionRollbackException) {
+            return true;
+        }
+
+        String state = e.getSQLState();
+        if(state != null && (state.startsWith("40") || "HYT00".equals(state) || "55P03".equals(state))) {
+            return true;
+        }
+
+        return e.getErrorCode() == 1213 || e.getErrorCode() == 1205;
+    };
+
+    private final LongAdder commits;
+    private final LongAdder retries;
+    private final LongAdder aborts;
+    private Integer isolation;
+    private boolean readOnly;
+    private int maxRetries;
+    private long initialBackoffMillis;
+    private long maxBackoffMillis;
+    private long retryBudgetMillis;
+    private Predicate<SQLException> retryable;
+
+    public TransactionTemplate() {
+        this.commits = new LongAdder();
+        this.retries = new LongAdder();
+        this.aborts = new LongAdder();
+        this.maxRetries = 3;
+        this.initialBackoffMillis = 10;
+        this.maxBackoffMillis = 1000;
+        this.retryBudgetMillis = Long.MAX_VALUE;
+        this.retryable = DEFAULT_RETRYABLE;
+    }
+
+    /**
+     * Define the transaction isolation level. If not defined, the connection
+     * level is used
+     * @param isolation One of the {@link java.sql.Connection} TRANSACTION_* constants
+     * @return The template itself
+     */
+    public TransactionTemplate isolation(int isolation) {
+        this.isolation = isolation;
+        return this;
+    }
+
+    public TransactionTemplate readOnly(boolean readOnly) {
+        this.readOnly = readOnly;
+        return this;
+    }
+
+    /**
+     * Define how many times a failed transaction can be executed again. Default 3
+     * @param maxRetries The max number of retries
+     * @return The template itself
+     */
+    public TransactionTemplate maxRetries(int maxRetries) {
+        this.maxRetries = maxRetries;
+        return this;
+    }
+
+    /**
+     * Define the backoff between the retries. The wait before the retry N is a
+     * random value between zero and {@code min(max, initial * 2^N)}. Default
+     * 10 milliseconds to 1 second
+     * @param initial The backoff of the first retry
+     * @param max The max backoff
+     * @param unit The time unit
+     * @return The template itself
+     */
+    public TransactionTemplate backoff(long initial, long max, TimeUnit unit) {
+        this.initialBackoffMillis = unit.toMillis(initial);
+        this.maxBackoffMillis = unit.toMillis(max);
+        return this;
+    }
+
+    /**
+     * Define the max time spent retrying, counted from the first execution.
+     * No retry starts after it. Unlimited by default
+     * @param budget The budget
+     * @param unit The time unit
+     * @return The template itself
+     */
+    public TransactionTemplate retryBudget(long budget, TimeUnit unit) {
+        this.retryBudgetMillis = unit.toMillis(budget);
+        return this;
+    }
+
+    /**
+     * Define which failures should be retried. Default {@link #DEFAULT_RETRYABLE}
+     * @param retryable The retryable failures predicate
+     * @return The template itself
+     */
+    public TransactionTemplate retryOn(Predicate<SQLException> retryable) {
+        this.retryable = retryable;
+        return this;
+    }
+
+    /**
+     * Execute the callback in a transaction with a connection obtained from
+     * the {@link javax.sql.DataSource}. The connection is closed at the end
+     * @param dataSource The datasource
+     * @param callback The transaction work
+     * @return The callback result
+     */
+    public <T> T execute(DataSource dataSource, TransactionCallback<T> callback) {
+        try(QueryCreator queryCreator = new QueryCreator(dataSource)) {
+            return execute(queryCreator, callback);
+        }
+    }
+
+    /**
+     * Execute the callback in a transaction using the {@link QueryCreator} connection.
+     * The connection settings are restored at the end
+     * @param queryCreator The query creator
+     * @param callback The transaction work
+     * @return The callback result
+     */
+    public <T> T execute(QueryCreator queryCreator, TransactionCallback<T> callback) {
+
+        Connection connection = queryCreator.getNativeConnection();
+        long start = System.currentTimeMillis();
+
+        boolean previousAutoCommit;
+        boolean previousReadOnly;
+        int previousIsolation;
+        try {
+            previousAutoCommit = connection.getAutoCommit();
+            previousReadOnly = connection.isReadOnly();
+            previousIsolation = connection.getTransactionIsolation();
+        }catch (SQLException e) {
+            throw new JdbcException(e);
+        }
+
+        Throwable failure = null;
+        try {
+            connection.setAutoCommit(false);
+            connection.setReadOnly(readOnly);
+            if(isolation != null) {
+                connection.setTransactionIsolation(isolation);
+            }
+
+            for (int attempt = 0; ; attempt++) {
+                try {
+                    T result = callback.execute(queryCreator);
+                    queryCreator.commit();
+                    commits.increment();
+                    return result;
+                }catch (SQLException | RuntimeException e) {
+                    rollback(queryCreator, e);
+
+                    SQLException sqlException = findSQLException(e);
+                    if(sqlException == null || !retryable.test(sqlException)
+                            || attempt >= maxRetries
+                            || System.currentTimeMillis() - start >= retryBudgetMillis) {
+                        aborts.increment();
+                        throw e;
+                    }
+
+                    retries.increment();
+                    backoff(attempt);
+                }
+            }
+
+        }catch (SQLException e) {
+            failure = new JdbcException(e);
+            throw (JdbcException) failure;
+        }catch (RuntimeException | Error e) {
+            failure = e;
+            throw e;
+        } finally {
+            restore(connection, previousAutoCommit, previousReadOnly, previousIsolation, failure);
+        }
+    }
+
+    /**
+     * Restore the connection settings, each one even if the others fail. The
+     * failures are added to the transaction failure, so they don't hide it, or
+     * thrown if the transaction succeeded
+     */
+    private void restore(Connection connection, boolean autoCommit, boolean readOnly, int isolation, Throwable failure) {
+        Throwable restoreFailure = failure;
+        if(this.isolation != null) {
+            try {
+                connection.setTransactionIsolation(isolation);
+            }catch (SQLException e) {
+                restoreFailure = restoreFailed(restoreFailure, e);
+            }
+        }
+        try {
+            connection.setReadOnly(readOnly);
+        }catch (SQLException e) {
+            restoreFailure = restoreFailed(restoreFailure, e);
+        }
+        try {
+            connection.setAutoCommit(autoCommit);
+        }catch (SQLException e) {
+            restoreFailure = restoreFailed(restoreFailure, e);
+        }
+
+        if(failure == null && restoreFailure != null) {
+            throw (JdbcException) restoreFailure;
+        }
+    }
+
+    private static Throwable restoreFailed(Throwable failure, SQLException e) {
+        if(failure == null) {
+            return new JdbcException("Could not restore the connection settings", e);
+        }
+        failure.addSuppressed(e);
+        return failure;
+    }
+
+    /**
+     * Roll back a failed attempt through the {@link QueryCreator}, so the tables
+     * it wrote are not invalidated by the commit of the next attempt. A rollback
+     * failure is added to the attempt failure
+     */
+    private static void rollback(QueryCreator queryCreator, Exception failure) {
+        try {
+            queryCreator.rollback();
+        }catch (RuntimeException e) {
+            failure.addSuppressed(e);
+        }
+    }
+
+    private void backoff(int attempt) {
+        long ceiling = Math.min(maxBackoffMillis, initialBackoffMillis << Math.min(attempt, 30));
+        if(ceiling <= 0) {
+            return;
+        }
+
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(ceiling + 1));
+        }catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new JdbcException("Interrupted while waiting to retry the transaction", e);
+        }
+    }
+
+    private static SQLException findSQLException(Throwable e) {
+        while(e != null) {
+            if(e instanceof SQLException) {
+                return (SQLException) e;
+            }
+            e = e.getCause();
+        }
+        return null;
+    }
+
+    /**
+     * @return The number of commited transactions
+     */
+    public long getCommitCount() {
+        return commits.sum();
+    }
+
+    /**
+     * @return The number of times a failed transaction was executed again
+     */
+    public long getRetryCount() {
+        return retries.sum();
+    }
+
+    /**
+     * @return The number of transactions rolled back without retry, because the
+     * failure was not retryable or the retry budget was over
+     */
+    public long getAbortCount() {
+        return aborts.sum();
+    }
+
+    /**
+     * The work executed inside the transaction
+     */
+    public interface TransactionCallback<T> {
+
+        T execute(QueryCreator queryCreator) throws SQLException;
+
+    }
+
+}
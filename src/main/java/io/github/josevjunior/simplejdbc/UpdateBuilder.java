@@ -1,6 +1,7 @@
 
 package io.github.josevjunior.simplejdbc;
 
+import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Objects;
@@ -8,6 +9,9 @@ import java.util.function.BiConsumer;
 
 public class UpdateBuilder {
     
+    static final String SET_PARAM_PREFIX = "K$_";
+    static final String WHERE_PARAM_PREFIX = "V$_";
+    
     private final Map<UpdateParam, Object> columnsAndValues;
     private final QueryCreator connection;
     private final String tableName;
@@ -19,7 +23,7 @@ public class UpdateBuilder {
     }
     
     public UpdateBuilder set(String columnName, Object value) {
-        columnsAndValues.put(new UpdateParam("K$_" + columnName, columnName), value);
+        columnsAndValues.put(new UpdateParam(SET_PARAM_PREFIX + columnName, columnName), value);
         return this;
     }
 
@@ -48,7 +52,7 @@ public class UpdateBuilder {
         }
         
         public UpdateBuilderCondition col(String name, Object column) {
-            columnsAndValues.put(new UpdateParam("V$_" + name, name), column);
+            columnsAndValues.put(new UpdateParam(WHERE_PARAM_PREFIX + name, name), column);
             return this;
         }        
 
@@ -74,6 +78,12 @@ public class UpdateBuilder {
             
             getUpdateBuilder().getColumnsAndValues().forEach(forEachCallback);
             getColumnsAndValues().forEach(forEachCallback);
+            
+            if(connection.isTrackingWrites()) {
+                Map<String, Object> keys = new LinkedHashMap<>();
+                getColumnsAndValues().forEach((k, v) -> keys.put(k.getColumnName(), v));
+                query.writtenRows(Collections.singletonList(keys));
+            }
                         
             return query.executeUpdate();
         }
@@ -0,0 +1,188 @@
+package io.github.josevjunior.simplejdbc;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A builder that inserts rows or updates them if a row with the same key
+ * columns values already exists. The sql is created by the {@link io.github.josevjunior.simplejdbc.SQLDialect}
+ * of the {@link io.github.josevjunior.simplejdbc.QueryCreator} and cached by the
+ * creator by table and columns, so builders with the same shape reuse the generated sql
+ * <br>
+ * e.g:
+ * <pre>{@code
+    qc.upsert("EMPLOYEE")
+        .key("ID", 1)
+        .col("NAME", "Joe")
+        .addBatch()
+        .key("ID", 2)
+        .col("NAME", "Mary")
+        .execute();
+   }</pre>
+ */
+public class UpsertBuilder {
+
+    private final QueryCreator queryCreator;
+    private final String tableName;
+    private final List<Row> batchRows;
+    private Row currentRow;
+    private int batchSize;
+
+    public UpsertBuilder(QueryCreator queryCreator, String tableName) {
+        this.queryCreator = queryCreator;
+        this.tableName = tableName;
+        this.batchRows = new ArrayList<>();
+        this.currentRow = new Row();
+    }
+
+    /**
+     * Set a column used to find the existing row
+     * @param colName The column name
+     * @param colValue The column value
+     * @return The builder itself
+     */
+    public UpsertBuilder key(String colName, Object colValue) {
+        currentRow.keys.put(colName, colValue);
+        return this;
+    }
+
+    /**
+     * Set a column that will be inserted or updated
+     * @param colName The column name
+     * @param colValue The column value
+     * @return The builder itself
+     */
+    public UpsertBuilder col(String colName, Object colValue) {
+        currentRow.values.put(colName, colValue);
+        return this;
+    }
+
+    /**
+     * Finish the current row and start a new one. All rows are sent as a
+     * jdbc batch when the builder is executed, so each row must have the same
+     * key and value columns
+     * @return The builder itself
+     */
+    public UpsertBuilder addBatch() {
+        if(currentRow.keys.isEmpty()) {
+            throw new JdbcException("The upsert must have at least one key column");
+        }
+
+        if(!batchRows.isEmpty() && !batchRows.get(0).hasSameShape(currentRow)) {
+            throw new JdbcException("All batch rows must have the same columns");
+        }
+
+        batchRows.add(currentRow);
+        currentRow = new Row();
+        return this;
+    }
+
+    /**
+     * Define the max number of rows sent in each jdbc batch. Values lower than
+     * 1 means all rows are sent at once
+     * @param batchSize The max rows per batch
+     * @return The builder itself
+     */
+    public UpsertBuilder batchSize(int batchSize) {
+        this.batchSize = batchSize;
+        return this;
+    }
+
+    public String getTableName() {
+        return tableName;
+    }
+
+    /**
+     * Execute the upsert of all the added rows
+     * @return The affected rows count of each row, in the order they were added
+     */
+    public int[] execute() {
+
+        if(!currentRow.keys.isEmpty() || !currentRow.values.isEmpty()) {
+            addBatch();
+        }
+
+        if(batchRows.isEmpty()) {
+            throw new JdbcException("The upsert must have at least one row");
+        }
+
+        try {
+            final Query<Object[]> query = queryCreator.create(getSql(batchRows.get(0)));
+
+            if(batchRows.size() == 1) {
+                written(query, 0, 1);
+                batchRows.get(0).bind(query);
+                return new int[] { query.executeUpdate() };
+            }
+
+            int[] counts = new int[batchRows.size()];
+            int chunkSize = batchSize > 0 ? batchSize : batchRows.size();
+            int count = 0;
+            int pending = 0;
+
+            for (int i = 0; i < batchRows.size(); i++) {
+                batchRows.get(i).bind(query);
+                query.addBatch();
+
+                if(++pending == chunkSize) {
+                    written(query, i + 1 - pending, i + 1);
+                    count = flush(query, counts, count);
+                    pending = 0;
+                }
+            }
+
+            if(pending > 0) {
+                written(query, batchRows.size() - pending, batchRows.size());
+                flush(query, counts, count);
+            }
+
+            return counts;
+        } finally {
+            batchRows.clear();
+        }
+    }
+
+    /**
+     * Tell the query the keys of the chunk it is about to write, only when a
+     * cache needs them
+     */
+    private void written(Query<Object[]> query, int from, int to) {
+        if(queryCreator.isTrackingWrites()) {
+            List<Map<String, Object>> keys = new ArrayList<>(to - from);
+            for (int i = from; i < to; i++) {
+                keys.add(batchRows.get(i).keys);
+            }
+            query.writtenRows(keys);
+        }
+    }
+
+    private int flush(Query<Object[]> query, int[] counts, int count) {
+        int[] chunkCounts = query.executeBatch();
+        System.arraycopy(chunkCounts, 0, counts, count, chunkCounts.length);
+        return count + chunkCounts.length;
+    }
+
+    private String getSql(Row row) {
+        return queryCreator.getUpsertSql(tableName, new ArrayList<>(row.keys.keySet()), new ArrayList<>(row.values.keySet()));
+    }
+
+    private static class Row {
+
+        private final Map<String, Object> keys = new LinkedHashMap<>();
+        private final Map<String, Object> values = new LinkedHashMap<>();
+
+        private boolean hasSameShape(Row other) {
+            return new ArrayList<>(keys.keySet()).equals(new ArrayList<>(other.keys.keySet()))
+                    && new ArrayList<>(values.keySet()).equals(new ArrayList<>(other.values.keySet()));
+        }
+
+        private void bind(Query<?> query) {
+            keys.forEach((k, v) -> query.setParameter(k, v));
+            values.forEach((k, v) -> query.setParameter(k, v));
+        }
+
+    }
+
+}
@@ -0,0 +1,294 @@
+package io.github.josevjunior.simplejdbc;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import javax.sql.DataSource;
+
+/**
+ * An opt-in write-behind updater. The updates are not executed when submitted,
+ * they are kept by table and key columns values and a later update of the same
+ * row overrides the columns of the previous one. The pending updates are
+ * executed as jdbc batches by a background thread when the max pending rows is
+ * reached or after the flush interval
+ * <br>
+ * e.g:
+ * <pre>{@code
+    WriteBehindUpdater updater = new WriteBehindUpdater(dataSource, 1000, 200, TimeUnit.MILLISECONDS);
+    updater.update("EMPLOYEE")
+        .set("STATUS", "ONLINE")
+        .key("ID", 1)
+        .submit();
+    ...
+    updater.close(); // Executes the pending updates
+   }</pre>
+ *
+ * Each flush obtains a connection from the {@link javax.sql.DataSource} and
+ * executes all the pending updates in a single transaction. If the flush fails,
+ * the transaction is rolled back and the updates are passed to the {@link FailureHandler}
+ */
+public class WriteBehindUpdater implements AutoCloseable {
+
+    private final DataSource dataSource;
+    private final int maxPending;
+    private final Map<List<Object>, Update> pending;
+    private final ScheduledExecutorService scheduler;
+    private final AtomicBoolean flushScheduled;
+    private final Object flushLock;
+    private volatile boolean closed;
+    private volatile FailureHandler failureHandler;
+
+    /**
+     * @param dataSource The datasource used to obtain the connection of each flush
+     * @param maxPending The number of pending rows that triggers a flush
+     * @param flushInterval The max time an update waits to be executed
+     * @param unit The flush interval unit
+     */
+    public WriteBehindUpdater(DataSource dataSource, int maxPending, long flushInterval, TimeUnit unit) {
+        this.dataSource = Objects.requireNonNull(dataSource, "DataSource should not be null!");
+        this.maxPending = maxPending;
+        this.pending = new ConcurrentHashMap<>();
+        this.flushScheduled = new AtomicBoolean();
+        this.flushLock = new Object();
+        this.failureHandler = (updates, e) -> {};
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "simplejdbc-write-behind");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.scheduler.scheduleWithFixedDelay(this::flushQuietly, flushInterval, flushInterval, unit);
+    }
+
+    /**
+     * Define the handler notified when a flush fails. By default the failures
+     * are ignored
+     * @param failureHandler The handler
+     * @return The updater itself
+     */
+    public WriteBehindUpdater onFailure(FailureHandler failureHandler) {
+        this.failureHandler = Objects.requireNonNull(failureHandler);
+        return this;
+    }
+
+    /**
+     * Inits a pending update builder
+     * @param table The table which will be updated
+     * @return A {@link PendingUpdateBuilder}
+     */
+    public PendingUpdateBuilder update(String table) {
+        return new PendingUpdateBuilder(table);
+    }
+
+    /**
+     * Get the number of rows waiting to be updated
+     * @return The number of pending rows
+     */
+    public int getPendingCount() {
+        return pending.size();
+    }
+
+    /**
+     * Execute all the pending updates at the caller thread
+     * @throws JdbcException if the updates could not be executed. The failure
+     * handler is notified too
+     */
+    public void flush() {
+        synchronized(flushLock) {
+            List<Update> updates = new ArrayList<>(pending.size());
+            for (List<Object> key : pending.keySet()) {
+                Update update = pending.remove(key);
+                if(update != null) {
+                    updates.add(update);
+                }
+            }
+
+            if(!updates.isEmpty()) {
+                execute(updates);
+            }
+        }
+    }
+
+    /**
+     * Stop the background thread and execute the remaining updates
+     */
+    @Override
+    public void close() {
+        closed = true;
+        scheduler.shutdown();
+        try {
+            scheduler.awaitTermination(1, TimeUnit.MINUTES);
+        }catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+    }
+
+    private void submit(String table, Map<String, Object> keys, Map<String, Object> values) {
+        if(closed) {
+            throw new JdbcException("The updater is closed");
+        }
+
+        pending.compute(Arrays.asList(table, keys), (k, update) -> {
+            if(update == null) {
+                return new Update(table, keys, values);
+            }
+            update.values.putAll(values);
+            return update;
+        });
+
+        if(pending.size() >= maxPending && flushScheduled.compareAndSet(false, true)) {
+            scheduler.execute(this::flushQuietly);
+        }
+    }
+
+    private void flushQuietly() {
+        flushScheduled.set(false);
+        try {
+            flush();
+        }catch (RuntimeException ignored) {
+            // Already notified to the failure handler
+        }
+    }
+
+    private void execute(List<Update> updates) {
+
+        Map<List<Object>, List<Update>> byShape = new LinkedHashMap<>();
+        for (Update update : updates) {
+            List<Object> shape = Arrays.asList(update.table, new ArrayList<>(update.keys.keySet()), new ArrayList<>(update.values.keySet()));
+            byShape.computeIfAbsent(shape, k -> new ArrayList<>()).add(update);
+        }
+
+        try(QueryCreator queryCreator = new QueryCreator(dataSource)) {
+            Connection connection = queryCreator.getNativeConnection();
+            try {
+                connection.setAutoCommit(false);
+
+                for (List<Update> shapeUpdates : byShape.values()) {
+                    executeBatch(queryCreator, shapeUpdates);
+                }
+
+                queryCreator.commit();
+            }catch (SQLException | RuntimeException e) {
+                JdbcUtils.rollback(connection);
+                throw e;
+            } finally {
+                JdbcUtils.setAutoCommit(connection, true);
+            }
+        }catch (SQLException | RuntimeException e) {
+            JdbcException exception = e instanceof JdbcException ? (JdbcException) e : new JdbcException(e);
+            failureHandler.onFailure(Collections.unmodifiableList(updates), exception);
+            throw exception;
+        }
+    }
+
+    private void executeBatch(QueryCreator queryCreator, List<Update> updates) {
+        Update first = updates.get(0);
+
+        UpdateBuilder builder = new UpdateBuilder(queryCreator, first.table);
+        first.values.forEach(builder::set);
+        UpdateBuilder.UpdateBuilderCondition condition = builder.where();
+        first.keys.forEach(condition::col);
+
+        Query<Object[]> query = queryCreator.create(new SQLStatementBuilder().createUpdate(condition).toString());
+        for (Update update : updates) {
+            update.values.forEach((k, v) -> query.setParameter(UpdateBuilder.SET_PARAM_PREFIX + k, v));
+            update.keys.forEach((k, v) -> query.setParameter(UpdateBuilder.WHERE_PARAM_PREFIX + k, v));
+            query.addBatch();
+        }
+        query.executeBatch();
+    }
+
+    /**
+     * The handler notified when the pending updates could not be executed
+     */
+    public interface FailureHandler {
+
+        void onFailure(List<Update> updates, JdbcException exception);
+
+    }
+
+    /**
+     * A pending row update
+     */
+    public static class Update {
+
+        private final String table;
+        private final Map<String, Object> keys;
+        private final Map<String, Object> values;
+
+        private Update(String table, Map<String, Object> keys, Map<String, Object> values) {
+            this.table = table;
+            this.keys = keys;
+            this.values = new LinkedHashMap<>(values);
+        }
+
+        public String getTable() {
+            return table;
+        }
+
+        public Map<String, Object> getKeys() {
+            return Collections.unmodifiableMap(keys);
+        }
+
+        public Map<String, Object> getValues() {
+            return Collections.unmodifiableMap(values);
+        }
+
+    }
+
+    public class PendingUpdateBuilder {
+
+        private final String table;
+        private final Map<String, Object> keys;
+        private final Map<String, Object> values;
+
+        private PendingUpdateBuilder(String table) {
+            this.table = table;
+            this.keys = new LinkedHashMap<>();
+            this.values = new LinkedHashMap<>();
+        }
+
+        public PendingUpdateBuilder set(String columnName, Object value) {
+            values.put(columnName, value);
+            return this;
+        }
+
+        /**
+         * Set a column used to identify the row. Updates with the same table
+         * and key values are merged
+         * @param columnName The column name
+         * @param value The column value
+         * @return The builder itself
+         */
+        public PendingUpdateBuilder key(String columnName, Object value) {
+            keys.put(columnName, value);
+            return this;
+        }
+
+        /**
+         * Add the update to the pending updates
+         */
+        public void submit() {
+            if(keys.isEmpty()) {
+                throw new JdbcException("The update must have at least one key column");
+            }
+            if(values.isEmpty()) {
+                throw new JdbcException("The update must have at least one column to set");
+            }
+            WriteBehindUpdater.this.submit(table, new LinkedHashMap<>(keys), values);
+        }
+
+    }
+
+}
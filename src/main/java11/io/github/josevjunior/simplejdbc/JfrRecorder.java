@@ -0,0 +1,158 @@
+package io.github.josevjunior.simplejdbc;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.FlightRecorderListener;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+
+/**
+ * The Java Flight Recorder events of the library. Only compiled for Java 11
+ * into the multi-release jar, see {@link FlightRecorderEvents}
+ */
+final class JfrRecorder implements FlightRecorderEvents.Recorder {
+
+    /**
+     * If a recording is running, updated by the recorder listener, so no event
+     * is created when there is none
+     */
+    private static volatile boolean recording;
+
+    static {
+        FlightRecorder.addListener(new FlightRecorderListener() {
+            @Override
+            public void recordingStateChanged(Recording changed) {
+                recording = isRecording();
+            }
+        });
+        if(FlightRecorder.isInitialized()) {
+            recording = isRecording();
+        }
+    }
+
+    private static boolean isRecording() {
+        for (Recording r : FlightRecorder.getFlightRecorder().getRecordings()) {
+            if(r.getState() == RecordingState.RUNNING) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public Object begin(int type) {
+        if(!recording) {
+            return null;
+        }
+
+        Event event;
+        switch (type) {
+            case PREPARE:
+                event = new PrepareEvent();
+                break;
+            case EXECUTE:
+                event = new ExecuteEvent();
+                break;
+            case FETCH:
+                event = new FetchEvent();
+                break;
+            case BATCH:
+                event = new BatchEvent();
+                break;
+            default:
+                event = new ConnectionAcquireEvent();
+                break;
+        }
+        if(!event.isEnabled()) {
+            return null;
+        }
+        event.begin();
+        return event;
+    }
+
+    @Override
+    public void commitStatement(Object event, String sql, int parameterCount, long rows) {
+        StatementEvent statementEvent = (StatementEvent) event;
+        statementEvent.end();
+        if(statementEvent.shouldCommit()) {
+            statementEvent.sql = sql;
+            statementEvent.parameterCount = parameterCount;
+            statementEvent.rows = rows;
+            statementEvent.commit();
+        }
+    }
+
+    @Override
+    public void commitBatch(Object event, String sql, int parameterCount, int batchSize, long rows) {
+        BatchEvent batchEvent = (BatchEvent) event;
+        batchEvent.batchSize = batchSize;
+        commitStatement(batchEvent, sql, parameterCount, rows);
+    }
+
+    @Override
+    public void commitConnectionAcquire(Object event, String dataSource) {
+        ConnectionAcquireEvent acquireEvent = (ConnectionAcquireEvent) event;
+        acquireEvent.end();
+        if(acquireEvent.shouldCommit()) {
+            acquireEvent.dataSource = dataSource;
+            acquireEvent.commit();
+        }
+    }
+
+    @Category("SimpleJdbc")
+    abstract static class StatementEvent extends Event {
+
+        @Label("SQL")
+        @Description("The sql with '?' in place of the parameters")
+        String sql;
+
+        @Label("Parameter Count")
+        int parameterCount;
+
+        @Label("Rows")
+        @Description("The rows read or updated, -1 if unknown")
+        long rows;
+
+    }
+
+    @Name("io.github.josevjunior.simplejdbc.Prepare")
+    @Label("Statement Prepare")
+    @Description("A statement leased to a query, prepared or reused from the idle ones")
+    static final class PrepareEvent extends StatementEvent {
+    }
+
+    @Name("io.github.josevjunior.simplejdbc.Execute")
+    @Label("Statement Execute")
+    static final class ExecuteEvent extends StatementEvent {
+    }
+
+    @Name("io.github.josevjunior.simplejdbc.Fetch")
+    @Label("Result Fetch")
+    @Description("The rows of a select read and mapped")
+    static final class FetchEvent extends StatementEvent {
+    }
+
+    @Name("io.github.josevjunior.simplejdbc.Batch")
+    @Label("Batch Flush")
+    static final class BatchEvent extends StatementEvent {
+
+        @Label("Batch Size")
+        int batchSize;
+
+    }
+
+    @Name("io.github.josevjunior.simplejdbc.ConnectionAcquire")
+    @Label("Connection Acquire")
+    @Category("SimpleJdbc")
+    static final class ConnectionAcquireEvent extends Event {
+
+        @Label("Data Source")
+        String dataSource;
+
+    }
+
+}
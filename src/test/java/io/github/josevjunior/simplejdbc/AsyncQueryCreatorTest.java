@@ -0,0 +1,57 @@
+package io.github.josevjunior.simplejdbc;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class AsyncQueryCreatorTest {
+
+    @Test
+    public void testRunIndependentQueriesAtSameTime() {
+
+        try(AsyncQueryCreator async = new AsyncQueryCreator(TestDataSource.getDataSource())) {
+
+            CompletableFuture<Integer> inserted = async.create("INSERT INTO TEST_TABLE(ID, INTEGER_COL) VALUES (:ID, 33)")
+                    .setParameter("ID", 3300)
+                    .executeUpdate();
+            Assert.assertEquals(Integer.valueOf(1), inserted.join());
+
+            CompletableFuture<List<Integer>> ids = async.create("SELECT ID FROM TEST_TABLE WHERE INTEGER_COL = ?", Integer.class)
+                    .setParameter(1, 33)
+                    .getResultList();
+            CompletableFuture<Optional<Long>> count = async.create("SELECT COUNT(*) FROM TEST_TABLE WHERE ID = :ID", Long.class)
+                    .setParameter("ID", 3300)
+                    .getFirstResult();
+
+            CompletableFuture.allOf(ids, count).join();
+
+            Assert.assertEquals(1, ids.join().size());
+            Assert.assertEquals(Long.valueOf(1), count.join().get());
+        }
+    }
+
+    @Test
+    public void testCompleteExceptionallyAtGivenExecutor() {
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            AsyncQueryCreator async = new AsyncQueryCreator(TestDataSource.getDataSource(), executor);
+            CompletableFuture<List<Object[]>> result = async.create("SELECT * FROM UNKNOWN_TABLE").getResultList();
+
+            try {
+                result.join();
+                Assert.fail();
+            }catch (CompletionException e) {
+                Assert.assertTrue(e.getCause() instanceof JdbcException);
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+}
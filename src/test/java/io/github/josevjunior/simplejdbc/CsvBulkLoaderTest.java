@@ -0,0 +1,147 @@
+package io.github.josevjunior.simplejdbc;
+
+import java.io.BufferedWriter;
+import java.io.ByteArrayInputStream;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+public class CsvBulkLoaderTest {
+
+    private static final int THROUGHPUT_ROWS = Integer.getInteger("simplejdbc.csv.rows", 2_000_000);
+
+    private QueryCreator qc;
+    private Path file;
+
+    @Before
+    public void before() throws Exception {
+        qc = new QueryCreator(TestDataSource.getDataSource());
+        qc.create("CREATE TABLE CSV_TABLE(ID BIGINT PRIMARY KEY, NAME VARCHAR(50), AMOUNT NUMERIC(10, 2), CREATED DATE)").executeUpdate();
+        file = Files.createTempFile("simplejdbc", ".csv");
+    }
+
+    @After
+    public void after() throws Exception {
+        qc.create("DROP TABLE CSV_TABLE").executeUpdate();
+        qc.closeAll();
+        Files.deleteIfExists(file);
+    }
+
+    @Test
+    public void testTokenizeQuotedFields() {
+
+        String content = "1,\"Joe, \"\"The Boss\"\"\",10.5\r\n\n2,\"Multi\nLine\",\n3,,";
+        CsvTokenizer tokenizer = new CsvTokenizer(Channels.newChannel(new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8))), StandardCharsets.UTF_8, ',', '"', 8);
+
+        List<String> fields = new ArrayList<>();
+        Assert.assertTrue(tokenizer.next(fields));
+        Assert.assertEquals(Arrays.asList("1", "Joe, \"The Boss\"", "10.5"), fields);
+        Assert.assertTrue(tokenizer.next(fields));
+        Assert.assertEquals(Arrays.asList("2", "Multi\nLine", ""), fields);
+        Assert.assertTrue(tokenizer.next(fields));
+        Assert.assertEquals(Arrays.asList("3", "", ""), fields);
+        Assert.assertFalse(tokenizer.next(fields));
+    }
+
+    @Test
+    public void testLoadFileInBatches() throws Exception {
+
+        int rows = 5_000;
+        writeFile(rows);
+
+        List<CsvBulkLoader.LoadStats> progress = new ArrayList<>();
+        CsvBulkLoader.LoadStats stats = qc.csvLoader("CSV_TABLE")
+                .skipHeader(true)
+                .batchSize(300)
+                .commitEvery(1_000)
+                .progress(rows / 4, progress::add)
+                .load(file);
+
+        Assert.assertEquals(rows, stats.getRows());
+        Assert.assertTrue(stats.getRowsPerSecond() > 0);
+        Assert.assertFalse(progress.isEmpty());
+        Assert.assertEquals(Long.valueOf(rows), qc.create("SELECT COUNT(*) FROM CSV_TABLE", Long.class).getFirstResult().get());
+        Assert.assertEquals("Name 42", qc.create("SELECT NAME FROM CSV_TABLE WHERE ID = 42", String.class).getFirstResult().get());
+        Assert.assertTrue(qc.getNativeConnection().getAutoCommit());
+    }
+
+    /**
+     * Only with -Dsimplejdbc.throughput=true or the load profile
+     */
+    @Test
+    public void testLoadThroughput() throws Exception {
+        Assume.assumeTrue(Boolean.getBoolean("simplejdbc.throughput"));
+
+        writeFile(THROUGHPUT_ROWS);
+        CsvBulkLoader.LoadStats stats = qc.csvLoader("CSV_TABLE")
+                .skipHeader(true)
+                .batchSize(5000)
+                .commitEvery(100_000)
+                .load(file);
+
+        System.out.println("CSV load: " + stats);
+        Assert.assertEquals(THROUGHPUT_ROWS, stats.getRows());
+    }
+
+    private void writeFile(int rows) throws Exception {
+        try(BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            writer.write("ID,NAME,AMOUNT,CREATED\n");
+            for (int i = 0; i < rows; i++) {
+                writer.append(Integer.toString(i)).append(",Name ").append(Integer.toString(i))
+                      .append(',').append(Integer.toString(i % 1000)).append(".25,2021-01-")
+                      .append(Integer.toString(i % 20 + 10)).append('\n');
+            }
+        }
+    }
+
+    @Test
+    public void testRollbackUncommittedRowsOnInvalidField() throws Exception {
+
+        Files.write(file, Arrays.asList("1,A,1.0,2021-01-01", "2,B,NOT A NUMBER,2021-01-01"), StandardCharsets.UTF_8);
+
+        try {
+            qc.csvLoader("CSV_TABLE")
+                .columns("ID", "NAME", "AMOUNT", "CREATED")
+                .commitEvery(10)
+                .load(file);
+            Assert.fail("The invalid field should fail the load");
+        }catch (JdbcException expected) {
+        }
+
+        Assert.assertEquals(Long.valueOf(0), qc.create("SELECT COUNT(*) FROM CSV_TABLE", Long.class).getFirstResult().get());
+    }
+
+    @Test
+    public void testBooleanFields() throws Exception {
+
+        qc.create("CREATE TABLE CSV_FLAG(ID BIGINT PRIMARY KEY, ACTIVE BOOLEAN)").executeUpdate();
+        try {
+            Files.write(file, Arrays.asList("1,true", "2,FALSE", "3,1", "4,0", "5,T", "6,f", "7,Yes", "8,no", "9,Y", "10,n", "11,"), StandardCharsets.UTF_8);
+            qc.csvLoader("CSV_FLAG").load(file);
+
+            Assert.assertEquals(Arrays.asList(true, false, true, false, true, false, true, false, true, false, null),
+                    qc.create("SELECT ACTIVE FROM CSV_FLAG ORDER BY ID", (rs, md) -> (Boolean) rs.getObject(1)).getResultList());
+
+            qc.create("DELETE FROM CSV_FLAG").executeUpdate();
+            Files.write(file, Arrays.asList("1,true", "2,maybe"), StandardCharsets.UTF_8);
+            try {
+                qc.csvLoader("CSV_FLAG").load(file);
+                Assert.fail("The invalid boolean should fail the load");
+            }catch (JdbcException expected) {
+                Assert.assertTrue(expected.getMessage(), expected.getMessage().contains("'maybe' at row 2, column 2"));
+            }
+        } finally {
+            qc.create("DROP TABLE CSV_FLAG").executeUpdate();
+        }
+    }
+
+}
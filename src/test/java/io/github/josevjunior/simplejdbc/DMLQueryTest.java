@@ -6,6 +6,7 @@ import io.github.josevjunior.simplejdbc.QueryCreator;
 import java.sql.Date;
 import java.sql.Time;
 import java.sql.Timestamp;
+import java.util.ArrayList;
 import java.util.List;
 import org.junit.Assert;
 import org.junit.Test;
@@ -73,4 +74,133 @@ public class DMLQueryTest {
         
     }
     
+    @Test
+    public void testInsertReturningGeneratedKey() {
+        
+        QueryCreator qc = new QueryCreator(TestDataSource.getDataSource());
+        long key = qc.insert("TEST_TABLE")
+                .col("VARCHAR_COL", "GENERATED KEY")
+                .col("INTEGER_COL", 26)
+                .executeAndGetKey();
+        
+        Integer id = qc.create("SELECT ID FROM TEST_TABLE WHERE VARCHAR_COL = :VARCHAR_COL", Integer.class)
+                .setParameter("VARCHAR_COL", "GENERATED KEY")
+                .getFirstResult()
+                .get();
+        
+        Assert.assertEquals(id.longValue(), key);
+    }
+    
+    @Test
+    public void testBatchInsertReturningGeneratedKeys() {
+        
+        QueryCreator qc = new QueryCreator(TestDataSource.getDataSource());
+        InsertBuilder insert = qc.insert("TEST_TABLE").batchSize(3);
+        for (int i = 0; i < 10; i++) {
+            insert.col("VARCHAR_COL", "BATCH " + i)
+                  .col("INTEGER_COL", 27)
+                  .addBatch();
+        }
+        
+        long[] keys = insert.executeAndGetKeys();
+        Assert.assertEquals(10, keys.length);
+        
+        for (int i = 0; i < keys.length; i++) {
+            String value = qc.create("SELECT VARCHAR_COL FROM TEST_TABLE WHERE ID = :ID", String.class)
+                .setParameter("ID", keys[i])
+                .getFirstResult()
+                .get();
+            
+            Assert.assertEquals("BATCH " + i, value);
+        }
+    }
+    
+    @Test
+    public void testInsertBuilderCanBeExecutedAgain() {
+        
+        QueryCreator qc = new QueryCreator(TestDataSource.getDataSource());
+        InsertBuilder insert = qc.insert("TEST_TABLE")
+                .col("VARCHAR_COL", "REPEATED")
+                .col("INTEGER_COL", 29);
+        long first = insert.executeAndGetKey();
+        long second = insert.executeAndGetKey();
+        Assert.assertNotEquals(first, second);
+        
+        insert.col("VARCHAR_COL", "REPEATED 2").addBatch();
+        Assert.assertEquals("REPEATED 2", insert.getColumnsAndValues().get("VARCHAR_COL"));
+        Assert.assertEquals(1, insert.executeAndGetKeys().length);
+        
+        Long count = qc.create("SELECT COUNT(*) FROM TEST_TABLE WHERE INTEGER_COL = 29", Long.class).getFirstResult().get();
+        Assert.assertEquals(Long.valueOf(3), count);
+    }
+    
+    @Test
+    public void testUpsertInsertsAndUpdatesInBatch() {
+        
+        QueryCreator qc = new QueryCreator(TestDataSource.getDataSource());
+        UpsertBuilder upsert = qc.upsert("TEST_TABLE").batchSize(2);
+        for (int i = 0; i < 5; i++) {
+            upsert.key("ID", 2700 + i)
+                  .col("VARCHAR_COL", "INSERTED")
+                  .col("INTEGER_COL", 28)
+                  .addBatch();
+        }
+        upsert.execute();
+        
+        int[] counts = qc.upsert("TEST_TABLE")
+                .key("ID", 2700)
+                .col("VARCHAR_COL", "MERGED")
+                .col("INTEGER_COL", 28)
+                .addBatch()
+                .key("ID", 2705)
+                .col("VARCHAR_COL", "MERGED")
+                .col("INTEGER_COL", 28)
+                .execute();
+        
+        Assert.assertEquals(2, counts.length);
+        
+        List<Object[]> rows = qc.create("SELECT ID, VARCHAR_COL FROM TEST_TABLE WHERE INTEGER_COL = 28 ORDER BY ID").getResultList();
+        Assert.assertEquals(6, rows.size());
+        Assert.assertEquals("MERGED", rows.get(0)[1]);
+        Assert.assertEquals("INSERTED", rows.get(1)[1]);
+        Assert.assertEquals("MERGED", rows.get(5)[1]);
+    }
+    
+    @Test
+    public void testDeleteInChunks() throws Exception {
+        
+        QueryCreator qc = new QueryCreator(TestDataSource.getDataSource());
+        InsertBuilder insert = qc.insert("TEST_TABLE");
+        for (int i = 0; i < 2500; i++) {
+            insert.col("VARCHAR_COL", "PURGE").col("INTEGER_COL", 30).addBatch();
+        }
+        long[] keys = insert.executeAndGetKeys();
+        
+        List<Long> toDelete = new ArrayList<>();
+        for (int i = 0; i < 2450; i++) {
+            toDelete.add(keys[i]);
+        }
+        
+        qc.getNativeConnection().setAutoCommit(false);
+        int deleted = qc.delete("TEST_TABLE")
+                .where()
+                .col("INTEGER_COL", 30)
+                .in("ID", toDelete)
+                .maxParameters(101)
+                .commitEachChunk(true)
+                .execute();
+        
+        Assert.assertEquals(2450, deleted);
+        
+        deleted = qc.delete("TEST_TABLE")
+                .where()
+                .col("INTEGER_COL", 30)
+                .col("VARCHAR_COL", "PURGE")
+                .execute();
+        qc.commit();
+        
+        Assert.assertEquals(50, deleted);
+        qc.closeAll();
+    }
+    
 }
@@ -0,0 +1,82 @@
+package io.github.josevjunior.simplejdbc;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Lookups of a Zipfian key distribution in a {@link EntityCache} shared by many
+ * threads, loading the missing keys as the queries do. Run with the benchmark
+ * profile, see the README
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class EntityCacheBenchmark {
+
+    private static final int KEYS = 100_000;
+    private static final int REQUESTS = 1 << 20;
+    private static final Object DATABASE = "benchmark";
+
+    @State(Scope.Benchmark)
+    public static class Cache {
+
+        @Param({"1", "16"})
+        public int stripes;
+
+        EntityCache<Integer> cache;
+        int[] requests;
+
+        @Setup(Level.Trial)
+        public void setup() {
+            cache = new EntityCache<>(Integer.class, "T", "ID").maximumSize(1000).stripes(stripes);
+            requests = EntityCacheTest.zipfian(KEYS, 0.99, REQUESTS, new Random(42));
+        }
+
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+
+        int next;
+
+        @Setup(Level.Trial)
+        public void setup() {
+            next = new Random().nextInt(REQUESTS);
+        }
+
+    }
+
+    @Benchmark
+    public Integer lookup(Cache cache, Cursor cursor) {
+        int key = cache.requests[cursor.next];
+        cursor.next = (cursor.next + 1) & (REQUESTS - 1);
+        Integer value = cache.cache.getIfPresent(DATABASE, key);
+        if(value == null) {
+            cache.cache.put(DATABASE, key, key, cache.cache.stamp(key));
+        }
+        return value;
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder().include(EntityCacheBenchmark.class.getSimpleName()).build()).run();
+    }
+
+}
@@ -0,0 +1,285 @@
+package io.github.josevjunior.simplejdbc;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class EntityCacheTest {
+
+    private static final int REQUESTS = Integer.getInteger("simplejdbc.zipf.requests", 200_000);
+
+    private static final Object DATABASE = "test";
+
+    private static final String ITEM_SQL = "SELECT * FROM ENTITY_ITEM WHERE ID = :ID";
+
+    @Before
+    public void createTable() {
+        try(QueryCreator qc = new QueryCreator(TestDataSource.getDataSource())) {
+            qc.create("CREATE TABLE IF NOT EXISTS ENTITY_ITEM (ID BIGINT PRIMARY KEY, NAME VARCHAR(20))").executeUpdate();
+            qc.create("DELETE FROM ENTITY_ITEM").executeUpdate();
+            qc.insert("ENTITY_ITEM").col("ID", 1).col("NAME", "first").addBatch()
+                    .col("ID", 2).col("NAME", "second").execute();
+        }
+    }
+
+    @Test
+    public void testLookupByKey() {
+        EntityCache<Item> cache = new EntityCache<>(Item.class, "entity_item", "id");
+        try(QueryCreator qc = new QueryCreator(TestDataSource.getDataSource())) {
+            qc.setEntityCache(cache);
+
+            Item first = item(qc, 1);
+            Assert.assertEquals("first", first.getName());
+            Assert.assertSame(first, item(qc, 1));
+            Assert.assertSame(first, qc.create("select e.* from ENTITY_ITEM e where e.ID = ?", Item.class)
+                    .setParameter(1, 1L).getFirstResult().get());
+            Assert.assertFalse(qc.create(ITEM_SQL, Item.class).setParameter("ID", 3).getFirstResult().isPresent());
+
+            // Not a lookup by key
+            qc.create("SELECT ID, NAME FROM ENTITY_ITEM WHERE ID = :ID", Item.class).setParameter("ID", 1).getFirstResult();
+            qc.create("SELECT * FROM ENTITY_ITEM WHERE ID = :ID OR NAME = 'x'", Item.class).setParameter("ID", 1).getFirstResult();
+            Assert.assertNotSame(first, qc.create("SELECT * FROM PUBLIC.ENTITY_ITEM WHERE ID = :ID", Item.class).setParameter("ID", 1).getFirstResult().get());
+
+            Assert.assertEquals(2, cache.getHitCount());
+            Assert.assertEquals(2, cache.getMissCount());
+            Assert.assertEquals(1, cache.size());
+        }
+    }
+
+    @Test
+    public void testDatabasesHaveTheirOwnBeans() {
+        JdbcDataSource other = new JdbcDataSource();
+        other.setURL("jdbc:h2:mem:entity_other;DB_CLOSE_DELAY=-1");
+        other.setUser("sa");
+        other.setPassword("sa");
+
+        EntityCache<Item> cache = new EntityCache<>(Item.class, "ENTITY_ITEM", "ID");
+        try(QueryCreator qc = new QueryCreator(TestDataSource.getDataSource());
+                QueryCreator otherQc = new QueryCreator(other)) {
+            otherQc.create("CREATE TABLE IF NOT EXISTS ENTITY_ITEM (ID BIGINT PRIMARY KEY, NAME VARCHAR(20))").executeUpdate();
+            otherQc.create("DELETE FROM ENTITY_ITEM").executeUpdate();
+            otherQc.insert("ENTITY_ITEM").col("ID", 1).col("NAME", "other").execute();
+            qc.setEntityCache(cache);
+            otherQc.setEntityCache(cache);
+
+            Assert.assertEquals("first", item(qc, 1).getName());
+            Assert.assertEquals("other", item(otherQc, 1).getName());
+            Assert.assertEquals("first", item(qc, 1).getName());
+            Assert.assertEquals("other", cache.getIfPresent(otherQc, 1).getName());
+            Assert.assertEquals(2, cache.size());
+
+            // The key is evicted in every database
+            qc.update("ENTITY_ITEM").set("NAME", "updated").where().col("ID", 1).execute();
+            Assert.assertEquals(0, cache.size());
+        }
+    }
+
+    @Test
+    public void testBuildersEvictTheirKeys() {
+        EntityCache<Item> cache = new EntityCache<>(Item.class, "ENTITY_ITEM", "ID");
+        try(QueryCreator qc = new QueryCreator(TestDataSource.getDataSource())) {
+            qc.setEntityCache(cache);
+            item(qc, 1);
+            item(qc, 2);
+
+            qc.update("ENTITY_ITEM").set("NAME", "updated").where().col("ID", 1).execute();
+            Assert.assertEquals(1, cache.size());
+            Assert.assertEquals("updated", item(qc, 1).getName());
+
+            qc.insert("ENTITY_ITEM").col("ID", 3).col("NAME", "third").execute();
+            Assert.assertEquals(2, cache.size());
+
+            qc.delete("ENTITY_ITEM").where().in("ID", Arrays.asList(2, 3)).execute();
+            Assert.assertEquals(1, cache.size());
+            Assert.assertNull(cache.getIfPresent(qc, 2));
+
+            // The keys of other writes are unknown
+            qc.create("UPDATE ENTITY_ITEM SET NAME = 'all'").executeUpdate();
+            Assert.assertEquals(0, cache.size());
+            Assert.assertEquals("all", item(qc, 1).getName());
+        }
+    }
+
+    @Test
+    public void testChunkedDeleteWritesEachKeyOnce() throws Exception {
+        EntityCache<Item> cache = new EntityCache<>(Item.class, "ENTITY_ITEM", "ID");
+        try(QueryCreator qc = new QueryCreator(TestDataSource.getDataSource())) {
+            qc.setEntityCache(cache);
+            item(qc, 1);
+
+            List<Long> keys = new ArrayList<>();
+            for (long id = 1; id <= 25; id++) {
+                keys.add(id);
+            }
+
+            qc.getNativeConnection().setAutoCommit(false);
+            try {
+                int deleted = qc.delete("ENTITY_ITEM").where().in("ID", keys).maxParameters(10).execute();
+                Assert.assertEquals(2, deleted);
+                Assert.assertEquals(25, qc.getWrittenRows("ENTITY_ITEM").size());
+                Assert.assertEquals(1, cache.size());
+
+                qc.commit();
+                Assert.assertEquals(0, cache.size());
+            } finally {
+                qc.getNativeConnection().setAutoCommit(true);
+            }
+        }
+    }
+
+    @Test
+    public void testTransactionEvictsAtCommit() throws Exception {
+        EntityCache<Item> cache = new EntityCache<>(Item.class, "ENTITY_ITEM", "ID");
+        try(QueryCreator qc = new QueryCreator(TestDataSource.getDataSource())) {
+            qc.setEntityCache(cache);
+            item(qc, 1);
+
+            new TransactionTemplate().execute(qc, q -> {
+                q.update("ENTITY_ITEM").set("NAME", "in transaction").where().col("ID", 1).execute();
+                Assert.assertEquals(1, cache.size());
+                Assert.assertEquals("in transaction", item(q, 1).getName());
+                return null;
+            });
+
+            Assert.assertEquals(0, cache.size());
+            Assert.assertEquals("in transaction", item(qc, 1).getName());
+        }
+    }
+
+    @Test
+    public void testBeanReadBeforeEvictionIsNotCached() {
+        EntityCache<String> cache = new EntityCache<>(String.class, "T", "ID");
+
+        long stamp = cache.stamp(1);
+        cache.invalidate(1L);
+        cache.put(DATABASE, 1, "old", stamp);
+        Assert.assertNull(cache.getIfPresent(DATABASE, 1));
+
+        cache.put(DATABASE, 1, "new", cache.stamp(1));
+        Assert.assertEquals("new", cache.getIfPresent(DATABASE, 1));
+    }
+
+    @Test
+    public void testScanDoesNotEvictFrequentKeys() {
+        EntityCache<Integer> cache = new EntityCache<>(Integer.class, "T", "ID").maximumSize(100).stripes(1);
+
+        for (int round = 0; round < 10; round++) {
+            for (int key = 0; key < 50; key++) {
+                load(cache, key);
+            }
+        }
+        for (int key = 1000; key < 11000; key++) {
+            load(cache, key);
+        }
+
+        int hits = 0;
+        for (int key = 0; key < 50; key++) {
+            hits += cache.getIfPresent(DATABASE, key) != null ? 1 : 0;
+        }
+        Assert.assertTrue("Only " + hits + " frequent keys survived the scan", hits >= 45);
+        Assert.assertTrue(cache.size() <= 100);
+    }
+
+    @Test
+    public void testExpireAfterWrite() throws Exception {
+        EntityCache<String> cache = new EntityCache<>(String.class, "T", "ID").expireAfterWrite(50, TimeUnit.MILLISECONDS);
+
+        cache.put(DATABASE, 1, "first", cache.stamp(1));
+        Assert.assertEquals("first", cache.getIfPresent(DATABASE, 1));
+
+        Thread.sleep(100);
+        Assert.assertNull(cache.getIfPresent(DATABASE, 1));
+        Assert.assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testZipfianHitRate() {
+        int keys = 100_000;
+        int maximumSize = 1000;
+        int[] requests = zipfian(keys, 0.99, REQUESTS, new Random(42));
+
+        EntityCache<Integer> cache = new EntityCache<>(Integer.class, "T", "ID").maximumSize(maximumSize).stripes(1);
+        for (int key : requests) {
+            load(cache, key);
+        }
+
+        Map<Integer, Integer> lru = new LinkedHashMap<Integer, Integer>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, Integer> eldest) {
+                return size() > maximumSize;
+            }
+        };
+        long lruHits = 0;
+        for (int key : requests) {
+            if(lru.get(key) != null) {
+                lruHits++;
+            } else {
+                lru.put(key, key);
+            }
+        }
+        double lruHitRate = (double) lruHits / requests.length;
+
+        Assert.assertTrue("W-TinyLFU " + cache.getHitRate() + ", LRU " + lruHitRate, cache.getHitRate() > lruHitRate);
+    }
+
+    static void load(EntityCache<Integer> cache, int key) {
+        if(cache.getIfPresent(DATABASE, key) == null) {
+            cache.put(DATABASE, key, key, cache.stamp(key));
+        }
+    }
+    /**
+     * Keys from 0 to n - 1 where the frequency of the key k is proportional to
+     * 1 / (k + 1)^s
+     */
+    static int[] zipfian(int n, double s, int count, Random random) {
+        double[] cdf = new double[n];
+        double sum = 0;
+        for (int k = 0; k < n; k++) {
+            sum += 1 / Math.pow(k + 1, s);
+            cdf[k] = sum;
+        }
+
+        int[] keys = new int[count];
+        for (int i = 0; i < count; i++) {
+            int index = Arrays.binarySearch(cdf, random.nextDouble() * sum);
+            keys[i] = index >= 0 ? index : Math.min(n - 1, -index - 1);
+        }
+        return keys;
+    }
+
+    private static Item item(QueryCreator qc, int id) {
+        return qc.create(ITEM_SQL, Item.class).setParameter("ID", id).getFirstResult().orElse(null);
+    }
+
+    public static class Item {
+
+        private Long id;
+        private String name;
+
+        public Long getId() {
+            return id;
+        }
+
+        public void setId(Long id) {
+            this.id = id;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+    }
+
+}
@@ -0,0 +1,86 @@
+package io.github.josevjunior.simplejdbc;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Test;
+
+public class FlightRecorderEventsTest {
+
+    private static final String RANGE_SQL = "SELECT X FROM SYSTEM_RANGE(1, :MAX)";
+
+    @Test
+    public void testNoEventsWithoutRecording() {
+        Assert.assertNull(FlightRecorderEvents.beginExecute());
+        Assert.assertNull(FlightRecorderEvents.beginConnectionAcquire());
+        FlightRecorderEvents.commitExecute(null, "SELECT 1", 0, -1);
+    }
+
+    @Test
+    public void testEventsAreRecorded() throws Exception {
+        Assume.assumeTrue(FlightRecorderEvents.isAvailable());
+
+        Path file = Files.createTempFile("simplejdbc", ".jfr");
+        try {
+            try(Recording recording = new Recording()) {
+                for (String name : new String[] {"Prepare", "Execute", "Fetch", "Batch", "ConnectionAcquire"}) {
+                    recording.enable("io.github.josevjunior.simplejdbc." + name).withoutThreshold();
+                }
+                recording.start();
+
+                try(QueryCreator qc = new QueryCreator(TestDataSource.getDataSource())) {
+                    Assert.assertEquals(3, qc.create(RANGE_SQL, Long.class).setParameter("MAX", 3).getResultList().size());
+                    qc.create("CREATE TABLE IF NOT EXISTS JFR_ITEM (ID BIGINT)").executeUpdate();
+                    qc.insert("JFR_ITEM").col("ID", 1).addBatch().col("ID", 2).execute();
+                }
+
+                recording.stop();
+                recording.dump(file);
+            }
+
+            List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+            Assert.assertEquals(1, count(events, "ConnectionAcquire"));
+
+            RecordedEvent fetch = single(events, "Fetch");
+            Assert.assertEquals(NamedParameterSQL.parse(RANGE_SQL).getParsedQuery(), fetch.getString("sql"));
+            Assert.assertEquals(3, fetch.getLong("rows"));
+            Assert.assertEquals(1, fetch.getInt("parameterCount"));
+
+            RecordedEvent batch = single(events, "Batch");
+            Assert.assertTrue(batch.getString("sql").startsWith("INSERT INTO JFR_ITEM"));
+            Assert.assertEquals(2, batch.getInt("batchSize"));
+            Assert.assertEquals(2, batch.getLong("rows"));
+
+            Assert.assertEquals(2, count(events, "Execute"));
+            Assert.assertEquals(3, count(events, "Prepare"));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+
+        // The events stop with the recording
+        Assert.assertNull(FlightRecorderEvents.beginExecute());
+    }
+
+    private static List<RecordedEvent> ofType(List<RecordedEvent> events, String name) {
+        return events.stream()
+                .filter(e -> e.getEventType().getName().equals("io.github.josevjunior.simplejdbc." + name))
+                .collect(Collectors.toList());
+    }
+
+    private static int count(List<RecordedEvent> events, String name) {
+        return ofType(events, name).size();
+    }
+
+    private static RecordedEvent single(List<RecordedEvent> events, String name) {
+        List<RecordedEvent> found = ofType(events, name);
+        Assert.assertEquals(1, found.size());
+        return found.get(0);
+    }
+
+}
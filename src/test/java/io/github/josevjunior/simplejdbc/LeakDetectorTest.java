@@ -0,0 +1,129 @@
+package io.github.josevjunior.simplejdbc;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class LeakDetectorTest {
+
+    private final List<LeakDetector.Leak> leaks = new CopyOnWriteArrayList<>();
+
+    @Before
+    public void enable() {
+        LeakDetector.setSampleRate(1);
+        LeakDetector.setReporter(leaks::add);
+    }
+
+    @After
+    public void disable() {
+        LeakDetector.setSampleRate(0);
+        LeakDetector.setReporter(null);
+    }
+
+    @Test
+    public void testLeakedResourcesAreReported() throws Exception {
+        long openCreators = LeakDetector.getOpenCount(LeakDetector.Resource.QUERY_CREATOR);
+        long leakedResults = LeakDetector.getLeakCount(LeakDetector.Resource.SCROLLABLE_RESULT);
+
+        leakScrollableResult();
+        Assert.assertEquals(openCreators + 1, LeakDetector.getOpenCount(LeakDetector.Resource.QUERY_CREATOR));
+
+        awaitLeak(LeakDetector.Resource.SCROLLABLE_RESULT);
+        awaitLeak(LeakDetector.Resource.QUERY_CREATOR);
+
+        LeakDetector.Leak leak = find(LeakDetector.Resource.SCROLLABLE_RESULT);
+        Assert.assertTrue(opened(leak, "leakScrollableResult"));
+        Assert.assertEquals(leakedResults + 1, LeakDetector.getLeakCount(LeakDetector.Resource.SCROLLABLE_RESULT));
+        Assert.assertEquals(openCreators, LeakDetector.getOpenCount(LeakDetector.Resource.QUERY_CREATOR));
+    }
+
+    @Test
+    public void testClosedResourcesAreNotReported() throws Exception {
+        long openCreators = LeakDetector.getOpenCount(LeakDetector.Resource.QUERY_CREATOR);
+        long openQueries = LeakDetector.getOpenCount(LeakDetector.Resource.QUERY);
+
+        closeResources();
+        Assert.assertEquals(openCreators, LeakDetector.getOpenCount(LeakDetector.Resource.QUERY_CREATOR));
+        Assert.assertEquals(openQueries, LeakDetector.getOpenCount(LeakDetector.Resource.QUERY));
+
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+            Thread.sleep(20);
+        }
+        for (LeakDetector.Leak leak : leaks) {
+            Assert.assertFalse(opened(leak, "closeResources"));
+        }
+    }
+
+    @Test
+    public void testClosedResourcesAreNoLongerTracked() {
+        long openQueries = LeakDetector.getOpenCount(LeakDetector.Resource.QUERY);
+
+        try(QueryCreator qc = new QueryCreator(TestDataSource.getDataSource())) {
+            int tracked = LeakDetector.getTrackedCount();
+            Query<Long> query = qc.create("SELECT X FROM SYSTEM_RANGE(1, :MAX)", Long.class);
+            for (int i = 1; i <= 100; i++) {
+                Assert.assertEquals(i, query.setParameter("MAX", i).getResultList().size());
+            }
+            Assert.assertEquals(tracked, LeakDetector.getTrackedCount());
+
+            // Leased again
+            query.getNativeStatement();
+            Assert.assertEquals(tracked + 1, LeakDetector.getTrackedCount());
+            Assert.assertEquals(openQueries + 1, LeakDetector.getOpenCount(LeakDetector.Resource.QUERY));
+        }
+
+        Assert.assertEquals(openQueries, LeakDetector.getOpenCount(LeakDetector.Resource.QUERY));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidSampleRate() {
+        LeakDetector.setSampleRate(2);
+    }
+
+    private void leakScrollableResult() {
+        QueryCreator qc = new QueryCreator(TestDataSource.getDataSource());
+        ScrollableResult<Long> result = qc.create("SELECT X FROM SYSTEM_RANGE(1, 10)", Long.class).getScrollableResult();
+        Assert.assertTrue(result.next());
+    }
+
+    private void closeResources() throws Exception {
+        try(QueryCreator qc = new QueryCreator(TestDataSource.getDataSource())) {
+            Assert.assertEquals(10, qc.create("SELECT X FROM SYSTEM_RANGE(1, 10)", Long.class).getResultList().size());
+            try(ScrollableResult<Long> result = qc.create("SELECT X FROM SYSTEM_RANGE(1, 10)", Long.class).getScrollableResult()) {
+                Assert.assertTrue(result.next());
+            }
+        }
+    }
+
+    private void awaitLeak(LeakDetector.Resource resource) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while(find(resource) == null && System.currentTimeMillis() < deadline) {
+            System.gc();
+            Thread.sleep(20);
+        }
+        Assert.assertNotNull("The " + resource + " leak was not reported", find(resource));
+    }
+
+    private LeakDetector.Leak find(LeakDetector.Resource resource) {
+        for (LeakDetector.Leak leak : leaks) {
+            if(leak.getResource() == resource && opened(leak, "leakScrollableResult")) {
+                return leak;
+            }
+        }
+        return null;
+    }
+
+    private static boolean opened(LeakDetector.Leak leak, String method) {
+        for (StackTraceElement element : leak.getAllocation().getStackTrace()) {
+            if(element.getClassName().equals(LeakDetectorTest.class.getName()) && element.getMethodName().equals(method)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+}
@@ -0,0 +1,361 @@
+package io.github.josevjunior.simplejdbc;
+
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeSet;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * A multithreaded load against the in-memory database: each thread runs a mix
+ * of reads and writes, every operation with its own {@link QueryCreator} over a
+ * shared {@link PooledDataSource}, for a fixed time. The load is repeated a few
+ * times and the median throughput and latency percentiles of each operation are
+ * compared with a baseline file. The run fails if any of them regressed more
+ * than the allowed percentage.
+ * <br>
+ * It is not part of the default test run, use the load profile:
+ * <pre>{@code
+    mvn -Pload test
+    mvn -Pload test -Dsimplejdbc.load.threads=16 -Dsimplejdbc.load.seconds=30 -Dsimplejdbc.load.mix=POINT_READ:50,UPDATE:50
+    mvn -Pload test -Dsimplejdbc.load.maxRegression=10 -Dsimplejdbc.load.maxTailRegression=50
+    mvn -Pload test -Dsimplejdbc.load.record=true   // Writes a new baseline
+   }</pre>
+ *
+ * The numbers depend on the machine, so no baseline is kept in the repository:
+ * record one where the load runs first. The run fails when there is no baseline,
+ * or it was recorded with other threads, mix or number of processors
+ */
+public class LoadHarness {
+
+    private static final int THREADS = Integer.getInteger("simplejdbc.load.threads", 4);
+    private static final int SECONDS = Integer.getInteger("simplejdbc.load.seconds", 5);
+    private static final int RUNS = Integer.getInteger("simplejdbc.load.runs", 3);
+    private static final int WARMUP_SECONDS = Integer.getInteger("simplejdbc.load.warmup", 3);
+    private static final String MIX = System.getProperty("simplejdbc.load.mix", "POINT_READ:60,RANGE_READ:20,UPDATE:15,INSERT:5");
+    private static final double MAX_REGRESSION = Double.parseDouble(System.getProperty("simplejdbc.load.maxRegression", "25"));
+    private static final double MAX_TAIL_REGRESSION = Double.parseDouble(System.getProperty("simplejdbc.load.maxTailRegression", "100"));
+    private static final boolean RECORD = Boolean.getBoolean("simplejdbc.load.record");
+    private static final Path BASELINE = Paths.get(System.getProperty("simplejdbc.load.baseline", "src/test/resources/load-baseline.properties"));
+
+    private static final int ITEMS = 10_000;
+    private static final double[] PERCENTILES = {50, 99, 99.9};
+
+    /**
+     * The keys which describe the run instead of measuring it
+     */
+    private static final List<String> SETTINGS = Arrays.asList("threads", "mix", "processors");
+
+    enum Operation {
+        POINT_READ, RANGE_READ, UPDATE, INSERT
+    }
+
+    @Test
+    public void testThroughputAndLatency() throws Exception {
+        Map<Operation, Integer> mix = parseMix(MIX);
+        createTables();
+
+        Map<Operation, LatencyHistogram> latencies = new EnumMap<>(Operation.class);
+        for (Operation operation : mix.keySet()) {
+            latencies.put(operation, new LatencyHistogram());
+        }
+
+        List<Properties> runs = new ArrayList<>();
+        try(PooledDataSource pool = new PooledDataSource(TestDataSource.getDataSource())) {
+            pool.setMaxSize(THREADS);
+            run(pool, mix, latencies, WARMUP_SECONDS);
+            for (int i = 0; i < RUNS; i++) {
+                for (LatencyHistogram histogram : latencies.values()) {
+                    histogram.reset();
+                }
+                run(pool, mix, latencies, SECONDS);
+                runs.add(result(latencies));
+            }
+        }
+
+        Properties result = median(runs);
+        print(result);
+
+        if(RECORD) {
+            record(result);
+            System.out.println("Load baseline written to " + BASELINE);
+            return;
+        }
+
+        Assert.assertTrue("No load baseline at " + BASELINE + ", record a baseline first with -Dsimplejdbc.load.record=true",
+                Files.exists(BASELINE));
+        Properties baseline = new Properties();
+        try(InputStream in = Files.newInputStream(BASELINE)) {
+            baseline.load(in);
+        }
+        for (String setting : SETTINGS) {
+            Assert.assertEquals("The load baseline at " + BASELINE + " was recorded with other " + setting
+                    + ", record a baseline first with -Dsimplejdbc.load.record=true",
+                    baseline.getProperty(setting), result.getProperty(setting));
+        }
+
+        List<String> regressions = compare(baseline, result);
+        Assert.assertTrue("Regressions against " + BASELINE + ":\n" + String.join("\n", regressions), regressions.isEmpty());
+    }
+
+    /**
+     * Write the baseline sorted by key, so its changes are easy to review
+     */
+    private static void record(Properties result) throws Exception {
+        List<String> lines = new ArrayList<>();
+        lines.add("# Recorded by LoadHarness");
+        for (String key : new TreeSet<>(result.stringPropertyNames())) {
+            lines.add(key + "=" + result.getProperty(key));
+        }
+        Files.createDirectories(BASELINE.toAbsolutePath().getParent());
+        Files.write(BASELINE, lines, StandardCharsets.UTF_8);
+    }
+
+    private static Map<Operation, Integer> parseMix(String mix) {
+        Map<Operation, Integer> weights = new LinkedHashMap<>();
+        for (String entry : mix.split(",")) {
+            String[] parts = entry.trim().split(":");
+            weights.put(Operation.valueOf(parts[0].trim()), Integer.parseInt(parts[1].trim()));
+        }
+        return weights;
+    }
+
+    private static void createTables() throws Exception {
+        try(Connection connection = TestDataSource.getNewConnection()) {
+            try(Statement statement = connection.createStatement()) {
+                statement.executeUpdate("DROP TABLE IF EXISTS LOAD_ITEM");
+                statement.executeUpdate("DROP TABLE IF EXISTS LOAD_EVENT");
+                statement.executeUpdate("CREATE TABLE LOAD_ITEM (ID INTEGER PRIMARY KEY, NAME VARCHAR(100), QUANTITY INTEGER, PRICE NUMERIC(10, 2))");
+                statement.executeUpdate("CREATE TABLE LOAD_EVENT (ID BIGINT AUTO_INCREMENT PRIMARY KEY, ITEM_ID INTEGER, QUANTITY INTEGER)");
+            }
+            try(PreparedStatement insert = connection.prepareStatement("INSERT INTO LOAD_ITEM (ID, NAME, QUANTITY, PRICE) VALUES (?, ?, ?, ?)")) {
+                for (int i = 1; i <= ITEMS; i++) {
+                    insert.setInt(1, i);
+                    insert.setString(2, "Item " + i);
+                    insert.setInt(3, 0);
+                    insert.setBigDecimal(4, BigDecimal.valueOf(i, 2));
+                    insert.addBatch();
+                }
+                insert.executeBatch();
+            }
+        }
+    }
+
+    private static void run(PooledDataSource pool, Map<Operation, Integer> mix, Map<Operation, LatencyHistogram> latencies, int seconds) throws Exception {
+        Operation[] wheel = wheel(mix);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        CountDownLatch done = new CountDownLatch(THREADS);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+
+        for (int i = 0; i < THREADS; i++) {
+            Thread thread = new Thread(() -> {
+                try {
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    while(System.nanoTime() < deadline && failure.get() == null) {
+                        Operation operation = wheel[random.nextInt(wheel.length)];
+                        long start = System.nanoTime();
+                        try(QueryCreator qc = new QueryCreator(pool)) {
+                            execute(qc, operation, random);
+                        }
+                        latencies.get(operation).record(System.nanoTime() - start);
+                    }
+                }catch (Throwable e) {
+                    failure.compareAndSet(null, e);
+                } finally {
+                    done.countDown();
+                }
+            }, "load-" + i);
+            thread.start();
+        }
+
+        done.await();
+        if(failure.get() != null) {
+            throw new AssertionError("The load failed", failure.get());
+        }
+    }
+
+    /**
+     * The operations repeated by their weight, so a random index picks one
+     */
+    private static Operation[] wheel(Map<Operation, Integer> mix) {
+        List<Operation> wheel = new ArrayList<>();
+        for (Map.Entry<Operation, Integer> entry : mix.entrySet()) {
+            for (int i = 0; i < entry.getValue(); i++) {
+                wheel.add(entry.getKey());
+            }
+        }
+        return wheel.toArray(new Operation[0]);
+    }
+
+    private static void execute(QueryCreator qc, Operation operation, ThreadLocalRandom random) {
+        int id = random.nextInt(ITEMS) + 1;
+        switch (operation) {
+            case POINT_READ:
+                Assert.assertTrue(qc.create("SELECT ID, NAME, QUANTITY, PRICE FROM LOAD_ITEM WHERE ID = :ID", Item.class)
+                        .setParameter("ID", id)
+                        .getFirstResult()
+                        .isPresent());
+                break;
+            case RANGE_READ:
+                qc.create("SELECT ID, NAME, QUANTITY, PRICE FROM LOAD_ITEM WHERE ID BETWEEN :FIRST AND :LAST ORDER BY ID")
+                        .setParameter("FIRST", id)
+                        .setParameter("LAST", id + 20)
+                        .getResultList();
+                break;
+            case UPDATE:
+                qc.update("LOAD_ITEM").set("QUANTITY", random.nextInt(100)).where().col("ID", id).execute();
+                break;
+            default:
+                qc.insert("LOAD_EVENT").col("ITEM_ID", id).col("QUANTITY", random.nextInt(100)).execute();
+                break;
+        }
+    }
+
+    private static Properties result(Map<Operation, LatencyHistogram> latencies) {
+        Properties result = new Properties();
+        result.setProperty("threads", String.valueOf(THREADS));
+        result.setProperty("mix", MIX);
+        result.setProperty("processors", String.valueOf(Runtime.getRuntime().availableProcessors()));
+
+        long total = 0;
+        for (Map.Entry<Operation, LatencyHistogram> entry : latencies.entrySet()) {
+            LatencyHistogram histogram = entry.getValue();
+            String prefix = entry.getKey().name() + ".";
+            total += histogram.getCount();
+            result.setProperty(prefix + "throughput", String.valueOf(histogram.getCount() / SECONDS));
+            for (double percentile : PERCENTILES) {
+                result.setProperty(prefix + "p" + label(percentile), String.valueOf(histogram.getValueAtPercentile(percentile, TimeUnit.MICROSECONDS)));
+            }
+        }
+        result.setProperty("throughput", String.valueOf(total / SECONDS));
+        return result;
+    }
+
+    /**
+     * The median of each value over the runs, so a single noisy run does not
+     * fail the comparison
+     */
+    private static Properties median(List<Properties> runs) {
+        Properties median = new Properties();
+        for (String key : runs.get(0).stringPropertyNames()) {
+            if(SETTINGS.contains(key)) {
+                median.setProperty(key, runs.get(0).getProperty(key));
+                continue;
+            }
+            long[] values = new long[runs.size()];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = Long.parseLong(runs.get(i).getProperty(key));
+            }
+            Arrays.sort(values);
+            median.setProperty(key, String.valueOf(values[values.length / 2]));
+        }
+        return median;
+    }
+
+    private static String label(double percentile) {
+        return percentile == (long) percentile ? String.valueOf((long) percentile) : String.valueOf(percentile).replace(".", "");
+    }
+
+    private static void print(Properties result) {
+        System.out.println(String.format("Load: %s threads, median of %d runs of %d s, mix %s: %s ops/s",
+                THREADS, RUNS, SECONDS, MIX, result.getProperty("throughput")));
+        for (Operation operation : Operation.values()) {
+            String prefix = operation.name() + ".";
+            if(result.getProperty(prefix + "throughput") != null) {
+                System.out.println(String.format("  %-10s %8s ops/s, p50 %6s us, p99 %6s us, p999 %6s us", operation,
+                        result.getProperty(prefix + "throughput"), result.getProperty(prefix + "p50"),
+                        result.getProperty(prefix + "p99"), result.getProperty(prefix + "p999")));
+            }
+        }
+    }
+
+    /**
+     * @return The throughputs lower and the p50/p99 latencies higher than the
+     * baseline by more than the allowed percentage. The p99 has its own, larger
+     * allowance since it varies more from run to run
+     */
+    private static List<String> compare(Properties baseline, Properties result) {
+        List<String> regressions = new ArrayList<>();
+        for (String key : result.stringPropertyNames()) {
+            String expected = baseline.getProperty(key);
+            // The p999 is reported, but too noisy to fail the run
+            if(expected == null || SETTINGS.contains(key) || key.endsWith(".p999")) {
+                continue;
+            }
+
+            double before = Double.parseDouble(expected);
+            double now = Double.parseDouble(result.getProperty(key));
+            double change = before == 0 ? 0 : (now - before) * 100 / before;
+            boolean regressed;
+            if(key.endsWith("throughput")) {
+                regressed = -change > MAX_REGRESSION;
+            } else {
+                regressed = change > (key.endsWith(".p99") ? MAX_TAIL_REGRESSION : MAX_REGRESSION);
+            }
+            if(regressed) {
+                regressions.add(String.format("%s: %s -> %s (%+.1f%%)", key, expected, result.getProperty(key), change));
+            }
+        }
+        return regressions;
+    }
+
+    public static class Item {
+
+        private Integer id;
+        private String name;
+        private Integer quantity;
+        private BigDecimal price;
+
+        public Integer getId() {
+            return id;
+        }
+
+        public void setId(Integer id) {
+            this.id = id;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public Integer getQuantity() {
+            return quantity;
+        }
+
+        public void setQuantity(Integer quantity) {
+            this.quantity = quantity;
+        }
+
+        public BigDecimal getPrice() {
+            return price;
+        }
+
+        public void setPrice(BigDecimal price) {
+            this.price = price;
+        }
+
+    }
+
+}
@@ -0,0 +1,137 @@
+package io.github.josevjunior.simplejdbc;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class MapperRegistryTest {
+
+    @Test
+    public void testHierarchicalResolution() {
+        MapperRegistry registry = new MapperRegistry();
+        RowMapper<Object> baseMapper = (rs, md) -> "base";
+        RowMapper<Object> namedMapper = (rs, md) -> "named";
+        RowMapper<Object> childMapper = (rs, md) -> "child";
+
+        registry.register(Base.class, baseMapper);
+        registry.register(Named.class, namedMapper);
+
+        Assert.assertSame(baseMapper, registry.lookup(Base.class));
+        Assert.assertSame(baseMapper, registry.lookup(Child.class));
+        Assert.assertSame(baseMapper, registry.lookup(GrandChild.class));
+        Assert.assertSame(namedMapper, registry.lookup(NamedBean.class));
+        Assert.assertSame(namedMapper, registry.lookup(TitledBean.class));
+        Assert.assertNull(registry.lookup(String.class));
+
+        // The cached resolutions are dropped by a new registration
+        registry.register(Child.class, childMapper);
+        Assert.assertSame(childMapper, registry.lookup(GrandChild.class));
+        Assert.assertSame(baseMapper, registry.lookup(Base.class));
+
+        registry.register(Child.class, null);
+        Assert.assertSame(baseMapper, registry.lookup(GrandChild.class));
+
+        registry.register(Base.class, null);
+        Assert.assertNull(registry.lookup(GrandChild.class));
+    }
+
+    @Test
+    public void testQueryCreatorResolvesSupertypeMapper() {
+        RowMapper<Base> mapper = (rs, md) -> new GrandChild();
+        QueryCreator.setDefaultTypeMapper(Base.class, mapper);
+        try(QueryCreator qc = new QueryCreator(TestDataSource.getDataSource())) {
+            Assert.assertSame(mapper, QueryCreator.getDefaultMapper(Child.class));
+            Assert.assertTrue(qc.create("SELECT 1", Child.class).getFirstResult().get() instanceof GrandChild);
+        } finally {
+            QueryCreator.setDefaultTypeMapper(Base.class, null);
+        }
+        Assert.assertNull(QueryCreator.getDefaultMapper(Child.class));
+    }
+
+    @Test
+    public void testConcurrentRegistrationAndLookup() throws Exception {
+        MapperRegistry registry = new MapperRegistry();
+        RowMapper<Object> baseMapper = (rs, md) -> "base";
+        registry.register(Base.class, baseMapper);
+
+        int writers = 2;
+        int readers = 6;
+        int registrations = 20_000;
+        ExecutorService executor = Executors.newFixedThreadPool(writers + readers);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicBoolean writing = new AtomicBoolean(true);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            List<Future<?>> writerFutures = new ArrayList<>();
+            for (int w = 0; w < writers; w++) {
+                RowMapper<Object> childMapper = (rs, md) -> "child";
+                Class<?> type = w == 0 ? Child.class : Named.class;
+                writerFutures.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < registrations; i++) {
+                        registry.register(type, i % 2 == 0 ? childMapper : null);
+                    }
+                    return null;
+                }));
+            }
+            for (int r = 0; r < readers; r++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    while(writing.get()) {
+                        // Base is never changed, and its subtypes always have a mapper
+                        Assert.assertSame(baseMapper, registry.lookup(Base.class));
+                        Assert.assertNotNull(registry.lookup(GrandChild.class));
+                        RowMapper<?> named = registry.lookup(TitledBean.class);
+                        Assert.assertTrue(named == null || named.map(null, null).equals("child"));
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+
+            for (Future<?> future : writerFutures) {
+                future.get(1, TimeUnit.MINUTES);
+            }
+            writing.set(false);
+            for (Future<?> future : futures) {
+                future.get(1, TimeUnit.MINUTES);
+            }
+        } finally {
+            writing.set(false);
+            executor.shutdownNow();
+        }
+
+        // The last registration of both writers was a removal
+        Assert.assertSame(baseMapper, registry.lookup(GrandChild.class));
+        Assert.assertNull(registry.lookup(TitledBean.class));
+    }
+
+    public static class Base {
+    }
+
+    public static class Child extends Base {
+    }
+
+    public static class GrandChild extends Child {
+    }
+
+    public interface Named {
+    }
+
+    public interface Titled extends Named {
+    }
+
+    public static class NamedBean implements Named {
+    }
+
+    public static class TitledBean implements Titled {
+    }
+
+}
@@ -0,0 +1,180 @@
+package io.github.josevjunior.simplejdbc;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class MultiQueryTest {
+
+    @Test
+    public void testSequentialWhenDriverDoesNotSupportMultipleResults() {
+
+        try(QueryCreator qc = new QueryCreator(TestDataSource.getDataSource())) {
+            MultiQuery multi = qc.multiQuery();
+            MultiQuery.Part<Long> range = multi.add("SELECT X FROM SYSTEM_RANGE(:MIN, :MAX)", Long.class)
+                    .setParameter("MIN", 1)
+                    .setParameter("MAX", 3);
+            MultiQuery.Part<Object[]> pair = multi.add("SELECT ?, ?", new ArrayRowMapper())
+                    .setParameter(1, "A")
+                    .setParameter(2, 10);
+
+            MultiQuery.Results results = multi.execute();
+
+            Assert.assertEquals(Arrays.asList(1L, 2L, 3L), results.get(range));
+            Assert.assertEquals("A", results.get(pair).get(0)[0]);
+            Assert.assertEquals(2, results.getExecutionCount());
+        }
+    }
+
+    @Test
+    public void testCombinedInOneRoundTrip() throws Exception {
+
+        AtomicInteger executions = new AtomicInteger();
+        try(QueryCreator qc = new QueryCreator(multiResultConnection(executions))) {
+            MultiQuery multi = qc.multiQuery();
+            MultiQuery.Part<Long> range = multi.add("SELECT X FROM SYSTEM_RANGE(:MIN, :MAX)", Long.class)
+                    .setParameter("MIN", 5)
+                    .setParameter("MAX", 6);
+            MultiQuery.Part<String> text = multi.add("SELECT CONCAT(:A, ':', :A)", String.class)
+                    .setParameter("A", "x");
+            MultiQuery.Part<Long> count = multi.add("SELECT COUNT(*) FROM SYSTEM_RANGE(1, ?)", Long.class)
+                    .setParameter(1, 7);
+
+            MultiQuery.Results results = multi.execute();
+
+            Assert.assertEquals(1, results.getExecutionCount());
+            Assert.assertEquals(1, executions.get());
+            Assert.assertEquals(Arrays.asList(5L, 6L), results.get(range));
+            Assert.assertEquals("x:x", results.get(text).get(0));
+            Assert.assertEquals(Long.valueOf(7), results.get(count).get(0));
+        }
+    }
+
+    @Test
+    public void testMissingResultSetsAreExecutedOneByOne() {
+
+        // H2 only returns the result of the first statement
+        try(QueryCreator qc = new QueryCreator(TestDataSource.getDataSource())) {
+            MultiQuery multi = qc.multiQuery().combined(true);
+            MultiQuery.Part<Long> first = multi.add("SELECT :V", Long.class).setParameter("V", 1L);
+            MultiQuery.Part<Long> second = multi.add("SELECT :V + 1", Long.class).setParameter("V", 1L);
+
+            MultiQuery.Results results = multi.execute();
+
+            Assert.assertEquals(Long.valueOf(1), results.get(first).get(0));
+            Assert.assertEquals(Long.valueOf(2), results.get(second).get(0));
+            Assert.assertEquals(2, results.getExecutionCount());
+        }
+    }
+
+    @Test
+    public void testRejectUpdates() {
+
+        try(QueryCreator qc = new QueryCreator(TestDataSource.getDataSource())) {
+            try {
+                qc.multiQuery().add("UPDATE TEST_TABLE SET INTEGER_COL = 1", Long.class);
+                Assert.fail();
+            }catch (IllegalArgumentException expected) {
+            }
+        }
+    }
+
+    @Test
+    public void testRejectPartOfOtherMultiQuery() {
+
+        try(QueryCreator qc = new QueryCreator(TestDataSource.getDataSource())) {
+            MultiQuery.Part<Long> other = qc.multiQuery().add("SELECT 1", Long.class);
+            MultiQuery.Results results = qc.multiQuery().execute();
+            try {
+                results.get(other);
+                Assert.fail();
+            }catch (IllegalArgumentException expected) {
+            }
+        }
+    }
+
+    /**
+     * A H2 connection that behaves like a driver with multiple result sets.
+     * The joined statements are split and executed at the same execute() call
+     */
+    private static Connection multiResultConnection(AtomicInteger executions) throws Exception {
+        Connection connection = TestDataSource.getNewConnection();
+        return proxy(Connection.class, (method, args) -> {
+            if(method.getName().equals("getMetaData")) {
+                DatabaseMetaData metaData = connection.getMetaData();
+                return proxy(DatabaseMetaData.class, (m, a) -> m.getName().equals("supportsMultipleResultSets") ? true : invoke(metaData, m, a));
+            }
+            if(method.getName().equals("prepareStatement") && ((String) args[0]).contains(";")) {
+                return multiResultStatement(connection, (String) args[0], executions);
+            }
+            return invoke(connection, method, args);
+        });
+    }
+
+    private static PreparedStatement multiResultStatement(Connection connection, String sql, AtomicInteger executions) {
+        Map<Integer, Object> parameters = new TreeMap<>();
+        List<ResultSet> results = new ArrayList<>();
+        int[] current = new int[1];
+
+        return proxy(PreparedStatement.class, (method, args) -> {
+            switch(method.getName()) {
+                case "execute":
+                    executions.incrementAndGet();
+                    int offset = 0;
+                    for (String single : sql.split(";\n")) {
+                        PreparedStatement statement = connection.prepareStatement(single);
+                        int count = NamedParameterSQL.parse(single).getParameterCount();
+                        for (int i = 1; i <= count; i++) {
+                            statement.setObject(i, parameters.get(offset + i));
+                        }
+                        offset += count;
+                        results.add(statement.executeQuery());
+                    }
+                    return true;
+                case "getResultSet":
+                    return results.get(current[0]);
+                case "getMoreResults":
+                    return ++current[0] < results.size();
+                case "getUpdateCount":
+                    return -1;
+                case "isClosed":
+                    return false;
+                default:
+                    if(method.getName().startsWith("set") && args != null && args.length == 2 && args[0] instanceof Integer) {
+                        parameters.put((Integer) args[0], args[1]);
+                    }
+                    return null;
+            }
+        });
+    }
+
+    private interface Handler {
+        Object handle(Method method, Object[] args) throws Throwable;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, Handler handler) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] { type }, (p, m, a) -> handler.handle(m, a));
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        }catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+}
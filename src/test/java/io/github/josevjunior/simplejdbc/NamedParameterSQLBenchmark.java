@@ -0,0 +1,63 @@
+package io.github.josevjunior.simplejdbc;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * The parse of the named parameters, done for every created query. Run with
+ * the benchmark profile, see the README
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class NamedParameterSQLBenchmark {
+
+    @Param({"SMALL", "LARGE", "QUOTED"})
+    public String shape;
+
+    private String sql;
+
+    @Setup
+    public void setup() {
+        switch (shape) {
+            case "SMALL":
+                sql = "SELECT * FROM EMPLOYEE WHERE ID = :ID";
+                break;
+            case "LARGE":
+                StringBuilder sb = new StringBuilder("SELECT E.ID, E.NAME, E.SALARY, D.NAME FROM EMPLOYEE E JOIN DEPARTMENT D ON D.ID = E.DEPARTMENT_ID WHERE 1 = 1");
+                for (int i = 0; i < 20; i++) {
+                    sb.append(" AND E.COL_").append(i).append(" = :PARAM_").append(i);
+                }
+                sql = sb.append(" OR E.COL_0 = :PARAM_0 ORDER BY E.NAME").toString();
+                break;
+            default:
+                sql = "SELECT 'It''s :NOT_A_PARAM' AS TEXT, \":ALSO_NOT\" FROM EMPLOYEE WHERE NAME = :NAME AND NOTE <> ':NOTE'";
+                break;
+        }
+    }
+
+    @Benchmark
+    public NamedParameterSQL parse() {
+        return NamedParameterSQL.parse(sql);
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder().include(NamedParameterSQLBenchmark.class.getSimpleName()).build()).run();
+    }
+
+}
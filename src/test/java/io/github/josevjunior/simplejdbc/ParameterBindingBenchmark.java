@@ -0,0 +1,105 @@
+package io.github.josevjunior.simplejdbc;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * {@link Query#setParameter(java.lang.String, java.lang.Object)} for each value
+ * type, which picks the statement setter by the value class, compared with
+ * {@link PreparedStatement#setObject(int, java.lang.Object)} on the same
+ * statement. Run with the benchmark profile, see the README
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ParameterBindingBenchmark {
+
+    private static final String SQL = "SELECT ID FROM TEST_TABLE WHERE VARCHAR_COL = :VALUE";
+
+    @Param({"NULL", "INTEGER", "LONG", "DOUBLE", "BIGDECIMAL", "STRING", "TIMESTAMP", "DATE", "UTIL_DATE"})
+    public String type;
+
+    private Object value;
+    private QueryCreator queryCreator;
+    private Query<Integer> query;
+    private Connection connection;
+    private PreparedStatement statement;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        value = value(type);
+        queryCreator = new QueryCreator(TestDataSource.getDataSource());
+        query = queryCreator.create(SQL, Integer.class);
+        connection = TestDataSource.getNewConnection();
+        statement = connection.prepareStatement(NamedParameterSQL.parse(SQL).getParsedQuery());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        query.close();
+        queryCreator.close();
+        statement.close();
+        connection.close();
+    }
+
+    private static Object value(String type) {
+        switch (type) {
+            case "NULL":
+                return null;
+            case "INTEGER":
+                return 42;
+            case "LONG":
+                return 42L;
+            case "DOUBLE":
+                return 42.5d;
+            case "BIGDECIMAL":
+                return new BigDecimal("42.50");
+            case "STRING":
+                return "forty two";
+            case "TIMESTAMP":
+                return new Timestamp(System.currentTimeMillis());
+            case "DATE":
+                return new Date(System.currentTimeMillis());
+            default:
+                return new java.util.Date();
+        }
+    }
+
+    @Benchmark
+    public Query<Integer> setParameter() {
+        return query.setParameter("VALUE", value);
+    }
+
+    @Benchmark
+    public PreparedStatement rawSetObject() throws Exception {
+        statement.setObject(1, value);
+        return statement;
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder().include(ParameterBindingBenchmark.class.getSimpleName()).build()).run();
+    }
+
+}
@@ -0,0 +1,162 @@
+package io.github.josevjunior.simplejdbc;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class PartitionedQueryTest {
+
+    private static final int ROWS = 20_000;
+    private static final int THROUGHPUT_ROWS = Integer.getInteger("simplejdbc.partition.rows", 500_000);
+
+    private static final String RANGE_SQL = "SELECT ID, AMOUNT FROM PARTITION_TABLE "
+            + "WHERE ID >= :LOWER AND ID < :UPPER AND AMOUNT >= :MIN_AMOUNT ORDER BY ID";
+
+    @BeforeClass
+    public static void createTable() {
+        try(QueryCreator qc = new QueryCreator(TestDataSource.getDataSource())) {
+            qc.create("CREATE TABLE IF NOT EXISTS PARTITION_TABLE (ID BIGINT PRIMARY KEY, AMOUNT INTEGER, CREATED TIMESTAMP)").executeUpdate();
+        }
+        fill(ROWS);
+    }
+
+    private static void fill(int rows) {
+        try(QueryCreator qc = new QueryCreator(TestDataSource.getDataSource())) {
+            qc.create("DELETE FROM PARTITION_TABLE").executeUpdate();
+            qc.create("INSERT INTO PARTITION_TABLE SELECT X, MOD(X, 100), DATEADD('MINUTE', X, TIMESTAMP '2020-01-01 00:00:00') FROM SYSTEM_RANGE(1, :ROWS)")
+                    .setParameter("ROWS", rows)
+                    .executeUpdate();
+        }
+    }
+
+    @Test
+    public void testOrderedResultIsSameOfSingleScan() {
+
+        List<Long> single = singleScan();
+        List<Long> partitioned = partitionedScan();
+
+        Assert.assertEquals(ROWS, partitioned.size());
+        Assert.assertEquals(single, partitioned);
+    }
+
+    /**
+     * Only with -Dsimplejdbc.throughput=true or the load profile
+     */
+    @Test
+    public void testPartitionedScanThroughput() {
+        Assume.assumeTrue(Boolean.getBoolean("simplejdbc.throughput"));
+
+        fill(THROUGHPUT_ROWS);
+        try {
+            long start = System.nanoTime();
+            singleScan();
+            long singleNanos = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            Assert.assertEquals(THROUGHPUT_ROWS, partitionedScan().size());
+            long partitionedNanos = System.nanoTime() - start;
+
+            System.out.println(String.format("Single connection scan: %d rows in %d ms. Partitioned scan (4): %d ms",
+                    THROUGHPUT_ROWS, singleNanos / 1_000_000, partitionedNanos / 1_000_000));
+        } finally {
+            fill(ROWS);
+        }
+    }
+
+    private static List<Long> singleScan() {
+        try(QueryCreator qc = new QueryCreator(TestDataSource.getDataSource())) {
+            return qc.create(RANGE_SQL, (rs, md) -> rs.getLong(1))
+                    .setParameter("LOWER", 0)
+                    .setParameter("UPPER", Long.MAX_VALUE)
+                    .setParameter("MIN_AMOUNT", 0)
+                    .getResultList();
+        }
+    }
+
+    private static List<Long> partitionedScan() {
+        return new PartitionedQuery<>(TestDataSource.getDataSource(), RANGE_SQL, (rs, md) -> rs.getLong(1))
+                .boundsQuery("SELECT MIN(ID), MAX(ID) FROM PARTITION_TABLE")
+                .partitions(4)
+                .setParameter("MIN_AMOUNT", 0)
+                .getResultList();
+    }
+
+    @Test
+    public void testDecimalBoundsCoverEveryRow() {
+
+        try(QueryCreator qc = new QueryCreator(TestDataSource.getDataSource())) {
+            qc.create("CREATE TABLE IF NOT EXISTS DECIMAL_PARTITION (AMOUNT NUMERIC(10, 2))").executeUpdate();
+            qc.create("DELETE FROM DECIMAL_PARTITION").executeUpdate();
+            qc.create("INSERT INTO DECIMAL_PARTITION SELECT X / 4.0 - 10 FROM SYSTEM_RANGE(1, 80)").executeUpdate();
+        }
+
+        List<BigDecimal> values = new PartitionedQuery<>(TestDataSource.getDataSource(),
+                "SELECT AMOUNT FROM DECIMAL_PARTITION WHERE AMOUNT >= :LOWER AND AMOUNT < :UPPER ORDER BY AMOUNT", BigDecimal.class)
+                .boundsQuery("SELECT MIN(AMOUNT), MAX(AMOUNT) FROM DECIMAL_PARTITION")
+                .partitions(3)
+                .getResultList();
+
+        Assert.assertEquals(80, values.size());
+        Assert.assertEquals(new BigDecimal("-9.75"), values.get(0));
+        Assert.assertEquals(new BigDecimal("10.00"), values.get(79));
+    }
+
+    @Test
+    public void testCallbackReceivesEachRowOnce() {
+
+        AtomicLong count = new AtomicLong();
+        long[] sum = new long[1];
+
+        new PartitionedQuery<>(TestDataSource.getDataSource(), RANGE_SQL, Long.class)
+                .bounds(1, 1000)
+                .partitions(3)
+                .setParameter("MIN_AMOUNT", 50)
+                .forEach(id -> {
+                    count.incrementAndGet();
+                    sum[0] += id;
+                });
+
+        long expected = 0;
+        for (long id = 1; id <= 1000; id++) {
+            if(id % 100 >= 50) {
+                expected += id;
+            }
+        }
+
+        Assert.assertEquals(500, count.get());
+        Assert.assertEquals(expected, sum[0]);
+    }
+
+    @Test
+    public void testPartitionByDate() {
+
+        Timestamp min = Timestamp.valueOf("2020-01-01 00:01:00");
+        Timestamp max = Timestamp.valueOf("2020-01-01 01:40:00");
+
+        long count = new PartitionedQuery<>(TestDataSource.getDataSource(),
+                "SELECT ID FROM PARTITION_TABLE WHERE CREATED >= :LOWER AND CREATED < :UPPER", Long.class)
+                .bounds(min, max)
+                .partitions(7)
+                .stream()
+                .count();
+
+        Assert.assertEquals(100, count);
+    }
+
+    @Test
+    public void testEmptyBoundsReturnNoRows() {
+
+        List<Object[]> rows = new PartitionedQuery<>(TestDataSource.getDataSource(),
+                "SELECT ID FROM PARTITION_TABLE WHERE ID >= :LOWER AND ID < :UPPER", (rs, md) -> new Object[] { rs.getLong(1) })
+                .boundsQuery("SELECT MIN(ID), MAX(ID) FROM PARTITION_TABLE WHERE ID < 0")
+                .getResultList();
+
+        Assert.assertTrue(rows.isEmpty());
+    }
+
+}
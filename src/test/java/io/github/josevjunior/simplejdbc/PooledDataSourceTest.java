@@ -0,0 +1,173 @@
+package io.github.josevjunior.simplejdbc;
+
+import java.sql.Connection;
+import java.sql.SQLTimeoutException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import javax.sql.DataSource;
+import org.h2.jdbc.JdbcConnection;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Test;
+
+public class PooledDataSourceTest {
+
+    private static final int THREADS = 64;
+    private static final int ITERATIONS = 200;
+
+    @Test
+    public void testReuseConnectionOfSameThread() throws Exception {
+
+        try(PooledDataSource pool = new PooledDataSource(TestDataSource.getDataSource())) {
+            Connection physical;
+            try(Connection c = pool.getConnection()) {
+                physical = c.unwrap(JdbcConnection.class);
+                c.setAutoCommit(false);
+            }
+
+            try(Connection c = pool.getConnection()) {
+                Assert.assertSame(physical, c.unwrap(JdbcConnection.class));
+                Assert.assertTrue("The auto commit should be restored", c.getAutoCommit());
+            }
+
+            Assert.assertEquals(1, pool.getSize());
+            Assert.assertEquals(0, pool.getActiveCount());
+        }
+    }
+
+    @Test
+    public void testRestoreConnectionState() throws Exception {
+
+        try(PooledDataSource pool = new PooledDataSource(TestDataSource.getDataSource())) {
+            pool.setMaxSize(1);
+            int isolation;
+            try(Connection c = pool.getConnection()) {
+                isolation = c.getTransactionIsolation();
+                c.setReadOnly(true);
+                c.setTransactionIsolation(Connection.TRANSACTION_SERIALIZABLE);
+            }
+
+            try(Connection c = pool.getConnection()) {
+                Assert.assertFalse(c.isReadOnly());
+                Assert.assertEquals(isolation, c.getTransactionIsolation());
+            }
+            Assert.assertEquals(1, pool.getSize());
+        }
+    }
+
+    @Test
+    public void testUnwrapKeepsTheBorrowedConnection() throws Exception {
+
+        try(PooledDataSource pool = new PooledDataSource(TestDataSource.getDataSource())) {
+            Connection c = pool.getConnection();
+            Assert.assertSame(c, c.unwrap(Connection.class));
+            Assert.assertTrue(c.isWrapperFor(Connection.class));
+            Assert.assertTrue(c.isWrapperFor(JdbcConnection.class));
+
+            c.close();
+            Assert.assertTrue(c.isClosed());
+            Assert.assertEquals(0, pool.getActiveCount());
+        }
+    }
+
+    @Test
+    public void testFailWhenPoolIsExhausted() throws Exception {
+
+        try(PooledDataSource pool = new PooledDataSource(TestDataSource.getDataSource())) {
+            pool.setMaxSize(1);
+            pool.setMaxWait(100, TimeUnit.MILLISECONDS);
+
+            try(Connection c = pool.getConnection()) {
+                try {
+                    pool.getConnection();
+                    Assert.fail("The pool should be exhausted");
+                }catch (SQLTimeoutException expected) {
+                }
+            }
+
+            Assert.assertEquals(1, pool.getTimeoutCount());
+            Assert.assertEquals(1, pool.getWaitCount());
+            Assert.assertTrue(pool.getMaxWaitTime(TimeUnit.MILLISECONDS) >= 100);
+        }
+    }
+
+    @Test
+    public void testEvictIdleConnections() throws Exception {
+
+        try(PooledDataSource pool = new PooledDataSource(TestDataSource.getDataSource())) {
+            pool.setIdleTimeout(10, TimeUnit.MILLISECONDS);
+            pool.getConnection().close();
+            Assert.assertEquals(1, pool.getSize());
+
+            long deadline = System.currentTimeMillis() + 5000;
+            while(pool.getSize() > 0 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(50);
+            }
+            Assert.assertEquals(0, pool.getSize());
+        }
+    }
+
+    @Test
+    public void testConcurrentBorrows() throws Exception {
+
+        try(PooledDataSource pool = new PooledDataSource(TestDataSource.getDataSource())) {
+            pool.setMaxSize(4);
+            run(pool, 16, 50);
+
+            Assert.assertTrue(pool.getSize() <= 4);
+            Assert.assertEquals(0, pool.getActiveCount());
+        }
+    }
+
+    /**
+     * Only with -Dsimplejdbc.throughput=true or the load profile
+     */
+    @Test
+    public void testPooledThroughput() throws Exception {
+        Assume.assumeTrue(Boolean.getBoolean("simplejdbc.throughput"));
+
+        DataSource unpooled = TestDataSource.getDataSource();
+        long unpooledNanos = run(unpooled, THREADS, ITERATIONS);
+
+        try(PooledDataSource pool = new PooledDataSource(unpooled)) {
+            pool.setMaxSize(16);
+            long pooledNanos = run(pool, THREADS, ITERATIONS);
+
+            Assert.assertTrue(pool.getSize() <= 16);
+            Assert.assertEquals(0, pool.getActiveCount());
+
+            System.out.println(String.format("%d threads x %d queries: unpooled %d ms, pooled %d ms (waits: %d, avg wait: %d us)",
+                    THREADS, ITERATIONS,
+                    TimeUnit.NANOSECONDS.toMillis(unpooledNanos), TimeUnit.NANOSECONDS.toMillis(pooledNanos),
+                    pool.getWaitCount(), pool.getWaitCount() == 0 ? 0 : pool.getTotalWaitTime(TimeUnit.MICROSECONDS) / pool.getWaitCount()));
+        }
+    }
+
+    private long run(DataSource dataSource, int threads, int iterations) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            long start = System.nanoTime();
+            for (int t = 0; t < threads; t++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < iterations; i++) {
+                        try(QueryCreator qc = new QueryCreator(dataSource)) {
+                            Assert.assertEquals(Integer.valueOf(1), qc.create("SELECT 1", Integer.class).getFirstResult().get());
+                        }
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            return System.nanoTime() - start;
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+}
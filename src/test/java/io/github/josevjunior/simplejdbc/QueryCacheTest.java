@@ -0,0 +1,225 @@
+package io.github.josevjunior.simplejdbc;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class QueryCacheTest {
+
+    private static final String ITEM_SQL = "SELECT NAME FROM CACHE_ITEM WHERE ID = :ID";
+
+    @Before
+    public void createTable() {
+        try(QueryCreator qc = new QueryCreator(TestDataSource.getDataSource())) {
+            qc.create("CREATE TABLE IF NOT EXISTS CACHE_ITEM (ID INTEGER PRIMARY KEY, NAME VARCHAR(20))").executeUpdate();
+            qc.create("DELETE FROM CACHE_ITEM").executeUpdate();
+            qc.insert("CACHE_ITEM").col("ID", 1).col("NAME", "first").execute();
+        }
+    }
+
+    @Test
+    public void testExtractTables() {
+        Assert.assertEquals(new HashSet<>(Arrays.asList("A", "B", "C")),
+                SQLTables.read("SELECT * FROM PUBLIC.A x, b AS y LEFT JOIN \"c\" ON x.ID = c.ID WHERE 'FROM D' = ''"));
+        Assert.assertEquals(new HashSet<>(Arrays.asList("A", "B")),
+                SQLTables.read("SELECT (SELECT MAX(ID) FROM B) FROM A /* JOIN E */ -- FROM F"));
+        Assert.assertEquals(Collections.singleton("A"), SQLTables.written("insert into a (ID) values (1)"));
+        Assert.assertEquals(Collections.singleton("A"), SQLTables.written("UPDATE public.A SET ID = 1"));
+        Assert.assertEquals(Collections.singleton("A"), SQLTables.written("DELETE FROM A WHERE ID IN (SELECT ID FROM B)"));
+        Assert.assertEquals(Collections.singleton("A"), SQLTables.written("MERGE INTO A KEY(ID) VALUES (1)"));
+        Assert.assertNull(SQLTables.written("CREATE TABLE A (ID INTEGER)"));
+    }
+
+    @Test
+    public void testHitsAndMisses() {
+        QueryCache cache = new QueryCache();
+        try(QueryCreator qc = new QueryCreator(TestDataSource.getDataSource())) {
+            qc.setQueryCache(cache);
+
+            Assert.assertEquals("first", item(qc, 1));
+            Assert.assertEquals("first", item(qc, 1));
+            Assert.assertEquals(Arrays.asList("first"), qc.create(ITEM_SQL, String.class).setParameter("ID", 1).cached(true).getResultList());
+            Assert.assertFalse(qc.create(ITEM_SQL, String.class).setParameter("ID", 2).cached(true).getFirstResult().isPresent());
+
+            // Not marked as cached
+            qc.create(ITEM_SQL, String.class).setParameter("ID", 1).getFirstResult();
+
+            Assert.assertEquals(1, cache.getHitCount());
+            Assert.assertEquals(3, cache.getMissCount());
+            Assert.assertEquals(3, cache.size());
+        }
+    }
+
+    @Test
+    public void testDatabasesHaveTheirOwnEntries() {
+        JdbcDataSource other = new JdbcDataSource();
+        other.setURL("jdbc:h2:mem:cache_other;DB_CLOSE_DELAY=-1");
+        other.setUser("sa");
+        other.setPassword("sa");
+
+        QueryCache cache = new QueryCache();
+        try(QueryCreator qc = new QueryCreator(TestDataSource.getDataSource());
+                QueryCreator otherQc = new QueryCreator(other)) {
+            otherQc.create("CREATE TABLE IF NOT EXISTS CACHE_ITEM (ID INTEGER PRIMARY KEY, NAME VARCHAR(20))").executeUpdate();
+            otherQc.create("DELETE FROM CACHE_ITEM").executeUpdate();
+            otherQc.insert("CACHE_ITEM").col("ID", 1).col("NAME", "other").execute();
+            qc.setQueryCache(cache);
+            otherQc.setQueryCache(cache);
+
+            Assert.assertEquals("first", item(qc, 1));
+            Assert.assertEquals("other", item(otherQc, 1));
+            Assert.assertEquals("first", item(qc, 1));
+
+            Assert.assertEquals(1, cache.getHitCount());
+            Assert.assertEquals(2, cache.size());
+        }
+    }
+
+    @Test
+    public void testExpireAfterWrite() throws Exception {
+        QueryCache cache = new QueryCache().expireAfterWrite(50, TimeUnit.MILLISECONDS);
+        try(QueryCreator qc = new QueryCreator(TestDataSource.getDataSource())) {
+            qc.setQueryCache(cache);
+
+            item(qc, 1);
+            item(qc, 1);
+            Thread.sleep(100);
+            item(qc, 1);
+
+            Assert.assertEquals(1, cache.getHitCount());
+            Assert.assertEquals(2, cache.getMissCount());
+        }
+    }
+
+    @Test
+    public void testMaximumWeight() {
+        QueryCache cache = new QueryCache().maximumWeight(3);
+        try(QueryCreator qc = new QueryCreator(TestDataSource.getDataSource())) {
+            qc.setQueryCache(cache);
+
+            for (int id = 1; id <= 3; id++) {
+                qc.create(ITEM_SQL, String.class).setParameter("ID", id).cached(true).getResultList();
+            }
+
+            // The id 1 has weight 2 and the others weight 1
+            Assert.assertEquals(1, cache.getEvictionCount());
+            Assert.assertEquals(2, cache.size());
+            Assert.assertEquals(2, cache.getWeight());
+        }
+    }
+
+    @Test
+    public void testBuildersAndUpdatesInvalidate() {
+        QueryCache cache = new QueryCache();
+        try(QueryCreator qc = new QueryCreator(TestDataSource.getDataSource())) {
+            qc.setQueryCache(cache);
+
+            Assert.assertEquals("first", item(qc, 1));
+            qc.update("CACHE_ITEM").set("NAME", "updated").where().col("ID", 1).execute();
+            Assert.assertEquals("updated", item(qc, 1));
+
+            Assert.assertNull(item(qc, 2));
+            qc.insert("cache_item").col("ID", 2).col("NAME", "second").execute();
+            Assert.assertEquals("second", item(qc, 2));
+
+            qc.create("UPDATE CACHE_ITEM SET NAME = :NAME WHERE ID = 2").setParameter("NAME", "again").executeUpdate();
+            Assert.assertEquals("again", item(qc, 2));
+
+            // Other tables do not invalidate
+            item(qc, 2);
+            QueryCache.written(Collections.singleton("OTHER_TABLE"));
+            item(qc, 2);
+            Assert.assertEquals(2, cache.getHitCount());
+        }
+
+        // The writes of a creator without cache invalidate too
+        try(QueryCreator qc = new QueryCreator(TestDataSource.getDataSource())) {
+            qc.delete("CACHE_ITEM").where().col("ID", 2).execute();
+        }
+        Assert.assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testTransactionInvalidatesAtCommit() throws Exception {
+        QueryCache cache = new QueryCache();
+        try(QueryCreator reader = new QueryCreator(TestDataSource.getDataSource());
+            QueryCreator writer = new QueryCreator(TestDataSource.getDataSource())) {
+            reader.setQueryCache(cache);
+            item(reader, 1);
+
+            writer.getNativeConnection().setAutoCommit(false);
+            writer.update("CACHE_ITEM").set("NAME", "pending").where().col("ID", 1).execute();
+            Assert.assertEquals(1, cache.size());
+
+            writer.commit();
+            writer.getNativeConnection().setAutoCommit(true);
+            Assert.assertEquals(0, cache.size());
+            Assert.assertEquals("pending", item(reader, 1));
+        }
+    }
+
+    @Test
+    public void testConcurrentReadersAndWritersNeverKeepStaleResults() throws Exception {
+        QueryCache cache = new QueryCache();
+        AtomicBoolean running = new AtomicBoolean(true);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        CountDownLatch started = new CountDownLatch(4);
+
+        try {
+            List<Future<?>> readers = new ArrayList<>();
+            for (int i = 0; i < 3; i++) {
+                readers.add(executor.submit(() -> {
+                    try(QueryCreator qc = new QueryCreator(TestDataSource.getDataSource())) {
+                        qc.setQueryCache(cache);
+                        started.countDown();
+                        while(running.get()) {
+                            item(qc, 1);
+                        }
+                    }
+                    return null;
+                }));
+            }
+
+            Future<?> writer = executor.submit(() -> {
+                try(QueryCreator qc = new QueryCreator(TestDataSource.getDataSource())) {
+                    started.countDown();
+                    started.await();
+                    for (int i = 0; i < 500; i++) {
+                        qc.update("CACHE_ITEM").set("NAME", "v" + i).where().col("ID", 1).execute();
+                    }
+                }
+                return null;
+            });
+
+            writer.get(30, TimeUnit.SECONDS);
+            running.set(false);
+            for (Future<?> reader : readers) {
+                reader.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        try(QueryCreator qc = new QueryCreator(TestDataSource.getDataSource())) {
+            qc.setQueryCache(cache);
+            Assert.assertEquals("v499", item(qc, 1));
+        }
+    }
+
+    private static String item(QueryCreator qc, int id) {
+        return qc.create(ITEM_SQL, String.class).setParameter("ID", id).cached(true).getFirstResult().orElse(null);
+    }
+
+}
@@ -0,0 +1,205 @@
+package io.github.josevjunior.simplejdbc;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.sql.DataSource;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class QueryCoalescerTest {
+
+    private static final String RANGE_SQL = "SELECT X FROM SYSTEM_RANGE(1, :MAX)";
+
+    @Test
+    public void testConcurrentCallsShareOneExecution() throws Exception {
+        int threads = 16;
+        QueryCoalescer coalescer = new QueryCoalescer();
+        AtomicInteger mappedRows = new AtomicInteger();
+
+        // The execution only finishes after the other calls are waiting for it
+        RowMapper<Long> mapper = (rs, md) -> {
+            mappedRows.incrementAndGet();
+            awaitCoalesced(coalescer, threads - 1);
+            return rs.getLong(1);
+        };
+
+        List<List<Long>> results = runConcurrently(threads, () -> {
+            try(QueryCreator qc = new QueryCreator(TestDataSource.getDataSource())) {
+                qc.setQueryCoalescer(coalescer);
+                return qc.create(RANGE_SQL, mapper).setParameter("MAX", 3).getResultList();
+            }
+        });
+
+        Assert.assertEquals(1, coalescer.getExecutionCount());
+        Assert.assertEquals(threads - 1, coalescer.getCoalescedCount());
+        Assert.assertEquals(3, mappedRows.get());
+        Assert.assertEquals(0, coalescer.getInFlightCount());
+
+        // Each caller has its own list
+        for (int i = 0; i < results.size(); i++) {
+            Assert.assertEquals(Arrays.asList(1L, 2L, 3L), results.get(i));
+            if(i > 0) {
+                Assert.assertNotSame(results.get(0), results.get(i));
+            }
+        }
+
+        QueryCoalescer.Stats stats = coalescer.getStats().get(NamedParameterSQL.parse(RANGE_SQL).getParsedQuery());
+        Assert.assertEquals(1, stats.getExecutionCount());
+        Assert.assertEquals(threads - 1, stats.getCoalescedCount());
+    }
+
+    @Test
+    public void testDifferentParametersAreNotCoalesced() {
+        QueryCoalescer coalescer = new QueryCoalescer();
+        try(QueryCreator qc = new QueryCreator(TestDataSource.getDataSource())) {
+            qc.setQueryCoalescer(coalescer);
+
+            Assert.assertEquals(2, qc.create(RANGE_SQL, Long.class).setParameter("MAX", 2).getResultList().size());
+            Assert.assertEquals(Long.valueOf(1), qc.create(RANGE_SQL, Long.class).setParameter("MAX", 3).getFirstResult().get());
+            Assert.assertEquals(3, qc.create(RANGE_SQL, Long.class).setParameter("MAX", 3).getResultList().size());
+
+            Assert.assertEquals(3, coalescer.getExecutionCount());
+            Assert.assertEquals(0, coalescer.getCoalescedCount());
+        }
+    }
+
+    @Test
+    public void testDifferentDatabasesAreNotCoalesced() throws Exception {
+        QueryCoalescer coalescer = new QueryCoalescer();
+        JdbcDataSource other = new JdbcDataSource();
+        other.setURL("jdbc:h2:mem:coalescer_other;DB_CLOSE_DELAY=-1");
+        List<DataSource> dataSources = Arrays.asList(TestDataSource.getDataSource(), other);
+        AtomicInteger next = new AtomicInteger();
+
+        // Each execution waits for the other, so both are running at once
+        RowMapper<String> mapper = (rs, md) -> {
+            long limit = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while(coalescer.getExecutionCount() + coalescer.getCoalescedCount() < 2 && System.nanoTime() < limit) {
+                Thread.yield();
+            }
+            return rs.getString(1);
+        };
+
+        List<String> results = runConcurrently(2, () -> {
+            try(QueryCreator qc = new QueryCreator(dataSources.get(next.getAndIncrement()))) {
+                qc.setQueryCoalescer(coalescer);
+                return qc.create("SELECT DATABASE()", mapper).getFirstResult().get();
+            }
+        });
+
+        Assert.assertEquals(2, coalescer.getExecutionCount());
+        Assert.assertEquals(0, coalescer.getCoalescedCount());
+        Assert.assertNotEquals(results.get(0), results.get(1));
+    }
+
+    @Test
+    public void testFailureIsSharedWithWaiters() throws Exception {
+        int threads = 4;
+        QueryCoalescer coalescer = new QueryCoalescer();
+        RowMapper<Long> mapper = (rs, md) -> {
+            awaitCoalesced(coalescer, threads - 1);
+            throw new IllegalStateException("mapping failed");
+        };
+
+        List<String> failures = runConcurrently(threads, () -> {
+            try(QueryCreator qc = new QueryCreator(TestDataSource.getDataSource())) {
+                qc.setQueryCoalescer(coalescer);
+                qc.create(RANGE_SQL, mapper).setParameter("MAX", 1).getResultList();
+                return "no failure";
+            }catch (IllegalStateException e) {
+                return e.getMessage();
+            }catch (JdbcException e) {
+                return e.getCause().getMessage();
+            }
+        });
+
+        Assert.assertEquals(Arrays.asList("mapping failed", "mapping failed", "mapping failed", "mapping failed"), failures);
+        Assert.assertEquals(1, coalescer.getExecutionCount());
+    }
+
+    @Test
+    public void testWaiterRespectsItsTimeout() throws Exception {
+        QueryCoalescer coalescer = new QueryCoalescer();
+        CountDownLatch waiterDone = new CountDownLatch(1);
+        RowMapper<Long> mapper = (rs, md) -> {
+            awaitCoalesced(coalescer, 1);
+            try {
+                waiterDone.await(10, TimeUnit.SECONDS);
+            }catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return rs.getLong(1);
+        };
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<List<Long>> leader = executor.submit(() -> {
+                try(QueryCreator qc = new QueryCreator(TestDataSource.getDataSource())) {
+                    qc.setQueryCoalescer(coalescer);
+                    return qc.create(RANGE_SQL, mapper).setParameter("MAX", 1).getResultList();
+                }
+            });
+
+            while(coalescer.getInFlightCount() == 0) {
+                Thread.sleep(1);
+            }
+
+            try(QueryCreator qc = new QueryCreator(TestDataSource.getDataSource())) {
+                qc.setQueryCoalescer(coalescer);
+                qc.create(RANGE_SQL, mapper).setParameter("MAX", 1).timeout(50, TimeUnit.MILLISECONDS).getResultList();
+                Assert.fail();
+            }catch (JdbcException e) {
+                Assert.assertEquals("The query deadline has expired", e.getMessage());
+            } finally {
+                waiterDone.countDown();
+            }
+
+            Assert.assertEquals(Arrays.asList(1L), leader.get(10, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static void awaitCoalesced(QueryCoalescer coalescer, int count) {
+        long limit = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while(coalescer.getCoalescedCount() < count && System.nanoTime() < limit) {
+            Thread.yield();
+        }
+    }
+
+    private interface Call<R> {
+        R call() throws Exception;
+    }
+
+    private static <R> List<R> runConcurrently(int threads, Call<R> call) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<R>> futures = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return call.call();
+                }));
+            }
+            start.countDown();
+
+            List<R> results = new ArrayList<>();
+            for (Future<R> future : futures) {
+                results.add(future.get(30, TimeUnit.SECONDS));
+            }
+            return results;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+}
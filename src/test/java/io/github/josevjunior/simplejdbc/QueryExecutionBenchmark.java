@@ -0,0 +1,237 @@
+package io.github.josevjunior.simplejdbc;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Full queries against the in-memory database through a {@link QueryCreator},
+ * compared with the same work written with plain JDBC, where each call
+ * prepares and closes its statement as usual. The reads map to arrays and to
+ * beans, the writes go through the {@link InsertBuilder} and the
+ * {@link UpdateBuilder}. Run with the benchmark profile, see the README
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class QueryExecutionBenchmark {
+
+    private static final int ITEMS = 1000;
+    private static final String SELECT_SQL = "SELECT ID, NAME, PRICE, CREATED FROM BENCHMARK_ITEM WHERE ID <= :MAX ORDER BY ID";
+    private static final String RAW_SELECT_SQL = "SELECT ID, NAME, PRICE, CREATED FROM BENCHMARK_ITEM WHERE ID <= ? ORDER BY ID";
+
+    public abstract static class Database {
+
+        QueryCreator queryCreator;
+        Connection connection;
+
+        void open() throws Exception {
+            connection = TestDataSource.getNewConnection();
+            try(Statement statement = connection.createStatement()) {
+                statement.executeUpdate("CREATE TABLE IF NOT EXISTS BENCHMARK_ITEM (ID INTEGER PRIMARY KEY, NAME VARCHAR(100), PRICE NUMERIC(10, 2), CREATED TIMESTAMP)");
+                statement.executeUpdate("CREATE TABLE IF NOT EXISTS BENCHMARK_INSERT (ID INTEGER AUTO_INCREMENT PRIMARY KEY, NAME VARCHAR(100), PRICE NUMERIC(10, 2))");
+                statement.executeUpdate("DELETE FROM BENCHMARK_ITEM");
+            }
+            try(PreparedStatement insert = connection.prepareStatement("INSERT INTO BENCHMARK_ITEM (ID, NAME, PRICE, CREATED) VALUES (?, ?, ?, ?)")) {
+                for (int i = 1; i <= ITEMS; i++) {
+                    insert.setInt(1, i);
+                    insert.setString(2, "Item " + i);
+                    insert.setBigDecimal(3, BigDecimal.valueOf(i, 2));
+                    insert.setTimestamp(4, new Timestamp(System.currentTimeMillis()));
+                    insert.addBatch();
+                }
+                insert.executeBatch();
+            }
+            queryCreator = new QueryCreator(TestDataSource.getDataSource());
+        }
+
+        @TearDown(Level.Trial)
+        public void close() throws Exception {
+            queryCreator.close();
+            connection.close();
+        }
+
+    }
+
+    @State(Scope.Thread)
+    public static class Reads extends Database {
+
+        @Param({"1", "100"})
+        public int rows;
+
+        @Setup(Level.Trial)
+        public void setup() throws Exception {
+            open();
+        }
+
+    }
+
+    @State(Scope.Thread)
+    public static class Writes extends Database {
+
+        private int next;
+
+        @Setup(Level.Trial)
+        public void setup() throws Exception {
+            open();
+        }
+
+        @Setup(Level.Iteration)
+        public void truncate() throws Exception {
+            try(Statement statement = connection.createStatement()) {
+                statement.executeUpdate("TRUNCATE TABLE BENCHMARK_INSERT");
+            }
+        }
+
+        int nextId() {
+            next = next % ITEMS + 1;
+            return next;
+        }
+
+    }
+
+    @Benchmark
+    public List<Object[]> selectArrays(Reads db) {
+        return db.queryCreator.create(SELECT_SQL).setParameter("MAX", db.rows).getResultList();
+    }
+
+    @Benchmark
+    public List<Object[]> rawSelectArrays(Reads db) throws Exception {
+        try(PreparedStatement statement = db.connection.prepareStatement(RAW_SELECT_SQL)) {
+            statement.setInt(1, db.rows);
+            try(ResultSet rs = statement.executeQuery()) {
+                int columns = rs.getMetaData().getColumnCount();
+                List<Object[]> result = new ArrayList<>();
+                while(rs.next()) {
+                    Object[] row = new Object[columns];
+                    for (int i = 0; i < columns; i++) {
+                        row[i] = rs.getObject(i + 1);
+                    }
+                    result.add(row);
+                }
+                return result;
+            }
+        }
+    }
+
+    @Benchmark
+    public List<Item> selectBeans(Reads db) {
+        return db.queryCreator.create(SELECT_SQL, Item.class).setParameter("MAX", db.rows).getResultList();
+    }
+
+    @Benchmark
+    public List<Item> rawSelectBeans(Reads db) throws Exception {
+        try(PreparedStatement statement = db.connection.prepareStatement(RAW_SELECT_SQL)) {
+            statement.setInt(1, db.rows);
+            try(ResultSet rs = statement.executeQuery()) {
+                List<Item> result = new ArrayList<>();
+                while(rs.next()) {
+                    Item item = new Item();
+                    item.setId(rs.getInt("ID"));
+                    item.setName(rs.getString("NAME"));
+                    item.setPrice(rs.getBigDecimal("PRICE"));
+                    item.setCreated(rs.getTimestamp("CREATED"));
+                    result.add(item);
+                }
+                return result;
+            }
+        }
+    }
+
+    @Benchmark
+    public void insertBuilder(Writes db) {
+        db.queryCreator.insert("BENCHMARK_INSERT").col("NAME", "Inserted").col("PRICE", BigDecimal.TEN).execute();
+    }
+
+    @Benchmark
+    public int rawInsert(Writes db) throws Exception {
+        try(PreparedStatement statement = db.connection.prepareStatement("INSERT INTO BENCHMARK_INSERT (NAME, PRICE) VALUES (?, ?)")) {
+            statement.setString(1, "Inserted");
+            statement.setBigDecimal(2, BigDecimal.TEN);
+            return statement.executeUpdate();
+        }
+    }
+
+    @Benchmark
+    public int updateBuilder(Writes db) {
+        return db.queryCreator.update("BENCHMARK_ITEM").set("PRICE", BigDecimal.ONE).where().col("ID", db.nextId()).execute();
+    }
+
+    @Benchmark
+    public int rawUpdate(Writes db) throws Exception {
+        try(PreparedStatement statement = db.connection.prepareStatement("UPDATE BENCHMARK_ITEM SET PRICE = ? WHERE ID = ?")) {
+            statement.setBigDecimal(1, BigDecimal.ONE);
+            statement.setInt(2, db.nextId());
+            return statement.executeUpdate();
+        }
+    }
+
+    public static class Item {
+
+        private Integer id;
+        private String name;
+        private BigDecimal price;
+        private Timestamp created;
+
+        public Integer getId() {
+            return id;
+        }
+
+        public void setId(Integer id) {
+            this.id = id;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public BigDecimal getPrice() {
+            return price;
+        }
+
+        public void setPrice(BigDecimal price) {
+            this.price = price;
+        }
+
+        public Timestamp getCreated() {
+            return created;
+        }
+
+        public void setCreated(Timestamp created) {
+            this.created = created;
+        }
+
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder().include(QueryExecutionBenchmark.class.getSimpleName()).build()).run();
+    }
+
+}
@@ -0,0 +1,86 @@
+package io.github.josevjunior.simplejdbc;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * The overhead of the {@link QueryMetrics} listener on a small select against
+ * the in-memory database, which is the worst case since the database time is
+ * minimal, and on a bigger result. Run with the benchmark profile, see the README, or:
+ * <pre>{@code
+    mvn test-compile exec:exec -Dexec.executable=java -Dexec.classpathScope=test -Dexec.args="-cp %classpath io.github.josevjunior.simplejdbc.QueryMetricsBenchmark"
+   }</pre>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class QueryMetricsBenchmark {
+
+    private static final String SQL = "SELECT X FROM SYSTEM_RANGE(1, :MAX)";
+
+    @State(Scope.Thread)
+    public static class Queries {
+
+        @Param({"false", "true"})
+        public boolean listening;
+
+        @Param({"10", "1000"})
+        public int rows;
+
+        private QueryCreator queryCreator;
+
+        @Setup(Level.Trial)
+        public void setup() {
+            queryCreator = new QueryCreator(TestDataSource.getDataSource());
+            if(listening) {
+                queryCreator.setQueryListener(new QueryMetrics());
+            }
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            queryCreator.close();
+        }
+
+    }
+
+    @State(Scope.Thread)
+    public static class Histogram {
+
+        private final LatencyHistogram histogram = new LatencyHistogram();
+        private long value;
+
+    }
+
+    @Benchmark
+    public List<Long> resultList(Queries queries) {
+        return queries.queryCreator.create(SQL, Long.class).setParameter("MAX", queries.rows).getResultList();
+    }
+
+    @Benchmark
+    public void histogramRecord(Histogram state) {
+        state.histogram.record(state.value++ & 0xFFFFF);
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder().include(QueryMetricsBenchmark.class.getSimpleName()).build()).run();
+    }
+
+}
@@ -0,0 +1,91 @@
+package io.github.josevjunior.simplejdbc;
+
+import java.util.Random;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class QueryMetricsTest {
+
+    private static final String RANGE_SQL = "SELECT X FROM SYSTEM_RANGE(1, :MAX)";
+
+    @Test
+    public void testStatementMetrics() {
+        QueryMetrics metrics = new QueryMetrics();
+        try(QueryCreator qc = new QueryCreator(TestDataSource.getDataSource())) {
+            qc.setQueryListener(metrics);
+            qc.create("CREATE TABLE IF NOT EXISTS METRICS_ITEM (ID BIGINT PRIMARY KEY)").executeUpdate();
+            qc.create("DELETE FROM METRICS_ITEM").executeUpdate();
+
+            for (int i = 0; i < 10; i++) {
+                Assert.assertEquals(5, qc.create(RANGE_SQL, Long.class).setParameter("MAX", 5).getResultList().size());
+            }
+            qc.create(RANGE_SQL, Long.class).setParameter("MAX", 5).getFirstResult();
+
+            Query<Object[]> insert = qc.create("INSERT INTO METRICS_ITEM (ID) VALUES (:ID)");
+            for (int i = 0; i < 3; i++) {
+                insert.setParameter("ID", i).addBatch();
+            }
+            insert.executeBatch();
+            Assert.assertEquals(3, qc.create("UPDATE METRICS_ITEM SET ID = ID + 10").executeUpdate());
+        }
+
+        QueryMetrics.Statement range = metrics.getStatement(NamedParameterSQL.parse(RANGE_SQL).getParsedQuery());
+        Assert.assertEquals(11, range.getExecutionCount());
+        Assert.assertEquals(51, range.getRowCount());
+        Assert.assertEquals(11, range.getFetchTimes().getCount());
+        Assert.assertEquals(11, range.getBindTimes().getCount());
+        Assert.assertEquals(11, range.getPrepareTimes().getCount());
+        Assert.assertTrue(range.getExecuteTimes().getValueAtPercentile(50) > 0);
+
+        QueryMetrics.Statement insert = metrics.getStatement("INSERT INTO METRICS_ITEM (ID) VALUES (?)");
+        Assert.assertEquals(1, insert.getExecutionCount());
+        Assert.assertEquals(3, insert.getUpdateCount());
+        Assert.assertEquals(1, insert.getBindTimes().getCount());
+        Assert.assertEquals(3, metrics.getStatement("UPDATE METRICS_ITEM SET ID = ID + 10").getUpdateCount());
+
+        String dump = metrics.dump();
+        Assert.assertTrue(dump, dump.contains(NamedParameterSQL.parse(RANGE_SQL).getParsedQuery() + " | executions=11 rows=51"));
+
+        metrics.reset();
+        Assert.assertTrue(metrics.getStatements().isEmpty());
+    }
+
+    @Test
+    public void testHistogramPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        Assert.assertEquals(0, histogram.getValueAtPercentile(99));
+
+        // 1 to 100000 microseconds, uniformly
+        for (long micros = 1; micros <= 100_000; micros++) {
+            histogram.record(micros * 1000);
+        }
+
+        Assert.assertEquals(100_000, histogram.getCount());
+        Assert.assertEquals(100_000_000, histogram.getMax());
+        assertClose(50_000_000, histogram.getValueAtPercentile(50));
+        assertClose(99_000_000, histogram.getValueAtPercentile(99));
+        assertClose(99_900_000, histogram.getValueAtPercentile(99.9));
+        Assert.assertEquals(100_000_000, histogram.getValueAtPercentile(100));
+        assertClose(50_000_500, (long) histogram.getMean());
+
+        // The small and the huge values
+        LatencyHistogram extremes = new LatencyHistogram();
+        Random random = new Random(42);
+        for (int i = 0; i < 1000; i++) {
+            extremes.record(random.nextInt(16));
+        }
+        extremes.record(Long.MAX_VALUE);
+        extremes.record(-1);
+        Assert.assertTrue(extremes.getValueAtPercentile(50) < 16);
+        Assert.assertEquals(Long.MAX_VALUE, extremes.getMax());
+
+        histogram.reset();
+        Assert.assertEquals(0, histogram.getCount());
+        Assert.assertEquals(0, histogram.getValueAtPercentile(50));
+    }
+
+    private static void assertClose(long expected, long actual) {
+        Assert.assertTrue("Expected about " + expected + " but was " + actual, Math.abs(actual - expected) <= expected * 0.04);
+    }
+
+}
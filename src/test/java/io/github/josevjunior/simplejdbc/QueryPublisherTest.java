@@ -0,0 +1,271 @@
+package io.github.josevjunior.simplejdbc;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+/**
+ * Checks the Reactive Streams rules that apply to a synchronous publisher
+ */
+public class QueryPublisherTest {
+
+    private static final String RANGE_SQL = "SELECT X FROM SYSTEM_RANGE(1, :MAX)";
+
+    private QueryCreator qc;
+
+    @Before
+    public void before() {
+        qc = new QueryCreator(TestDataSource.getDataSource());
+    }
+
+    @After
+    public void after() {
+        qc.closeAll();
+    }
+
+    @Test
+    public void testRule1_1NeverSignalMoreThanRequested() {
+        RecordingSubscriber<Long> subscriber = new RecordingSubscriber<>();
+        range(100).subscribe(subscriber);
+
+        subscriber.subscription.request(3);
+        Assert.assertEquals(3, subscriber.values.size());
+
+        subscriber.subscription.request(2);
+        Assert.assertEquals(5, subscriber.values.size());
+        Assert.assertFalse(subscriber.completed);
+    }
+
+    @Test
+    public void testRule1_2CompleteWhenRowsAreOver() {
+        RecordingSubscriber<Long> subscriber = new RecordingSubscriber<>();
+        range(10).subscribe(subscriber);
+
+        subscriber.subscription.request(Long.MAX_VALUE);
+
+        Assert.assertEquals(10, subscriber.values.size());
+        Assert.assertEquals(Long.valueOf(10), subscriber.values.get(9));
+        Assert.assertTrue(subscriber.completed);
+        Assert.assertNull(subscriber.error);
+    }
+
+    @Test
+    public void testRule1_4SignalErrorWhenExecutionFails() {
+        RecordingSubscriber<Object[]> subscriber = new RecordingSubscriber<>();
+        qc.create("SELECT 1 / (X - X) FROM SYSTEM_RANGE(1, 1)").publisher().subscribe(subscriber);
+
+        subscriber.subscription.request(1);
+
+        Assert.assertTrue(subscriber.error instanceof JdbcException);
+        Assert.assertFalse(subscriber.completed);
+    }
+
+    @Test
+    public void testRule1_9RejectNullSubscriber() {
+        try {
+            range(1).subscribe(null);
+            Assert.fail();
+        }catch (NullPointerException expected) {
+        }
+    }
+
+    @Test
+    public void testRejectSecondSubscription() {
+        QueryPublisher<Long> publisher = range(10);
+        publisher.subscribe(new RecordingSubscriber<>());
+
+        RecordingSubscriber<Long> second = new RecordingSubscriber<>();
+        publisher.subscribe(second);
+
+        Assert.assertNotNull(second.subscription);
+        Assert.assertTrue(second.error instanceof IllegalStateException);
+    }
+
+    @Test
+    public void testRule3_3RequestInsideOnNextDoesNotRecurse() {
+        int rows = 100_000;
+        RecordingSubscriber<Long> subscriber = new RecordingSubscriber<Long>() {
+            @Override
+            public void onNext(Long value) {
+                super.onNext(value);
+                subscription.request(1);
+            }
+        };
+        range(rows).subscribe(subscriber);
+
+        subscriber.subscription.request(1);
+
+        Assert.assertEquals(rows, subscriber.values.size());
+        Assert.assertTrue(subscriber.completed);
+    }
+
+    @Test
+    public void testRule3_6And3_7NoSignalsAfterCancel() throws Exception {
+        qc.setStatementCacheSize(0);
+        Query<Long> query = qc.create(RANGE_SQL, Long.class).setParameter("MAX", 100);
+        RecordingSubscriber<Long> subscriber = new RecordingSubscriber<>();
+        query.publisher().subscribe(subscriber);
+
+        subscriber.subscription.request(5);
+        subscriber.subscription.cancel();
+        subscriber.subscription.cancel();
+        subscriber.subscription.request(5);
+
+        Assert.assertEquals(5, subscriber.values.size());
+        Assert.assertFalse(subscriber.completed);
+        Assert.assertNull(subscriber.error);
+        Assert.assertEquals("The statement should be given back", 0, qc.getOpenStatementCount());
+    }
+
+    @Test
+    public void testRunsAsTheOtherTerminalCalls() {
+        List<Long> completedRows = new ArrayList<>();
+        List<RuntimeException> failures = new ArrayList<>();
+        qc.setQueryListener(new QueryListener() {
+            @Override
+            public void completed(String sql, Object[] parameters, long executeNanos, long fetchNanos, long rows) {
+                completedRows.add(rows);
+            }
+
+            @Override
+            public void failed(String sql, Object[] parameters, long nanos, RuntimeException error) {
+                failures.add(error);
+            }
+        });
+
+        RecordingSubscriber<Long> subscriber = new RecordingSubscriber<>();
+        range(10).subscribe(subscriber);
+        subscriber.subscription.request(Long.MAX_VALUE);
+        Assert.assertEquals(Collections.singletonList(10L), completedRows);
+
+        RecordingSubscriber<Long> expired = new RecordingSubscriber<>();
+        qc.create(RANGE_SQL, Long.class).setParameter("MAX", 10).deadline(Deadline.after(-1, TimeUnit.SECONDS))
+                .publisher().subscribe(expired);
+        expired.subscription.request(1);
+        Assert.assertTrue(expired.error instanceof JdbcException);
+        Assert.assertEquals(1, failures.size());
+    }
+
+    @Test
+    public void testRule3_9NonPositiveRequestSignalsError() {
+        RecordingSubscriber<Long> subscriber = new RecordingSubscriber<>();
+        range(10).subscribe(subscriber);
+
+        subscriber.subscription.request(0);
+
+        Assert.assertTrue(subscriber.error instanceof IllegalArgumentException);
+    }
+
+    @Test
+    public void testRule3_17DemandOverflowIsUnbounded() {
+        RecordingSubscriber<Long> subscriber = new RecordingSubscriber<>();
+        range(20).subscribe(subscriber);
+
+        subscriber.subscription.request(Long.MAX_VALUE - 1);
+        subscriber.subscription.request(Long.MAX_VALUE - 1);
+
+        Assert.assertEquals(20, subscriber.values.size());
+        Assert.assertTrue(subscriber.completed);
+    }
+
+    @Test
+    public void testSlowSubscriberKeepsMappedRowsBounded() throws Exception {
+        int rows = 2_000;
+        AtomicLong mapped = new AtomicLong();
+        AtomicLong requested = new AtomicLong();
+        AtomicLong maxAhead = new AtomicLong();
+        CountDownLatch done = new CountDownLatch(1);
+
+        Query<Long> query = qc.create(RANGE_SQL, (rs, md) -> {
+            mapped.incrementAndGet();
+            return rs.getLong(1);
+        }).setParameter("MAX", rows);
+
+        query.publisher().subscribe(new Subscriber<Long>() {
+            private Subscription subscription;
+            private long received;
+
+            @Override
+            public void onSubscribe(Subscription s) {
+                subscription = s;
+                requested.addAndGet(4);
+                s.request(4);
+            }
+
+            @Override
+            public void onNext(Long value) {
+                received++;
+                maxAhead.accumulateAndGet(mapped.get() - received, Math::max);
+                if(received % 4 == 0) {
+                    // A slow consumer that asks for more from another thread
+                    new Thread(() -> {
+                        try {
+                            Thread.sleep(1);
+                        }catch (InterruptedException ignored) {}
+                        requested.addAndGet(4);
+                        subscription.request(4);
+                    }).start();
+                }
+                Assert.assertTrue(mapped.get() <= requested.get());
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                done.countDown();
+            }
+
+            @Override
+            public void onComplete() {
+                done.countDown();
+            }
+        });
+
+        Assert.assertTrue(done.await(30, TimeUnit.SECONDS));
+        Assert.assertEquals(rows, mapped.get());
+        Assert.assertEquals("No row should be mapped ahead of the consumer", 0, maxAhead.get());
+    }
+
+    private QueryPublisher<Long> range(int max) {
+        return qc.create(RANGE_SQL, Long.class).setParameter("MAX", max).publisher();
+    }
+
+    private static class RecordingSubscriber<T> implements Subscriber<T> {
+
+        protected Subscription subscription;
+        private final List<T> values = new ArrayList<>();
+        private boolean completed;
+        private Throwable error;
+
+        @Override
+        public void onSubscribe(Subscription s) {
+            subscription = s;
+        }
+
+        @Override
+        public void onNext(T value) {
+            Assert.assertFalse("onNext after a terminal signal", completed || error != null);
+            values.add(value);
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            error = t;
+        }
+
+        @Override
+        public void onComplete() {
+            completed = true;
+        }
+
+    }
+
+}
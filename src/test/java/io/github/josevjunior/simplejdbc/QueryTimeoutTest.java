@@ -0,0 +1,197 @@
+package io.github.josevjunior.simplejdbc;
+
+import java.lang.reflect.Proxy;
+import java.sql.Statement;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class QueryTimeoutTest {
+
+    // Never finishes in a reasonable time, so it only stops when cancelled
+    private static final String RUNAWAY_SQL = "SELECT COUNT(*) FROM SYSTEM_RANGE(1, 100000) A, SYSTEM_RANGE(1, 100000) B WHERE A.X + B.X = 0";
+
+    private QueryCreator qc;
+
+    @Before
+    public void before() {
+        qc = new QueryCreator(TestDataSource.getDataSource());
+    }
+
+    @After
+    public void after() {
+        qc.closeAll();
+    }
+
+    @Test
+    public void testTimeoutCancelsRunawayQuery() {
+
+        long start = System.nanoTime();
+        try {
+            qc.create(RUNAWAY_SQL, Long.class)
+                    .timeout(200, TimeUnit.MILLISECONDS)
+                    .getFirstResult();
+            Assert.fail();
+        }catch (JdbcException e) {
+            Assert.assertEquals("The query deadline has expired", e.getMessage());
+        }
+
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        Assert.assertTrue("Took " + elapsed + " ms", elapsed < 5000);
+    }
+
+    @Test
+    public void testQueryCreatorTimeoutAndDeadline() {
+
+        qc.setQueryTimeout(200, TimeUnit.MILLISECONDS);
+        try {
+            qc.create(RUNAWAY_SQL).getResultList();
+            Assert.fail();
+        }catch (JdbcException expected) {
+        }
+
+        qc.setQueryTimeout(0, TimeUnit.SECONDS);
+        qc.setDeadline(Deadline.after(-1, TimeUnit.SECONDS));
+        try {
+            qc.create("SELECT 1").getResultList();
+            Assert.fail();
+        }catch (JdbcException e) {
+            Assert.assertEquals("The query deadline has expired", e.getMessage());
+        }
+
+        qc.setDeadline(Deadline.after(1, TimeUnit.MINUTES));
+        Assert.assertEquals(1, qc.create("SELECT 1").getResultList().size());
+    }
+
+    @Test
+    public void testCancelFromAnotherThread() throws Exception {
+
+        Query<Long> query = qc.create(RUNAWAY_SQL, Long.class);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<?> running = executor.submit(() -> query.getFirstResult());
+
+            Thread.sleep(200);
+            query.getCancellation().cancel();
+
+            try {
+                running.get(5, TimeUnit.SECONDS);
+                Assert.fail();
+            }catch (java.util.concurrent.ExecutionException e) {
+                Assert.assertEquals("The query was cancelled", e.getCause().getMessage());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        try {
+            query.getFirstResult();
+            Assert.fail("A cancelled query can't be executed again");
+        }catch (JdbcException expected) {
+        }
+    }
+
+    @Test
+    public void testCancelStopsMappingAtRowBoundary() {
+
+        AtomicInteger mapped = new AtomicInteger();
+        Query<Long>[] query = new Query[1];
+        query[0] = qc.create("SELECT X FROM SYSTEM_RANGE(1, 1000)", (rs, md) -> {
+            if(mapped.incrementAndGet() == 10) {
+                query[0].getCancellation().cancel();
+            }
+            return rs.getLong(1);
+        });
+
+        try {
+            query[0].getResultList();
+            Assert.fail();
+        }catch (JdbcException e) {
+            Assert.assertEquals("The query was cancelled", e.getMessage());
+        }
+        Assert.assertEquals(10, mapped.get());
+    }
+
+    @Test
+    public void testScrollableStopsAtDeadline() throws Exception {
+
+        Query<Long> query = qc.create("SELECT X FROM SYSTEM_RANGE(1, 1000)", Long.class)
+                .timeout(100, TimeUnit.MILLISECONDS);
+
+        int rows = 0;
+        try(ScrollableResult<Long> result = query.getScrollableResult()) {
+            while(result.next()) {
+                if(++rows == 5) {
+                    Thread.sleep(150);
+                }
+            }
+            Assert.fail();
+        }catch (JdbcException e) {
+            Assert.assertEquals("The query deadline has expired", e.getMessage());
+        }
+        Assert.assertEquals(5, rows);
+    }
+
+    @Test
+    public void testSharedWatchdogHandlesManyQueries() throws Exception {
+
+        int threads = 16;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch ready = new CountDownLatch(threads);
+        AtomicInteger timedOut = new AtomicInteger();
+        try {
+            List<Future<Object>> futures = new java.util.ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                futures.add(executor.submit(() -> {
+                    try(QueryCreator creator = new QueryCreator(TestDataSource.getDataSource())) {
+                        creator.setQueryTimeout(300, TimeUnit.MILLISECONDS);
+                        ready.countDown();
+                        creator.create(RUNAWAY_SQL).getFirstResult();
+                    }catch (JdbcException e) {
+                        timedOut.incrementAndGet();
+                    }
+                    return null;
+                }));
+            }
+
+            for (Future<Object> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        Assert.assertEquals(threads, timedOut.get());
+        Assert.assertEquals(0, QueryWatchdog.getWatchedCount());
+    }
+
+    @Test
+    public void testStoppedWatchDoesNotCancel() {
+
+        AtomicInteger cancels = new AtomicInteger();
+        Statement statement = (Statement) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { Statement.class }, (proxy, method, args) -> {
+            if("cancel".equals(method.getName())) {
+                cancels.incrementAndGet();
+            }
+            return null;
+        });
+
+        QueryWatchdog.Watch watch = QueryWatchdog.watch(statement, TimeUnit.HOURS.toNanos(1));
+        watch.run();
+        watch.stop();
+        // A run which was already taken by the watchdog thread when stopped
+        watch.run();
+
+        Assert.assertEquals(1, cancels.get());
+        Assert.assertEquals(0, QueryWatchdog.getWatchedCount());
+    }
+
+}
@@ -0,0 +1,136 @@
+package io.github.josevjunior.simplejdbc;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ResultShapeTest {
+
+    private static final String SQL = "SELECT X AS NUMBER, CONCAT('N', X) AS \"name\" FROM SYSTEM_RANGE(1, :MAX)";
+
+    @Test
+    public void testShape() throws Exception {
+        try(QueryCreator qc = new QueryCreator(TestDataSource.getDataSource())) {
+            ResultShape shape = qc.create(SQL, (RowMapper<ResultShape>) (rs, md) -> ResultShape.of(md))
+                    .setParameter("MAX", 1)
+                    .getFirstResult()
+                    .get();
+
+            Assert.assertEquals(2, shape.getColumnCount());
+            Assert.assertEquals(Arrays.asList("NUMBER", "name"), shape.getColumnLabels());
+            Assert.assertEquals(Types.BIGINT, shape.getColumnType(1));
+            Assert.assertEquals(1, shape.indexOf("NUMBER"));
+            Assert.assertEquals(1, shape.indexOf("number"));
+            Assert.assertEquals(2, shape.indexOf("name"));
+            Assert.assertEquals(-1, shape.indexOf("OTHER"));
+            Assert.assertSame(shape, shape.unwrap(ResultShape.class));
+        }
+    }
+
+    @Test
+    public void testMetaDataIsReadOncePerSql() throws Exception {
+        AtomicInteger metaDataCalls = new AtomicInteger();
+        AtomicInteger shapeMaps = new AtomicInteger();
+
+        RowMapper<String> labelMapper = new RowMapper<String>() {
+            @Override
+            public String map(ResultSet resultSet, ResultSetMetaData mtdt) throws SQLException {
+                throw new AssertionError("The shape overload should be called");
+            }
+
+            @Override
+            public String map(ResultSet resultSet, ResultShape shape) throws SQLException {
+                shapeMaps.incrementAndGet();
+                return resultSet.getString(shape.indexOf("name"));
+            }
+        };
+
+        try(QueryCreator qc = new QueryCreator(countingConnection(metaDataCalls))) {
+            for (int i = 0; i < 5; i++) {
+                Assert.assertEquals(Arrays.asList("N1", "N2", "N3"), qc.create(SQL, labelMapper).setParameter("MAX", 3).getResultList());
+                List<Map<String, Object>> maps = qc.create(SQL, new MapRowMapper()).setParameter("MAX", 2).getResultList();
+                Assert.assertEquals(2L, maps.get(1).get("X"));
+                Assert.assertEquals(2, qc.create(SQL, new ArrayRowMapper()).setParameter("MAX", 1).getFirstResult().get().length);
+                NumberBean bean = qc.create(SQL, NumberBean.class).setParameter("MAX", 2).getResultList().get(1);
+                Assert.assertEquals(2L, bean.getNumber());
+                Assert.assertEquals("N2", bean.getName());
+            }
+        }
+
+        Assert.assertEquals(15, shapeMaps.get());
+        Assert.assertEquals(1, metaDataCalls.get());
+    }
+
+    public static class NumberBean {
+
+        private long number;
+        private String name;
+
+        public long getNumber() {
+            return number;
+        }
+
+        public void setNumber(long number) {
+            this.number = number;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+    }
+
+    /**
+     * A connection that counts the calls of ResultSet.getMetaData()
+     */
+    private static Connection countingConnection(AtomicInteger metaDataCalls) throws Exception {
+        Connection connection = TestDataSource.getNewConnection();
+        return proxy(Connection.class, connection, (method, result) -> {
+            if(!method.getName().equals("prepareStatement")) {
+                return result;
+            }
+            return proxy(PreparedStatement.class, result, (m, statementResult) -> {
+                if(!m.getName().equals("executeQuery")) {
+                    return statementResult;
+                }
+                return proxy(ResultSet.class, statementResult, (rm, rsResult) -> {
+                    if(rm.getName().equals("getMetaData")) {
+                        metaDataCalls.incrementAndGet();
+                    }
+                    return rsResult;
+                });
+            });
+        });
+    }
+
+    private interface Decorator {
+        Object decorate(Method method, Object result);
+    }
+
+    private static <T> T proxy(Class<T> type, Object target, Decorator decorator) {
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] { type }, (p, m, a) -> {
+            try {
+                return decorator.decorate(m, m.invoke(target, a));
+            }catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }));
+    }
+
+}
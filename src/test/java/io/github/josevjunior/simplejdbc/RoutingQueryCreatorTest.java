@@ -0,0 +1,135 @@
+package io.github.josevjunior.simplejdbc;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import javax.sql.DataSource;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class RoutingQueryCreatorTest {
+
+    private static final String NODE_SQL = "SELECT NAME FROM NODE";
+
+    private static DataSource primary;
+    private static List<DataSource> replicas;
+
+    @BeforeClass
+    public static void createDatabases() {
+        primary = database("primary");
+        replicas = Arrays.asList(database("replica0"), database("replica1"));
+    }
+
+    /**
+     * Each database has a NODE table with its own name
+     */
+    private static DataSource database(String name) {
+        JdbcDataSource ds = new JdbcDataSource();
+        ds.setURL("jdbc:h2:mem:routing_" + name + ";DB_CLOSE_DELAY=-1");
+        ds.setUser("sa");
+        ds.setPassword("sa");
+
+        try(QueryCreator qc = new QueryCreator(ds)) {
+            qc.create("CREATE TABLE IF NOT EXISTS NODE (NAME VARCHAR(20), COUNTER INTEGER)").executeUpdate();
+            qc.create("DELETE FROM NODE").executeUpdate();
+            qc.insert("NODE").col("NAME", name).col("COUNTER", 0).execute();
+        }
+        return ds;
+    }
+
+    @Test
+    public void testDetectSelect() {
+        Assert.assertTrue(NamedParameterSQL.parse("  select * from NODE").isSelect());
+        Assert.assertTrue(NamedParameterSQL.parse("(SELECT 1) UNION (SELECT 2)").isSelect());
+        Assert.assertTrue(NamedParameterSQL.parse("WITH T AS (SELECT 1) SELECT * FROM T").isSelect());
+        Assert.assertTrue(NamedParameterSQL.parse("/* update */ SELECT 'DELETE' FROM NODE -- insert").isSelect());
+        Assert.assertFalse(NamedParameterSQL.parse("SELECT * FROM NODE FOR UPDATE").isSelect());
+        Assert.assertFalse(NamedParameterSQL.parse("SELECT * INTO COPY FROM NODE").isSelect());
+        Assert.assertFalse(NamedParameterSQL.parse("UPDATE NODE SET NAME = 'SELECT'").isSelect());
+        Assert.assertFalse(NamedParameterSQL.parse("WITH T AS (SELECT 1) DELETE FROM NODE").isSelect());
+    }
+
+    @Test
+    public void testReadsGoToReplicasAndWritesToPrimary() {
+
+        try(RoutingQueryCreator qc = new RoutingQueryCreator(primary, replicas, LoadBalancingPolicies.roundRobin())) {
+            String node = qc.create(NODE_SQL, String.class).getFirstResult().get();
+            Assert.assertTrue(node.startsWith("replica"));
+
+            qc.update("NODE").set("COUNTER", 1).where().col("NAME", "primary").execute();
+            Assert.assertEquals("primary", qc.create("SELECT NAME FROM NODE FOR UPDATE", String.class).getFirstResult().get());
+            Assert.assertEquals("replica", qc.createReadOnly("CALL 'replica'", String.class).getFirstResult().get());
+        }
+
+        try(QueryCreator qc = new QueryCreator(primary)) {
+            Assert.assertEquals(Integer.valueOf(1), qc.create("SELECT COUNTER FROM NODE", Integer.class).getFirstResult().get());
+        }
+    }
+
+    @Test
+    public void testOpenTransactionStaysAtPrimary() {
+
+        try(RoutingQueryCreator qc = new RoutingQueryCreator(primary, replicas, LoadBalancingPolicies.roundRobin())) {
+            String node = new TransactionTemplate().execute(qc, q -> {
+                q.update("NODE").set("COUNTER", 2).where().col("NAME", "primary").execute();
+                return q.create(NODE_SQL, String.class).getFirstResult().get();
+            });
+
+            Assert.assertEquals("primary", node);
+            Assert.assertEquals(-1, qc.getReplicaIndex());
+            Assert.assertTrue(qc.create(NODE_SQL, String.class).getFirstResult().get().startsWith("replica"));
+        }
+    }
+
+    @Test
+    public void testRoundRobin() {
+
+        LoadBalancingPolicy policy = LoadBalancingPolicies.roundRobin();
+        List<String> nodes = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            try(RoutingQueryCreator qc = new RoutingQueryCreator(primary, replicas, policy)) {
+                nodes.add(qc.create(NODE_SQL, String.class).getFirstResult().get());
+                nodes.add(qc.create(NODE_SQL, String.class).getFirstResult().get());
+            }
+        }
+
+        Assert.assertEquals(Arrays.asList("replica0", "replica0", "replica1", "replica1",
+                "replica0", "replica0", "replica1", "replica1"), nodes);
+    }
+
+    @Test
+    public void testLeastOutstanding() {
+
+        LoadBalancingPolicy policy = LoadBalancingPolicies.leastOutstanding();
+
+        RoutingQueryCreator first = new RoutingQueryCreator(primary, replicas, policy);
+        RoutingQueryCreator second = new RoutingQueryCreator(primary, replicas, policy);
+        RoutingQueryCreator third = new RoutingQueryCreator(primary, replicas, policy);
+        try {
+            first.create(NODE_SQL, String.class).getResultList();
+            second.create(NODE_SQL, String.class).getResultList();
+            Assert.assertNotEquals(first.getReplicaIndex(), second.getReplicaIndex());
+
+            int released = first.getReplicaIndex();
+            first.close();
+
+            // The replica of the first creator is the only one without creators
+            third.create(NODE_SQL, String.class).getResultList();
+            Assert.assertEquals(released, third.getReplicaIndex());
+        } finally {
+            second.close();
+            third.close();
+        }
+    }
+
+    @Test
+    public void testWithoutReplicasEverythingGoesToPrimary() {
+
+        try(RoutingQueryCreator qc = new RoutingQueryCreator(primary, new ArrayList<>(), LoadBalancingPolicies.leastOutstanding())) {
+            Assert.assertEquals("primary", qc.create(NODE_SQL, String.class).getFirstResult().get());
+        }
+    }
+
+}
@@ -0,0 +1,235 @@
+package io.github.josevjunior.simplejdbc;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * The mapping of a single row by each {@link RowMapper}, with the result set
+ * kept at the row so only the mapper and the column reads are measured. The
+ * bean mapper is compared with the same bean filled by hand. Run with the
+ * benchmark profile, see the README
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RowMapperBenchmark {
+
+    private static final String ROW_SQL = "SELECT 1 AS ID, 'a' AS CHAR_COL, 'text' AS VARCHAR_COL, 42 AS INTEGER_COL, "
+            + "CAST(42 AS BIGINT) AS BIGINT_COL, CAST(42.5 AS NUMERIC(10, 2)) AS NUMERIC_COL, "
+            + "CAST(42.5 AS DOUBLE) AS DOUBLE_COL, CURRENT_TIMESTAMP AS TIMESTAMP_COL";
+
+    /**
+     * A open result set at its first row
+     */
+    public abstract static class Row {
+
+        Connection connection;
+        Statement statement;
+        ResultSet resultSet;
+        ResultShape shape;
+
+        void open(String sql) throws Exception {
+            connection = TestDataSource.getNewConnection();
+            statement = connection.createStatement();
+            resultSet = statement.executeQuery(sql);
+            resultSet.next();
+            shape = ResultShape.of(resultSet.getMetaData());
+        }
+
+        @TearDown(Level.Trial)
+        public void close() throws Exception {
+            resultSet.close();
+            statement.close();
+            connection.close();
+        }
+
+    }
+
+    @State(Scope.Thread)
+    public static class Columns extends Row {
+
+        private final ArrayRowMapper arrayMapper = new ArrayRowMapper();
+        private final MapRowMapper mapMapper = new MapRowMapper();
+        private final BasicBeanMapper<Bean> beanMapper = new BasicBeanMapper<>(Bean.class);
+
+        @Setup(Level.Trial)
+        public void setup() throws Exception {
+            open(ROW_SQL);
+        }
+
+    }
+
+    @State(Scope.Thread)
+    public static class SingleColumn extends Row {
+
+        @Param({"STRING", "INTEGER", "LONG", "DOUBLE", "BIGDECIMAL", "TIMESTAMP", "DATE"})
+        public String type;
+
+        private RowMapper<?> mapper;
+
+        @Setup(Level.Trial)
+        public void setup() throws Exception {
+            mapper = (RowMapper<?>) ColumnValueMappers.class.getField(type + "_COLUMN_VALUE_MAPPER").get(null);
+            open("SELECT " + column(type));
+        }
+
+        private static String column(String type) {
+            switch (type) {
+                case "STRING":
+                    return "'text'";
+                case "INTEGER":
+                    return "42";
+                case "LONG":
+                    return "CAST(42 AS BIGINT)";
+                case "DOUBLE":
+                    return "CAST(42.5 AS DOUBLE)";
+                case "BIGDECIMAL":
+                    return "CAST(42.5 AS NUMERIC(10, 2))";
+                case "TIMESTAMP":
+                    return "CURRENT_TIMESTAMP";
+                default:
+                    return "CURRENT_DATE";
+            }
+        }
+
+    }
+
+    @Benchmark
+    public Object[] arrayRowMapper(Columns row) throws Exception {
+        return row.arrayMapper.map(row.resultSet, row.shape);
+    }
+
+    @Benchmark
+    public Map<String, Object> mapRowMapper(Columns row) throws Exception {
+        return row.mapMapper.map(row.resultSet, row.shape);
+    }
+
+    @Benchmark
+    public Bean basicBeanMapper(Columns row) throws Exception {
+        return row.beanMapper.map(row.resultSet, row.shape);
+    }
+
+    @Benchmark
+    public Bean handWrittenBean(Columns row) throws Exception {
+        ResultSet rs = row.resultSet;
+        Bean bean = new Bean();
+        bean.setId(rs.getInt("ID"));
+        bean.setCharCol(rs.getString("CHAR_COL"));
+        bean.setVarcharCol(rs.getString("VARCHAR_COL"));
+        bean.setIntegerCol(rs.getInt("INTEGER_COL"));
+        bean.setBigintCol(rs.getLong("BIGINT_COL"));
+        bean.setNumericCol(rs.getBigDecimal("NUMERIC_COL"));
+        bean.setDoubleCol(rs.getDouble("DOUBLE_COL"));
+        bean.setTimestampCol(rs.getTimestamp("TIMESTAMP_COL"));
+        return bean;
+    }
+
+    @Benchmark
+    public Object columnValueMapper(SingleColumn row) throws Exception {
+        return row.mapper.map(row.resultSet, row.shape);
+    }
+
+    public static class Bean {
+
+        private Integer id;
+        private String charCol;
+        private String varcharCol;
+        private Integer integerCol;
+        private Long bigintCol;
+        private BigDecimal numericCol;
+        private Double doubleCol;
+        private Timestamp timestampCol;
+
+        public Integer getId() {
+            return id;
+        }
+
+        public void setId(Integer id) {
+            this.id = id;
+        }
+
+        public String getCharCol() {
+            return charCol;
+        }
+
+        public void setCharCol(String charCol) {
+            this.charCol = charCol;
+        }
+
+        public String getVarcharCol() {
+            return varcharCol;
+        }
+
+        public void setVarcharCol(String varcharCol) {
+            this.varcharCol = varcharCol;
+        }
+
+        public Integer getIntegerCol() {
+            return integerCol;
+        }
+
+        public void setIntegerCol(Integer integerCol) {
+            this.integerCol = integerCol;
+        }
+
+        public Long getBigintCol() {
+            return bigintCol;
+        }
+
+        public void setBigintCol(Long bigintCol) {
+            this.bigintCol = bigintCol;
+        }
+
+        public BigDecimal getNumericCol() {
+            return numericCol;
+        }
+
+        public void setNumericCol(BigDecimal numericCol) {
+            this.numericCol = numericCol;
+        }
+
+        public Double getDoubleCol() {
+            return doubleCol;
+        }
+
+        public void setDoubleCol(Double doubleCol) {
+            this.doubleCol = doubleCol;
+        }
+
+        public Timestamp getTimestampCol() {
+            return timestampCol;
+        }
+
+        public void setTimestampCol(Timestamp timestampCol) {
+            this.timestampCol = timestampCol;
+        }
+
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder().include(RowMapperBenchmark.class.getSimpleName()).build()).run();
+    }
+
+}
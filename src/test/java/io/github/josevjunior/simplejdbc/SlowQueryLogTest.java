@@ -0,0 +1,204 @@
+package io.github.josevjunior.simplejdbc;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class SlowQueryLogTest {
+
+    private static final String RANGE_SQL = "SELECT X FROM SYSTEM_RANGE(:MIN, :MAX)";
+
+    @Test
+    public void testSlowExecutionsAreLogged() {
+        Queue<SlowQueryLog.Entry> entries = new ConcurrentLinkedQueue<>();
+        QueryMetrics metrics = new QueryMetrics();
+        try(SlowQueryLog slowLog = new SlowQueryLog(16, entries::add).threshold(0, TimeUnit.NANOSECONDS);
+                QueryCreator qc = new QueryCreator(TestDataSource.getDataSource())) {
+            qc.setQueryListener(QueryListener.of(metrics, slowLog));
+
+            qc.create(RANGE_SQL, Long.class).setParameter("MIN", 2).setParameter("MAX", 4).getResultList();
+            qc.create(RANGE_SQL, Long.class).setParameter("MIN", 5).setParameter("MAX", null).getFirstResult();
+            qc.create("CREATE TABLE IF NOT EXISTS SLOW_ITEM (ID BIGINT)").executeUpdate();
+            qc.create("INSERT INTO SLOW_ITEM (ID) VALUES (:ID)").setParameter("ID", 7).executeUpdate();
+
+            slowLog.flush();
+            Assert.assertEquals(4, slowLog.getWrittenCount());
+        }
+
+        List<SlowQueryLog.Entry> list = new ArrayList<>(entries);
+        SlowQueryLog.Entry range = list.get(0);
+        Assert.assertEquals(NamedParameterSQL.parse(RANGE_SQL).getParsedQuery(), range.getSql());
+        Assert.assertEquals(Arrays.asList(2, 4), range.getParameters());
+        Assert.assertEquals(3, range.getRows());
+        Assert.assertFalse(range.isSampled());
+        Assert.assertTrue(range.getTotalNanos() > 0);
+        Assert.assertEquals(Thread.currentThread().getName(), range.getThreadName());
+
+        Assert.assertEquals(Arrays.asList(5, null), list.get(1).getParameters());
+        Assert.assertEquals(0, list.get(1).getRows());
+        Assert.assertEquals(Arrays.asList(7), list.get(3).getParameters());
+        Assert.assertEquals(1, list.get(3).getRows());
+
+        // The other listener still gets its calls
+        Assert.assertEquals(2, metrics.getStatement(range.getSql()).getExecutionCount());
+    }
+
+    @Test
+    public void testFailedExecutionsAreLogged() {
+        Queue<SlowQueryLog.Entry> entries = new ConcurrentLinkedQueue<>();
+        List<RuntimeException> failures = new ArrayList<>();
+        QueryListener failureListener = new QueryListener() {
+            @Override
+            public void failed(String sql, Object[] parameters, long nanos, RuntimeException error) {
+                failures.add(error);
+            }
+        };
+        try(SlowQueryLog slowLog = new SlowQueryLog(16, entries::add).threshold(100, TimeUnit.MILLISECONDS);
+                QueryCreator qc = new QueryCreator(TestDataSource.getDataSource())) {
+            qc.setQueryListener(QueryListener.of(failureListener, slowLog));
+
+            // Fails fast, below the threshold
+            try {
+                qc.create("SELECT 1 / :ZERO").setParameter("ZERO", 0).getResultList();
+                Assert.fail();
+            }catch (JdbcException expected) {
+            }
+
+            // Runs until its timeout
+            JdbcException timeout = null;
+            try {
+                qc.create("SELECT COUNT(*) FROM SYSTEM_RANGE(1, 100000) A, SYSTEM_RANGE(1, 100000) B WHERE A.X + B.X = :X", Long.class)
+                        .setParameter("X", 0)
+                        .timeout(200, TimeUnit.MILLISECONDS)
+                        .getFirstResult();
+                Assert.fail();
+            }catch (JdbcException expected) {
+                timeout = expected;
+            }
+
+            slowLog.flush();
+            Assert.assertEquals(2, failures.size());
+            Assert.assertSame(timeout, failures.get(1));
+            Assert.assertEquals(1, entries.size());
+            SlowQueryLog.Entry entry = entries.peek();
+            Assert.assertSame(timeout, entry.getError());
+            Assert.assertEquals(Arrays.asList(0), entry.getParameters());
+            Assert.assertEquals(-1, entry.getRows());
+            Assert.assertTrue(entry.getTotalNanos() >= TimeUnit.MILLISECONDS.toNanos(100));
+        }
+    }
+
+    @Test
+    public void testSampling() {
+        Queue<SlowQueryLog.Entry> entries = new ConcurrentLinkedQueue<>();
+        try(SlowQueryLog slowLog = new SlowQueryLog(1024, entries::add).threshold(1, TimeUnit.HOURS)) {
+            slowLog.completed("SELECT 1", new Object[0], 10, 10, 1);
+            slowLog.flush();
+            Assert.assertTrue(entries.isEmpty());
+
+            slowLog.sampleRate(1);
+            slowLog.completed("SELECT 2", new Object[0], 10, 10, 1);
+            slowLog.flush();
+            Assert.assertEquals(1, entries.size());
+            Assert.assertTrue(entries.peek().isSampled());
+
+            slowLog.sampleRate(0.1);
+            for (int i = 0; i < 10_000; i++) {
+                slowLog.completed("SELECT 3", new Object[0], 10, 10, 1);
+                if(i % 500 == 0) {
+                    slowLog.flush();
+                }
+            }
+            slowLog.flush();
+            int sampled = entries.size() - 1;
+            Assert.assertTrue("Sampled " + sampled, sampled > 800 && sampled < 1200);
+        }
+    }
+
+    @Test
+    public void testFullBufferDropsWithoutBlocking() throws Exception {
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<String> written = new ArrayList<>();
+
+        SlowQueryLog slowLog = new SlowQueryLog(4, entry -> {
+            writing.countDown();
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            }catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            written.add(entry.getSql());
+        }).threshold(0, TimeUnit.NANOSECONDS);
+
+        try {
+            // The writer takes the first entry and blocks on it
+            slowLog.completed("0", new Object[0], 1, 0, 0);
+            Assert.assertTrue(writing.await(10, TimeUnit.SECONDS));
+
+            long start = System.nanoTime();
+            for (int i = 1; i <= 10; i++) {
+                slowLog.completed(String.valueOf(i), new Object[0], 1, 0, 0);
+            }
+            Assert.assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(1));
+            Assert.assertEquals(6, slowLog.getDroppedCount());
+        } finally {
+            release.countDown();
+            slowLog.close();
+        }
+
+        Assert.assertEquals(Arrays.asList("0", "1", "2", "3", "4"), written);
+        Assert.assertEquals(5, slowLog.getWrittenCount());
+    }
+
+    @Test
+    public void testConcurrentProducers() throws Exception {
+        int threads = 8;
+        int perThread = 20_000;
+        Queue<SlowQueryLog.Entry> entries = new ConcurrentLinkedQueue<>();
+        SlowQueryLog slowLog = new SlowQueryLog(256, entries::add).threshold(0, TimeUnit.NANOSECONDS);
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int thread = t;
+                futures.add(executor.submit(() -> {
+                    Object[] parameters = new Object[2];
+                    for (int i = 0; i < perThread; i++) {
+                        parameters[0] = thread;
+                        parameters[1] = i;
+                        slowLog.completed("SELECT ?, ?", parameters, 1, 0, 0);
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(1, TimeUnit.MINUTES);
+            }
+        } finally {
+            executor.shutdownNow();
+            slowLog.close();
+        }
+
+        Assert.assertEquals(threads * perThread, slowLog.getWrittenCount() + slowLog.getDroppedCount());
+        Assert.assertEquals(slowLog.getWrittenCount(), entries.size());
+
+        // Every written entry is complete and written once
+        Set<List<Object>> unique = new HashSet<>();
+        for (SlowQueryLog.Entry entry : entries) {
+            Assert.assertTrue(unique.add(entry.getParameters()));
+        }
+    }
+
+}
@@ -0,0 +1,138 @@
+package io.github.josevjunior.simplejdbc;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class StatementLifecycleTest {
+
+    // A longer soak with -Dsimplejdbc.soak.iterations=1000000
+    private static final int ITERATIONS = Integer.getInteger("simplejdbc.soak.iterations", 20_000);
+
+    @Test
+    public void testOpenStatementsStayFlat() throws Exception {
+
+        AtomicInteger open = new AtomicInteger();
+        int maxOpen = 0;
+
+        try(QueryCreator qc = new QueryCreator(countingConnection(open))) {
+            for (int i = 0; i < ITERATIONS; i++) {
+                List<Long> result = qc.create("SELECT X FROM SYSTEM_RANGE(:I, :I)", Long.class)
+                        .setParameter("I", i)
+                        .getResultList();
+                if(i % 3 == 0) {
+                    qc.create("SELECT :I").setParameter("I", i).getFirstResult();
+                }
+
+                Assert.assertEquals(Long.valueOf(i), result.get(0));
+                maxOpen = Math.max(maxOpen, open.get());
+            }
+
+            Assert.assertEquals(2, qc.getOpenStatementCount());
+            Assert.assertTrue("Open statements: " + maxOpen, maxOpen <= 2);
+        }
+
+        Assert.assertEquals(0, open.get());
+    }
+
+    @Test
+    public void testCloseStatementsOfCollectedQueries() throws Exception {
+
+        AtomicInteger open = new AtomicInteger();
+        try(QueryCreator qc = new QueryCreator(countingConnection(open))) {
+            List<Query<Object[]>> abandoned = new ArrayList<>();
+            for (int i = 0; i < 1000; i++) {
+                abandoned.add(qc.create("SELECT 1"));
+            }
+            Assert.assertEquals(1000, qc.getOpenStatementCount());
+
+            abandoned = null;
+            for (int i = 0; i < 50 && qc.getOpenStatementCount() > 0; i++) {
+                System.gc();
+                Thread.sleep(20);
+            }
+
+            Assert.assertEquals(0, qc.getOpenStatementCount());
+            Assert.assertEquals(0, open.get());
+        }
+    }
+
+    @Test
+    public void testExecuteAgainAfterStatementWasGivenBack() {
+
+        try(QueryCreator qc = new QueryCreator(TestDataSource.getDataSource())) {
+            Query<Long> query = qc.create("SELECT X FROM SYSTEM_RANGE(:MIN, :MAX)", Long.class)
+                    .setParameter("MIN", 1)
+                    .setParameter("MAX", 3);
+            Assert.assertEquals(3, query.getResultList().size());
+
+            // Takes the idle statement, so the first query leases other one
+            Query<Long> other = qc.create("SELECT X FROM SYSTEM_RANGE(:MIN, :MAX)", Long.class);
+            other.getNativeStatement();
+
+            query.setParameter("MIN", 2);
+            Assert.assertEquals(2, query.getResultList().size());
+            Assert.assertNotSame(query.getNativeStatement(), other.getNativeStatement());
+        }
+    }
+
+    @Test
+    public void testCloseGivesStatementBack() throws Exception {
+
+        try(QueryCreator qc = new QueryCreator(TestDataSource.getDataSource())) {
+            PreparedStatement statement;
+            try(Query<Object[]> query = qc.create("SELECT 1")) {
+                statement = query.getNativeStatement();
+                Assert.assertEquals(1, qc.getOpenStatementCount());
+            }
+
+            try(Query<Object[]> again = qc.create("SELECT 1")) {
+                Assert.assertSame(statement, again.getNativeStatement());
+            }
+
+            qc.setStatementCacheSize(0);
+            Assert.assertTrue(statement.isClosed());
+
+            qc.create("SELECT 1").getResultList();
+            Assert.assertEquals(0, qc.getOpenStatementCount());
+        }
+    }
+
+    /**
+     * A connection that counts its open statements
+     */
+    private static Connection countingConnection(AtomicInteger open) throws Exception {
+        Connection connection = TestDataSource.getNewConnection();
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[] { Connection.class }, (proxy, method, args) -> {
+            Object result = invoke(connection, method, args);
+            if(!method.getName().equals("prepareStatement")) {
+                return result;
+            }
+
+            open.incrementAndGet();
+            boolean[] closed = new boolean[1];
+            return Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(), new Class<?>[] { PreparedStatement.class }, (p, m, a) -> {
+                if(m.getName().equals("close") && !closed[0]) {
+                    closed[0] = true;
+                    open.decrementAndGet();
+                }
+                return invoke(result, m, a);
+            });
+        });
+    }
+
+    private static Object invoke(Object target, java.lang.reflect.Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        }catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+}
@@ -3,7 +3,9 @@ package io.github.josevjunior.simplejdbc;
 
 import io.github.josevjunior.simplejdbc.SQLStatementBuilder;
 import io.github.josevjunior.simplejdbc.UpdateBuilder;
+import java.util.Arrays;
 import java.util.Date;
+import java.util.List;
 import org.junit.Assert;
 import org.junit.Test;
 
@@ -28,4 +30,30 @@ public class StatementSQLBuilderTest {
         
     }
     
+    @Test
+    public void testUpsertStatement() {
+        
+        List<String> keys = Arrays.asList("ID");
+        List<String> values = Arrays.asList("NAME", "SALARY");
+        
+        Assert.assertEquals("MERGE INTO USERS (ID, NAME, SALARY) KEY(ID) VALUES (:ID, :NAME, :SALARY)", 
+                SQLDialects.H2.createUpsert("USERS", keys, values).toString());
+        Assert.assertEquals("INSERT INTO USERS (ID, NAME, SALARY) VALUES (:ID, :NAME, :SALARY) ON CONFLICT (ID) DO UPDATE SET NAME = EXCLUDED.NAME, SALARY = EXCLUDED.SALARY", 
+                SQLDialects.POSTGRESQL.createUpsert("USERS", keys, values).toString());
+        
+    }
+    
+    @Test
+    public void testDeleteStatement() {
+        
+        DeleteBuilder.DeleteBuilderCondition condition = new DeleteBuilder(null, "USERS")
+                .where()
+                .col("GENRE", "M")
+                .in("ID", Arrays.asList(1, 2, 3));
+        
+        Assert.assertEquals("DELETE FROM USERS WHERE GENRE = :V$_GENRE AND ID IN (:IN$_0, :IN$_1)", 
+                new SQLStatementBuilder().createDelete(condition, 2).toString());
+        
+    }
+    
 }
@@ -0,0 +1,163 @@
+package io.github.josevjunior.simplejdbc;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TransactionTemplateTest {
+
+    @Test
+    public void testRetryDeadlock() {
+
+        TransactionTemplate tx = new TransactionTemplate()
+                .maxRetries(5)
+                .backoff(1, 5, TimeUnit.MILLISECONDS);
+
+        AtomicInteger attempts = new AtomicInteger();
+        String result = tx.execute(TestDataSource.getDataSource(), qc -> {
+            qc.insert("TEST_TABLE").col("ID", 3200 + attempts.get()).col("INTEGER_COL", 32).execute();
+            if(attempts.incrementAndGet() < 3) {
+                throw new SQLException("Deadlock detected", "40001");
+            }
+            return "DONE";
+        });
+
+        Assert.assertEquals("DONE", result);
+        Assert.assertEquals(2, tx.getRetryCount());
+        Assert.assertEquals(1, tx.getCommitCount());
+        Assert.assertEquals(0, tx.getAbortCount());
+        Assert.assertEquals(Long.valueOf(1), countRows());
+    }
+
+    @Test
+    public void testFailedAttemptForgetsItsWrites() {
+
+        TransactionTemplate tx = new TransactionTemplate()
+                .maxRetries(1)
+                .backoff(1, 1, TimeUnit.MILLISECONDS);
+
+        AtomicInteger attempts = new AtomicInteger();
+        try(QueryCreator qc = new QueryCreator(TestDataSource.getDataSource())) {
+            // A cache makes the creator track the written tables
+            qc.setQueryCache(new QueryCache());
+            tx.execute(qc, q -> {
+                if(attempts.incrementAndGet() == 1) {
+                    q.insert("TEST_TABLE").col("ID", 3400).col("INTEGER_COL", 34).execute();
+                    Assert.assertNotNull(q.getWrittenRows("TEST_TABLE"));
+                    throw new SQLException("Deadlock detected", "40001");
+                }
+                Assert.assertNull(q.getWrittenRows("TEST_TABLE"));
+                return null;
+            });
+        }
+
+        Assert.assertEquals(2, attempts.get());
+        Assert.assertEquals(1, tx.getCommitCount());
+    }
+
+    @Test
+    public void testAbortWhenNotRetryableOrBudgetIsOver() {
+
+        TransactionTemplate tx = new TransactionTemplate()
+                .maxRetries(2)
+                .backoff(1, 1, TimeUnit.MILLISECONDS);
+
+        try {
+            tx.execute(TestDataSource.getDataSource(), qc -> {
+                throw new SQLException("Syntax error", "42000");
+            });
+            Assert.fail();
+        }catch (JdbcException expected) {
+        }
+        Assert.assertEquals(0, tx.getRetryCount());
+
+        AtomicInteger attempts = new AtomicInteger();
+        try {
+            tx.execute(TestDataSource.getDataSource(), qc -> {
+                attempts.incrementAndGet();
+                throw new JdbcException(new SQLException("Lock timeout", "HYT00"));
+            });
+            Assert.fail();
+        }catch (JdbcException expected) {
+        }
+
+        Assert.assertEquals(3, attempts.get());
+        Assert.assertEquals(2, tx.getRetryCount());
+        Assert.assertEquals(2, tx.getAbortCount());
+    }
+
+    @Test
+    public void testApplyAndRestoreConnectionSettings() throws Exception {
+
+        try(QueryCreator qc = new QueryCreator(TestDataSource.getDataSource())) {
+            Connection connection = qc.getNativeConnection();
+            int isolation = connection.getTransactionIsolation();
+
+            new TransactionTemplate()
+                .isolation(Connection.TRANSACTION_SERIALIZABLE)
+                .readOnly(true)
+                .execute(qc, q -> {
+                    Assert.assertFalse(connection.getAutoCommit());
+                    Assert.assertEquals(Connection.TRANSACTION_SERIALIZABLE, connection.getTransactionIsolation());
+                    return null;
+                });
+
+            Assert.assertTrue(connection.getAutoCommit());
+            Assert.assertEquals(isolation, connection.getTransactionIsolation());
+        }
+    }
+
+    private Long countRows() {
+        try(QueryCreator qc = new QueryCreator(TestDataSource.getDataSource())) {
+            return qc.create("SELECT COUNT(*) FROM TEST_TABLE WHERE INTEGER_COL = 32", Long.class).getFirstResult().get();
+        }
+    }
+
+    @Test
+    public void testRestoreFailureDoesNotHideTheTransactionFailure() throws Exception {
+
+        Connection target = TestDataSource.getNewConnection();
+        Connection connection = (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[] { Connection.class }, (p, m, a) -> {
+            if(m.getName().equals("setAutoCommit") && Boolean.TRUE.equals(a[0])) {
+                throw new SQLException("Connection reset");
+            }
+            try {
+                return m.invoke(target, a);
+            }catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        });
+
+        int isolation = target.getTransactionIsolation();
+        try(QueryCreator qc = new QueryCreator(connection)) {
+            TransactionTemplate tx = new TransactionTemplate().isolation(Connection.TRANSACTION_SERIALIZABLE);
+            try {
+                tx.execute(qc, q -> {
+                    throw new IllegalStateException("Work failed");
+                });
+                Assert.fail();
+            }catch (IllegalStateException expected) {
+                Assert.assertEquals(1, expected.getSuppressed().length);
+                Assert.assertEquals("Connection reset", expected.getSuppressed()[0].getMessage());
+            }
+            // The other settings are still restored
+            Assert.assertEquals(isolation, target.getTransactionIsolation());
+            target.setAutoCommit(true);
+
+            try {
+                tx.execute(qc, q -> null);
+                Assert.fail();
+            }catch (JdbcException expected) {
+                Assert.assertEquals("Connection reset", expected.getCause().getMessage());
+            }
+        } finally {
+            target.close();
+        }
+    }
+
+}
@@ -0,0 +1,89 @@
+package io.github.josevjunior.simplejdbc;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class WriteBehindUpdaterTest {
+
+    @BeforeClass
+    public static void beforeAll() {
+        try(QueryCreator qc = new QueryCreator(TestDataSource.getDataSource())) {
+            InsertBuilder insert = qc.insert("TEST_TABLE");
+            for (int i = 0; i < 3; i++) {
+                insert.col("ID", 2900 + i).col("INTEGER_COL", 29).col("BIGINT_COL", 0L).addBatch();
+            }
+            insert.execute();
+        }
+    }
+
+    @Test
+    public void testMergeUpdatesOfSameRow() throws Exception {
+
+        try(WriteBehindUpdater updater = new WriteBehindUpdater(TestDataSource.getDataSource(), 1000, 1, TimeUnit.HOURS)) {
+            for (long i = 1; i <= 500; i++) {
+                updater.update("TEST_TABLE").set("BIGINT_COL", i).key("ID", 2900).submit();
+                updater.update("TEST_TABLE").set("BIGINT_COL", i * 2).key("ID", 2901).submit();
+            }
+            updater.update("TEST_TABLE").set("VARCHAR_COL", "LAST").key("ID", 2900).submit();
+
+            Assert.assertEquals(2, updater.getPendingCount());
+            updater.flush();
+            Assert.assertEquals(0, updater.getPendingCount());
+        }
+
+        Assert.assertEquals(Long.valueOf(500), getBigint(2900));
+        Assert.assertEquals(Long.valueOf(1000), getBigint(2901));
+    }
+
+    @Test
+    public void testFlushInBackgroundAndOnClose() throws Exception {
+
+        WriteBehindUpdater updater = new WriteBehindUpdater(TestDataSource.getDataSource(), 1000, 50, TimeUnit.MILLISECONDS);
+        updater.update("TEST_TABLE").set("BIGINT_COL", 7L).key("ID", 2902).submit();
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while(getBigint(2902) != 7 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        Assert.assertEquals(Long.valueOf(7), getBigint(2902));
+
+        updater.update("TEST_TABLE").set("BIGINT_COL", 8L).key("ID", 2902).submit();
+        updater.close();
+        Assert.assertEquals(Long.valueOf(8), getBigint(2902));
+    }
+
+    @Test
+    public void testNotifyFailure() throws Exception {
+
+        CountDownLatch latch = new CountDownLatch(1);
+        AtomicReference<List<WriteBehindUpdater.Update>> failed = new AtomicReference<>();
+
+        try(WriteBehindUpdater updater = new WriteBehindUpdater(TestDataSource.getDataSource(), 1, 1, TimeUnit.HOURS)) {
+            updater.onFailure((updates, e) -> {
+                failed.set(updates);
+                latch.countDown();
+            });
+            updater.update("TEST_TABLE").set("UNKNOWN_COL", 1).key("ID", 2900).submit();
+
+            Assert.assertTrue(latch.await(5, TimeUnit.SECONDS));
+        }
+
+        Assert.assertEquals(1, failed.get().size());
+        Assert.assertEquals("TEST_TABLE", failed.get().get(0).getTable());
+    }
+
+    private Long getBigint(int id) {
+        try(QueryCreator qc = new QueryCreator(TestDataSource.getDataSource())) {
+            return qc.create("SELECT BIGINT_COL FROM TEST_TABLE WHERE ID = ?", Long.class)
+                    .setParameter(1, id)
+                    .getFirstResult()
+                    .get();
+        }
+    }
+
+}